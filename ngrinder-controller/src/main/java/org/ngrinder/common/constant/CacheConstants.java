@@ -41,6 +41,9 @@ public interface CacheConstants {
 	String AGENT_TOPIC_NAME = "agent_topic";
 	String AGENT_TOPIC_LISTENER_NAME = "agent_topic_listener";
 
+	String SAMPLING_TOPIC_NAME = "sampling_topic";
+	String SAMPLING_TOPIC_LISTENER_NAME = "sampling_topic_listener";
+
 	String CACHE_USER_ENTITY = "org.ngrinder.model.User";
 
 	String LOCAL_CACHE_GITHUB_SCRIPTS = "github_scripts";
@@ -82,4 +82,5 @@ public interface ControllerConstants {
 	String PROP_CONTROLLER_ENABLE_STATISTICS = "controller.enable_statistics";
 	String PROP_CONTROLLER_CSV_SEPARATOR = "controller.csv_separator";
 	String PROP_CONTROLLER_GITHUB_BASE_URL = "controller.github_base_url";
+	String PROP_CONTROLLER_STRAGGLER_AGENT_DEVIATION = "controller.straggler_agent_deviation";
 }
@@ -27,6 +27,7 @@ import net.grinder.util.NetworkUtils;
 import org.ngrinder.common.constant.ClusterConstants;
 import org.ngrinder.infra.hazelcast.topic.message.TopicEvent;
 import org.ngrinder.infra.hazelcast.topic.subscriber.TopicSubscriber;
+import org.ngrinder.perftest.model.SamplingDataSerializableFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.support.CompositeCacheManager;
@@ -97,6 +98,8 @@ public class DynamicCacheConfig implements ClusterConstants {
 		hazelcastConfig.addExecutorConfig(getExecutorConfig(REGION_EXECUTOR_SERVICE_NAME));
 		hazelcastConfig.addExecutorConfig(getExecutorConfig(AGENT_EXECUTOR_SERVICE_NAME));
 		hazelcastConfig.addTopicConfig(getTopicConfig());
+		hazelcastConfig.getSerializationConfig().addDataSerializableFactory(SamplingDataSerializableFactory.FACTORY_ID,
+			new SamplingDataSerializableFactory());
 		NetworkConfig networkConfig = hazelcastConfig.getNetworkConfig();
 
 		JoinConfig join = networkConfig.getJoin();
@@ -129,6 +132,8 @@ public class DynamicCacheConfig implements ClusterConstants {
 		HazelcastInstance hazelcastInstance = Hazelcast.newHazelcastInstance(hazelcastConfig);
 		ITopic<TopicEvent> topic = hazelcastInstance.getTopic(AGENT_TOPIC_NAME);
 		topic.addMessageListener(topicSubscriber());
+		ITopic<TopicEvent> samplingTopic = hazelcastInstance.getTopic(SAMPLING_TOPIC_NAME);
+		samplingTopic.addMessageListener(topicSubscriber());
 		return hazelcastInstance;
 	}
 
@@ -21,13 +21,13 @@ import org.apache.commons.lang.mutable.MutableInt;
 import org.ngrinder.agent.service.AgentService;
 import org.ngrinder.common.constant.ControllerConstants;
 import org.ngrinder.common.constants.GrinderConstants;
-import org.ngrinder.common.util.JsonUtils;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.infra.hazelcast.HazelcastService;
 import org.ngrinder.infra.logger.CoreLogger;
 import org.ngrinder.model.*;
 import org.ngrinder.perftest.model.SamplingModel;
 import org.ngrinder.perftest.service.AgentManager;
+import org.ngrinder.perftest.service.PerfTestSampleStreamService;
 import org.ngrinder.perftest.service.PerfTestService;
 import org.ngrinder.perftest.service.TagService;
 import org.ngrinder.region.service.RegionService;
@@ -44,7 +44,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.net.URL;
 import java.util.*;
@@ -62,6 +64,7 @@ import static org.ngrinder.common.util.CollectionUtils.newHashMap;
 import static org.ngrinder.common.util.ExceptionUtils.processException;
 import static org.ngrinder.common.util.Preconditions.*;
 import static org.ngrinder.common.util.TypeConvertUtils.cast;
+import static org.ngrinder.perftest.service.PerfTestSampleStreamService.toSample;
 import static org.springframework.data.domain.Sort.Direction.*;
 import static org.springframework.data.domain.Sort.by;
 
@@ -76,6 +79,8 @@ import static org.springframework.data.domain.Sort.by;
 @RequiredArgsConstructor
 public class PerfTestApiController {
 
+	private static final long MAX_INCREMENTAL_ROW_COUNT = 3600;
+
 	private final PerfTestService perfTestService;
 
 	private final TagService tagService;
@@ -98,6 +103,8 @@ public class PerfTestApiController {
 
 	private final Config config;
 
+	private final PerfTestSampleStreamService perfTestSampleStreamService;
+
 	/**
 	 * Get the perf test lists.
 	 *
@@ -244,7 +251,7 @@ public class PerfTestApiController {
 		PerfTest test = getOneWithPermissionCheck(user, id, false);
 		int interval = perfTestService.getReportDataInterval(id, "TPS", imgWidth);
 		model.put(PARAM_LOG_LIST, perfTestService.getLogFiles(id));
-		model.put(PARAM_TEST_CHART_INTERVAL, interval * test.getSamplingInterval());
+		model.put(PARAM_TEST_CHART_INTERVAL, getChartInterval(test, interval));
 		model.put(PARAM_TEST, test);
 		model.put(PARAM_TPS, perfTestService.getSingleReportData(id, "TPS", interval));
 		return model;
@@ -323,19 +330,34 @@ public class PerfTestApiController {
 
 		SamplingModel samplingModel = hazelcastService.get(DIST_MAP_NAME_SAMPLING, test.getId());
 		if (samplingModel != null) {
-			map.put("perf", JsonUtils.deserialize(samplingModel.getRunningSample(), HashMap.class));
-			map.put("agent", JsonUtils.deserialize(samplingModel.getAgentState(), HashMap.class));
-		}
-
-		String monitoringJson = hazelcastService.get(DIST_MAP_NAME_MONITORING, test.getId());
-		if (monitoringJson != null) {
-			map.put("monitor", JsonUtils.deserialize(monitoringJson, HashMap.class));
+			map.putAll(toSample(samplingModel, hazelcastService.get(DIST_MAP_NAME_MONITORING, test.getId())));
 		}
 
 		map.put("status", test.getStatus());
 		return map;
 	}
 
+	/**
+	 * Subscribe the samples of the running test. Each sample is pushed as a "sample" event in the same form
+	 * of {@link #refreshTestRunning(User, long)} without the status, and an "end" event is sent when the
+	 * sampling is finished, or at once if the test is not running.
+	 *
+	 * @param user user
+	 * @param id   test id
+	 * @return server sent event emitter
+	 */
+	@GetMapping(value = "/{id}/sample/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamTestRunning(User user, @PathVariable long id) {
+		PerfTest test = checkNotNull(getOneWithPermissionCheck(user, id, false), "given test should be exist : " + id);
+		return perfTestSampleStreamService.subscribe(id, isSampled(test.getStatus()));
+	}
+
+	private static boolean isSampled(Status status) {
+		StatusCategory category = status.getCategory();
+		return category == StatusCategory.PROGRESSING || category == StatusCategory.TESTING
+			|| category == StatusCategory.ABNORMAL_TESTING;
+	}
+
 	@GetMapping("/{id}/detail_report")
 	public Map<String, Object> getReport(@PathVariable long id) {
 		Map<String, Object> model = newHashMap();
@@ -617,7 +639,45 @@ public class PerfTestApiController {
 			Map<String, List<Float>> result = perfTestService.getReportData(id, each, onlyTotal, interval);
 			resultMap.put(each, result);
 		}
-		resultMap.put(PARAM_TEST_CHART_INTERVAL, interval * test.getSamplingInterval());
+		resultMap.put(PARAM_TEST_CHART_INTERVAL, getChartInterval(test, interval));
+		return resultMap;
+	}
+
+	/**
+	 * Get the seconds between the points of a report chart, which may be less than a second.
+	 */
+	private static double getChartInterval(PerfTest test, int pointInterval) {
+		return pointInterval * test.getSamplingIntervalMillis() / 1000D;
+	}
+
+	/**
+	 * Get the report graph data which were written since the given offset, so a live chart appends
+	 * the new points instead of fetching the whole graph on every refresh. The points are not downsampled.
+	 * The returned "offset" is the one to be passed in the next call.
+	 *
+	 * @param user      user
+	 * @param id        test id
+	 * @param dataType  which data
+	 * @param onlyTotal true if only total show be passed
+	 * @param offset    number of rows the chart already has
+	 * @return perf test result list.
+	 */
+	@GetMapping("/{id}/perf/since")
+	public Map<String, Object> getPerfGraphSince(User user, @PathVariable long id,
+												 @RequestParam(defaultValue = "") String dataType,
+												 @RequestParam(defaultValue = "false") boolean onlyTotal,
+												 @RequestParam(defaultValue = "0") long offset) {
+		String[] dataTypes = checkNotEmpty(StringUtils.split(dataType, ","), "dataType argument should be provided");
+		PerfTest test = checkNotNull(getOneWithPermissionCheck(user, id, false), "given test should be exist : " + id);
+		long from = Math.max(offset, 0);
+		// A chart which opens in the middle of a long test catches up in a few calls.
+		long to = Math.min(perfTestService.getReportRowCount(id), from + MAX_INCREMENTAL_ROW_COUNT);
+		Map<String, Object> resultMap = Maps.newHashMap();
+		for (String each : dataTypes) {
+			resultMap.put(each, perfTestService.getReportData(id, each, onlyTotal, from, to));
+		}
+		resultMap.put(PARAM_TEST_CHART_INTERVAL, getChartInterval(test, 1));
+		resultMap.put("offset", Math.max(to, from));
 		return resultMap;
 	}
 
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.perftest.model;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import lombok.Getter;
+import org.ngrinder.monitor.controller.model.SystemDataModel;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Status of the target hosts which are monitored while a perf test is running.
+ *
+ * @since 3.5.5
+ */
+@Getter
+public class MonitoringModel implements IdentifiedDataSerializable {
+	private Map<String, SystemDataModel> targetState;
+
+	MonitoringModel() {
+		this(Collections.emptyMap());
+	}
+
+	public MonitoringModel(Map<String, SystemDataModel> targetState) {
+		this.targetState = targetState;
+	}
+
+	@Override
+	public int getFactoryId() {
+		return SamplingDataSerializableFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return SamplingDataSerializableFactory.MONITORING_MODEL_ID;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		SamplingDataIO.writeSystemDataModels(out, targetState);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		targetState = SamplingDataIO.readSystemDataModels(in);
+	}
+}
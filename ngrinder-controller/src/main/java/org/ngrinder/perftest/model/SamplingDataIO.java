@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.perftest.model;
+
+import org.ngrinder.monitor.controller.model.SystemDataModel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary form of the sampling data.
+ * <p>
+ * The statistics are a tree of maps, lists, numbers and strings. Each value is written with a one byte tag,
+ * so it's read back in the same types and serialized into the same json as the original one.
+ * The {@link SystemDataModel}s are written field by field.
+ *
+ * @since 3.5.5
+ */
+final class SamplingDataIO {
+	private static final byte NULL = 0;
+	private static final byte BOOLEAN = 1;
+	private static final byte INT = 2;
+	private static final byte LONG = 3;
+	private static final byte FLOAT = 4;
+	private static final byte DOUBLE = 5;
+	private static final byte STRING = 6;
+	private static final byte LIST = 7;
+	private static final byte MAP = 8;
+
+	private SamplingDataIO() {
+	}
+
+	static void writeValue(DataOutput out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			out.writeByte(INT);
+			out.writeInt(((Number) value).intValue());
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Number) {
+			out.writeByte(DOUBLE);
+			out.writeDouble(((Number) value).doubleValue());
+		} else if (value instanceof Collection) {
+			Collection<?> collection = (Collection<?>) value;
+			out.writeByte(LIST);
+			out.writeInt(collection.size());
+			for (Object each : collection) {
+				writeValue(out, each);
+			}
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeByte(MAP);
+			out.writeInt(map.size());
+			for (Map.Entry<?, ?> each : map.entrySet()) {
+				writeValue(out, each.getKey());
+				writeValue(out, each.getValue());
+			}
+		} else {
+			out.writeByte(STRING);
+			writeString(out, value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+		}
+	}
+
+	static Object readValue(DataInput in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case NULL:
+				return null;
+			case BOOLEAN:
+				return in.readBoolean();
+			case INT:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case FLOAT:
+				return in.readFloat();
+			case DOUBLE:
+				return in.readDouble();
+			case STRING:
+				return readString(in);
+			case LIST:
+				int length = in.readInt();
+				List<Object> list = new ArrayList<>(length);
+				for (int i = 0; i < length; i++) {
+					list.add(readValue(in));
+				}
+				return list;
+			case MAP:
+				int size = in.readInt();
+				Map<Object, Object> map = new LinkedHashMap<>(size * 2);
+				for (int i = 0; i < size; i++) {
+					map.put(readValue(in), readValue(in));
+				}
+				return map;
+			default:
+				throw new IOException("Unknown sampling data tag " + tag);
+		}
+	}
+
+	static void writeSystemDataModels(DataOutput out, Map<String, SystemDataModel> systemDataModels) throws IOException {
+		out.writeInt(systemDataModels.size());
+		for (Map.Entry<String, SystemDataModel> each : systemDataModels.entrySet()) {
+			writeString(out, each.getKey());
+			SystemDataModel model = each.getValue();
+			out.writeBoolean(model != null);
+			if (model == null) {
+				continue;
+			}
+			writeString(out, model.getKey());
+			writeString(out, model.getIp());
+			out.writeInt(model.getPort());
+			writeString(out, model.getSystem());
+			out.writeLong(model.getCollectTime());
+			out.writeLong(model.getFreeMemory());
+			out.writeLong(model.getTotalMemory());
+			out.writeFloat(model.getCpuUsedPercentage());
+			out.writeLong(model.getReceivedPerSec());
+			out.writeLong(model.getSentPerSec());
+			writeString(out, model.getVersion());
+			writeString(out, model.getCustomValues());
+		}
+	}
+
+	static Map<String, SystemDataModel> readSystemDataModels(DataInput in) throws IOException {
+		int size = in.readInt();
+		Map<String, SystemDataModel> systemDataModels = new LinkedHashMap<>(size * 2);
+		for (int i = 0; i < size; i++) {
+			String name = readString(in);
+			if (!in.readBoolean()) {
+				systemDataModels.put(name, null);
+				continue;
+			}
+			SystemDataModel model = new SystemDataModel();
+			model.setKey(readString(in));
+			model.setIp(readString(in));
+			model.setPort(in.readInt());
+			model.setSystem(readString(in));
+			model.setCollectTime(in.readLong());
+			model.setFreeMemory(in.readLong());
+			model.setTotalMemory(in.readLong());
+			model.setCpuUsedPercentage(in.readFloat());
+			model.setReceivedPerSec(in.readLong());
+			model.setSentPerSec(in.readLong());
+			model.setVersion(readString(in));
+			model.setCustomValues(readString(in));
+			systemDataModels.put(name, model);
+		}
+		return systemDataModels;
+	}
+
+	/*
+	 * DataOutput.writeUTF can't write more than 64KB, so strings are written as utf-8 bytes with their length.
+	 */
+	private static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.perftest.model;
+
+import com.hazelcast.nio.serialization.DataSerializableFactory;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * Creates the sampling data which are shared between the clustered controllers in their binary form.
+ *
+ * @since 3.5.5
+ */
+public class SamplingDataSerializableFactory implements DataSerializableFactory {
+	public static final int FACTORY_ID = 1001;
+
+	static final int SAMPLING_MODEL_ID = 1;
+	static final int MONITORING_MODEL_ID = 2;
+
+	@Override
+	public IdentifiedDataSerializable create(int typeId) {
+		switch (typeId) {
+			case SAMPLING_MODEL_ID:
+				return new SamplingModel();
+			case MONITORING_MODEL_ID:
+				return new MonitoringModel();
+			default:
+				return null;
+		}
+	}
+}
@@ -1,21 +1,57 @@
 package org.ngrinder.perftest.model;
 
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import lombok.Getter;
+import org.ngrinder.monitor.controller.model.SystemDataModel;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * For modeling perf test running status
+ * <p>
+ * It's written in a compact binary form instead of json, so every test and every agent is kept
+ * however many of them are running.
  *
  * @since 3.5.0
  */
 @Getter
-public class SamplingModel implements Serializable {
-	private final String runningSample;
-	private final String agentState;
+public class SamplingModel implements IdentifiedDataSerializable {
+	private Map<String, Object> runningSample;
+	private Map<String, SystemDataModel> agentState;
 
-	public SamplingModel(String runningSample, String agentState) {
+	SamplingModel() {
+		this(Collections.emptyMap(), Collections.emptyMap());
+	}
+
+	public SamplingModel(Map<String, Object> runningSample, Map<String, SystemDataModel> agentState) {
 		this.runningSample = runningSample;
 		this.agentState = agentState;
 	}
+
+	@Override
+	public int getFactoryId() {
+		return SamplingDataSerializableFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return SamplingDataSerializableFactory.SAMPLING_MODEL_ID;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		SamplingDataIO.writeValue(out, runningSample);
+		SamplingDataIO.writeSystemDataModels(out, agentState);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		runningSample = (Map<String, Object>) SamplingDataIO.readValue(in);
+		agentState = SamplingDataIO.readSystemDataModels(in);
+	}
 }
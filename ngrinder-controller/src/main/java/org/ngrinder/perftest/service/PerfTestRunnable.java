@@ -50,6 +50,7 @@ import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -423,9 +424,16 @@ public class PerfTestRunnable implements ControllerConstants {
 				perfTest.getId(), perfTestService, scheduledTaskService));
 		singleConsole.addSamplingLifeCycleListener(new AgentLostDetectionListener(singleConsole, perfTest,
 				perfTestService, scheduledTaskService));
+		List<OnTestSamplingRunnable> defaultSamplingPlugins = new ArrayList<>(asList(
+				new MonitorCollectorPlugin(config, scheduledTaskService, perfTestService, perfTest.getId()),
+				new TooManyErrorCheckPlugin()));
+		int stragglerAgentDeviation = config.getControllerProperties()
+				.getPropertyInt(ControllerConstants.PROP_CONTROLLER_STRAGGLER_AGENT_DEVIATION);
+		if (stragglerAgentDeviation > 0) {
+			defaultSamplingPlugins.add(new StragglerAgentCheckPlugin(stragglerAgentDeviation));
+		}
 		List<OnTestSamplingRunnable> testSamplingPlugins = pluginManager.getEnabledModulesByClass
-				(OnTestSamplingRunnable.class, asList(new MonitorCollectorPlugin(config, scheduledTaskService,
-					perfTestService, perfTest.getId()), new TooManyErrorCheckPlugin()));
+				(OnTestSamplingRunnable.class, defaultSamplingPlugins);
 		singleConsole.addSamplingLifeCycleListener(new PluginRunListener(testSamplingPlugins, singleConsole,
 				perfTest, perfTestService));
 		singleConsole.addSamplingLifeCycleListener(new AgentDieHardListener(singleConsole, perfTest, perfTestService,
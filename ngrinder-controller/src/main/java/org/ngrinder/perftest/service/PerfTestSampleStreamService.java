@@ -0,0 +1,256 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.perftest.service;
+
+import lombok.RequiredArgsConstructor;
+import org.ngrinder.common.util.JsonUtils;
+import org.ngrinder.infra.hazelcast.HazelcastService;
+import org.ngrinder.infra.hazelcast.topic.listener.TopicListener;
+import org.ngrinder.infra.hazelcast.topic.message.TopicEvent;
+import org.ngrinder.infra.hazelcast.topic.subscriber.TopicSubscriber;
+import org.ngrinder.perftest.model.MonitoringModel;
+import org.ngrinder.perftest.model.SamplingModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.ngrinder.common.constant.CacheConstants.*;
+
+/**
+ * Pushes the samples of running tests to the browsers which watch them.
+ * <p>
+ * The controller which runs a test announces each sample on the sampling topic, and every controller of
+ * the cluster which has subscribers of the test reads the binary sample from the sampling map and sends
+ * the same json string to all of them. An event without data marks the end of the sampling. So the sample
+ * is serialized once per controller however many people watch the test, instead of once per poll of each
+ * of them. The events are sent by a few sender threads, and a browser which can't keep up misses samples and
+ * is dropped eventually.
+ *
+ * @since 3.5.5
+ */
+@Service
+@RequiredArgsConstructor
+public class PerfTestSampleStreamService implements TopicListener<Boolean> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PerfTestSampleStreamService.class);
+
+	private static final long SUBSCRIPTION_TIMEOUT = 30 * 60 * 1000L;
+	private static final String SAMPLE_EVENT = "sample";
+	private static final String END_EVENT = "end";
+
+	private static final int SENDER_THREADS = 4;
+	private static final int MAX_PENDING_SENDS = 1000;
+	/**
+	 * A subscriber which is still receiving a sample misses the next ones, and it's dropped after this many.
+	 */
+	static final int MAX_MISSED_SAMPLES = 10;
+
+	private final HazelcastService hazelcastService;
+
+	private final TopicSubscriber topicSubscriber;
+
+	private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+	/**
+	 * Samples are sent here instead of the topic listener thread, so a stalled browser doesn't hold up the
+	 * topic. Sends beyond the queue are dropped.
+	 */
+	private ExecutorService sendExecutor = new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS, 0L,
+		TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PENDING_SENDS));
+
+	@PostConstruct
+	public void init() {
+		topicSubscriber.addListener(SAMPLING_TOPIC_LISTENER_NAME, this);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		sendExecutor.shutdownNow();
+	}
+
+	/**
+	 * Subscribe the samples of the given test. The last sample is sent at once if the test is running.
+	 *
+	 * @param perfTestId perf test id
+	 * @param sampled    true if the test is running or about to run. Otherwise the "end" event is sent at once.
+	 * @return emitter which receives "sample" events, and an "end" event when the sampling is finished
+	 */
+	public SseEmitter subscribe(long perfTestId, boolean sampled) {
+		return subscribe(perfTestId, sampled, new SseEmitter(SUBSCRIPTION_TIMEOUT));
+	}
+
+	SseEmitter subscribe(long perfTestId, boolean sampled, SseEmitter emitter) {
+		Subscriber subscriber = new Subscriber(perfTestId, emitter);
+		if (!sampled) {
+			submit(subscriber, subscriber::sendEnd);
+			return emitter;
+		}
+		Set<Subscriber> testSubscribers = subscribers.computeIfAbsent(perfTestId, key -> ConcurrentHashMap.newKeySet());
+		testSubscribers.add(subscriber);
+		emitter.onCompletion(() -> unsubscribe(subscriber));
+		emitter.onTimeout(() -> unsubscribe(subscriber));
+
+		String sampleJson = getSampleJson(perfTestId);
+		if (sampleJson != null) {
+			submit(subscriber, () -> subscriber.send(sampleJson));
+		}
+		return emitter;
+	}
+
+	private void unsubscribe(Subscriber subscriber) {
+		subscribers.computeIfPresent(subscriber.perfTestId, (key, testSubscribers) -> {
+			testSubscribers.remove(subscriber);
+			return testSubscribers.isEmpty() ? null : testSubscribers;
+		});
+	}
+
+	@Override
+	public void execute(TopicEvent<Boolean> event) {
+		long perfTestId = Long.parseLong(event.getKey());
+		Set<Subscriber> testSubscribers = subscribers.get(perfTestId);
+		if (testSubscribers == null) {
+			return;
+		}
+		if (event.getData() == null) {
+			subscribers.remove(perfTestId);
+			for (Subscriber each : testSubscribers) {
+				submit(each, each::sendEnd);
+			}
+			return;
+		}
+		String sampleJson = getSampleJson(perfTestId);
+		if (sampleJson == null) {
+			return;
+		}
+		for (Subscriber each : testSubscribers) {
+			if (each.isSending()) {
+				// The pending send holds the emitter, so the subscriber is just forgotten. The send ends by
+				// itself when the connection breaks or the emitter times out.
+				if (each.missSample() >= MAX_MISSED_SAMPLES) {
+					LOGGER.debug("Drop the subscriber of test {} which is too slow to receive samples", perfTestId);
+					unsubscribe(each);
+				}
+			} else {
+				submit(each, () -> each.send(sampleJson));
+			}
+		}
+	}
+
+	private void submit(Subscriber subscriber, Runnable task) {
+		subscriber.sending.set(true);
+		try {
+			sendExecutor.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					subscriber.sending.set(false);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			subscriber.sending.set(false);
+			LOGGER.debug("Too many samples are pending. A sample of test {} is dropped", subscriber.perfTestId);
+		}
+	}
+
+	/**
+	 * Set the executor which sends the events. For unit test.
+	 */
+	void setSendExecutor(ExecutorService sendExecutor) {
+		this.sendExecutor = sendExecutor;
+	}
+
+	private String getSampleJson(long perfTestId) {
+		SamplingModel samplingModel = hazelcastService.get(DIST_MAP_NAME_SAMPLING, perfTestId);
+		if (samplingModel == null) {
+			return null;
+		}
+		return JsonUtils.serialize(toSample(samplingModel, hazelcastService.get(DIST_MAP_NAME_MONITORING, perfTestId)));
+	}
+
+	/**
+	 * Build a sample in the form of the sample api response.
+	 *
+	 * @param samplingModel   statistics and agent status
+	 * @param monitoringModel target monitor status or null
+	 * @return sample
+	 */
+	public static Map<String, Object> toSample(SamplingModel samplingModel, MonitoringModel monitoringModel) {
+		Map<String, Object> sample = new HashMap<>();
+		sample.put("perf", samplingModel.getRunningSample());
+		sample.put("agent", samplingModel.getAgentState());
+		if (monitoringModel != null) {
+			sample.put("monitor", monitoringModel.getTargetState());
+		}
+		return sample;
+	}
+
+	/**
+	 * Emitter of a browser and whether an event is being sent to it.
+	 */
+	private final class Subscriber {
+		private final long perfTestId;
+		private final SseEmitter emitter;
+		private final AtomicBoolean sending = new AtomicBoolean();
+		private final AtomicInteger missedSamples = new AtomicInteger();
+
+		private Subscriber(long perfTestId, SseEmitter emitter) {
+			this.perfTestId = perfTestId;
+			this.emitter = emitter;
+		}
+
+		private boolean isSending() {
+			return sending.get();
+		}
+
+		private int missSample() {
+			return missedSamples.incrementAndGet();
+		}
+
+		private void send(String sampleJson) {
+			try {
+				emitter.send(SseEmitter.event().name(SAMPLE_EVENT).data(sampleJson, MediaType.APPLICATION_JSON));
+				missedSamples.set(0);
+			} catch (IOException | IllegalStateException e) {
+				// The browser has gone away.
+				LOGGER.debug("Failed to send the sample of test {}: {}", perfTestId, e.getMessage());
+				unsubscribe(this);
+			}
+		}
+
+		private void sendEnd() {
+			try {
+				emitter.send(SseEmitter.event().name(END_EVENT).data(""));
+				emitter.complete();
+			} catch (IOException | IllegalStateException e) {
+				LOGGER.debug("Failed to send the end of sampling: {}", e.getMessage());
+			}
+		}
+	}
+}
@@ -13,7 +13,6 @@
  */
 package org.ngrinder.perftest.service;
 
-import com.google.common.collect.Lists;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import net.grinder.SingleConsole;
@@ -27,7 +26,6 @@ import net.grinder.util.Pair;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
@@ -37,15 +35,18 @@ import org.kohsuke.github.GitHub;
 import org.ngrinder.common.constant.ControllerConstants;
 import org.ngrinder.common.constants.GrinderConstants;
 import org.ngrinder.common.exception.PerfTestPrepareException;
-import org.ngrinder.common.util.JsonUtils;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.infra.hazelcast.HazelcastService;
+import org.ngrinder.infra.hazelcast.topic.message.TopicEvent;
 import org.ngrinder.model.*;
 import org.ngrinder.monitor.controller.model.SystemDataModel;
 import org.ngrinder.perftest.model.PerfTestStatistics;
 import org.ngrinder.perftest.model.ProcessAndThread;
+import org.ngrinder.perftest.model.MonitoringModel;
 import org.ngrinder.perftest.model.SamplingModel;
 import org.ngrinder.perftest.repository.PerfTestRepository;
+import org.ngrinder.report.ReportDataConverter;
+import org.ngrinder.report.ReportDataReader;
 import org.ngrinder.script.handler.NullScriptHandler;
 import org.ngrinder.script.handler.ProcessingResultPrintStream;
 import org.ngrinder.script.handler.ScriptHandler;
@@ -69,7 +70,8 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import java.io.*;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
 import static java.lang.Long.parseLong;
 import static java.lang.Long.valueOf;
@@ -78,8 +80,6 @@ import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static org.apache.commons.io.FileUtils.deleteQuietly;
 import static java.util.Arrays.asList;
-import static net.grinder.SingleConsole.REPORT_DATA;
-import static org.apache.commons.io.FilenameUtils.removeExtension;
 import static org.ngrinder.common.constant.CacheConstants.*;
 import static org.ngrinder.common.constants.MonitorConstants.MONITOR_FILE_PREFIX;
 import static org.ngrinder.common.util.AccessUtils.getSafe;
@@ -107,6 +107,10 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 
 	private static final int MAX_POINT_COUNT = 100;
 
+	private static final int MAX_REPORT_TO_CONSOLE_INTERVAL = 500;
+
+	private static final int MIN_REPORT_TO_CONSOLE_INTERVAL = 50;
+
 	private static final Logger LOGGER = LoggerFactory.getLogger(PerfTestService.class);
 
 	private static final String NULL_STRING = "null";
@@ -132,6 +136,11 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 
 	private final GitHubFileEntryService gitHubFileEntryService;
 
+	/**
+	 * Tests whose report directory has nothing to convert or failed to be converted, so it isn't scanned again.
+	 */
+	private final Set<Long> unconvertedReports = ConcurrentHashMap.newKeySet();
+
 	/**
 	 * Get {@link PerfTest} list for the given user.
 	 *
@@ -270,6 +279,8 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		checkNotNull(perfTest);
 		// Merge if necessary
 		if (perfTest.exist()) {
+			// Only the non-null fields are merged, so the interval given in seconds is carried in milliseconds.
+			perfTest.setSamplingIntervalMillis(perfTest.getSamplingIntervalMillis());
 			Optional<PerfTest> existingPerfTest = perfTestRepository.findOne(idEqual(perfTest.getId()));
 			existingPerfTest.ifPresent(perfTest1 -> perfTest1.merge(perfTest));
 		} else {
@@ -558,6 +569,18 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		return getGrinderProperties(perfTest, new NullScriptHandler());
 	}
 
+	/**
+	 * Get the interval in milliseconds the workers report to the console. Each sampling should get at least two
+	 * reports, or the TPS of the short intervals flips between a report and nothing.
+	 *
+	 * @param perfTest perf test
+	 * @return report interval
+	 */
+	int getReportToConsoleInterval(PerfTest perfTest) {
+		int samplingInterval = getSafe(perfTest.getSamplingIntervalMillis(), 2000);
+		return Math.max(Math.min(samplingInterval / 2, MAX_REPORT_TO_CONSOLE_INTERVAL), MIN_REPORT_TO_CONSOLE_INTERVAL);
+	}
+
 	/**
 	 * Create {@link GrinderProperties} based on the passed {@link PerfTest}.
 	 *
@@ -614,7 +637,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 			} else {
 				grinderProperties.setInt(GRINDER_PROP_PROCESS_INCREMENT, 0);
 			}
-			grinderProperties.setInt(GRINDER_PROP_REPORT_TO_CONSOLE, 500);
+			grinderProperties.setInt(GRINDER_PROP_REPORT_TO_CONSOLE, getReportToConsoleInterval(perfTest));
 			grinderProperties.setProperty(GRINDER_PROP_USER, perfTest.getCreatedBy().getUserId());
 			grinderProperties.setProperty(GRINDER_PROP_JVM_USER_LIBRARY_CLASSPATH, geUserLibraryClassPath(perfTest));
 			grinderProperties.setInt(GRINDER_PROP_IGNORE_SAMPLE_COUNT, getSafe(perfTest.getIgnoreSampleCount()));
@@ -755,8 +778,9 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	}
 
 	/**
-	 * get the data point interval of report data. Use dataPointCount / imgWidth as the interval. if interval is 1, it
-	 * means we will get all point from report. If interval is 2, it means we will get 1 point from every 2 data.
+	 * get the data point interval of report data. The interval is the number of records per point of the
+	 * downsampling level which has no more points than imgWidth. if interval is 1, it means we will get all point
+	 * from report. Otherwise the min and the max of every "2 * interval" records are returned.
 	 *
 	 * @param testId   test id
 	 * @param dataType data type
@@ -765,22 +789,16 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 */
 	public int getReportDataInterval(long testId, String dataType, int imgWidth) {
 		int pointCount = Math.max(imgWidth, MAX_POINT_COUNT);
-		File reportFolder = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
-		int interval = 0;
-		File targetFile = new File(reportFolder, dataType + REPORT_DATA);
-		if (!targetFile.exists()) {
-			LOGGER.warn("Report {} for test {} does not exist.", dataType, testId);
-			return 0;
-		}
-
-		try (LineNumberReader lnr = new LineNumberReader(new InputStreamReader(new FileInputStream(targetFile)))) {
-			lnr.skip(targetFile.length());
-			int lineNumber = lnr.getLineNumber() + 1;
-			interval = Math.max(lineNumber / pointCount, 1);
+		try (ReportDataReader reader = openReportData(testId)) {
+			if (reader == null || !reader.hasColumn(dataType)) {
+				LOGGER.warn("Report {} for test {} does not exist.", dataType, testId);
+				return 0;
+			}
+			return reader.getPointInterval(pointCount);
 		} catch (Exception e) {
 			LOGGER.error("Failed to get report data for {}", dataType, e);
 		}
-		return interval;
+		return 0;
 	}
 
 	/**
@@ -858,65 +876,36 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @param perfTestId    perfTest Id
 	 */
 	public void saveStatistics(SingleConsole singleConsole, Long perfTestId) {
-		String runningSample = getProperSizeRunningSample(singleConsole);
-		String agentState = getProperSizedStatusString(singleConsole);
-		hazelcastService.put(DIST_MAP_NAME_SAMPLING, perfTestId, new SamplingModel(runningSample, agentState));
-	}
-
-	private String getProperSizeRunningSample(SingleConsole singleConsole) {
-		Map<String, Object> statisticData = singleConsole.getStatisticsData();
-		String runningSample = JsonUtils.serialize(statisticData);
-
-		if (runningSample.length() > 9950) { // max column size is 10,000
-			Map<String, Object> tempData = newHashMap();
-			for (Entry<String, Object> each : statisticData.entrySet()) {
-				String key = each.getKey();
-				if (key.equals("totalStatistics") || key.equals("cumulativeStatistics")
-						|| key.equals("lastSampleStatistics")) {
-					continue;
-				}
-				tempData.put(key, each.getValue());
-			}
-			runningSample = JsonUtils.serialize(tempData);
-		}
-		return runningSample;
+		hazelcastService.put(DIST_MAP_NAME_SAMPLING, perfTestId,
+			new SamplingModel(singleConsole.getStatisticsData(), getAgentStatusMap(singleConsole)));
+		hazelcastService.publish(SAMPLING_TOPIC_NAME,
+			new TopicEvent<>(SAMPLING_TOPIC_LISTENER_NAME, String.valueOf(perfTestId), Boolean.TRUE));
+	}
+
+	/**
+	 * Tell the sample subscribers of the given test that its sampling is finished.
+	 *
+	 * @param perfTestId perfTest Id
+	 * @see PerfTestSampleStreamService
+	 */
+	public void finishStatistics(Long perfTestId) {
+		hazelcastService.publish(SAMPLING_TOPIC_NAME,
+			new TopicEvent<Boolean>(SAMPLING_TOPIC_LISTENER_NAME, String.valueOf(perfTestId), null));
 	}
 
 	/**
-	 * Get the limited size of agent status json string.
+	 * Get the system data of the agents which are connecting to the given console.
 	 *
 	 * @param singleConsole console which is connecting agents
-	 * @return converted json
+	 * @return agent name and system data map
 	 */
-	public String getProperSizedStatusString(SingleConsole singleConsole) {
+	public Map<String, SystemDataModel> getAgentStatusMap(SingleConsole singleConsole) {
 		Map<String, SystemDataModel> agentStatusMap = Maps.newHashMap();
 		final int singleConsolePort = singleConsole.getConsolePort();
 		for (AgentStatus each : agentManager.getAttachedAgentStatusSetConnectingToPort(singleConsolePort)) {
 			agentStatusMap.put(each.getAgentName(), each.getSystemDataModel());
 		}
-		return getProperSizedStatusString(agentStatusMap);
-	}
-
-	String getProperSizedStatusString(Map<String, SystemDataModel> agentStatusMap) {
-		String json = JsonUtils.serialize(agentStatusMap);
-		int statusLength = StringUtils.length(json);
-		if (statusLength > 9950) { // max column size is 10,000
-			LOGGER.info("Agent status string length: {}, too long to save into table.", statusLength);
-			double ratio = 9900.0 / statusLength;
-			int pickSize = (int) (agentStatusMap.size() * ratio);
-			Map<String, SystemDataModel> pickAgentStateMap = Maps.newHashMap();
-
-			int pickIndex = 0;
-			for (Entry<String, SystemDataModel> each : agentStatusMap.entrySet()) {
-				if (pickIndex < pickSize) {
-					pickAgentStateMap.put(each.getKey(), each.getValue());
-					pickIndex++;
-				}
-			}
-			json = JsonUtils.serialize(pickAgentStateMap);
-			LOGGER.debug("Agent status string get {} outof {} agents, new size is {}.", pickSize, agentStatusMap.size(), json.length());
-		}
-		return json;
+		return agentStatusMap;
 	}
 
 	/*
@@ -941,7 +930,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 			consoleProperties.setAndSaveDistributionDirectory(new Directory(getDistributionPath(perfTest)));
 			consoleProperties.setConsoleHost(config.getCurrentIP());
 			consoleProperties.setIgnoreSampleCount(getSafe(perfTest.getIgnoreSampleCount()));
-			consoleProperties.setSampleInterval(1000 * getSafe(perfTest.getSamplingInterval()));
+			consoleProperties.setSampleInterval(getSafe(perfTest.getSamplingIntervalMillis()));
 		} catch (Exception e) {
 			throw processException("Error while setting console properties", e);
 		}
@@ -965,8 +954,8 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		if (samplingModel == null) {
 			return false;
 		}
-		Map<String, Object> result = JsonUtils.deserialize(samplingModel.getRunningSample(), HashMap.class);
-		Map<String, Object> totalStatistics = MapUtils.getMap(result, "totalStatistics", MapUtils.EMPTY_MAP);
+		Map<String, Object> totalStatistics = MapUtils.getMap(samplingModel.getRunningSample(), "totalStatistics",
+			MapUtils.EMPTY_MAP);
 		long tests = MapUtils.getDouble(totalStatistics, "Tests", 0D).longValue();
 		long errors = MapUtils.getDouble(totalStatistics, "Errors", 0D).longValue();
 		return ((((double) errors) / (tests + errors)) > 0.3d);
@@ -985,6 +974,11 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		LOGGER.info(format(perfTest, "Total Statistics is {}", totalStatistics));
 		perfTest.setTps(parseDoubleWithSafety(totalStatistics, "TPS", 0D));
 		perfTest.setMeanTestTime(parseDoubleWithSafety(totalStatistics, "Mean_Test_Time_(ms)", 0D));
+		perfTest.setTestTimeP50(parseDoubleWithSafety(totalStatistics, "Test_time_p50_(ms)", 0D));
+		perfTest.setTestTimeP90(parseDoubleWithSafety(totalStatistics, "Test_time_p90_(ms)", 0D));
+		perfTest.setTestTimeP95(parseDoubleWithSafety(totalStatistics, "Test_time_p95_(ms)", 0D));
+		perfTest.setTestTimeP99(parseDoubleWithSafety(totalStatistics, "Test_time_p99_(ms)", 0D));
+		perfTest.setTestTimeP999(parseDoubleWithSafety(totalStatistics, "Test_time_p99.9_(ms)", 0D));
 		perfTest.setPeakTps(parseDoubleWithSafety(totalStatistics, "Peak_TPS", 0D));
 		perfTest.setTests(MapUtils.getDouble(totalStatistics, "Tests", 0D).longValue());
 		perfTest.setErrors(MapUtils.getDouble(totalStatistics, "Errors", 0D).longValue());
@@ -1140,19 +1134,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @param systemInfos systemDataModel map
 	 */
 	public void updateMonitorStat(Long perfTestId, Map<String, SystemDataModel> systemInfos) {
-		String json = JsonUtils.serialize(systemInfos);
-		if (json.length() >= 2000) {
-			Map<String, SystemDataModel> systemInfo = Maps.newHashMap();
-			int i = 0;
-			for (Entry<String, SystemDataModel> each : systemInfos.entrySet()) {
-				if (i++ > 3) {
-					break;
-				}
-				systemInfo.put(each.getKey(), each.getValue());
-			}
-			json = JsonUtils.serialize(systemInfo);
-		}
-		hazelcastService.put(DIST_MAP_NAME_MONITORING , perfTestId , json);
+		hazelcastService.put(DIST_MAP_NAME_MONITORING, perfTestId, new MonitoringModel(systemInfos));
 	}
 
 	/**
@@ -1166,10 +1148,18 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return interval value.
 	 */
 	public int getMonitorGraphInterval(long testId, String targetIP, int imageWidth) {
-		File monitorDataFile = new File(config.getHome().getPerfTestReportDirectory(String.valueOf(testId)),
-				MONITOR_FILE_PREFIX + targetIP + ".data");
+		File reportDir = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
+		File monitorDataFile = new File(reportDir, MONITOR_FILE_PREFIX + targetIP + ".data");
 
 		int pointCount = Math.max(imageWidth, MAX_POINT_COUNT);
+		if (ReportDataReader.exists(reportDir, MONITOR_FILE_PREFIX + targetIP)) {
+			try (ReportDataReader reader = new ReportDataReader(reportDir, MONITOR_FILE_PREFIX + targetIP)) {
+				return reader.getPointInterval(pointCount);
+			} catch (IOException e) {
+				LOGGER.info("Error while getting monitor:{} data at {}", targetIP, reportDir);
+				return 0;
+			}
+		}
 		int interval = 0;
 		try (LineNumberReader lnr = new LineNumberReader(new InputStreamReader(new FileInputStream(monitorDataFile)))) {
 			lnr.skip(monitorDataFile.length());
@@ -1185,17 +1175,29 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 
 	/**
 	 * Get system monitor data and wrap the data as a string value like "[22,11,12,34,....]", which can be used directly
-	 * in JS as a vector.
+	 * in JS as a vector. The monitor data written by {@link org.ngrinder.perftest.service.samplinglistener.MonitorCollectorPlugin}
+	 * is read from its downsampling level, and the text data of the previous versions is read as it is.
 	 *
 	 * @param testId       test id
 	 * @param targetIP     ip address of the monitor target
-	 * @param dataInterval interval value to get data. Interval value "2" means, get one record for every "2" records.
+	 * @param dataInterval interval value returned by {@link #getMonitorGraphInterval(long, String, int)}
 	 * @return return the data in map
 	 */
 	public Map<String, Object> getMonitorGraph(long testId, String targetIP, int dataInterval) {
 		Map<String, Object> returnMap = Maps.newHashMap();
-		File monitorDataFile = new File(config.getHome().getPerfTestReportDirectory(String.valueOf(testId)),
-			MONITOR_FILE_PREFIX + targetIP + ".data");
+		File reportDir = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
+		File monitorDataFile = new File(reportDir, MONITOR_FILE_PREFIX + targetIP + ".data");
+
+		if (ReportDataReader.exists(reportDir, MONITOR_FILE_PREFIX + targetIP)) {
+			try (ReportDataReader reader = new ReportDataReader(reportDir, MONITOR_FILE_PREFIX + targetIP)) {
+				for (String column : reader.getColumns()) {
+					returnMap.put(column, reader.getMinMaxValues(column, dataInterval));
+				}
+			} catch (IOException e) {
+				LOGGER.info("Error while getting monitor {} data at {}", targetIP, reportDir);
+			}
+			return returnMap;
+		}
 
 		try (BufferedReader br = new BufferedReader(new FileReader(monitorDataFile))) {
 
@@ -1281,7 +1283,15 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return interval value.
 	 */
 	public int getReportPluginGraphInterval(long testId, String plugin, String kind, int imageWidth) {
-		return getRecordInterval(imageWidth, getReportPluginDataFile(testId, plugin, kind));
+		int pointCount = Math.max(imageWidth, MAX_POINT_COUNT);
+		File dataFile = getReportPluginDataFile(testId, plugin, kind);
+		try (ReportDataReader reader = openReportPluginData(dataFile, kind)) {
+			return reader == null ? 0 : reader.getPointInterval(pointCount);
+		} catch (IOException e) {
+			LOGGER.error("Error while getting data file:{}", dataFile);
+			LOGGER.error(e.getMessage(), e);
+		}
+		return 0;
 	}
 
 	/**
@@ -1317,24 +1327,15 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	}
 
 	/*
-	 * Get the interval value. In the normal, the image width is 700, and if the data count is too big,
-	 * there will be too many points in the chart. So we will calculate the interval to get appropriate count of data to
-	 * display. For example, interval value "2" means, get one record for every "2" records.
+	 * Plugins only write the csv data, so it's converted into the report data next to it
+	 * whenever it has been appended since the last conversion.
 	 */
-	private int getRecordInterval(int imageWidth, File dataFile) {
-		int pointCount = Math.max(imageWidth, MAX_POINT_COUNT);
-		int interval = 0;
-		try (LineNumberReader lnr = new LineNumberReader(new InputStreamReader(new FileInputStream(dataFile)))) {
-			lnr.skip(dataFile.length());
-			interval = Math.max((lnr.getLineNumber() + 1) / pointCount, 1);
-		} catch (FileNotFoundException e) {
+	private ReportDataReader openReportPluginData(File dataFile, String kind) throws IOException {
+		if (!ReportDataConverter.convertCsv(dataFile, kind)) {
 			LOGGER.error("data file not exist:{}", dataFile);
-			LOGGER.error(e.getMessage(), e);
-		} catch (IOException e) {
-			LOGGER.error("Error while getting data file:{}", dataFile);
-			LOGGER.error(e.getMessage(), e);
+			return null;
 		}
-		return interval;
+		return new ReportDataReader(dataFile.getParentFile(), kind);
 	}
 
 	/**
@@ -1344,57 +1345,33 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @param testId   test id
 	 * @param plugin   plugin name
 	 * @param kind     kind
-	 * @param interval interval value to get data. Interval value "2" means, get one record for every "2" records.
+	 * @param interval interval value returned by {@link #getReportPluginGraphInterval(long, String, String, int)}
 	 * @return return the data in map
 	 */
 	public Map<String, Object> getReportPluginGraph(long testId, String plugin, String kind, int interval) {
 		Map<String, Object> returnMap = Maps.newHashMap();
 		File pluginDataFile = getReportPluginDataFile(testId, plugin, kind);
 
-		try (BufferedReader br = new BufferedReader(new FileReader(pluginDataFile))) {
-
-			String header = br.readLine();
-			StringBuilder headerSB = new StringBuilder("[");
-			String[] headers = StringUtils.split(header, ",");
-			String[] refinedHeaders = StringUtils.split(header, ",");
-			List<StringBuilder> dataStringBuilders = new ArrayList<>(headers.length);
-
-			for (int i = 0; i < headers.length; i++) {
-				dataStringBuilders.add(new StringBuilder("["));
-				String refinedHead = headers[i].trim().replaceAll(" ", "_");
-				refinedHeaders[i] = refinedHead;
-				headerSB.append("'").append(refinedHead).append("'").append(",");
+		try (ReportDataReader reader = openReportPluginData(pluginDataFile, kind)) {
+			if (reader == null) {
+				return returnMap;
 			}
-			String headerStringInJSONList = headerSB.deleteCharAt(headerSB.length() - 1).append("]").toString();
-			returnMap.put("header", headerStringInJSONList);
-
-			String line = br.readLine();
-			int skipCount = interval;
-			// to be compatible with previous version, check the length before adding
-			while (StringUtils.isNotBlank(line)) {
-				if (skipCount < interval) {
-					skipCount++;
-					line = br.readLine();
-				} else {
-					skipCount = 0;
-					String[] records = StringUtils.split(line, ",");
-					for (int i = 0; i < records.length; i++) {
-						if ("null".equals(records[i]) || "undefined".equals(records[i])) {
-							dataStringBuilders.get(i).append("null").append(",");
-						} else {
-							dataStringBuilders.get(i).append(records[i]).append(",");
-						}
-					}
+			StringBuilder headerSB = new StringBuilder("[");
+			for (String column : reader.getColumns()) {
+				headerSB.append("'").append(column).append("'").append(",");
+				StringBuilder dataSB = new StringBuilder("[");
+				for (Float value : reader.getMinMaxValues(column, interval)) {
+					dataSB.append(value == null ? NULL_STRING : value.toString()).append(",");
 				}
-			}
-			for (int i = 0; i < refinedHeaders.length; i++) {
-				StringBuilder dataSB = dataStringBuilders.get(i);
 				if (dataSB.charAt(dataSB.length() - 1) == ',') {
 					dataSB.deleteCharAt(dataSB.length() - 1);
 				}
-				dataSB.append("]");
-				returnMap.put(refinedHeaders[i], dataSB.toString());
+				returnMap.put(column, dataSB.append("]").toString());
+			}
+			if (headerSB.charAt(headerSB.length() - 1) == ',') {
+				headerSB.deleteCharAt(headerSB.length() - 1);
 			}
+			returnMap.put("header", headerSB.append("]").toString());
 		} catch (IOException e) {
 			LOGGER.error("Error while getting monitor: {} data file:{}", plugin, pluginDataFile);
 			LOGGER.error(e.getMessage(), e);
@@ -1412,8 +1389,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return json list
 	 */
 	public List<Float> getSingleReportData(long testId, String key, int interval) {
-		File reportDataFile = getReportDataFile(testId, key);
-		return getFileDataAsList(reportDataFile, interval);
+		return getReportData(testId, key, true, interval).get(key);
 	}
 
 	/**
@@ -1426,67 +1402,85 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return list containing label and tps value list
 	 */
 	public Map<String, List<Float>> getReportData(long testId, String key, boolean onlyTotal, int interval) {
+		return getReportData(testId, key, onlyTotal, (reader, column) -> reader.getMinMaxValues(column, interval));
+	}
+
+	/**
+	 * Get the test report data which were written in the given range of the rows. A live chart
+	 * calls it with the offset returned by {@link #getReportRowCount(long)} at its last call, so it only
+	 * fetches the new rows instead of the whole history.
+	 *
+	 * @param testId    test id
+	 * @param key       report key
+	 * @param onlyTotal true if only total show be passed
+	 * @param fromRow   first row, inclusive
+	 * @param toRow     last row, exclusive
+	 * @return map of the column and its values
+	 */
+	public Map<String, List<Float>> getReportData(long testId, String key, boolean onlyTotal, long fromRow, long toRow) {
+		return getReportData(testId, key, onlyTotal, (reader, column) -> reader.getValues(column, fromRow, toRow));
+	}
+
+	private Map<String, List<Float>> getReportData(long testId, String key, boolean onlyTotal,
+												   BiFunction<ReportDataReader, String, List<Float>> valuesFunction) {
 		Map<String, List<Float>> resultMap = new TreeMap<>();
-		List<File> reportDataFiles = onlyTotal ? Lists.newArrayList(getReportDataFile(testId, key)) : getReportDataFiles(testId, key);
-		reportDataFiles.forEach(each -> resultMap.put(removeExtension(each.getName()), getFileDataAsList(each, interval)));
+		if (onlyTotal) {
+			resultMap.put(key, Collections.emptyList());
+		}
+		try (ReportDataReader reader = openReportData(testId)) {
+			if (reader != null) {
+				for (String column : reader.getColumns()) {
+					if (onlyTotal ? column.equals(key) : column.startsWith(key)) {
+						resultMap.put(column, valuesFunction.apply(reader, column));
+					}
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.error("Report data retrieval is failed: {}", e.getMessage());
+			LOGGER.debug("Trace is : ", e);
+		}
 		return resultMap;
 	}
 
 	/**
-	 * Get a single file for the given report key.
+	 * Get the number of the rows written in the report data of the given test so far.
 	 *
 	 * @param testId test id
-	 * @param key    key
-	 * @return return file
+	 * @return row count. 0 if the test has no report data.
 	 */
-	public File getReportDataFile(long testId, String key) {
-		File reportFolder = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
-		return new File(reportFolder, key + ".data");
+	public long getReportRowCount(long testId) {
+		try (ReportDataReader reader = openReportData(testId)) {
+			return reader == null ? 0 : reader.getRowCount();
+		} catch (IOException e) {
+			LOGGER.error("Report data retrieval is failed: {}", e.getMessage());
+			LOGGER.debug("Trace is : ", e);
+			return 0;
+		}
 	}
 
 	/**
-	 * Get files respectively if there are multiple tests.
+	 * Open the report data of the given test. The text report files of the previous versions
+	 * are converted on the first access, so the old tests keep rendering. A directory which can't be
+	 * converted is tried only once.
 	 *
 	 * @param testId test id
-	 * @param key    report key
-	 * @return return file list
+	 * @return reader or null if the test has no report data
+	 * @throws IOException if the report data can't be read
 	 */
-	public List<File> getReportDataFiles(long testId, String key) {
+	private ReportDataReader openReportData(long testId) throws IOException {
 		File reportFolder = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
-		FileFilter fileFilter = new WildcardFileFilter(key + "*.data");
-		File[] files = reportFolder.listFiles(fileFilter);
-		return Arrays.stream(requireNonNull(files))
-			.sorted(Comparator.comparing(o -> FilenameUtils.getBaseName(o.getName())))
-			.collect(toList());
-	}
-
-	private List<Float> getFileDataAsList(File targetFile, int interval) {
-		if (!targetFile.exists()) {
-			return Collections.emptyList();
-		}
-
-		List<Float> metrics = new ArrayList<>();
-		try (BufferedReader br = new BufferedReader(new FileReader(targetFile))) {
-			String data = br.readLine();
-			int current = 0;
-			while (StringUtils.isNotBlank(data)) {
-				if (0 == current) {
-					if (data.equals(NULL_STRING)) {
-						metrics.add(null);
-					} else {
-						metrics.add(Float.parseFloat(data));
-					}
-				}
-				if (++current >= interval) {
-					current = 0;
-				}
-				data = br.readLine();
+		if (!ReportDataReader.exists(reportFolder)) {
+			if (unconvertedReports.contains(testId)) {
+				return null;
 			}
-		} catch (IOException e) {
-			LOGGER.error("Report data retrieval is failed: {}", e.getMessage());
-			LOGGER.debug("Trace is : ", e);
+			// A test which runs later writes the report data, which is checked first.
+			unconvertedReports.add(testId);
+			if (!ReportDataConverter.convert(reportFolder)) {
+				return null;
+			}
+			unconvertedReports.remove(testId);
 		}
-		return metrics;
+		return new ReportDataReader(reportFolder);
 	}
 
 	/*
@@ -19,9 +19,11 @@ import org.ngrinder.common.constants.MonitorConstants;
 import org.ngrinder.extension.OnTestSamplingRunnable;
 import org.ngrinder.model.PerfTest;
 import org.ngrinder.monitor.controller.model.SystemDataModel;
+import org.ngrinder.monitor.share.domain.BandWidth;
 import org.ngrinder.monitor.share.domain.SystemInfo;
 import org.ngrinder.perftest.service.PerfTestService;
 import org.ngrinder.perftest.service.monitor.MonitorClientService;
+import org.ngrinder.report.ReportDataWriter;
 import org.ngrinder.service.IConfig;
 import org.ngrinder.service.IPerfTestService;
 import org.ngrinder.service.IScheduledTaskService;
@@ -38,6 +40,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.commons.io.IOUtils.closeQuietly;
+import static org.apache.commons.lang.StringUtils.defaultString;
+import static org.apache.commons.lang.StringUtils.split;
 import static org.ngrinder.common.util.CollectionUtils.newHashMap;
 import static org.ngrinder.common.util.LoggingUtils.format;
 
@@ -49,7 +53,10 @@ import static org.ngrinder.common.util.LoggingUtils.format;
 public class MonitorCollectorPlugin implements OnTestSamplingRunnable, Runnable, MonitorConstants {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MonitorCollectorPlugin.class);
 
+	private static final int MAX_CUSTOM_DATA = 5;
+
 	private final Map<MonitorClientService, BufferedWriter> clientMap = new ConcurrentHashMap<>();
+	private final Map<MonitorClientService, ReportDataWriter> reportDataMap = new ConcurrentHashMap<>();
 	private final int port;
 	private final Long perfTestId;
 
@@ -95,6 +102,8 @@ public class MonitorCollectorPlugin implements OnTestSamplingRunnable, Runnable,
 						bw.write(SystemInfo.HEADER);
 						bw.newLine();
 						bw.flush();
+						// The report data keeps the downsampling levels the monitor charts are drawn from.
+						reportDataMap.put(client, new ReportDataWriter(testReportDir, MONITOR_FILE_PREFIX + target));
 						clientMap.put(client, bw);
 					} catch (IOException e) {
 						LOGGER.error(format(perfTest, "Error to write to file: {}, Error: {}", dataFile.getPath(), e.getMessage()));
@@ -117,20 +126,54 @@ public class MonitorCollectorPlugin implements OnTestSamplingRunnable, Runnable,
 				BufferedWriter bw = each.getValue();
 				bw.write(currentInfo.toRecordString());
 				bw.newLine();
+				ReportDataWriter reportDataWriter = reportDataMap.get(each.getKey());
+				if (reportDataWriter != null) {
+					writeReportData(reportDataWriter, currentInfo);
+				}
 			} catch (IOException e) {
 				LOGGER.error(format(perfTest, "Error while saving file: {}", e.getMessage()));
 			}
 		}
 	}
 
+	/*
+	 * Write the values in the same way PerfTestService reads the text data of the previous versions.
+	 * Columns which are never collected, like bandwidth of a windows target, are not written at all.
+	 */
+	private void writeReportData(ReportDataWriter writer, SystemInfo systemInfo) throws IOException {
+		boolean parsed = systemInfo.isParsed();
+		writer.set("cpu", parsed ? (double) systemInfo.getCpuUsedPercentage() : null);
+		writer.set("memory", parsed ? (double) (systemInfo.getTotalMemory() - systemInfo.getFreeMemory()) : null);
+		BandWidth bandWidth = systemInfo.getBandWidth();
+		if (parsed && bandWidth != null) {
+			writer.set("received", (double) bandWidth.getReceivedPerSec());
+			writer.set("sent", (double) bandWidth.getSentPerSec());
+		}
+		String[] customValues = split(defaultString(parsed ? systemInfo.getCustomValues() : null), ",");
+		for (int i = 0; i < Math.min(customValues.length, MAX_CUSTOM_DATA); i++) {
+			writer.set("customData" + (i + 1), toDouble(customValues[i]));
+		}
+		writer.writeRow();
+	}
+
+	private static Double toDouble(String value) {
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
 	@Override
 	public void endSampling(ISingleConsole singleConsole, PerfTest perfTest, IPerfTestService perfTestService) {
 		scheduledTaskService.removeScheduledJob(this);
 		for (Map.Entry<MonitorClientService, BufferedWriter> each : clientMap.entrySet()) {
 			closeQuietly(each.getKey());
 			closeQuietly(each.getValue());
+			closeQuietly(reportDataMap.get(each.getKey()));
 		}
 		clientMap.clear();
+		reportDataMap.clear();
 	}
 
 	@Override
@@ -29,6 +29,7 @@ import java.io.File;
 public class PerfTestSamplingCollectorListener implements SamplingLifeCycleListener {
 	private final ScheduledTaskService scheduledTaskService;
 	private final Runnable runnable;
+	private final Runnable endRunnable;
 
 	/**
 	 * Constructor.
@@ -44,6 +45,7 @@ public class PerfTestSamplingCollectorListener implements SamplingLifeCycleListe
 		this.scheduledTaskService = scheduledTaskService;
 		// Make it separate async call to remove the delay on the sampling.
 		this.runnable = () -> perfTestService.saveStatistics(singleConsole, perfTestId);
+		this.endRunnable = () -> perfTestService.finishStatistics(perfTestId);
 	}
 
 	@Override
@@ -57,6 +59,7 @@ public class PerfTestSamplingCollectorListener implements SamplingLifeCycleListe
 
 	@Override
 	public void onSamplingEnded() {
+		scheduledTaskService.runAsync(this.endRunnable);
 	}
 
 }
@@ -0,0 +1,83 @@
+package org.ngrinder.perftest.service.samplinglistener;
+
+import lombok.extern.slf4j.Slf4j;
+import net.grinder.statistics.ImmutableStatisticsSet;
+import org.ngrinder.extension.OnTestSamplingRunnable;
+import org.ngrinder.model.PerfTest;
+import org.ngrinder.service.IPerfTestService;
+import org.ngrinder.service.ISingleConsole;
+import org.ngrinder.statistics.AgentStatistics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static net.grinder.util.NoOp.noOp;
+import static org.ngrinder.common.util.LoggingUtils.format;
+
+/**
+ * Check which flags the agents whose TPS or test time deviates from the median of all the agents.
+ * An agent is reported once when it keeps deviating for {@link #STRAGGLER_TIME} milliseconds, so a single
+ * slow sampling doesn't make noise.
+ *
+ * @since 3.5.5
+ */
+@Slf4j
+public class StragglerAgentCheckPlugin implements OnTestSamplingRunnable {
+
+	private static final int STRAGGLER_TIME = 30000;
+
+	private final double tolerance;
+
+	private final Map<String, Long> firstMomentWhenDeviated = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param deviationPercent allowed deviation from the median in percent
+	 */
+	public StragglerAgentCheckPlugin(int deviationPercent) {
+		this.tolerance = deviationPercent / 100.0;
+	}
+
+	@Override
+	public void startSampling(ISingleConsole singleConsole,
+							  PerfTest perfTest,
+							  IPerfTestService perfTestService) {
+		noOp();
+	}
+
+	@Override
+	public void sampling(ISingleConsole singleConsole,
+						 PerfTest perfTest,
+						 IPerfTestService perfTestService,
+						 ImmutableStatisticsSet intervalStatistics,
+						 ImmutableStatisticsSet cumulativeStatistics) {
+		Map<String, AgentStatistics> agents = singleConsole.getIntervalAgentStatistics();
+		Set<String> stragglers = AgentStatistics.findStragglers(agents, tolerance);
+		firstMomentWhenDeviated.keySet().retainAll(stragglers);
+
+		long now = System.currentTimeMillis();
+		for (String each : stragglers) {
+			Long firstMoment = firstMomentWhenDeviated.putIfAbsent(each, now);
+			// A reported agent is kept with a negative moment until it recovers.
+			if (firstMoment != null && firstMoment >= 0 && now - firstMoment >= STRAGGLER_TIME) {
+				AgentStatistics statistics = agents.get(each);
+				String message = String.format("Agent %s deviates from the other agents for more than %d seconds."
+						+ " %d tests, mean %.1f ms, p%d %s ms in the last sampling.", each, STRAGGLER_TIME / 1000,
+					statistics.getTests(), statistics.getMeanTestTime(), (int) AgentStatistics.TEST_TIME_PERCENTILE,
+					statistics.getTestTimePercentile(AgentStatistics.TEST_TIME_PERCENTILE));
+				log.warn(format(perfTest, message));
+				perfTestService.markStatusAndProgress(perfTest, perfTest.getStatus(), message);
+				firstMomentWhenDeviated.put(each, -1L);
+			}
+		}
+	}
+
+	@Override
+	public void endSampling(ISingleConsole singleConsole,
+							PerfTest perfTest,
+							IPerfTestService perfTestService) {
+		noOp();
+	}
+}
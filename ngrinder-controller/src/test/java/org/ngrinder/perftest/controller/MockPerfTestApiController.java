@@ -18,6 +18,7 @@ import org.ngrinder.agent.service.AgentService;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.infra.hazelcast.HazelcastService;
 import org.ngrinder.perftest.service.AgentManager;
+import org.ngrinder.perftest.service.PerfTestSampleStreamService;
 import org.ngrinder.perftest.service.PerfTestService;
 import org.ngrinder.perftest.service.TagService;
 import org.ngrinder.region.service.RegionService;
@@ -50,9 +51,9 @@ public class MockPerfTestApiController extends PerfTestApiController {
 	public MockPerfTestApiController(PerfTestService perfTestService, TagService tagService, AgentManager agentManager,
 									 RegionService regionService, AgentService agentService, FileEntryService fileEntryService,
 									 UserService userService, HazelcastService hazelcastService, ScriptHandlerFactory scriptHandlerFactory,
-									 UserContext userContext, Config config) {
+									 UserContext userContext, Config config, PerfTestSampleStreamService perfTestSampleStreamService) {
 		super(perfTestService, tagService, agentManager, regionService, agentService, fileEntryService,
-			userService, hazelcastService, scriptHandlerFactory, userContext, config);
+			userService, hazelcastService, scriptHandlerFactory, userContext, config, perfTestSampleStreamService);
 	}
 
 	@PostConstruct
@@ -32,6 +32,7 @@ import org.ngrinder.model.Role;
 import org.ngrinder.model.Status;
 import org.ngrinder.model.User;
 import org.ngrinder.perftest.service.AbstractPerfTestTransactionalTest;
+import org.ngrinder.report.ReportDataWriter;
 import org.ngrinder.script.repository.MockFileEntityRepository;
 import org.ngrinder.service.IUserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -276,6 +277,60 @@ public class PerfTestControllerTest extends AbstractPerfTestTransactionalTest {
 		perfTestApiController.getReportSection(getTestUser(), test.getId(), 700);
 	}
 
+	@Test
+	public void testGetPerfGraphSince() throws IOException {
+		PerfTest test = createPerfTest("test1", Status.TESTING, now());
+		File reportDir = perfTestService.getReportFileDirectory(test.getId());
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 0; i < 4000; i++) {
+				writer.set("TPS", (double) i);
+				writer.writeRow();
+			}
+		}
+
+		try {
+			// A call returns 3600 rows at most.
+			Map<String, Object> response = perfTestApiController.getPerfGraphSince(getTestUser(), test.getId(), "TPS", true, 0);
+			assertThat(getTps(response).size(), is(3600));
+			assertThat(response.get("offset"), is(3600L));
+
+			response = perfTestApiController.getPerfGraphSince(getTestUser(), test.getId(), "TPS", true, 3600);
+			assertThat(getTps(response).size(), is(400));
+			assertThat(getTps(response).get(0), is(3600f));
+			assertThat(response.get("offset"), is(4000L));
+
+			// A negative offset is clamped to the first row.
+			response = perfTestApiController.getPerfGraphSince(getTestUser(), test.getId(), "TPS", true, -10);
+			assertThat(getTps(response).get(0), is(0f));
+			assertThat(response.get("offset"), is(3600L));
+
+			// Nothing is written after the last row yet.
+			response = perfTestApiController.getPerfGraphSince(getTestUser(), test.getId(), "TPS", true, 4000);
+			assertThat(getTps(response), empty());
+			assertThat(response.get("offset"), is(4000L));
+		} finally {
+			FileUtils.deleteQuietly(reportDir);
+		}
+	}
+
+	@Test
+	public void testStreamTestRunning() {
+		PerfTest test = createPerfTest("test1", Status.TESTING, now());
+		assertNotNull(perfTestApiController.streamTestRunning(getTestUser(), test.getId()));
+
+		try {
+			perfTestApiController.streamTestRunning(getTestUser(), 123123123123L);
+			fail("A stream of the test which doesn't exist should not be opened");
+		} catch (IllegalArgumentException e) {
+			noOp();
+		}
+	}
+
+	private static List<Float> getTps(Map<String, Object> response) {
+		Map<String, List<Float>> tps = cast(response.get("TPS"));
+		return tps.get("TPS");
+	}
+
 	@Test
 	public void testGetMonitorData() {
 		String testName = "test1";
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.perftest.service;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ngrinder.infra.hazelcast.HazelcastService;
+import org.ngrinder.infra.hazelcast.topic.message.TopicEvent;
+import org.ngrinder.infra.hazelcast.topic.subscriber.TopicSubscriber;
+import org.ngrinder.perftest.model.SamplingModel;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.Mockito.*;
+import static org.ngrinder.common.constant.CacheConstants.DIST_MAP_NAME_SAMPLING;
+import static org.ngrinder.common.constant.CacheConstants.SAMPLING_TOPIC_LISTENER_NAME;
+
+public class PerfTestSampleStreamServiceTest {
+
+	private static final long PERF_TEST_ID = 1L;
+
+	private final HazelcastService hazelcastService = mock(HazelcastService.class);
+
+	private final PerfTestSampleStreamService service =
+		new PerfTestSampleStreamService(hazelcastService, mock(TopicSubscriber.class));
+
+	@Before
+	public void before() {
+		service.setSendExecutor(MoreExecutors.newDirectExecutorService());
+		when(hazelcastService.get(DIST_MAP_NAME_SAMPLING, PERF_TEST_ID))
+			.thenReturn(new SamplingModel(new HashMap<>(), new HashMap<>()));
+	}
+
+	@Test
+	public void testSubscriberReceivesSamples() throws IOException {
+		SseEmitter emitter = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+		// The last sample is sent on subscription.
+		verify(emitter).send(any(SseEventBuilder.class));
+
+		service.execute(sampleEvent(PERF_TEST_ID));
+		verify(emitter, times(2)).send(any(SseEventBuilder.class));
+
+		service.execute(sampleEvent(2L));
+		verify(emitter, times(2)).send(any(SseEventBuilder.class));
+	}
+
+	@Test
+	public void testCompletedEmitterIsUnsubscribed() throws IOException {
+		SseEmitter emitter = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+		ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+		verify(emitter).onCompletion(onCompletion.capture());
+
+		onCompletion.getValue().run();
+		service.execute(sampleEvent(PERF_TEST_ID));
+
+		verify(emitter, times(1)).send(any(SseEventBuilder.class));
+	}
+
+	@Test
+	public void testEndEventRemovesSubscribers() throws IOException {
+		SseEmitter first = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+		SseEmitter second = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+
+		service.execute(endEvent(PERF_TEST_ID));
+		verify(first).complete();
+		verify(second).complete();
+
+		service.execute(sampleEvent(PERF_TEST_ID));
+		// The sample on subscription and the end event only.
+		verify(first, times(2)).send(any(SseEventBuilder.class));
+		verify(second, times(2)).send(any(SseEventBuilder.class));
+	}
+
+	@Test
+	public void testFailedSendUnsubscribes() throws IOException {
+		SseEmitter gone = mock(SseEmitter.class);
+		doThrow(new IOException("Broken pipe")).when(gone).send(any(SseEventBuilder.class));
+		service.subscribe(PERF_TEST_ID, true, gone);
+		SseEmitter alive = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+
+		service.execute(sampleEvent(PERF_TEST_ID));
+
+		verify(gone, times(1)).send(any(SseEventBuilder.class));
+		verify(alive, times(2)).send(any(SseEventBuilder.class));
+	}
+
+	@Test
+	public void testSubscriptionToStoppedTestEndsAtOnce() throws IOException {
+		SseEmitter emitter = service.subscribe(PERF_TEST_ID, false, mock(SseEmitter.class));
+		verify(emitter).send(any(SseEventBuilder.class));
+		verify(emitter).complete();
+
+		service.execute(sampleEvent(PERF_TEST_ID));
+		verify(emitter, times(1)).send(any(SseEventBuilder.class));
+	}
+
+	@Test
+	public void testSamplesAreSentOutOfListenerThread() throws IOException {
+		ExecutorService sendExecutor = mock(ExecutorService.class);
+		service.setSendExecutor(sendExecutor);
+		SseEmitter emitter = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+		ArgumentCaptor<Runnable> sends = ArgumentCaptor.forClass(Runnable.class);
+		verify(sendExecutor).execute(sends.capture());
+		sends.getValue().run();
+
+		service.execute(sampleEvent(PERF_TEST_ID));
+
+		verify(sendExecutor, times(2)).execute(sends.capture());
+		verify(emitter, times(1)).send(any(SseEventBuilder.class));
+		sends.getValue().run();
+		verify(emitter, times(2)).send(any(SseEventBuilder.class));
+	}
+
+	@Test
+	public void testSlowSubscriberIsDropped() throws IOException {
+		ExecutorService sendExecutor = mock(ExecutorService.class);
+		service.setSendExecutor(sendExecutor);
+		// The send of the last sample on subscription never finishes.
+		SseEmitter slow = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+
+		for (int i = 0; i < PerfTestSampleStreamService.MAX_MISSED_SAMPLES; i++) {
+			service.execute(sampleEvent(PERF_TEST_ID));
+		}
+		verify(sendExecutor, times(1)).execute(any(Runnable.class));
+
+		service.setSendExecutor(MoreExecutors.newDirectExecutorService());
+		SseEmitter alive = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+		service.execute(sampleEvent(PERF_TEST_ID));
+		verify(alive, times(2)).send(any(SseEventBuilder.class));
+		verify(slow, never()).send(any(SseEventBuilder.class));
+	}
+
+	@Test
+	public void testSampleIsDroppedWhenSendersAreFull() throws IOException {
+		ExecutorService sendExecutor = mock(ExecutorService.class);
+		doThrow(new RejectedExecutionException()).when(sendExecutor).execute(any(Runnable.class));
+		service.setSendExecutor(sendExecutor);
+		SseEmitter emitter = service.subscribe(PERF_TEST_ID, true, mock(SseEmitter.class));
+
+		service.setSendExecutor(MoreExecutors.newDirectExecutorService());
+		service.execute(sampleEvent(PERF_TEST_ID));
+		// The rejected sample is skipped, and the next one is sent.
+		verify(emitter, times(1)).send(any(SseEventBuilder.class));
+	}
+
+	private static TopicEvent<Boolean> sampleEvent(long perfTestId) {
+		return new TopicEvent<>(SAMPLING_TOPIC_LISTENER_NAME, String.valueOf(perfTestId), Boolean.TRUE);
+	}
+
+	private static TopicEvent<Boolean> endEvent(long perfTestId) {
+		return new TopicEvent<>(SAMPLING_TOPIC_LISTENER_NAME, String.valueOf(perfTestId), null);
+	}
+}
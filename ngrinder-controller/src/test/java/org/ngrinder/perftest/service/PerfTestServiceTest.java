@@ -16,17 +16,19 @@ package org.ngrinder.perftest.service;
 import net.grinder.StopReason;
 import net.grinder.common.GrinderProperties;
 import net.grinder.console.model.ConsoleProperties;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.ngrinder.common.model.Home;
-import org.ngrinder.common.util.ThreadUtils;
+import org.ngrinder.common.util.JsonUtils;
 import org.ngrinder.infra.config.Config;
+import org.ngrinder.infra.hazelcast.HazelcastService;
 import org.ngrinder.model.PerfTest;
 import org.ngrinder.model.Status;
 import org.ngrinder.monitor.controller.model.SystemDataModel;
-import org.ngrinder.monitor.share.domain.SystemInfo;
+import org.ngrinder.perftest.model.SamplingModel;
 import org.ngrinder.perftest.repository.PerfTestRepository;
-import org.ngrinder.perftest.service.monitor.MonitorClientService;
+import org.ngrinder.report.ReportDataWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.domain.Page;
@@ -35,12 +37,14 @@ import org.springframework.data.domain.Pageable;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Predicate;
 
 import static java.time.Instant.now;
 import static org.hamcrest.Matchers.*;
+import static org.ngrinder.common.constant.CacheConstants.DIST_MAP_NAME_SAMPLING;
 import static org.junit.Assert.assertFalse;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -57,6 +61,9 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 	@Autowired
 	PerfTestRepository perfTestRepository;
 
+	@Autowired
+	private HazelcastService hazelcastService;
+
 	@Before
 	public void clearPerfTest() {
 		clearAllPerfTest();
@@ -174,6 +181,30 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 		assertFalse(spiedService.getSingleReportData(testId, "Mean_Test_Time_(ms)", interval).isEmpty());
 	}
 
+	@Test
+	public void testReportDirectoryWithoutDataIsScannedOnce() throws IOException {
+		long testId = 987654L;
+		File reportDir = testService.getReportFileDirectory(testId);
+		FileUtils.deleteQuietly(reportDir);
+		reportDir.mkdirs();
+		try {
+			assertThat(testService.getReportRowCount(testId), is(0L));
+
+			// The directory had nothing to convert, so it isn't scanned again.
+			FileUtils.writeStringToFile(new File(reportDir, "TPS.data"), "1\n2\n", StandardCharsets.UTF_8);
+			assertThat(testService.getReportRowCount(testId), is(0L));
+
+			// The report data written by a test is read anyway.
+			try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+				writer.set("TPS", 1.0);
+				writer.writeRow();
+			}
+			assertThat(testService.getReportRowCount(testId), is(1L));
+		} finally {
+			FileUtils.deleteQuietly(reportDir);
+		}
+	}
+
 	@Test
 	public void testGetMonitorDataWithExistingData() throws IOException {
 		// Given
@@ -200,28 +231,33 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 	}
 
 	@Test
-	public void testGetProperSizedStatusString() {
-		File tempRepo = new File(System.getProperty("java.io.tmpdir"), "test-repo");
-		tempRepo.mkdir();
-		tempRepo.deleteOnExit();
-		MonitorClientService client = new MonitorClientService("127.0.0.1", 13243);
-		client.init();
-		Map<String, SystemDataModel> rtnMap = new HashMap<>();
-
+	public void testSamplingModelKeepsEveryAgent() {
+		Map<String, SystemDataModel> agentState = new HashMap<>();
 		Random random = new Random();
-		for (int i = 0; i < 80; i++) {
-			client.update();
-			SystemInfo info = client.getSystemInfo();
-			if (info == null) {
-				return;
-			}
-			info.setCustomValues(random.nextInt() + "," + random.nextInt());
-			SystemDataModel data1 = new SystemDataModel(info, "3.1.2");
-			rtnMap.put("test-" + random.nextInt(), data1);
-			ThreadUtils.sleep(100);
+		for (int i = 0; i < 200; i++) {
+			SystemDataModel data = new SystemDataModel();
+			data.setIp("10.0.0." + i);
+			data.setCpuUsedPercentage(random.nextFloat() * 100);
+			data.setFreeMemory(random.nextInt(1000000));
+			data.setCustomValues(random.nextInt() + "," + random.nextInt());
+			data.setVersion("3.5.5");
+			agentState.put("agent-" + i, data);
 		}
-		String statusString = perfTestService.getProperSizedStatusString(rtnMap);
-		System.out.println("Status string size is:" + statusString.length());
-		assertTrue(statusString.length() < 9950);
+		Map<String, Object> test = new HashMap<>();
+		test.put("testNumber", 1);
+		test.put("TPS", 10.5D);
+		test.put("statusCodes", Collections.singletonMap(200, 1000L));
+		Map<String, Object> runningSample = new HashMap<>();
+		runningSample.put("testTime", 30L);
+		runningSample.put("cumulativeStatistics", Collections.nCopies(500, test));
+		runningSample.put("success", true);
+
+		hazelcastService.put(DIST_MAP_NAME_SAMPLING, 1L, new SamplingModel(runningSample, agentState));
+		SamplingModel samplingModel = hazelcastService.get(DIST_MAP_NAME_SAMPLING, 1L);
+
+		assertThat(samplingModel.getAgentState().size(), is(200));
+		assertThat(JsonUtils.serialize(samplingModel.getAgentState()), is(JsonUtils.serialize(agentState)));
+		assertThat(JsonUtils.serialize(samplingModel.getRunningSample()), is(JsonUtils.serialize(runningSample)));
+		hazelcastService.delete(DIST_MAP_NAME_SAMPLING, 1L);
 	}
 }
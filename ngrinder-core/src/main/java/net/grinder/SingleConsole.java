@@ -43,7 +43,6 @@ import net.grinder.statistics.*;
 import net.grinder.util.*;
 import net.grinder.util.thread.Condition;
 import org.apache.commons.collections.MapUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.mutable.MutableBoolean;
@@ -51,17 +50,19 @@ import org.ngrinder.common.exception.NGrinderRuntimeException;
 import org.ngrinder.common.util.DateUtils;
 import org.ngrinder.common.util.ReflectionUtils;
 import org.ngrinder.common.util.ThreadUtils;
+import org.ngrinder.report.AsyncReportWriter;
 import org.ngrinder.service.AbstractSingleConsole;
+import org.ngrinder.statistics.AgentStatistics;
+import org.ngrinder.statistics.ExtendedStatistics;
 import org.python.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.text.DecimalFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ForkJoinPool;
 
@@ -87,7 +88,6 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 
 	public static final Resources RESOURCE = new ResourcesImplementation(RESOURCE_CONSOLE);
 	public static final Logger LOGGER = LoggerFactory.getLogger("console");
-	public static final String REPORT_DATA = ".data";
 	private static final String REPORT_CSV = "output.csv";
 	private static final int NUM_OF_SEND_FILE_DIGEST_THREAD = 3;
 
@@ -110,7 +110,10 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	private final ListenerSupport<SamplingLifeCycleListener> samplingLifeCycleListener = ListenerHelper.create();
 	private final ListenerSupport<SamplingLifeCycleFollowUpListener> samplingLifeCycleFollowupListener = ListenerHelper
 			.create();
-	public static final int MIN_SAMPLING_INTERVAL_TO_ACTIVATE_TPS_PER_TEST = 3000;
+	/**
+	 * Prefix of the report data keys of each agent such as "Agent_TPS-agent1".
+	 */
+	public static final String AGENT_REPORT_PREFIX = "Agent_";
 	private boolean capture = false;
 	private File reportPath;
 
@@ -119,7 +122,37 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	private boolean headerAdded = false;
 	private GrinderProperties properties;
 
-	private final Map<String, BufferedWriter> fileWriterMap = newHashMap();
+	/**
+	 * Status codes which have been written as report data. Once a code shows up, it's written in every row.
+	 */
+	private final Set<Integer> reportedStatusCodes = new TreeSet<>();
+
+	/**
+	 * Agents which have been written as report data.
+	 */
+	private final Set<String> reportedAgents = new TreeSet<>();
+
+	/**
+	 * Report data keys of each test, such as "TPS-1_test1", by the statistic key.
+	 */
+	private final Map<Test, Map<String, String>> perTestReportKeys = new HashMap<>();
+
+	/**
+	 * Display names formatted as report data keys. They're built once per console, since sub second
+	 * samplings format the same names many times a second.
+	 */
+	private final Map<String, String> reportKeys = new ConcurrentHashMap<>();
+
+	/**
+	 * Summary of the extended statistics of the current sampling. It's built once per sampling and
+	 * shared by the report data and the csv file.
+	 */
+	private Set<Entry<String, Double>> intervalExtendedSummary = Collections.emptySet();
+
+	private final Object reportWriterLock = new Object();
+	private volatile AsyncReportWriter reportWriter;
+	private AsyncReportWriter.Batch reportBatch;
+	private final DecimalFormat csvFormatter = createCsvFormatter();
 	/**
 	 * the count of current sampling.
 	 */
@@ -231,10 +264,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			throw processException("Exception occurred while shutting down console", e);
 		} finally {
 			// close all report file
-			for (BufferedWriter bw : fileWriterMap.values()) {
-				IOUtils.closeQuietly(bw);
-			}
-			fileWriterMap.clear();
+			closeReportWriter();
 		}
 	}
 
@@ -613,6 +643,8 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 				return;
 			}
 			samplingCount++;
+			reportBatch = new AsyncReportWriter.Batch();
+			intervalExtendedSummary = getExtendedSummary(getSampleModel().getIntervalExtendedStatistics());
 			long currentPeriod = cumulativeStatistics.getValue(getSampleModel().getPeriodIndex());
 			setTpsValue(sampleModel.getTPSExpression().getDoubleValue(intervalStatistics));
 			checkTooLowTps(getTpsValues());
@@ -636,15 +668,15 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			for (long index = 0, repeatCounts = gap + 1; index < repeatCounts; index++) {
 				final boolean lastCall = (samplingCount == 1 && index == 0) || (samplingCount != 1 && index == gap);
 				writeIntervalSummaryData(intervalStatistics, lastCall);
-				if (interval >= (MIN_SAMPLING_INTERVAL_TO_ACTIVATE_TPS_PER_TEST)) {
-					writeIntervalSummaryDataPerTest(intervalStatisticMapPerTest, lastCall);
-				}
+				writeIntervalSummaryDataPerTest(intervalStatisticMapPerTest, lastCall);
+				writeReportDataRow();
 				samplingLifeCycleFollowupListener.apply(listener -> {
 					listener.onSampling(getReportPath(), intervalStatistics, cumulativeStatistics, lastCall);
 				});
 			}
 
 			lastSamplingPeriod = lastSamplingPeriod + (interval * gap);
+			submitReportBatch();
 		} catch (RuntimeException e) {
 			LOGGER.error("Error occurred while updating the statistics : {}", e.getMessage());
 			LOGGER.debug("Details : ", e);
@@ -665,14 +697,12 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
 				if (isPerfTestInterestingStatistics(each.getKey())) {
 					for (Entry<Test, StatisticsSet> entry : intervalStatisticMapPerTest.entrySet()) {
+						String key = getPerTestReportKey(entry.getKey(), each.getKey());
 						if (lastCall) {
 							StatisticsSet value = entry.getValue();
-							writeReportData(each.getKey() + "-" + entry.getKey().getNumber() + "_"
-									+ entry.getKey().getDescription().replaceAll("\\s+", "_") + REPORT_DATA,
-									formatValue(getRealDoubleValue(each.getValue().getDoubleValue(value))));
+							setReportData(key, getRealDoubleValue(each.getValue().getDoubleValue(value)));
 						} else {
-							writeReportData(each.getKey() + "-" + entry.getKey().getNumber() + "_"
-									+ entry.getKey().getDescription().replaceAll("\\s+", "_") + REPORT_DATA, "null");
+							setReportData(key, null);
 						}
 
 					}
@@ -681,6 +711,18 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		}
 	}
 
+	private String getPerTestReportKey(Test test, String statisticKey) {
+		return perTestReportKeys.computeIfAbsent(test, key -> new HashMap<>()).computeIfAbsent(statisticKey,
+				key -> key + "-" + test.getNumber() + "_" + toReportKey(test.getDescription()));
+	}
+
+	/**
+	 * Format the given display name as a report data key.
+	 */
+	private String toReportKey(String displayName) {
+		return reportKeys.computeIfAbsent(displayName, key -> key.replaceAll("\\s+", "_"));
+	}
+
 	/**
 	 * Write the total test interval statistic data into file.
 	 *
@@ -692,12 +734,57 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
 			if (firstCall) {
 				double doubleValue = each.getValue().getDoubleValue(intervalStatistics);
-				writeReportData(each.getKey() + REPORT_DATA, formatValue(getRealDoubleValue(doubleValue)));
+				setReportData(each.getKey(), getRealDoubleValue(doubleValue));
 			} else {
-				writeReportData(each.getKey() + REPORT_DATA, "null");
+				setReportData(each.getKey(), null);
 			}
 		}
-		writeReportData("Vuser" + REPORT_DATA, formatValue(runningThread));
+		for (Entry<String, Double> each : intervalExtendedSummary) {
+			if (firstCall) {
+				setReportData(each.getKey(), getRealDoubleValue(each.getValue()));
+			} else {
+				setReportData(each.getKey(), null);
+			}
+		}
+		writeIntervalStatusCodeData(firstCall);
+		writeIntervalAgentData(firstCall);
+		setReportData("Vuser", runningThread);
+	}
+
+	/**
+	 * Write the TPS, mean and percentile test time and errors of each agent. This is activated only when
+	 * there are more than 1 agents.
+	 */
+	private void writeIntervalAgentData(boolean firstCall) {
+		Map<String, AgentStatistics> agents = getIntervalAgentStatistics();
+		reportedAgents.addAll(agents.keySet());
+		if (reportedAgents.size() <= 1) {
+			return;
+		}
+		long interval = getSampleModel().getSampleInterval();
+		for (String each : reportedAgents) {
+			AgentStatistics statistics = agents.get(each);
+			Map<String, Object> values = getAgentStatisticsMap(statistics == null ? new AgentStatistics() : statistics,
+					interval);
+			for (Entry<String, Object> value : values.entrySet()) {
+				setReportData(AGENT_REPORT_PREFIX + value.getKey() + "-" + each, firstCall ? value.getValue() : null);
+			}
+		}
+	}
+
+	/**
+	 * Write the count of each response status code. These are not in the csv file since the codes are
+	 * not known when its header is written.
+	 */
+	private void writeIntervalStatusCodeData(boolean firstCall) {
+		ExtendedStatistics intervalExtendedStatistics = getSampleModel().getIntervalExtendedStatistics();
+		Map<Integer, Long> counts = intervalExtendedStatistics == null ? Collections.emptyMap()
+				: intervalExtendedStatistics.getStatusCodeCounts();
+		reportedStatusCodes.addAll(counts.keySet());
+		for (Integer each : reportedStatusCodes) {
+			String key = toReportKey(ExtendedStatistics.getStatusCodeName(each));
+			setReportData(key, firstCall ? (double) counts.getOrDefault(each, 0L) : null);
+		}
 	}
 
 	/**
@@ -718,6 +805,9 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 					csvHeader.append(cvsSeparator).append(each.getKey());
 				}
 			}
+			for (Entry<String, Double> each : intervalExtendedSummary) {
+				csvHeader.append(cvsSeparator).append(each.getKey());
+			}
 			if (intervalStatisticMapPerTest.size() != 1) {
 				for (int i = 1; i <= intervalStatisticMapPerTest.size(); i++) {
 					csvHeader.append(cvsSeparator).append("Description");
@@ -743,6 +833,9 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 				csvLine.append(cvsSeparator).append(formatValue(getRealDoubleValue(doubleValue)));
 			}
 		}
+		for (Entry<String, Double> each : intervalExtendedSummary) {
+			csvLine.append(cvsSeparator).append(formatValue(getRealDoubleValue(each.getValue())));
+		}
 
 		if (intervalStatisticMapPerTest.size() != 1) {
 			for (Entry<Test, StatisticsSet> eachPair : intervalStatisticMapPerTest.entrySet()) {
@@ -810,6 +903,8 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		result.put("testTime", getCurrentRunningTime() / 1000);
 		List<Map<String, Object>> cumulativeStatistics = new ArrayList<>();
 		List<Map<String, Object>> lastSampleStatistics = new ArrayList<>();
+		ExtendedStatistics cumulativeExtendedStatistics = getSampleModel().getCumulativeExtendedStatistics();
+		ExtendedStatistics intervalExtendedStatistics = getSampleModel().getIntervalExtendedStatistics();
 		for (Test test : accumulatedStatisticMapPerTest.keySet()) {
 			Map<String, Object> accumulatedStatisticMap = newHashMap();
 			Map<String, Object> intervalStatisticsMap = newHashMap();
@@ -830,6 +925,14 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 							getRealDoubleValue(each.getValue().getDoubleValue(intervalSet)));
 				}
 			}
+			putTestTimePercentiles(accumulatedStatisticMap, cumulativeExtendedStatistics, test.getNumber());
+			putTestTimePercentiles(intervalStatisticsMap, intervalExtendedStatistics, test.getNumber());
+			if (cumulativeExtendedStatistics != null) {
+				accumulatedStatisticMap.put("statusCodes", cumulativeExtendedStatistics.getStatusCodeCounts(test.getNumber()));
+				accumulatedStatisticMap.put("errorTypes", cumulativeExtendedStatistics.getErrorTypeCounts(test.getNumber()));
+				accumulatedStatisticMap.put("openedConnections",
+						cumulativeExtendedStatistics.getOpenedConnections(test.getNumber()));
+			}
 			cumulativeStatistics.add(accumulatedStatisticMap);
 			lastSampleStatistics.add(intervalStatisticsMap);
 		}
@@ -843,11 +946,20 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			}
 		}
 
+		for (Entry<String, Double> each : getExtendedSummary(cumulativeExtendedStatistics)) {
+			totalStatistics.put(each.getKey(), getRealDoubleValue(each.getValue()));
+		}
+
 		result.put("totalStatistics", totalStatistics);
+		result.put("agentStatistics", getAgentStatistics(getIntervalAgentStatistics()));
+		if (cumulativeExtendedStatistics != null) {
+			result.put("statusCodes", cumulativeExtendedStatistics.getStatusCodeCounts());
+		}
 		result.put("cumulativeStatistics", cumulativeStatistics);
 		result.put("lastSampleStatistics", lastSampleStatistics);
 		result.put("tpsChartData", getTpsValues());
 		result.put("peakTpsForGraph", this.peakTpsForGraph);
+		result.put("reportWriterLag", getReportWriterLag());
 		synchronized (this) {
 			result.put(GrinderConstants.P_PROCESS, this.runningProcess);
 			result.put(GrinderConstants.P_THREAD, this.runningThread);
@@ -871,6 +983,72 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		return testCount.longValue() + errorCount.longValue();
 	}
 
+	/**
+	 * Get the summary of the given extended statistics. Keys are formatted like the expression keys.
+	 */
+	private Set<Entry<String, Double>> getExtendedSummary(ExtendedStatistics extendedStatistics) {
+		Map<String, Double> summary = newLinkedHashMap();
+		Map<String, Double> values = (extendedStatistics == null ? new ExtendedStatistics() : extendedStatistics).getSummary();
+		for (Entry<String, Double> each : values.entrySet()) {
+			summary.put(toReportKey(each.getKey()), each.getValue());
+		}
+		return summary.entrySet();
+	}
+
+	/**
+	 * Get the statistics of each agent as a list ordered by agent name. Keys are formatted like the expression keys.
+	 */
+	private List<Map<String, Object>> getAgentStatistics(Map<String, AgentStatistics> agents) {
+		long interval = getSampleModel().getSampleInterval();
+		List<Map<String, Object>> agentStatistics = new ArrayList<>(agents.size());
+		for (Entry<String, AgentStatistics> each : agents.entrySet()) {
+			Map<String, Object> statisticsMap = newLinkedHashMap();
+			statisticsMap.put("agent", each.getKey());
+			statisticsMap.putAll(getAgentStatisticsMap(each.getValue(), interval));
+			agentStatistics.add(statisticsMap);
+		}
+		return agentStatistics;
+	}
+
+	private Map<String, Object> getAgentStatisticsMap(AgentStatistics statistics, long interval) {
+		Map<String, Object> statisticsMap = newLinkedHashMap();
+		Long percentile = statistics.getTestTimePercentile(AgentStatistics.TEST_TIME_PERCENTILE);
+		statisticsMap.put("TPS", getRealDoubleValue(statistics.getTps(interval)));
+		statisticsMap.put("Mean_Test_Time_(ms)", getRealDoubleValue(statistics.getMeanTestTime()));
+		statisticsMap.put(toReportKey(ExtendedStatistics.getTestTimePercentileName(AgentStatistics.TEST_TIME_PERCENTILE)),
+				getRealDoubleValue(percentile == null ? null : percentile.doubleValue()));
+		statisticsMap.put("Errors", getRealDoubleValue((double) statistics.getErrors()));
+		return statisticsMap;
+	}
+
+	@Override
+	public Map<String, AgentStatistics> getIntervalAgentStatistics() {
+		ExtendedStatistics intervalExtendedStatistics = getSampleModel().getIntervalExtendedStatistics();
+		return intervalExtendedStatistics == null ? Collections.emptyMap()
+				: intervalExtendedStatistics.getAgentStatistics();
+	}
+
+	/**
+	 * Put the test time percentiles and the response times of the given test. Keys are formatted like the
+	 * expression keys.
+	 */
+	private void putTestTimePercentiles(Map<String, Object> statisticsMap, ExtendedStatistics extendedStatistics,
+											   int testNumber) {
+		for (double each : ExtendedStatistics.TEST_TIME_PERCENTILES) {
+			Long value = extendedStatistics == null ? null : extendedStatistics.getTestTimePercentile(testNumber, each);
+			statisticsMap.put(toReportKey(ExtendedStatistics.getTestTimePercentileName(each)),
+					getRealDoubleValue(value == null ? null : value.doubleValue()));
+		}
+		statisticsMap.put(toReportKey(ExtendedStatistics.MEAN_RESPONSE_TIME), getRealDoubleValue(
+				extendedStatistics == null ? null : extendedStatistics.getMeanResponseTime(testNumber)));
+		for (double each : ExtendedStatistics.TEST_TIME_PERCENTILES) {
+			Long value = extendedStatistics == null ? null
+					: extendedStatistics.getResponseTimePercentile(testNumber, each);
+			statisticsMap.put(toReportKey(ExtendedStatistics.getResponseTimePercentileName(each)),
+					getRealDoubleValue(value == null ? null : value.doubleValue()));
+		}
+	}
+
 	private static Object getRealDoubleValue(Double doubleValue) {
 		if (doubleValue == null) {
 			return (double) 0;
@@ -1029,7 +1207,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 					notFinishedWorkerCount++;
 				}
 				processCount++;
-				threadCount += processReport.getNumberOfRunningThreads();
+				threadCount += getNumberOfRunningThreads(processReport);
 			}
 		}
 
@@ -1040,31 +1218,99 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		}
 	}
 
-	private void writeReportData(String name, String value) {
-		try {
-			BufferedWriter bw = fileWriterMap.get(name);
-			if (bw == null) {
-				bw = new BufferedWriter(new FileWriter(new File(this.reportPath, name), true));
-				fileWriterMap.put(name, bw);
-			}
-			bw.write(value);
-			bw.newLine();
-			bw.flush();
-		} catch (Exception e) {
-			LOGGER.error("Error while writing report data to {}", name , e);
-			throw processException(e);
+	/**
+	 * Get the running threads of the given process. The report carries at most {@link Short#MAX_VALUE} of them,
+	 * so the true count of a larger process is taken from its extended statistics.
+	 *
+	 * @param processReport process report
+	 * @return number of running threads
+	 */
+	private int getNumberOfRunningThreads(WorkerProcessReport processReport) {
+		final short count = processReport.getNumberOfRunningThreads();
+		if (count < Short.MAX_VALUE || getSampleModel() == null) {
+			return count;
 		}
+		final Integer runningThreads = getSampleModel().getRunningThreads(
+				processReport.getWorkerIdentity().getName());
+		return runningThreads == null ? count : runningThreads;
+	}
+
+	/**
+	 * Set the value of the given key in the current row of the report data.
+	 *
+	 * @param key   report key
+	 * @param value numeric value or null if there's no value in this row
+	 */
+	private void setReportData(String key, Object value) {
+		getReportBatch().set(key, value == null ? null : ((Number) value).doubleValue());
+	}
+
+	private void writeReportDataRow() {
+		getReportBatch().endRow();
 	}
 
 	private void writeCSVDataLine(String line) {
-		writeReportData(REPORT_CSV, line);
+		getReportBatch().addCsvLine(line);
+	}
+
+	private AsyncReportWriter.Batch getReportBatch() {
+		if (reportBatch == null) {
+			reportBatch = new AsyncReportWriter.Batch();
+		}
+		return reportBatch;
+	}
+
+	/**
+	 * Hand over everything the current sampling has produced to the report writer,
+	 * which writes it on its own thread.
+	 */
+	private void submitReportBatch() {
+		if (reportBatch == null || reportBatch.isEmpty()) {
+			return;
+		}
+		synchronized (reportWriterLock) {
+			if (reportWriter == null) {
+				reportWriter = new AsyncReportWriter(reportPath, REPORT_CSV, AsyncReportWriter.DEFAULT_QUEUE_CAPACITY);
+			}
+			reportWriter.submit(reportBatch);
+		}
+		reportBatch = null;
+	}
+
+	/**
+	 * Write all the pending report data and close the report writer.
+	 */
+	private void closeReportWriter() {
+		synchronized (reportWriterLock) {
+			if (reportWriter != null) {
+				reportWriter.close();
+				reportWriter = null;
+			}
+		}
 	}
 
+	/**
+	 * Get how long the oldest report data which is not written yet has waited.
+	 *
+	 * @return lag in milliseconds
+	 */
+	public long getReportWriterLag() {
+		AsyncReportWriter writer = reportWriter;
+		return writer == null ? 0 : writer.getLag();
+	}
+
+	private static DecimalFormat createCsvFormatter() {
+		DecimalFormat formatter = new DecimalFormat("###.###");
+		formatter.setGroupingUsed(false);
+		return formatter;
+	}
+
+	/*
+	 * It's called only by the sampling thread, so the formatter is reused.
+	 */
 	private String formatValue(Object val) {
 		if (val instanceof Double) {
-			DecimalFormat formatter = new DecimalFormat("###.###");
-			formatter.setGroupingUsed(false);
-			return formatter.format(val);
+			return csvFormatter.format(val);
 		} else if (String.valueOf(val).equals("null")) {
 			// if target server is too slow, there is no response in this
 			// second, then the
@@ -1168,6 +1414,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			this.sampleModel.reset();
 			this.sampleModel.stop();
 		}
+		closeReportWriter();
 		informTestSamplingEnd();
 	}
 
@@ -40,6 +40,7 @@ import net.grinder.util.ListenerSupport;
 import net.grinder.util.StandardTimeAuthority;
 import net.grinder.util.thread.Condition;
 import org.apache.commons.lang.StringUtils;
+import org.ngrinder.statistics.ReportExtendedStatisticsMessage;
 import org.picocontainer.DefaultPicoContainer;
 import org.picocontainer.MutablePicoContainer;
 import org.picocontainer.behaviors.Caching;
@@ -223,6 +224,14 @@ public class ConsoleFoundationEx {
 				}
 			});
 
+			messageDispatchRegistry.set(ReportExtendedStatisticsMessage.class, new AbstractHandler<ReportExtendedStatisticsMessage>() {
+				public void handle(ReportExtendedStatisticsMessage message) {
+					if (model instanceof SampleModelImplementationEx) {
+						((SampleModelImplementationEx) model).addExtendedReport(message.getStatistics());
+					}
+				}
+			});
+
 			messageDispatchRegistry.set(RegisterExpressionViewMessage.class, new AbstractHandler<RegisterExpressionViewMessage>() {
 				public void handle(RegisterExpressionViewMessage message) {
 					sampleModelViews.registerStatisticExpression(message.getExpressionView());
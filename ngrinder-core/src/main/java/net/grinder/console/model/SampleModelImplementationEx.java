@@ -26,8 +26,12 @@ import net.grinder.console.common.ErrorHandler;
 import net.grinder.console.common.Resources;
 import net.grinder.statistics.*;
 import net.grinder.util.ListenerSupport;
+import org.ngrinder.statistics.ExtendedStatistics;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Collate test reports into samples and distribute to listeners.
@@ -72,10 +76,34 @@ public class SampleModelImplementationEx implements SampleModel {
 	private ModelTestIndex modelTestIndex;
 
 	/**
-	 * A {@link SampleAccumulator} for each test. Guarded by itself.
+	 * A {@link SampleAccumulator} for each test. Each accumulator is guarded by itself, so reports of
+	 * different tests are accumulated concurrently under the read lock of m_sampleLock. Registration of
+	 * tests is guarded by the map.
 	 */
-	private final Map<Test, SampleAccumulator> m_accumulators = Collections
-					.synchronizedMap(new HashMap<Test, SampleAccumulator>());
+	private final Map<Test, SampleAccumulator> m_accumulators = new ConcurrentHashMap<Test, SampleAccumulator>();
+
+	/**
+	 * Reports are added on the read side, so the ones of different tests are added concurrently. A sample
+	 * is taken on the write side, so every report is in the same interval for its tests and for the total.
+	 */
+	private final ReadWriteLock m_sampleLock = new ReentrantReadWriteLock();
+
+	private final Object m_extendedStatisticsLock = new Object();
+
+	/**
+	 * {@link ExtendedStatistics} of the current interval and of the capturing period. Guarded by
+	 * m_extendedStatisticsLock.
+	 */
+	private final ExtendedStatistics m_intervalExtendedStatistics = new ExtendedStatistics();
+	private final ExtendedStatistics m_cumulativeExtendedStatistics = new ExtendedStatistics();
+
+	private volatile ExtendedStatistics m_lastIntervalExtendedStatistics = new ExtendedStatistics();
+
+	/**
+	 * Latest running threads of the worker processes which report them through the extended statistics,
+	 * keyed by worker name. They are kept in every state, since they don't belong to a sample.
+	 */
+	private final Map<String, Integer> m_runningThreads = new ConcurrentHashMap<>();
 
 	// Guarded by this.
 	private InternalState m_state;
@@ -244,7 +272,10 @@ public class SampleModelImplementationEx implements SampleModel {
 		}
 
 		m_accumulators.clear();
-		m_totalSampleAccumulator.zero();
+		synchronized (m_totalSampleAccumulator) {
+			m_totalSampleAccumulator.zero();
+		}
+		zeroExtendedStatistics();
 
 		m_listeners.apply(new ListenerSupport.Informer<Listener>() {
 			public void inform(Listener l) {
@@ -277,6 +308,49 @@ public class SampleModelImplementationEx implements SampleModel {
 		getInternalState().newTestReport(testStatisticsMap);
 	}
 
+	/**
+	 * Add a new extended statistics report.
+	 *
+	 * @param extendedStatistics
+	 *            The new extended statistics.
+	 */
+	public void addExtendedReport(ExtendedStatistics extendedStatistics) {
+		m_runningThreads.putAll(extendedStatistics.getRunningThreads());
+		getInternalState().newExtendedReport(extendedStatistics);
+	}
+
+	/**
+	 * Get the latest running threads of the given worker process reported through the extended statistics.
+	 *
+	 * @param workerName worker name
+	 * @return number of running threads or null if the worker didn't report them
+	 */
+	public Integer getRunningThreads(String workerName) {
+		return m_runningThreads.get(workerName);
+	}
+
+	/**
+	 * Get the extended statistics of the last sampled interval.
+	 *
+	 * @return The extended statistics.
+	 */
+	public ExtendedStatistics getIntervalExtendedStatistics() {
+		return m_lastIntervalExtendedStatistics;
+	}
+
+	/**
+	 * Get the extended statistics accumulated since capturing started.
+	 *
+	 * @return A copy of the extended statistics.
+	 */
+	public ExtendedStatistics getCumulativeExtendedStatistics() {
+		final ExtendedStatistics result = new ExtendedStatistics();
+		synchronized (m_extendedStatisticsLock) {
+			result.add(m_cumulativeExtendedStatistics);
+		}
+		return result;
+	}
+
 	/**
 	 * Get the current model state.
 	 * 
@@ -290,12 +364,23 @@ public class SampleModelImplementationEx implements SampleModel {
 	 * Zero the accumulators.
 	 */
 	public void zero() {
-		synchronized (m_accumulators) {
-			for (SampleAccumulator sampleAccumulator : m_accumulators.values()) {
+		for (SampleAccumulator sampleAccumulator : m_accumulators.values()) {
+			synchronized (sampleAccumulator) {
 				sampleAccumulator.zero();
 			}
 		}
-		m_totalSampleAccumulator.zero();
+		synchronized (m_totalSampleAccumulator) {
+			m_totalSampleAccumulator.zero();
+		}
+		zeroExtendedStatistics();
+	}
+
+	private void zeroExtendedStatistics() {
+		synchronized (m_extendedStatisticsLock) {
+			m_intervalExtendedStatistics.clear();
+			m_cumulativeExtendedStatistics.clear();
+		}
+		m_lastIntervalExtendedStatistics = new ExtendedStatistics();
 	}
 
 	private InternalState getInternalState() {
@@ -324,6 +409,8 @@ public class SampleModelImplementationEx implements SampleModel {
 		void stop();
 
 		void newTestReport(TestStatisticsMap testStatisticsMap);
+
+		void newExtendedReport(ExtendedStatistics extendedStatistics);
 	}
 
 	private abstract class AbstractInternalState implements InternalState, State {
@@ -346,6 +433,10 @@ public class SampleModelImplementationEx implements SampleModel {
 			// Valid transition for all states.
 			setInternalState(new StoppedState());
 		}
+
+		public void newExtendedReport(ExtendedStatistics extendedStatistics) {
+			// Only sampling states record extended statistics.
+		}
 	}
 
 	private final class WaitingForTriggerState extends AbstractInternalState {
@@ -402,45 +493,84 @@ public class SampleModelImplementationEx implements SampleModel {
 		private volatile long msampleCount = 1;
 
 		public void newTestReport(TestStatisticsMap testStatisticsMap) {
+			m_sampleLock.readLock().lock();
+			try {
+				addTestReport(testStatisticsMap);
+			} finally {
+				m_sampleLock.readLock().unlock();
+			}
+		}
+
+		private void addTestReport(TestStatisticsMap testStatisticsMap) {
+			final boolean accumulate = shouldAccumulateSamples();
+			// Totals of the report are summed up here, so the total accumulator is locked once per report.
+			final StatisticsSet reportTotal = m_statisticsServices.getStatisticsSetFactory().create();
+
 			(testStatisticsMap.new ForEach() {
 				public void next(Test test, StatisticsSet statistics) {
 					final SampleAccumulator sampleAccumulator = m_accumulators.get(test);
-					synchronized (m_accumulators) {
-						if (sampleAccumulator == null) {
-							m_errorHandler.handleInformationMessage(m_unknownTestString + " " + test);
-						} else {
-							sampleAccumulator.addIntervalStatistics(statistics);
-
-							if (shouldAccumulateSamples()) {
-								sampleAccumulator.addCumulativeStaticstics(statistics);
-							}
-
-							if (!statistics.isComposite()) {
-								m_totalSampleAccumulator.addIntervalStatistics(statistics);
-
-								if (shouldAccumulateSamples()) {
-									m_totalSampleAccumulator.addCumulativeStatistics(statistics);
-								}
-							}
+					if (sampleAccumulator == null) {
+						m_errorHandler.handleInformationMessage(m_unknownTestString + " " + test);
+						return;
+					}
+
+					synchronized (sampleAccumulator) {
+						sampleAccumulator.addIntervalStatistics(statistics);
+
+						if (accumulate) {
+							sampleAccumulator.addCumulativeStaticstics(statistics);
 						}
 					}
+
+					if (!statistics.isComposite()) {
+						reportTotal.add(statistics);
+					}
 				}
 				// CHECKSTYLE:OFF
 			}).iterate();
+
+			synchronized (m_totalSampleAccumulator) {
+				m_totalSampleAccumulator.addIntervalStatistics(reportTotal);
+
+				if (accumulate) {
+					m_totalSampleAccumulator.addCumulativeStatistics(reportTotal);
+				}
+			}
+		}
+
+		public void newExtendedReport(ExtendedStatistics extendedStatistics) {
+			m_sampleLock.readLock().lock();
+			try {
+				synchronized (m_extendedStatisticsLock) {
+					m_intervalExtendedStatistics.add(extendedStatistics);
+
+					if (shouldAccumulateSamples()) {
+						m_cumulativeExtendedStatistics.add(extendedStatistics);
+					}
+				}
+			} finally {
+				m_sampleLock.readLock().unlock();
+			}
 		}
 
 		protected void schedule() {
+			final long delay;
 			synchronized (this) {
+				final long now = System.currentTimeMillis();
 				if (mlastTime == 0) {
-					mlastTime = System.currentTimeMillis();
+					mlastTime = now;
 				}
+				// Samples are taken at a fixed rate from the start. If each one waited for the whole interval
+				// after the previous one, the time a sampling takes would pile up, which is a large part of
+				// a sub second interval.
+				delay = Math.max(mlastTime + msampleCount * m_properties.getSampleInterval() - now, 0);
 			}
 
 			m_timer.schedule(new TimerTask() {
 				public void run() {
 					sample();
 				}
-			}, m_properties.getSampleInterval());
+			}, delay);
 		}
 
 		public final void sample() {
@@ -456,13 +586,28 @@ public class SampleModelImplementationEx implements SampleModel {
 				}
 
 				final long sampleInterval = m_properties.getSampleInterval();
-				SampleAccumulatorEx totalSampleAccumulatorSnapshot;
-				synchronized (m_accumulators) {
+				final SampleAccumulatorEx totalSampleAccumulatorSnapshot;
+				// The intervals of all the tests, the total and the extended statistics are swapped at once.
+				// Reports wait only for the swap, not for the listeners of the total.
+				m_sampleLock.writeLock().lock();
+				try {
 					for (SampleAccumulator sampleAccumulator : m_accumulators.values()) {
-						sampleAccumulator.fireSample(sampleInterval, period);
+						synchronized (sampleAccumulator) {
+							sampleAccumulator.fireSample(sampleInterval, period);
+						}
+					}
+					synchronized (m_totalSampleAccumulator) {
+						totalSampleAccumulatorSnapshot = new SampleAccumulatorEx(m_totalSampleAccumulator);
+						m_totalSampleAccumulator.refreshIntervalStatistics(sampleInterval, period);
+					}
+					synchronized (m_extendedStatisticsLock) {
+						final ExtendedStatistics intervalExtendedStatistics = new ExtendedStatistics();
+						intervalExtendedStatistics.add(m_intervalExtendedStatistics);
+						m_intervalExtendedStatistics.clear();
+						m_lastIntervalExtendedStatistics = intervalExtendedStatistics;
 					}
-					totalSampleAccumulatorSnapshot = new SampleAccumulatorEx(m_totalSampleAccumulator);
-					m_totalSampleAccumulator.refreshIntervalStatistics(sampleInterval, period);
+				} finally {
+					m_sampleLock.writeLock().unlock();
 				}
 				totalSampleAccumulatorSnapshot.fireSample(sampleInterval, period);
 				++msampleCount;
@@ -47,6 +47,7 @@ import org.apache.commons.lang.StringUtils;
 import org.ngrinder.common.constants.AgentConstants;
 import org.ngrinder.common.util.NoOp;
 import org.ngrinder.infra.AgentConfig;
+import org.ngrinder.statistics.WorkerStatisticsMessage;
 import org.slf4j.Logger;
 
 import java.io.File;
@@ -77,6 +78,7 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 	private FanOutStreamSender m_fanOutStreamSender;
 	private final ConnectorFactory m_connectorFactory = new ConnectorFactory(ConnectionType.AGENT);
 	private WorkerLauncher m_workerLauncherForShutdown = null;
+	private WorkerStatisticsAggregator m_statisticsAggregator = null;
 	/**
 	 * We use an most one file store throughout an agent's life, but can't Initialize it until we've
 	 * read the properties and connected to the console.
@@ -237,6 +239,7 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 					Properties rebasedSystemProperty = rebaseSystemClassPath(System.getProperties(), m_agentConfig.getCurrentDirectory());
 
 					String jvmArguments = buildTestRunProperties(script, handler, rebasedSystemProperty, properties);
+					startStatisticsAggregator(consoleCommunication, properties);
 
 					if (!properties.getBoolean("grinder.debug.singleprocess", false)) {
 						// Fix to provide empty system classpath to speed up
@@ -308,6 +311,7 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 					}
 					m_logger.debug("Normal shutdown");
 					workerLauncher.shutdown();
+					shutdownStatisticsAggregator();
 					break;
 				}
 
@@ -344,6 +348,7 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 				m_timer.cancel();
 				m_timer = null;
 			}
+			shutdownStatisticsAggregator();
 			shutdownConsoleCommunication(consoleCommunication);
 			if (m_fanOutStreamSender != null) {
 				m_fanOutStreamSender.shutdown();
@@ -466,6 +471,36 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 		return properties;
 	}
 
+	/**
+	 * Let the workers send their statistics to the agent, which merges them into a report per interval,
+	 * if it's enabled by {@link AgentConstants#PROP_AGENT_AGGREGATE_STATISTICS}.
+	 */
+	private void startStatisticsAggregator(ConsoleCommunication consoleCommunication, GrinderProperties properties) {
+		properties.remove(WorkerStatisticsMessage.PROP_AGGREGATION_PORT);
+		if (consoleCommunication == null
+				|| !m_agentConfig.getAgentProperties().getPropertyBoolean(PROP_AGENT_AGGREGATE_STATISTICS)) {
+			return;
+		}
+		WorkerStatisticsAggregator aggregator = new WorkerStatisticsAggregator(consoleCommunication.getSender(),
+				properties.getInt(GRINDER_PROP_REPORT_TO_CONSOLE, 500), m_logger);
+		try {
+			properties.setInt(WorkerStatisticsMessage.PROP_AGGREGATION_PORT, aggregator.start());
+			m_statisticsAggregator = aggregator;
+			m_logger.info("Statistics of the workers are merged by the agent");
+		} catch (CommunicationException e) {
+			m_logger.warn("Workers report to the console on their own, since the statistics aggregator can't "
+					+ "start: {}", e.getMessage());
+			aggregator.shutdown();
+		}
+	}
+
+	private void shutdownStatisticsAggregator() {
+		if (m_statisticsAggregator != null) {
+			m_statisticsAggregator.shutdown();
+			m_statisticsAggregator = null;
+		}
+	}
+
 	private void shutdownConsoleCommunication(ConsoleCommunication consoleCommunication) {
 		if (consoleCommunication != null) {
 			consoleCommunication.shutdown();
@@ -583,6 +618,10 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 			return m_connector;
 		}
 
+		public Sender getSender() {
+			return m_sender;
+		}
+
 		public void shutdown() {
 			m_reportRunningTask.cancel();
 
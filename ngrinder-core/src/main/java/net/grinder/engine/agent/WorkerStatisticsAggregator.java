@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.agent;
+
+import net.grinder.communication.*;
+import net.grinder.messages.console.ReportStatisticsMessage;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.TestStatisticsMap;
+import net.grinder.util.StandardTimeAuthority;
+import org.ngrinder.statistics.ExtendedStatistics;
+import org.ngrinder.statistics.ReportExtendedStatisticsMessage;
+import org.ngrinder.statistics.WorkerStatisticsMessage;
+import org.slf4j.Logger;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Merges the statistics of the worker processes of an agent and reports them to the console at once.
+ * <p>
+ * Without it, every worker reports to the console on its own, so the console decodes and merges a report
+ * per process. The workers send their samples to this aggregator on the loopback interface instead, and
+ * it forwards a single {@link ReportStatisticsMessage} and {@link ReportExtendedStatisticsMessage} as soon
+ * as every worker has reported, or at the report interval at the latest. The other messages of the workers,
+ * such as the test registrations and the process reports, still go to the console directly.
+ *
+ * @since 3.5.5
+ */
+class WorkerStatisticsAggregator {
+	private static final long INACTIVE_CLIENT_TIME_OUT = 30000;
+	private static final int IDLE_POLL_DELAY = 500;
+
+	private final Sender consoleSender;
+	private final long reportInterval;
+	private final Logger logger;
+
+	private final Set<Address> workers = new HashSet<>();
+	private final Set<Address> reportedWorkers = new HashSet<>();
+	private TestStatisticsMap sample = newSample();
+	private ExtendedStatistics extendedStatistics = new ExtendedStatistics();
+
+	private Acceptor acceptor;
+	private ServerReceiver receiver;
+	private Timer timer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param consoleSender  sender of the agent connection to the console
+	 * @param reportInterval max milliseconds a sample waits before it's forwarded
+	 * @param logger         logger
+	 */
+	WorkerStatisticsAggregator(Sender consoleSender, long reportInterval, Logger logger) {
+		this.consoleSender = consoleSender;
+		this.reportInterval = Math.max(reportInterval, 1);
+		this.logger = logger;
+	}
+
+	/**
+	 * Start receiving the statistics of the workers.
+	 *
+	 * @return local port the workers should send their statistics to
+	 * @throws CommunicationException if the port can't be opened
+	 */
+	int start() throws CommunicationException {
+		acceptor = new Acceptor(WorkerStatisticsMessage.AGGREGATION_HOST, 0, 1, new StandardTimeAuthority());
+		receiver = new ServerReceiver();
+		receiver.receiveFrom(acceptor, new ConnectionType[]{ConnectionType.WORKER}, 2, IDLE_POLL_DELAY,
+			INACTIVE_CLIENT_TIME_OUT);
+
+		final Thread receiverThread = new Thread(this::receiveAll, "Worker statistics aggregator");
+		receiverThread.setDaemon(true);
+		receiverThread.start();
+
+		timer = new Timer("Worker statistics aggregator timer", true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, reportInterval, reportInterval);
+		return acceptor.getPort();
+	}
+
+	private void receiveAll() {
+		try {
+			Message message;
+			while ((message = receiver.waitForMessage()) != null) {
+				if (message instanceof WorkerStatisticsMessage) {
+					receive((WorkerStatisticsMessage) message);
+				}
+			}
+		} catch (CommunicationException e) {
+			logger.error("Error while receiving the statistics of the workers: {}", e.getMessage());
+			logger.debug("The error detail is ", e);
+		}
+	}
+
+	/**
+	 * Merge the statistics of a worker. They're forwarded at once if every known worker has reported since the
+	 * last forward, or if a worker has sent its final report.
+	 *
+	 * @param message statistics of a worker
+	 */
+	synchronized void receive(WorkerStatisticsMessage message) {
+		if (message.getSample() != null) {
+			sample.add(message.getSample());
+		}
+		if (message.getExtendedStatistics() != null) {
+			extendedStatistics.add(message.getExtendedStatistics());
+		}
+		final Address address = message.getAddress();
+		if (message.isLast()) {
+			workers.remove(address);
+			reportedWorkers.remove(address);
+			flush();
+			notifyAll();
+			return;
+		}
+		workers.add(address);
+		reportedWorkers.add(address);
+		if (reportedWorkers.containsAll(workers)) {
+			flush();
+		}
+	}
+
+	/**
+	 * Forward the merged statistics to the console if there's any.
+	 */
+	synchronized void flush() {
+		reportedWorkers.clear();
+		try {
+			if (sample.size() > 0) {
+				consoleSender.send(new ReportStatisticsMessage(sample));
+				sample = newSample();
+			}
+			if (!extendedStatistics.isEmpty()) {
+				consoleSender.send(new ReportExtendedStatisticsMessage(extendedStatistics));
+				extendedStatistics = new ExtendedStatistics();
+			}
+		} catch (CommunicationException e) {
+			logger.error("Error while reporting the statistics of the workers: {}", e.getMessage());
+			logger.debug("The error detail is ", e);
+		}
+	}
+
+	/**
+	 * Forward what's left and stop receiving. The final reports of the workers may still be on the way
+	 * when they have exited, so it waits for them up to the report interval.
+	 */
+	void shutdown() {
+		synchronized (this) {
+			final long deadline = System.currentTimeMillis() + Math.max(reportInterval, 1000);
+			long remaining;
+			while (!workers.isEmpty() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		if (timer != null) {
+			timer.cancel();
+		}
+		if (receiver != null) {
+			receiver.shutdown();
+		}
+		if (acceptor != null) {
+			try {
+				acceptor.shutdown();
+			} catch (CommunicationException e) {
+				logger.debug("Error while closing the worker statistics port", e);
+			}
+		}
+		flush();
+	}
+
+	private static TestStatisticsMap newSample() {
+		return new TestStatisticsMap(StatisticsServicesImplementation.getInstance().getStatisticsSetFactory());
+	}
+}
@@ -36,6 +36,7 @@ public interface AgentConstants {
 	String PROP_AGENT_BROADCAST_IP = "agent.broadcast_ip";
 	String PROP_AGENT_ENABLE_LOCAL_DNS = "agent.enable_local_dns";
 	String PROP_AGENT_ENABLE_SECURITY = "agent.enable_security";
+	String PROP_AGENT_AGGREGATE_STATISTICS = "agent.aggregate_statistics";
 
 	String VALUE_AGENT_TO_CONTROLLER = "agent_to_controller";
 	String VALUE_CONTROLLER_TO_AGENT = "controller_to_agent";
@@ -204,6 +204,21 @@ public class PerfTest extends BaseModel<PerfTest> {
 	@Column(name = "test_time_standard_deviation")
 	private Double testTimeStandardDeviation;
 
+	@Column(name = "test_time_p50")
+	private Double testTimeP50;
+
+	@Column(name = "test_time_p90")
+	private Double testTimeP90;
+
+	@Column(name = "test_time_p95")
+	private Double testTimeP95;
+
+	@Column(name = "test_time_p99")
+	private Double testTimeP99;
+
+	@Column(name = "test_time_p999")
+	private Double testTimeP999;
+
 	@Column(name = "tps")
 	private Double tps;
 
@@ -274,10 +289,21 @@ public class PerfTest extends BaseModel<PerfTest> {
 	@SortNatural
 	private SortedSet<Tag> tags;
 
+	/**
+	 * Sampling interval in seconds. It's derived from {@link #samplingIntervalMillis} and used for the target
+	 * monitoring, which isn't sampled more than once a second.
+	 */
 	@Cloneable
 	@Column(name = "sampling_interval")
 	private Integer samplingInterval;
 
+	/**
+	 * Sampling interval in milliseconds. It takes precedence over {@link #samplingInterval}.
+	 */
+	@Cloneable
+	@Column(name = "sampling_interval_ms")
+	private Integer samplingIntervalMillis;
+
 	@Cloneable
 	@Column(name = "param")
 	private String param;
@@ -304,7 +330,8 @@ public class PerfTest extends BaseModel<PerfTest> {
 		this.runCount = getSafe(this.runCount);
 		this.stopRequest = getSafe(this.stopRequest, false);
 		this.duration = getSafe(this.duration, 60000L);
-		this.samplingInterval = getSafe(this.samplingInterval, 2);
+		this.samplingIntervalMillis = getSafe(getSamplingIntervalMillis(), 2000);
+		this.samplingInterval = Math.max((this.samplingIntervalMillis + 500) / 1000, 1);
 		this.scriptRevision = getSafe(this.scriptRevision, "-1");
 		this.param = getSafe(this.param, "");
 		this.scm = getSafe(this.scm, DEFAULT_SCM);
@@ -449,6 +476,19 @@ public class PerfTest extends BaseModel<PerfTest> {
 		return cast(defaultIfNull(ignoreTooManyError, Boolean.FALSE));
 	}
 
+	/**
+	 * Get the sampling interval in milliseconds. The one in seconds is used if it's not set, as the tests
+	 * which were created before it existed.
+	 *
+	 * @return sampling interval in milliseconds
+	 */
+	public Integer getSamplingIntervalMillis() {
+		if (samplingIntervalMillis == null && samplingInterval != null) {
+			return samplingInterval * 1000;
+		}
+		return samplingIntervalMillis;
+	}
+
 	public boolean isGitHubScm() {
 		return scm != null && !scm.equals(DEFAULT_SCM);
 	}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+/**
+ * Writer which persists the report of a running test on its own thread, so a slow disk never delays the sampling.
+ * <p>
+ * Everything a sampling produces is submitted as a single {@link Batch} and the csv file is flushed once per batch.
+ * The queue is bounded. When the writer falls that far behind, {@link #submit(Batch)} blocks the sampling
+ * until there's room, since dropping a batch would break the rows of the report data.
+ * The time the oldest unwritten batch has waited is exposed by {@link #getLag()}.
+ */
+public class AsyncReportWriter implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncReportWriter.class);
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+	private static final Batch END = new Batch();
+
+	private final File reportDir;
+	private final String csvFileName;
+	private final BlockingQueue<Batch> queue;
+	private final Thread thread;
+
+	private ReportDataWriter reportDataWriter;
+	private BufferedWriter csvWriter;
+
+	private volatile Batch current;
+	private volatile long maxLag;
+	private volatile boolean closed;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reportDir     report directory
+	 * @param csvFileName   name of the csv file in the report directory
+	 * @param queueCapacity max number of batches which wait to be written
+	 */
+	public AsyncReportWriter(File reportDir, String csvFileName, int queueCapacity) {
+		this.reportDir = reportDir;
+		this.csvFileName = csvFileName;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.thread = new Thread(this::run, "report writer for " + reportDir.getPath());
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Submit the given batch. It blocks only when the queue is full.
+	 *
+	 * @param batch batch of a sampling
+	 */
+	public void submit(Batch batch) {
+		if (closed) {
+			LOGGER.warn("Report writer for {} is already closed", reportDir);
+			return;
+		}
+		batch.submittedAt = System.currentTimeMillis();
+		if (!queue.offer(batch)) {
+			LOGGER.warn("Report writer for {} is {} ms behind. The sampling waits until it catches up",
+				reportDir, getLag());
+			try {
+				queue.put(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Get the time in milliseconds the oldest unwritten batch has waited. 0 if everything is written.
+	 *
+	 * @return lag in milliseconds
+	 */
+	public long getLag() {
+		Batch oldest = current;
+		if (oldest == null) {
+			oldest = queue.peek();
+		}
+		return oldest == null ? 0 : Math.max(System.currentTimeMillis() - oldest.submittedAt, 0);
+	}
+
+	/**
+	 * Get the max time in milliseconds a batch has waited until it's written.
+	 *
+	 * @return max lag in milliseconds
+	 */
+	public long getMaxLag() {
+		return maxLag;
+	}
+
+	/**
+	 * Get the number of batches which are not written yet.
+	 *
+	 * @return pending batch count
+	 */
+	public int getPendingBatchCount() {
+		return queue.size() + (current == null ? 0 : 1);
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				Batch batch = queue.take();
+				if (batch == END) {
+					break;
+				}
+				current = batch;
+				try {
+					write(batch);
+				} catch (IOException e) {
+					LOGGER.error("Error while writing report data to {}", reportDir, e);
+				}
+				maxLag = Math.max(maxLag, System.currentTimeMillis() - batch.submittedAt);
+				current = null;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			current = null;
+			closeQuietly(csvWriter);
+			closeQuietly(reportDataWriter);
+		}
+	}
+
+	private void write(Batch batch) throws IOException {
+		if (!batch.csvLines.isEmpty()) {
+			if (csvWriter == null) {
+				csvWriter = new BufferedWriter(new FileWriter(new File(reportDir, csvFileName), true));
+			}
+			for (String each : batch.csvLines) {
+				csvWriter.write(each);
+				csvWriter.newLine();
+			}
+			csvWriter.flush();
+		}
+		if (!batch.rows.isEmpty()) {
+			if (reportDataWriter == null) {
+				reportDataWriter = new ReportDataWriter(reportDir);
+			}
+			for (Map<String, Double> row : batch.rows) {
+				for (Map.Entry<String, Double> each : row.entrySet()) {
+					reportDataWriter.set(each.getKey(), each.getValue());
+				}
+				reportDataWriter.writeRow();
+			}
+		}
+	}
+
+	/**
+	 * Write all the submitted batches and stop the writer thread.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			queue.put(END);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (maxLag > 0) {
+			LOGGER.info("Report writer for {} is closed. Max lag was {} ms", reportDir, maxLag);
+		}
+	}
+
+	/**
+	 * Csv lines and report data rows of a sampling.
+	 */
+	public static class Batch {
+		private long submittedAt;
+		private final List<String> csvLines = new ArrayList<>(2);
+		private final List<Map<String, Double>> rows = new ArrayList<>(1);
+		private Map<String, Double> row = new LinkedHashMap<>();
+
+		public void addCsvLine(String line) {
+			csvLines.add(line);
+		}
+
+		/**
+		 * Set the value of the given column in the current row.
+		 *
+		 * @param column column name
+		 * @param value  value or null
+		 */
+		public void set(String column, Double value) {
+			row.put(column, value);
+		}
+
+		/**
+		 * Complete the current row and start a new one.
+		 */
+		public void endRow() {
+			rows.add(row);
+			row = new LinkedHashMap<>(row.size() * 2);
+		}
+
+		public boolean isEmpty() {
+			return csvLines.isEmpty() && rows.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+/**
+ * Min, max, average and last value of the rows which fall into a bucket.
+ * Values are merged with a weight, so a bucket can be built from the rows of different levels.
+ */
+final class ReportDataBucket {
+	private float min;
+	private float max;
+	private double sum;
+	private long weight;
+	private float last;
+
+	ReportDataBucket() {
+		reset();
+	}
+
+	void add(float value) {
+		add(value, value, value, value, 1);
+	}
+
+	void add(float min, float max, float avg, float last, long weight) {
+		if (Float.isNaN(avg)) {
+			return;
+		}
+		this.min = Math.min(this.min, min);
+		this.max = Math.max(this.max, max);
+		this.sum += (double) avg * weight;
+		this.weight += weight;
+		this.last = last;
+	}
+
+	boolean isEmpty() {
+		return weight == 0;
+	}
+
+	float get(Aggregate aggregate) {
+		if (isEmpty()) {
+			return Float.NaN;
+		}
+		switch (aggregate) {
+			case MIN:
+				return min;
+			case MAX:
+				return max;
+			case AVG:
+				return (float) (sum / weight);
+			default:
+				return last;
+		}
+	}
+
+	void reset() {
+		min = Float.POSITIVE_INFINITY;
+		max = Float.NEGATIVE_INFINITY;
+		sum = 0;
+		weight = 0;
+		last = Float.NaN;
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.io.FilenameUtils.getBaseName;
+import static org.ngrinder.common.util.Preconditions.checkNotNull;
+
+/**
+ * Converter of the legacy report directories which have a text file per statistic key
+ * such as "TPS.data" into the report data of {@link ReportDataWriter}.
+ * <p>
+ * Text files are left as they are. Files which aren't a single column of numbers, like the monitor data, are skipped.
+ * It can be run against the perftest directory of the nGrinder home to convert all the reports at once.
+ * <pre>
+ * java -cp ngrinder-core.jar:... org.ngrinder.report.ReportDataConverter ~/.ngrinder/perftest
+ * </pre>
+ */
+public class ReportDataConverter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportDataConverter.class);
+
+	public static final String LEGACY_REPORT_DATA = ".data";
+	private static final String NULL_STRING = "null";
+	private static final String REPORT_DIRECTORY = "report";
+
+	/**
+	 * Convert the legacy report data of the given directory if it hasn't been converted yet.
+	 *
+	 * @param reportDir report directory
+	 * @return true if converted
+	 * @throws IOException if the conversion fails
+	 */
+	public static synchronized boolean convert(File reportDir) throws IOException {
+		// A report which has the data file is either converted or being written by a running test.
+		if (new File(reportDir, ReportDataWriter.DATA_FILE).exists()) {
+			return false;
+		}
+
+		final File[] files = reportDir.listFiles((dir, name) -> name.endsWith(LEGACY_REPORT_DATA));
+		if (files == null || files.length == 0) {
+			return false;
+		}
+
+		final Map<String, List<Float>> columns = new TreeMap<>();
+		int rowCount = 0;
+		for (File each : files) {
+			final List<Float> values = readLegacyFile(each);
+			if (values != null) {
+				columns.put(getBaseName(each.getName()), values);
+				rowCount = Math.max(rowCount, values.size());
+			}
+		}
+		if (columns.isEmpty()) {
+			return false;
+		}
+
+		final int rows = rowCount;
+		write(reportDir, ReportDataWriter.DEFAULT_NAME, writer -> {
+			for (int row = 0; row < rows; row++) {
+				for (Map.Entry<String, List<Float>> each : columns.entrySet()) {
+					final List<Float> values = each.getValue();
+					final Float value = row < values.size() ? values.get(row) : null;
+					writer.set(each.getKey(), value == null ? null : value.doubleValue());
+				}
+				writer.writeRow();
+			}
+		});
+		LOGGER.info("{} columns and {} rows of {} are converted", columns.size(), rowCount, reportDir);
+		return true;
+	}
+
+	/**
+	 * Read a legacy report file.
+	 *
+	 * @return values or null if it's not a single column of numbers
+	 */
+	private static List<Float> readLegacyFile(File file) throws IOException {
+		final List<Float> values = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (StringUtils.isEmpty(line)) {
+					break;
+				}
+				if (NULL_STRING.equals(line)) {
+					values.add(null);
+					continue;
+				}
+				try {
+					values.add(Float.parseFloat(line));
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Convert a csv file which starts with a header line, like the data of the report plugins, into the report
+	 * data of the given name in the same directory. Header names are trimmed and their spaces are replaced with "_".
+	 * Values which aren't numbers are kept as null. The csv file may be appended by a plugin while the test is
+	 * running, so the report data is converted again whenever the csv file is modified after the last conversion.
+	 *
+	 * @param csvFile csv file
+	 * @param name    name of the report data
+	 * @return true if the report data is up to date
+	 * @throws IOException if the conversion fails
+	 */
+	public static synchronized boolean convertCsv(File csvFile, String name) throws IOException {
+		final File dir = csvFile.getParentFile();
+		final File indexFile = new File(dir, name + ReportDataWriter.INDEX_EXTENSION);
+		final long lastModified = csvFile.lastModified();
+		if (lastModified == 0) {
+			return false;
+		}
+		if (ReportDataReader.exists(dir, name) && indexFile.lastModified() >= lastModified) {
+			return true;
+		}
+
+		write(dir, name, writer -> {
+			try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
+				final String[] header = StringUtils.split(StringUtils.defaultString(reader.readLine()), ",");
+				for (int i = 0; i < header.length; i++) {
+					header[i] = header[i].trim().replaceAll(" ", "_");
+				}
+				String line;
+				while (StringUtils.isNotBlank(line = reader.readLine())) {
+					final String[] records = StringUtils.split(line, ",");
+					for (int i = 0; i < header.length; i++) {
+						writer.set(header[i], i < records.length ? parseDouble(records[i]) : null);
+					}
+					writer.writeRow();
+				}
+			}
+		});
+		// The conversion is stamped with the modification time of the csv file it has read.
+		indexFile.setLastModified(lastModified);
+		return true;
+	}
+
+	private static Double parseDouble(String value) {
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Write the report data into a temporary directory first, so a failed conversion never leaves
+	 * a partial report data behind. The index is moved last since it marks the report data as complete.
+	 */
+	private static void write(File dir, String name, RowWriter rowWriter) throws IOException {
+		final File tempDir = new File(dir, ".convert-" + name);
+		FileUtils.deleteQuietly(tempDir);
+		FileUtils.forceMkdir(tempDir);
+		try {
+			try (ReportDataWriter writer = new ReportDataWriter(tempDir, name)) {
+				rowWriter.write(writer);
+			}
+			final String indexName = name + ReportDataWriter.INDEX_EXTENSION;
+			for (File each : checkNotNull(tempDir.listFiles())) {
+				if (!indexName.equals(each.getName())) {
+					move(tempDir, dir, each.getName());
+				}
+			}
+			move(tempDir, dir, indexName);
+		} finally {
+			FileUtils.deleteQuietly(tempDir);
+		}
+	}
+
+	private interface RowWriter {
+		void write(ReportDataWriter writer) throws IOException;
+	}
+
+	private static void move(File sourceDir, File targetDir, String name) throws IOException {
+		Files.move(new File(sourceDir, name).toPath(), new File(targetDir, name).toPath(),
+			StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Convert every report directory under the given directories.
+	 *
+	 * @param args directories such as the perftest directory of the nGrinder home
+	 * @throws IOException if the directories can't be walked
+	 */
+	public static void main(String[] args) throws IOException {
+		for (String each : args) {
+			final List<Path> reportDirs;
+			try (Stream<Path> paths = Files.walk(new File(each).toPath())) {
+				reportDirs = paths.filter(path -> Files.isDirectory(path)
+					&& REPORT_DIRECTORY.equals(path.getFileName().toString())).collect(toList());
+			}
+			for (Path reportDir : reportDirs) {
+				try {
+					convert(reportDir.toFile());
+				} catch (IOException e) {
+					LOGGER.error("Failed to convert {}", reportDir, e);
+				}
+			}
+		}
+	}
+}
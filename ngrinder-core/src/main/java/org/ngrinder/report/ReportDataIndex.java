@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Index of the report data file. It keeps the column names and the segments of rows.
+ * <p>
+ * Rows are fixed-width arrays of floats. Columns are only appended, so whenever new columns
+ * appear a new segment starts with the wider rows. A value of row r and column c is located at
+ * {@code segment.offset + (r - segment.firstRow) * segment.width * 4 + c * 4}.
+ */
+final class ReportDataIndex {
+	static final int MAGIC = 0x4E475244;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	static final int VALUE_SIZE = Float.BYTES;
+
+	private final List<String> columns = new ArrayList<>();
+	private final Map<String, Integer> columnIndexes = new HashMap<>();
+	private final List<Segment> segments = new ArrayList<>();
+
+	static ReportDataIndex read(File file) throws IOException {
+		final ReportDataIndex index = new ReportDataIndex();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(file + " is not a report data index");
+			}
+			final int columnCount = in.readInt();
+			for (int i = 0; i < columnCount; i++) {
+				index.addColumn(in.readUTF());
+			}
+			final int segmentCount = in.readInt();
+			for (int i = 0; i < segmentCount; i++) {
+				index.segments.add(new Segment(in.readLong(), in.readLong(), in.readInt()));
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Write the index to the given file. It's written to a temporary file first and moved,
+	 * so readers never see a partially written index.
+	 */
+	void write(File file) throws IOException {
+		final File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(columns.size());
+			for (String each : columns) {
+				out.writeUTF(each);
+			}
+			out.writeInt(segments.size());
+			for (Segment each : segments) {
+				out.writeLong(each.firstRow);
+				out.writeLong(each.offset);
+				out.writeInt(each.width);
+			}
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	List<String> getColumns() {
+		return unmodifiableList(columns);
+	}
+
+	int getColumnIndex(String column) {
+		final Integer index = columnIndexes.get(column);
+		return index == null ? -1 : index;
+	}
+
+	void addColumn(String column) {
+		columnIndexes.put(column, columns.size());
+		columns.add(column);
+	}
+
+	void addSegment(long firstRow, long offset) {
+		segments.add(new Segment(firstRow, offset, columns.size()));
+	}
+
+	Segment getLastSegment() {
+		return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+	}
+
+	/**
+	 * Get the segment which contains the given row. Segments are few, so they're searched from the last one.
+	 */
+	Segment getSegment(long row) {
+		for (int i = segments.size() - 1; i >= 0; i--) {
+			if (segments.get(i).firstRow <= row) {
+				return segments.get(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the number of complete rows in the data file of the given length. The segments which start beyond
+	 * the length are ignored, since the index may be newer than the length.
+	 */
+	long getRowCount(long dataLength) {
+		for (int i = segments.size() - 1; i >= 0; i--) {
+			final Segment segment = segments.get(i);
+			if (segment.offset <= dataLength) {
+				return segment.firstRow + (dataLength - segment.offset) / segment.getRowSize();
+			}
+		}
+		return 0;
+	}
+
+	static final class Segment {
+		final long firstRow;
+		final long offset;
+		final int width;
+
+		Segment(long firstRow, long offset, int width) {
+			this.firstRow = firstRow;
+			this.offset = offset;
+			this.width = width;
+		}
+
+		long getRowSize() {
+			return (long) width * VALUE_SIZE;
+		}
+
+		long getPosition(long row, int column) {
+			return offset + (row - firstRow) * getRowSize() + (long) column * VALUE_SIZE;
+		}
+	}
+}
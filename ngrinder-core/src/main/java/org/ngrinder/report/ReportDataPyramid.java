@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+/**
+ * Downsampling levels of the report data which are built while the rows are written.
+ * <p>
+ * A row of level k summarizes {@link #FACTOR}^k raw rows with the {@link Aggregate}s of every column, so
+ * a chart of any width is drawn from a level which has about as many rows as the chart has points,
+ * and the spikes survive because the min and the max are kept. Each level is a report data of its own
+ * named like "report.L1", and it's created when its first bucket is complete. Level k+1 is built from the
+ * rows of level k, so writing a raw row costs a few additions.
+ */
+final class ReportDataPyramid implements Closeable {
+	static final int FACTOR = 4;
+	static final int MAX_LEVEL = 12;
+
+	private final File dir;
+	private final String name;
+	private final List<Level> levels = new ArrayList<>(MAX_LEVEL);
+
+	ReportDataPyramid(File dir, String name) {
+		this.dir = dir;
+		this.name = name;
+		for (int level = 1; level <= MAX_LEVEL; level++) {
+			levels.add(new Level(level));
+		}
+	}
+
+	static String getLevelName(String name, int level) {
+		return name + ".L" + level;
+	}
+
+	/**
+	 * Get the number of raw rows which a row of the given level summarizes.
+	 */
+	static long getBucketSize(int level) {
+		return 1L << (2 * level);
+	}
+
+	/**
+	 * Delete the levels of the given report data. They are rebuilt from the raw rows.
+	 */
+	static void delete(File dir, String name) {
+		for (int level = 1; level <= MAX_LEVEL; level++) {
+			final String levelName = getLevelName(name, level);
+			new File(dir, levelName + ReportDataWriter.DATA_EXTENSION).delete();
+			new File(dir, levelName + ReportDataWriter.INDEX_EXTENSION).delete();
+		}
+	}
+
+	/**
+	 * Add a value of the current raw row. Null and NaN are skipped, but the column is still kept in the levels.
+	 */
+	void add(String column, Double value) {
+		final ReportDataBucket bucket = levels.get(0).getBucket(column);
+		if (value != null && !value.isNaN()) {
+			bucket.add(value.floatValue());
+		}
+	}
+
+	/**
+	 * Complete the current raw row.
+	 *
+	 * @throws IOException if a level row can't be written
+	 */
+	void endRow() throws IOException {
+		levels.get(0).endRow();
+	}
+
+	@Override
+	public void close() {
+		for (Level each : levels) {
+			closeQuietly(each.writer);
+		}
+	}
+
+	private final class Level {
+		private final int level;
+		private final Map<String, ReportDataBucket> buckets = new LinkedHashMap<>();
+		private int rows;
+		private ReportDataWriter writer;
+
+		Level(int level) {
+			this.level = level;
+		}
+
+		ReportDataBucket getBucket(String column) {
+			return buckets.computeIfAbsent(column, key -> new ReportDataBucket());
+		}
+
+		void endRow() throws IOException {
+			if (++rows < FACTOR) {
+				return;
+			}
+			if (writer == null) {
+				writer = new ReportDataWriter(dir, getLevelName(name, level), false);
+			}
+			final Level next = level < MAX_LEVEL ? levels.get(level) : null;
+			for (Map.Entry<String, ReportDataBucket> each : buckets.entrySet()) {
+				final ReportDataBucket bucket = each.getValue();
+				for (Aggregate aggregate : Aggregate.values()) {
+					writer.set(aggregate.getColumn(each.getKey()),
+						bucket.isEmpty() ? null : (double) bucket.get(aggregate));
+				}
+				if (next != null) {
+					next.getBucket(each.getKey()).add(bucket.get(Aggregate.MIN), bucket.get(Aggregate.MAX),
+						bucket.get(Aggregate.AVG), bucket.get(Aggregate.LAST), 1);
+				}
+				bucket.reset();
+			}
+			writer.writeRow();
+			rows = 0;
+			if (next != null) {
+				next.endRow();
+			}
+		}
+	}
+}
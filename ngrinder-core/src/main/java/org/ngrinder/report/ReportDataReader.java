@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Collections.emptyList;
+import static org.apache.commons.io.IOUtils.closeQuietly;
+import static org.ngrinder.report.ReportDataPyramid.MAX_LEVEL;
+import static org.ngrinder.report.ReportDataPyramid.getBucketSize;
+import static org.ngrinder.report.ReportDataPyramid.getLevelName;
+import static org.ngrinder.report.ReportDataWriter.DATA_EXTENSION;
+import static org.ngrinder.report.ReportDataWriter.DEFAULT_NAME;
+import static org.ngrinder.report.ReportDataWriter.INDEX_EXTENSION;
+
+/**
+ * Reader of the report data written by {@link ReportDataWriter}.
+ * <p>
+ * The data file is memory mapped, so picking every n-th value of a column only touches those values
+ * instead of parsing the whole report. Rows appended after the reader is opened are not visible.
+ * <p>
+ * Charts are drawn from the downsampling levels by {@link #getMinMaxValues(String, int)}. A level is picked by
+ * {@link #getPointInterval(int)}, and the last incomplete bucket is filled from the lower levels, so only a few
+ * rows besides the level itself are read.
+ */
+public class ReportDataReader implements Closeable {
+	private static final int MAX_CHUNK_SIZE = 1 << 30;
+
+	private final File dir;
+	private final String name;
+	private final ReportDataIndex index;
+	private final long rowCount;
+	private final ReportDataReader[] levels = new ReportDataReader[MAX_LEVEL + 1];
+	private final long chunkSize;
+	/**
+	 * The data file mapped in chunks, since a buffer can't be larger than 2GB. Each chunk is a multiple of
+	 * the value size, so a value never spans two chunks.
+	 */
+	private MappedByteBuffer[] chunks;
+
+	/**
+	 * Open the report data of the given directory.
+	 *
+	 * @param reportDir report directory
+	 * @throws IOException if the report data doesn't exist or can't be read
+	 */
+	public ReportDataReader(File reportDir) throws IOException {
+		this(reportDir, DEFAULT_NAME);
+	}
+
+	/**
+	 * Open the report data which has the given name in the given directory.
+	 *
+	 * @param dir  directory
+	 * @param name name of the report data
+	 * @throws IOException if the report data doesn't exist or can't be read
+	 */
+	public ReportDataReader(File dir, String name) throws IOException {
+		this(dir, name, MAX_CHUNK_SIZE);
+	}
+
+	/**
+	 * Open the report data, mapping it in chunks of the given size. For unit test.
+	 */
+	ReportDataReader(File dir, String name, int chunkSize) throws IOException {
+		this.dir = dir;
+		this.name = name;
+		this.chunkSize = chunkSize;
+		try (FileChannel channel = FileChannel.open(new File(dir, name + DATA_EXTENSION).toPath(), READ)) {
+			final long length = channel.size();
+			this.chunks = new MappedByteBuffer[(int) ((length + chunkSize - 1) / chunkSize)];
+			for (int i = 0; i < chunks.length; i++) {
+				final long position = i * (long) chunkSize;
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, length - position));
+			}
+			// The writer writes the index before the rows of a new segment, so the index which is read after
+			// the length covers all the rows in it.
+			this.index = ReportDataIndex.read(new File(dir, name + INDEX_EXTENSION));
+			this.rowCount = index.getRowCount(length);
+		}
+	}
+
+	/**
+	 * Check if the given directory has the report data.
+	 *
+	 * @param reportDir report directory
+	 * @return true if exists
+	 */
+	public static boolean exists(File reportDir) {
+		return exists(reportDir, DEFAULT_NAME);
+	}
+
+	/**
+	 * Check if the given directory has the report data of the given name.
+	 *
+	 * @param dir  directory
+	 * @param name name of the report data
+	 * @return true if exists
+	 */
+	public static boolean exists(File dir, String name) {
+		return new File(dir, name + INDEX_EXTENSION).exists() && new File(dir, name + DATA_EXTENSION).exists();
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	public List<String> getColumns() {
+		return index.getColumns();
+	}
+
+	public boolean hasColumn(String column) {
+		return index.getColumnIndex(column) >= 0;
+	}
+
+	/**
+	 * Get every {@code interval}-th value of the given column starting from the first row.
+	 *
+	 * @param column   column name
+	 * @param interval stride between the rows. 0 or 1 returns all the rows.
+	 * @return values in which null means no value was recorded. Empty if the column doesn't exist.
+	 */
+	public List<Float> getValues(String column, int interval) {
+		final int columnIndex = index.getColumnIndex(column);
+		if (columnIndex < 0) {
+			return emptyList();
+		}
+
+		final int stride = Math.max(interval, 1);
+		final List<Float> values = new ArrayList<>((int) (rowCount / stride) + 1);
+		for (long row = 0; row < rowCount; row += stride) {
+			values.add(toValue(getValue(row, columnIndex)));
+		}
+		return values;
+	}
+
+	/**
+	 * Get the values of the given column in the given range of the rows. It lets a live chart fetch only
+	 * the rows which were written since its last call.
+	 *
+	 * @param column  column name
+	 * @param fromRow first row, inclusive
+	 * @param toRow   last row, exclusive. It's limited to the row count.
+	 * @return values in which null means no value was recorded. Empty if the column doesn't exist.
+	 */
+	public List<Float> getValues(String column, long fromRow, long toRow) {
+		final int columnIndex = index.getColumnIndex(column);
+		final long end = Math.min(toRow, rowCount);
+		if (columnIndex < 0 || fromRow >= end) {
+			return emptyList();
+		}
+
+		final List<Float> values = new ArrayList<>((int) (end - Math.max(fromRow, 0)));
+		for (long row = Math.max(fromRow, 0); row < end; row++) {
+			values.add(toValue(getValue(row, columnIndex)));
+		}
+		return values;
+	}
+
+	/**
+	 * Get the number of raw rows per point of a chart which has at most the given number of points.
+	 * The returned interval is the one of the smallest level which fits.
+	 *
+	 * @param pointCount max number of points
+	 * @return interval to be passed to {@link #getMinMaxValues(String, int)}
+	 */
+	public int getPointInterval(int pointCount) {
+		int level = 0;
+		while (level < MAX_LEVEL && getPointCount(level) > pointCount) {
+			level++;
+		}
+		return getLevelPointInterval(level);
+	}
+
+	private long getPointCount(int level) {
+		if (level == 0) {
+			return rowCount;
+		}
+		final long bucketSize = getBucketSize(level);
+		return (rowCount + bucketSize - 1) / bucketSize * 2;
+	}
+
+	private static int getLevelPointInterval(int level) {
+		return level == 0 ? 1 : (int) (getBucketSize(level) / 2);
+	}
+
+	private static int getLevelOfPointInterval(int pointInterval) {
+		int level = 0;
+		while (level < MAX_LEVEL && getLevelPointInterval(level) < pointInterval) {
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * Get the values of the given column for a chart. With the point interval of a level, the min and the max
+	 * of each bucket of the level are returned one after another, so the spikes are drawn
+	 * however long the test is. The interval 1 returns all the rows.
+	 *
+	 * @param column        column name
+	 * @param pointInterval number of raw rows per point returned by {@link #getPointInterval(int)}
+	 * @return values in which null means no value was recorded. Empty if the column doesn't exist.
+	 */
+	public List<Float> getMinMaxValues(String column, int pointInterval) {
+		final int level = getLevelOfPointInterval(pointInterval);
+		if (level == 0) {
+			return getValues(column, 1);
+		}
+		final List<ReportDataBucket> buckets = getBuckets(column, level);
+		final List<Float> values = new ArrayList<>(buckets.size() * 2);
+		for (ReportDataBucket each : buckets) {
+			values.add(toValue(each.get(Aggregate.MIN)));
+			values.add(toValue(each.get(Aggregate.MAX)));
+		}
+		return values;
+	}
+
+	/**
+	 * Get an aggregate of every bucket of the given level.
+	 *
+	 * @param column    column name
+	 * @param level     level from 0, the raw rows, to {@link ReportDataPyramid#MAX_LEVEL}
+	 * @param aggregate aggregate of the bucket
+	 * @return values in which null means no value was recorded. Empty if the column doesn't exist.
+	 */
+	public List<Float> getValues(String column, int level, Aggregate aggregate) {
+		final List<ReportDataBucket> buckets = getBuckets(column, level);
+		final List<Float> values = new ArrayList<>(buckets.size());
+		for (ReportDataBucket each : buckets) {
+			values.add(toValue(each.get(aggregate)));
+		}
+		return values;
+	}
+
+	/**
+	 * Get the buckets of the given level. The complete buckets come from the level itself, and the rest of
+	 * the rows come from the lower levels, each of which has less than {@link ReportDataPyramid#FACTOR} rows
+	 * to add. A level which isn't written yet, like the levels of a converted report, is covered by the lower
+	 * levels as well.
+	 */
+	private List<ReportDataBucket> getBuckets(String column, int level) {
+		if (index.getColumnIndex(column) < 0) {
+			return emptyList();
+		}
+		final long targetSize = getBucketSize(level);
+		final List<ReportDataBucket> buckets = new ArrayList<>((int) (rowCount / targetSize) + 1);
+		long position = 0;
+		for (int each = level; each >= 0; each--) {
+			final ReportDataReader source = getLevelReader(each);
+			if (source == null) {
+				continue;
+			}
+			final long size = getBucketSize(each);
+			// Levels may have been written after this reader is opened.
+			final long rows = Math.min(source.rowCount, rowCount / size);
+			final int[] columnIndexes = each == 0 ? new int[]{index.getColumnIndex(column)} : new int[]{
+				source.index.getColumnIndex(Aggregate.MIN.getColumn(column)),
+				source.index.getColumnIndex(Aggregate.MAX.getColumn(column)),
+				source.index.getColumnIndex(Aggregate.AVG.getColumn(column)),
+				source.index.getColumnIndex(Aggregate.LAST.getColumn(column))};
+			for (long row = position / size; row < rows; row++) {
+				final int target = (int) (row * size / targetSize);
+				while (buckets.size() <= target) {
+					buckets.add(new ReportDataBucket());
+				}
+				if (each == 0) {
+					buckets.get(target).add(getValue(row, columnIndexes[0]));
+				} else {
+					buckets.get(target).add(source.getValue(row, columnIndexes[0]), source.getValue(row, columnIndexes[1]),
+						source.getValue(row, columnIndexes[2]), source.getValue(row, columnIndexes[3]), size);
+				}
+			}
+			position = Math.max(position, rows * size);
+		}
+		return buckets;
+	}
+
+	private ReportDataReader getLevelReader(int level) {
+		if (level == 0) {
+			return this;
+		}
+		if (levels[level] == null) {
+			final String levelName = getLevelName(name, level);
+			if (!exists(dir, levelName)) {
+				return null;
+			}
+			try {
+				levels[level] = new ReportDataReader(dir, levelName);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+		return levels[level];
+	}
+
+	/**
+	 * Get the value of the given row and column. NaN if no value was recorded.
+	 */
+	float getValue(long row, int columnIndex) {
+		final ReportDataIndex.Segment segment = index.getSegment(row);
+		if (columnIndex < 0 || segment == null || columnIndex >= segment.width) {
+			return Float.NaN;
+		}
+		final long position = segment.getPosition(row, columnIndex);
+		return chunks[(int) (position / chunkSize)].getFloat((int) (position % chunkSize));
+	}
+
+	private static Float toValue(float value) {
+		return Float.isNaN(value) ? null : value;
+	}
+
+	@Override
+	public void close() {
+		for (ReportDataReader each : levels) {
+			closeQuietly(each);
+		}
+		// A mapped buffer is unmapped when it's garbage collected.
+		chunks = null;
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+/**
+ * Append-only writer of the report data of a perf test.
+ * <p>
+ * All the statistics of a sampling are written as a single row of floats into {@link #DATA_FILE},
+ * while column names and row widths are kept in {@link #INDEX_FILE}. A null value is written as NaN.
+ * Values are set by {@link #set(String, Double)} and appended by {@link #writeRow()}.
+ * <p>
+ * The downsampling levels of {@link ReportDataPyramid} are written along with the rows, so charts never
+ * have to read all the rows of a long running test.
+ * <p>
+ * This class is not thread safe.
+ */
+public class ReportDataWriter implements Closeable {
+	public static final String DEFAULT_NAME = "report";
+	public static final String DATA_EXTENSION = ".bin";
+	public static final String INDEX_EXTENSION = ".idx";
+	public static final String DATA_FILE = DEFAULT_NAME + DATA_EXTENSION;
+	public static final String INDEX_FILE = DEFAULT_NAME + INDEX_EXTENSION;
+
+	private final File indexFile;
+	private final FileChannel channel;
+	private final ReportDataIndex index;
+	private final Map<String, Double> row = new LinkedHashMap<>();
+	private final ReportDataPyramid pyramid;
+
+	private long rowCount;
+	private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+	/**
+	 * Open the report data of the given directory. Rows are appended if it already exists.
+	 *
+	 * @param reportDir report directory
+	 * @throws IOException if the report data can't be opened
+	 */
+	public ReportDataWriter(File reportDir) throws IOException {
+		this(reportDir, DEFAULT_NAME);
+	}
+
+	/**
+	 * Open the report data which has the given name in the given directory. Rows are appended if it already exists.
+	 *
+	 * @param dir  directory
+	 * @param name name of the report data such as "monitor_system_127.0.0.1"
+	 * @throws IOException if the report data can't be opened
+	 */
+	public ReportDataWriter(File dir, String name) throws IOException {
+		this(dir, name, true);
+	}
+
+	ReportDataWriter(File dir, String name, boolean withLevels) throws IOException {
+		final File dataFile = new File(dir, name + DATA_EXTENSION);
+		this.indexFile = new File(dir, name + INDEX_EXTENSION);
+
+		if (indexFile.exists() && dataFile.exists()) {
+			this.index = ReportDataIndex.read(indexFile);
+			this.channel = FileChannel.open(dataFile.toPath(), WRITE);
+			this.rowCount = index.getRowCount(channel.size());
+			// Drop the partially written row if the last writer crashed.
+			final ReportDataIndex.Segment last = index.getLastSegment();
+			final long end = last == null ? ReportDataIndex.HEADER_SIZE : last.getPosition(rowCount, 0);
+			channel.truncate(end);
+			channel.position(end);
+		} else {
+			this.index = new ReportDataIndex();
+			this.channel = FileChannel.open(dataFile.toPath(), CREATE, TRUNCATE_EXISTING, WRITE);
+			final ByteBuffer header = ByteBuffer.allocate(ReportDataIndex.HEADER_SIZE);
+			header.putInt(ReportDataIndex.MAGIC).putInt(ReportDataIndex.VERSION).flip();
+			write(header);
+		}
+
+		if (withLevels) {
+			ReportDataPyramid.delete(dir, name);
+			this.pyramid = new ReportDataPyramid(dir, name);
+			if (rowCount > 0) {
+				rebuildLevels(dir, name);
+			}
+		} else {
+			this.pyramid = null;
+		}
+	}
+
+	/**
+	 * Build the levels again from the existing rows. It's simpler and safer than resuming
+	 * the partial buckets of the last writer, and it only happens when the report data is reopened.
+	 */
+	private void rebuildLevels(File dir, String name) throws IOException {
+		try (ReportDataReader reader = new ReportDataReader(dir, name)) {
+			final long rows = Math.min(reader.getRowCount(), rowCount);
+			for (long each = 0; each < rows; each++) {
+				for (String column : index.getColumns()) {
+					final float value = reader.getValue(each, index.getColumnIndex(column));
+					pyramid.add(column, Float.isNaN(value) ? null : (double) value);
+				}
+				pyramid.endRow();
+			}
+		}
+	}
+
+	/**
+	 * Set the value of the given column in the current row.
+	 *
+	 * @param column column name such as "TPS" or "TPS-1_description"
+	 * @param value  value or null
+	 */
+	public void set(String column, Double value) {
+		row.put(column, value);
+	}
+
+	/**
+	 * Append the current row. Columns which are not set in this row are written as null.
+	 *
+	 * @throws IOException if the row can't be written
+	 */
+	public void writeRow() throws IOException {
+		boolean newColumns = false;
+		for (String each : row.keySet()) {
+			if (index.getColumnIndex(each) < 0) {
+				index.addColumn(each);
+				newColumns = true;
+			}
+		}
+		if (index.getColumns().isEmpty()) {
+			return;
+		}
+		if (newColumns) {
+			// The index is written before the row, so readers always know the width of the rows they see.
+			index.addSegment(rowCount, channel.position());
+			index.write(indexFile);
+		}
+
+		final int rowSize = index.getColumns().size() * ReportDataIndex.VALUE_SIZE;
+		if (buffer.capacity() < rowSize) {
+			buffer = ByteBuffer.allocate(rowSize);
+		}
+		buffer.clear();
+		for (String each : index.getColumns()) {
+			final Double value = row.get(each);
+			buffer.putFloat(value == null ? Float.NaN : value.floatValue());
+		}
+		buffer.flip();
+		write(buffer);
+		rowCount++;
+
+		if (pyramid != null) {
+			for (String each : index.getColumns()) {
+				pyramid.add(each, row.get(each));
+			}
+			pyramid.endRow();
+		}
+		row.clear();
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	private void write(ByteBuffer source) throws IOException {
+		while (source.hasRemaining()) {
+			channel.write(source);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (pyramid != null) {
+			closeQuietly(pyramid);
+		}
+		channel.close();
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * ngrinder binary report data store.
+ */
+package org.ngrinder.report;
@@ -13,6 +13,10 @@
  */
 package org.ngrinder.service;
 
+import org.ngrinder.statistics.AgentStatistics;
+
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Abstract singleconsole manipulation class .
@@ -23,4 +27,9 @@ package org.ngrinder.service;
  * @since 3.3
  */
 public abstract class AbstractSingleConsole implements ISingleConsole {
+
+	@Override
+	public Map<String, AgentStatistics> getIntervalAgentStatistics() {
+		return Collections.emptyMap();
+	}
 }
@@ -15,10 +15,12 @@ package org.ngrinder.service;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 import net.grinder.common.GrinderProperties;
 import net.grinder.common.processidentity.AgentIdentity;
 import net.grinder.statistics.StatisticsIndexMap;
+import org.ngrinder.statistics.AgentStatistics;
 
 /**
  * {@link SingleConsole} interface for plugin use.
@@ -103,4 +105,12 @@ public interface ISingleConsole {
 	 * @return grinder properties. null if the test is not started.
 	 */
 	GrinderProperties getGrinderProperties();
+
+	/**
+	 * Get the statistics of each agent in the last sampling interval.
+	 *
+	 * @return statistics keyed by agent name
+	 * @since 3.5.5
+	 */
+	Map<String, AgentStatistics> getIntervalAgentStatistics();
 }
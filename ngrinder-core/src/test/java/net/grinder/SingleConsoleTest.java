@@ -13,6 +13,7 @@
  */
 package net.grinder;
 
+import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.common.processidentity.WorkerProcessReport;
 import net.grinder.console.communication.ProcessControl.ProcessReports;
 import net.grinder.console.model.SampleModelImplementationEx;
@@ -142,6 +143,28 @@ public class SingleConsoleTest {
 		}
 	}
 
+	@Test
+	public void testRunningThreadsOfLargeProcess() {
+		SingleConsole singleConsole = new SingleConsole(getFreePort());
+		SampleModelImplementationEx sampleModelMock = mock(SampleModelImplementationEx.class);
+		when(sampleModelMock.getRunningThreads("agent-0")).thenReturn(50000);
+		singleConsole.setSampleModel(sampleModelMock);
+
+		WorkerIdentity workerIdentity = mock(WorkerIdentity.class);
+		when(workerIdentity.getName()).thenReturn("agent-0");
+		WorkerProcessReport largeProcessReport = mock(WorkerProcessReport.class);
+		when(largeProcessReport.getWorkerIdentity()).thenReturn(workerIdentity);
+		when(largeProcessReport.getNumberOfRunningThreads()).thenReturn(Short.MAX_VALUE);
+		WorkerProcessReport processReport = mock(WorkerProcessReport.class);
+		when(processReport.getNumberOfRunningThreads()).thenReturn((short) 2);
+		ProcessReports report = mock(ProcessReports.class);
+		when(report.getWorkerProcessReports()).thenReturn(new WorkerProcessReport[]{largeProcessReport, processReport});
+
+		singleConsole.update(new ProcessReports[]{report});
+
+		assertThat(singleConsole.getRunningThread(), is(50002));
+	}
+
 	@Test
 	public void testTpsValue() {
 		SingleConsole singleConsole = new SingleConsole(getFreePort());
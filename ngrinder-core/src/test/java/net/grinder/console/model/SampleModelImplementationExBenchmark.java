@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.console.model;
+
+import net.grinder.common.AbstractTestSemantics;
+import net.grinder.common.Test;
+import net.grinder.console.common.ErrorHandler;
+import net.grinder.console.common.Resources;
+import net.grinder.statistics.PeakStatisticExpression;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+import org.junit.Ignore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures how many worker reports per second {@link SampleModelImplementationEx} ingests, before and after the
+ * accumulators were striped.
+ * <p>
+ * Console communication threads call {@link SampleModelImplementationEx#addTestReport(TestStatisticsMap)}
+ * concurrently. The "before" run feeds the same reports through {@link LegacyIngest}, the ingest path of the
+ * model before the striping, and the "after" run through the model itself. Each run fails if a report is lost.
+ * It's not a unit test. Remove {@link Ignore} and run {@link #main(String[])} or the test runner to measure.
+ */
+@Ignore
+public class SampleModelImplementationExBenchmark {
+
+	private static final int TESTS = 30;
+	private static final int THREADS = 16;
+	private static final int REPORTS_PER_THREAD = 50_000;
+	private static final int UNTIMED_TESTS_PER_REPORT = 10;
+
+	@org.junit.Test
+	public void benchmark() throws Exception {
+		main(new String[0]);
+	}
+
+	public static void main(String[] args) throws Exception {
+		final StatisticsServices statisticsServices = StatisticsServicesImplementation.getInstance();
+		final List<Test> tests = new ArrayList<>();
+		for (int i = 1; i <= TESTS; i++) {
+			tests.add(new BenchmarkTest(i));
+		}
+		final TestStatisticsMap report = createReport(statisticsServices, tests);
+
+		// Warm up the JIT with both paths before measuring.
+		run(statisticsServices, tests, report, true);
+		run(statisticsServices, tests, report, false);
+
+		System.out.printf("before (single monitor) : %,.0f reports/s%n", run(statisticsServices, tests, report, true));
+		System.out.printf("after (striped)         : %,.0f reports/s%n", run(statisticsServices, tests, report, false));
+	}
+
+	private static double run(StatisticsServices statisticsServices, List<Test> tests, TestStatisticsMap report,
+							  boolean legacy) throws Exception {
+		final Timer timer = new Timer(true);
+		final SampleModelImplementationEx model = createModel(statisticsServices, timer);
+		model.registerTests(tests);
+		model.start();
+		final LegacyIngest legacyIngest = new LegacyIngest(statisticsServices, model, tests);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < THREADS; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int j = 0; j < REPORTS_PER_THREAD; j++) {
+					if (legacy) {
+						legacyIngest.addTestReport(report);
+					} else {
+						model.addTestReport(report);
+					}
+				}
+			});
+		}
+
+		final long begin = System.nanoTime();
+		start.countDown();
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.MINUTES);
+		final long elapsed = System.nanoTime() - begin;
+
+		model.stop();
+		timer.cancel();
+		final StatisticsSet total = legacy ? legacyIngest.getTotalCumulativeStatistics()
+			: model.getTotalCumulativeStatistics();
+		final long expected = (long) THREADS * REPORTS_PER_THREAD * TESTS * UNTIMED_TESTS_PER_REPORT;
+		final long actual = total.getValue(statisticsServices.getStatisticsIndexMap().getLongIndex("untimedTests"));
+		if (actual != expected) {
+			throw new IllegalStateException("Reports are lost. " + expected + " tests expected but " + actual);
+		}
+		return (double) THREADS * REPORTS_PER_THREAD / elapsed * TimeUnit.SECONDS.toNanos(1);
+	}
+
+	private static SampleModelImplementationEx createModel(StatisticsServices statisticsServices, Timer timer)
+		throws Exception {
+		final ConsoleProperties properties = mock(ConsoleProperties.class);
+		when(properties.getSampleInterval()).thenReturn(500);
+		when(properties.getIgnoreSampleCount()).thenReturn(0);
+		final Resources resources = mock(Resources.class);
+		when(resources.getString(anyString())).thenReturn("");
+		return new SampleModelImplementationEx(properties, statisticsServices, timer, resources,
+			mock(ErrorHandler.class));
+	}
+
+	private static TestStatisticsMap createReport(StatisticsServices statisticsServices, List<Test> tests) {
+		final StatisticsIndexMap indexMap = statisticsServices.getStatisticsIndexMap();
+		final TestStatisticsMap report = new TestStatisticsMap(statisticsServices.getStatisticsSetFactory());
+		for (Test test : tests) {
+			final StatisticsSet statistics = statisticsServices.getStatisticsSetFactory().create();
+			statistics.addValue(indexMap.getLongIndex("untimedTests"), UNTIMED_TESTS_PER_REPORT);
+			statistics.addValue(indexMap.getLongIndex("errors"), 1);
+			report.put(test, statistics);
+		}
+		return report;
+	}
+
+	/**
+	 * Ingest path of {@link SampleModelImplementationEx} before the accumulators were striped, in a capturing
+	 * state. The accumulators are in a synchronized map, whose monitor is held for each test of a report while
+	 * the accumulator of the test and the total accumulator are updated.
+	 */
+	private static final class LegacyIngest {
+		private final Map<Test, SampleAccumulator> m_accumulators = Collections
+			.synchronizedMap(new HashMap<Test, SampleAccumulator>());
+		private final SampleAccumulatorEx m_totalSampleAccumulator;
+		private final SampleModelImplementationEx m_model;
+
+		private LegacyIngest(StatisticsServices statisticsServices, SampleModelImplementationEx model,
+							 List<Test> tests) {
+			final PeakStatisticExpression peakTPSExpression = (PeakStatisticExpression) model.getPeakTPSExpression();
+			final StatisticsIndexMap.LongIndex periodIndex = statisticsServices.getStatisticsIndexMap()
+				.getLongIndex("period");
+			for (Test test : tests) {
+				m_accumulators.put(test, new SampleAccumulator(peakTPSExpression, periodIndex,
+					statisticsServices.getStatisticsSetFactory()));
+			}
+			m_totalSampleAccumulator = new SampleAccumulatorEx(peakTPSExpression, periodIndex,
+				statisticsServices.getStatisticsSetFactory());
+			m_model = model;
+		}
+
+		private void addTestReport(TestStatisticsMap testStatisticsMap) {
+			// The model looked up its state under its monitor for each report, as it still does.
+			m_model.getState();
+			(testStatisticsMap.new ForEach() {
+				public void next(Test test, StatisticsSet statistics) {
+					final SampleAccumulator sampleAccumulator = m_accumulators.get(test);
+					synchronized (m_accumulators) {
+						sampleAccumulator.addIntervalStatistics(statistics);
+						sampleAccumulator.addCumulativeStaticstics(statistics);
+
+						if (!statistics.isComposite()) {
+							m_totalSampleAccumulator.addIntervalStatistics(statistics);
+							m_totalSampleAccumulator.addCumulativeStatistics(statistics);
+						}
+					}
+				}
+				// CHECKSTYLE:OFF
+			}).iterate();
+		}
+
+		private StatisticsSet getTotalCumulativeStatistics() {
+			return m_totalSampleAccumulator.getCumulativeStatistics();
+		}
+	}
+
+	private static class BenchmarkTest extends AbstractTestSemantics {
+		private final int number;
+
+		private BenchmarkTest(int number) {
+			this.number = number;
+		}
+
+		@Override
+		public int getNumber() {
+			return number;
+		}
+
+		@Override
+		public String getDescription() {
+			return "test " + number;
+		}
+	}
+}
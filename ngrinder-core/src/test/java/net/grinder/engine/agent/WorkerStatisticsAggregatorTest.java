@@ -0,0 +1,57 @@
+package net.grinder.engine.agent;
+
+import net.grinder.communication.Address;
+import net.grinder.communication.Message;
+import net.grinder.communication.Sender;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ngrinder.statistics.ExtendedStatistics;
+import org.ngrinder.statistics.ReportExtendedStatisticsMessage;
+import org.ngrinder.statistics.WorkerStatisticsMessage;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+public class WorkerStatisticsAggregatorTest {
+
+	@Test
+	public void testStatisticsAreForwardedWhenEveryWorkerReported() throws Exception {
+		Sender consoleSender = mock(Sender.class);
+		WorkerStatisticsAggregator aggregator = new WorkerStatisticsAggregator(consoleSender, 60000,
+			LoggerFactory.getLogger(WorkerStatisticsAggregatorTest.class));
+		Address worker1 = mock(Address.class);
+		Address worker2 = mock(Address.class);
+
+		aggregator.receive(newMessage(worker1, false));
+		verify(consoleSender, times(1)).send(any(Message.class));
+
+		// The first worker has to report again before the reports are forwarded.
+		aggregator.receive(newMessage(worker2, false));
+		verify(consoleSender, times(1)).send(any(Message.class));
+		aggregator.receive(newMessage(worker1, false));
+		verify(consoleSender, times(2)).send(any(Message.class));
+
+		// A final report is forwarded at once.
+		aggregator.receive(newMessage(worker2, true));
+		verify(consoleSender, times(3)).send(any(Message.class));
+		aggregator.shutdown();
+
+		ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+		verify(consoleSender, times(3)).send(messages.capture());
+		List<Message> sent = messages.getAllValues();
+		assertThat(((ReportExtendedStatisticsMessage) sent.get(1)).getStatistics().getDroppedIterations(), is(2L));
+		assertThat(((ReportExtendedStatisticsMessage) sent.get(2)).getStatistics().getDroppedIterations(), is(1L));
+	}
+
+	private static WorkerStatisticsMessage newMessage(Address address, boolean last) {
+		ExtendedStatistics statistics = new ExtendedStatistics();
+		statistics.addIterations(1, 0, 1);
+		WorkerStatisticsMessage message = new WorkerStatisticsMessage(null, statistics, last);
+		message.setAddress(address);
+		return message;
+	}
+}
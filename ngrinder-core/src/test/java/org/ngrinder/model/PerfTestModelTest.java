@@ -35,4 +35,17 @@ public class PerfTestModelTest {
 		// cloneable field
 		assertThat(target.getAgentCount(), is(10));
 	}
+
+	@Test
+	public void testSamplingIntervalInMillis() {
+		PerfTest perfTest = new PerfTest();
+		perfTest.setSamplingInterval(3);
+		assertThat(perfTest.getSamplingIntervalMillis(), is(3000));
+
+		perfTest.setSamplingIntervalMillis(200);
+		perfTest.init();
+		assertThat(perfTest.getSamplingIntervalMillis(), is(200));
+		// Targets are monitored every second at least.
+		assertThat(perfTest.getSamplingInterval(), is(1));
+	}
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AsyncReportWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testBatchesAreWrittenInOrderWhenClosed() throws Exception {
+		File reportDir = folder.newFolder();
+		AsyncReportWriter writer = new AsyncReportWriter(reportDir, "output.csv", 2);
+		for (int i = 0; i < 10; i++) {
+			AsyncReportWriter.Batch batch = new AsyncReportWriter.Batch();
+			batch.addCsvLine("line" + i);
+			batch.set("TPS", (double) i);
+			batch.endRow();
+			if (i % 2 == 0) {
+				// A gap of the sampling is filled with an empty row.
+				batch.set("TPS", null);
+				batch.endRow();
+			}
+			writer.submit(batch);
+		}
+		writer.close();
+
+		assertThat(writer.getLag(), is(0L));
+		assertThat(writer.getPendingBatchCount(), is(0));
+		assertThat(FileUtils.readLines(new File(reportDir, "output.csv"), StandardCharsets.UTF_8).size(), is(10));
+		try (ReportDataReader reader = new ReportDataReader(reportDir)) {
+			assertThat(reader.getRowCount(), is(15L));
+			assertThat(reader.getValues("TPS", 1).subList(0, 4), is(Arrays.asList(0f, null, 1f, 2f)));
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ReportDataPyramidTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMinMaxOfLevelKeepsSpike() throws Exception {
+		File reportDir = folder.newFolder();
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 0; i < 1000; i++) {
+				writer.set("TPS", i == 500 ? 10000.0 : i % 10);
+				writer.writeRow();
+			}
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(reportDir)) {
+			int interval = reader.getPointInterval(100);
+			assertThat(interval, is(32));
+
+			List<Float> values = reader.getMinMaxValues("TPS", interval);
+			assertThat(values.size(), is(32));
+			assertThat(values.get(15), is(10000f));
+			assertThat(values.get(14), is(0f));
+			// The last bucket only has the rows from 960 to 999.
+			assertThat(values.subList(30, 32), is(Arrays.asList(0f, 9f)));
+			assertThat(reader.getMinMaxValues("TPS", 1).size(), is(1000));
+		}
+	}
+
+	@Test
+	public void testAggregatesOfIncompleteBucket() throws Exception {
+		File reportDir = folder.newFolder();
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 0; i < 23; i++) {
+				writer.set("TPS", (double) i);
+				writer.set("Errors", i < 16 ? null : 1.0);
+				writer.writeRow();
+			}
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(reportDir)) {
+			assertThat(reader.getValues("TPS", 2, Aggregate.MIN), is(Arrays.asList(0f, 16f)));
+			assertThat(reader.getValues("TPS", 2, Aggregate.MAX), is(Arrays.asList(15f, 22f)));
+			assertThat(reader.getValues("TPS", 2, Aggregate.AVG), is(Arrays.asList(7.5f, 19f)));
+			assertThat(reader.getValues("TPS", 2, Aggregate.LAST), is(Arrays.asList(15f, 22f)));
+			assertThat(reader.getValues("Errors", 2, Aggregate.MAX), is(Arrays.asList(null, 1f)));
+			assertThat(reader.getValues("Vuser", 2, Aggregate.MAX), empty());
+		}
+	}
+
+	@Test
+	public void testLevelsAreRebuiltWhenReopened() throws Exception {
+		File reportDir = folder.newFolder();
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 0; i < 10; i++) {
+				writer.set("TPS", (double) i);
+				writer.writeRow();
+			}
+		}
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 10; i < 16; i++) {
+				writer.set("TPS", (double) i);
+				writer.writeRow();
+			}
+		}
+
+		assertThat(ReportDataReader.exists(reportDir, "report.L2"), is(true));
+		try (ReportDataReader reader = new ReportDataReader(reportDir, "report.L1")) {
+			assertThat(reader.getRowCount(), is(4L));
+			assertThat(reader.getValues("TPS#max", 1), is(Arrays.asList(3f, 7f, 11f, 15f)));
+		}
+	}
+
+	@Test
+	public void testConvertCsvAgainWhenModified() throws Exception {
+		File pluginDir = folder.newFolder("jvm");
+		File csvFile = new File(pluginDir, "127.0.0.1.data");
+		FileUtils.writeStringToFile(csvFile, "used heap,state\n10,ok\nnull,ok\n", StandardCharsets.UTF_8);
+
+		assertThat(ReportDataConverter.convertCsv(csvFile, "127.0.0.1"), is(true));
+		try (ReportDataReader reader = new ReportDataReader(pluginDir, "127.0.0.1")) {
+			assertThat(reader.getColumns(), contains("used_heap", "state"));
+			assertThat(reader.getValues("used_heap", 1), is(Arrays.asList(10f, null)));
+		}
+
+		FileUtils.writeStringToFile(csvFile, "30,ok\n", StandardCharsets.UTF_8, true);
+		csvFile.setLastModified(csvFile.lastModified() + 2000);
+		assertThat(ReportDataConverter.convertCsv(csvFile, "127.0.0.1"), is(true));
+		try (ReportDataReader reader = new ReportDataReader(pluginDir, "127.0.0.1")) {
+			assertThat(reader.getValues("used_heap", 1), is(Arrays.asList(10f, null, 30f)));
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ReportDataWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReadEveryNthRowOfColumn() throws Exception {
+		File reportDir = folder.newFolder();
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 0; i < 10; i++) {
+				writer.set("TPS", (double) i);
+				writer.set("Errors", i % 2 == 0 ? null : 1.0);
+				writer.writeRow();
+			}
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(reportDir)) {
+			assertThat(reader.getRowCount(), is(10L));
+			assertThat(reader.getValues("TPS", 3), is(Arrays.asList(0f, 3f, 6f, 9f)));
+			assertThat(reader.getValues("Errors", 1).subList(0, 3), is(Arrays.asList(null, 1f, null)));
+			assertThat(reader.getValues("Vuser", 1), empty());
+		}
+	}
+
+	@Test
+	public void testReadRangeOfRows() throws Exception {
+		File reportDir = folder.newFolder();
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 0; i < 10; i++) {
+				writer.set("TPS", (double) i);
+				writer.set("Errors", i % 2 == 0 ? null : 1.0);
+				writer.writeRow();
+			}
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(reportDir)) {
+			assertThat(reader.getValues("TPS", 3L, 6L), is(Arrays.asList(3f, 4f, 5f)));
+			assertThat(reader.getValues("Errors", 0L, 3L), is(Arrays.asList(null, 1f, null)));
+			// The range is limited to the rows which are written.
+			assertThat(reader.getValues("TPS", -2L, 2L), is(Arrays.asList(0f, 1f)));
+			assertThat(reader.getValues("TPS", 8L, 20L), is(Arrays.asList(8f, 9f)));
+			assertThat(reader.getValues("TPS", 10L, 20L), empty());
+			assertThat(reader.getValues("TPS", 5L, 5L), empty());
+			assertThat(reader.getValues("Vuser", 0L, 10L), empty());
+		}
+	}
+
+	@Test
+	public void testColumnsAddedLaterAndReopenedWriter() throws Exception {
+		File reportDir = folder.newFolder();
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			writer.set("TPS", 1.0);
+			writer.writeRow();
+			writer.set("TPS", 2.0);
+			writer.set("TPS-1_test", 2.0);
+			writer.writeRow();
+		}
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			assertThat(writer.getRowCount(), is(2L));
+			writer.set("TPS", 3.0);
+			writer.writeRow();
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(reportDir)) {
+			assertThat(reader.getColumns(), contains("TPS", "TPS-1_test"));
+			assertThat(reader.getValues("TPS", 1), is(Arrays.asList(1f, 2f, 3f)));
+			assertThat(reader.getValues("TPS-1_test", 1), is(Arrays.asList(null, 2f, null)));
+		}
+	}
+
+	@Test
+	public void testIndexNewerThanData() throws Exception {
+		File reportDir = folder.newFolder("report");
+		File dataFile = new File(reportDir, ReportDataWriter.DEFAULT_NAME + ReportDataWriter.DATA_EXTENSION);
+		long length;
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 0; i < 3; i++) {
+				writer.set("TPS", (double) i);
+				writer.writeRow();
+			}
+			length = dataFile.length();
+			writer.set("TPS", 3.0);
+			writer.set("Errors", 1.0);
+			writer.writeRow();
+		}
+
+		// A reader may take the length of the data before the writer adds a segment with the new columns.
+		File readDir = folder.newFolder("read");
+		FileUtils.copyFileToDirectory(new File(reportDir, ReportDataWriter.DEFAULT_NAME + ReportDataWriter.INDEX_EXTENSION),
+			readDir);
+		for (long each : new long[]{length, length - 2}) {
+			File copy = new File(readDir, dataFile.getName());
+			try (RandomAccessFile out = new RandomAccessFile(copy, "rw")) {
+				out.setLength(0);
+				out.write(FileUtils.readFileToByteArray(dataFile), 0, (int) each);
+			}
+			try (ReportDataReader reader = new ReportDataReader(readDir)) {
+				long rows = each == length ? 3 : 2;
+				assertThat(reader.getRowCount(), is(rows));
+				assertThat(reader.getValues("TPS", 1), is(Arrays.asList(0f, 1f, 2f).subList(0, (int) rows)));
+			}
+		}
+	}
+
+	@Test
+	public void testReadDataMappedInChunks() throws Exception {
+		File reportDir = folder.newFolder();
+		try (ReportDataWriter writer = new ReportDataWriter(reportDir)) {
+			for (int i = 0; i < 10; i++) {
+				writer.set("TPS", (double) i);
+				if (i >= 4) {
+					writer.set("Errors", (double) i);
+				}
+				writer.writeRow();
+			}
+		}
+
+		// Chunks of 3 values don't line up with the rows of 1 or 2 values.
+		try (ReportDataReader reader = new ReportDataReader(reportDir, ReportDataWriter.DEFAULT_NAME, 12)) {
+			assertThat(reader.getRowCount(), is(10L));
+			assertThat(reader.getValues("TPS", 1), is(Arrays.asList(0f, 1f, 2f, 3f, 4f, 5f, 6f, 7f, 8f, 9f)));
+			assertThat(reader.getValues("Errors", 1),
+				is(Arrays.asList(null, null, null, null, 4f, 5f, 6f, 7f, 8f, 9f)));
+		}
+	}
+
+	@Test
+	public void testConvertLegacyReport() throws Exception {
+		File reportDir = folder.newFolder("report");
+		FileUtils.writeStringToFile(new File(reportDir, "TPS.data"), "1\n2.5\nnull\n4\n", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(reportDir, "Vuser.data"), "10\n10\n", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(reportDir, "monitor_system_127.0.0.1.data"), "ip,cpu\n127.0.0.1,1\n",
+			StandardCharsets.UTF_8);
+
+		assertThat(ReportDataConverter.convert(reportDir), is(true));
+		assertThat(ReportDataConverter.convert(reportDir), is(false));
+
+		try (ReportDataReader reader = new ReportDataReader(reportDir)) {
+			assertThat(reader.getColumns(), contains("TPS", "Vuser"));
+			assertThat(reader.getValues("TPS", 1), is(Arrays.asList(1f, 2.5f, null, 4f)));
+			assertThat(reader.getValues("Vuser", 2), is(Arrays.asList(10f, null)));
+		}
+		assertThat(new File(reportDir, "TPS.data").exists(), is(true));
+	}
+}
@@ -36,6 +36,9 @@ import org.junit.runners.model.Statement;
  * @since 3.2
  */
 public class GrinderContextExecutor extends GrinderRunner {
+	private RunNotifier classNotifier;
+	private Statement classStatement;
+
 	/**
 	 * Constructor.
 	 *
@@ -131,16 +134,21 @@ public class GrinderContextExecutor extends GrinderRunner {
 		}
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see
-	 * net.grinder.scriptengine.groovy.junit.GrinderRunner#classBlock(org.junit.runner.notification
-	 * .RunNotifier)
+	/**
+	 * Build the statement of an iteration. An executor is created per worker thread and
+	 * {@link #run(RunNotifier)} is called for each iteration, so the statement is built once and kept,
+	 * which lets the pacing keep its schedule across the iterations.
+	 *
+	 * @param notifier notifier
+	 * @return statement of an iteration
 	 */
 	@Override
 	protected Statement classBlock(RunNotifier notifier) {
-		return childrenInvoker(notifier);
+		if (classStatement == null || notifier != classNotifier) {
+			classStatement = withArrivalRate(withPacing(childrenInvoker(notifier)));
+			classNotifier = notifier;
+		}
+		return classStatement;
 	}
 
 	protected boolean isRateRunnerEnabled() {
@@ -148,6 +156,11 @@ public class GrinderContextExecutor extends GrinderRunner {
 		return description.testCount() > 1 && !isScriptValidation();
 	}
 
+	@Override
+	protected boolean isSchedulingEnabled() {
+		return !isScriptValidation();
+	}
+
 	private boolean isScriptValidation() {
 		try {
 			return Grinder.grinder.getProperties().getBoolean("grinder.script.validation", false);
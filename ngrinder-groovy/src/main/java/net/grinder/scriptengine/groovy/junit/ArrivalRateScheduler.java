@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives out the start times of the iterations of the arrival rate mode to the threads of a process.
+ *
+ * The start times are fixed from the first iteration, so a slow target doesn't lower the offered load.
+ * A thread which asks for the next start time after it has passed starts at once and the iteration is
+ * counted as late. Start times which passed more than the max delay ago are dropped, since there was
+ * no free thread to take them. Their response times are recorded with the tests of the iteration which
+ * the thread runs next.
+ *
+ * @since 3.5.5
+ */
+final class ArrivalRateScheduler {
+	private static final ConcurrentMap<String, ArrivalRateScheduler> SCHEDULERS = new ConcurrentHashMap<>();
+
+	private final long periodNanos;
+	private final long maxDelayNanos;
+	private final ExtendedStatisticsCollector collector;
+
+	// Guarded by this.
+	private long startTime;
+	private long nextIteration;
+	private boolean started;
+
+	ArrivalRateScheduler(double ratePerSecond, long maxDelayMillis, ExtendedStatisticsCollector collector) {
+		this.periodNanos = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond), 1);
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(maxDelayMillis, 0));
+		this.collector = collector;
+	}
+
+	/**
+	 * Get the scheduler of the given name which is shared by the threads of this process.
+	 *
+	 * @param name           name of the scheduled iteration
+	 * @param ratePerSecond  iterations per second of this process
+	 * @param maxDelayMillis max delay before an iteration is dropped
+	 * @return scheduler
+	 */
+	static ArrivalRateScheduler get(String name, double ratePerSecond, long maxDelayMillis) {
+		return SCHEDULERS.computeIfAbsent(name, key -> new ArrivalRateScheduler(ratePerSecond, maxDelayMillis,
+			ExtendedStatisticsCollector.INSTANCE));
+	}
+
+	/**
+	 * Wait until the start time of the next iteration. The tests of the iteration are recorded with their
+	 * response times measured from the start time, until {@link #finish()} is called.
+	 *
+	 * @throws Exception if the wait is stopped by the shutdown of the worker
+	 */
+	void await() throws Exception {
+		ScheduledIterations.start(next(System.nanoTime()), collector);
+	}
+
+	/**
+	 * Finish the iteration of the current thread.
+	 */
+	void finish() {
+		ScheduledIterations.finish(collector);
+	}
+
+	/**
+	 * Take the next start time, dropping the ones which passed more than the max delay before the given time.
+	 */
+	synchronized long next(long now) {
+		if (!started) {
+			started = true;
+			startTime = now;
+		}
+		long scheduledTime = startTime + nextIteration * periodNanos;
+		final long overdue = now - maxDelayNanos - scheduledTime;
+		if (overdue > 0) {
+			final long dropped = overdue / periodNanos + 1;
+			collector.recordDroppedIterations(dropped, periodNanos);
+			nextIteration += dropped;
+			scheduledTime += dropped * periodNanos;
+		}
+		nextIteration++;
+		return scheduledTime;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import org.junit.runners.model.Statement;
+
+/**
+ * Statement which starts the nesting statement when the {@link ArrivalRateScheduler} lets it.
+ *
+ * @since 3.5.5
+ */
+public class ArrivalRateStatement extends Statement {
+
+	private final Statement statement;
+	private final ArrivalRateScheduler scheduler;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statement statement to be started at the arrival rate
+	 * @param scheduler scheduler shared by the threads of this process
+	 */
+	ArrivalRateStatement(Statement statement, ArrivalRateScheduler scheduler) {
+		this.statement = statement;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public void evaluate() throws Throwable {
+		scheduler.await();
+		try {
+			statement.evaluate();
+		} finally {
+			scheduler.finish();
+		}
+	}
+}
@@ -13,8 +13,11 @@
  */
 package net.grinder.scriptengine.groovy.junit;
 
+import net.grinder.common.GrinderProperties;
 import net.grinder.engine.process.JUnitThreadContextInitializer;
 import net.grinder.engine.process.JUnitThreadContextUpdater;
+import net.grinder.engine.process.NullStatement;
+import net.grinder.script.Grinder;
 import net.grinder.scriptengine.exception.AbstractExceptionProcessor;
 import net.grinder.scriptengine.groovy.GroovyExceptionProcessor;
 import net.grinder.scriptengine.groovy.junit.annotation.*;
@@ -39,6 +42,7 @@ import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.Statement;
 import org.junit.runners.model.TestClass;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
 
 import java.lang.annotation.Annotation;
 import java.util.*;
@@ -54,6 +58,9 @@ import java.util.*;
  * process.</li>
  * <li>{@link BeforeThread} and {@link AfterThread} annotated methods are executed per each thread.</li>
  * <li>{@link Repeat} annotated
+ * <li>{@link ArrivalRate} annotated class or methods are started at a fixed rate regardless of the latency.</li>
+ * <li>{@link Pacing} annotated class starts the iterations of each thread at a fixed period.</li>
+ * <li>{@link ThinkTime} annotated class or methods wait for a random time after each run.</li>
  * </ul>
  *
  * In addition, it contains a little different behavior from generic grinder test script.
@@ -70,6 +77,9 @@ import java.util.*;
  * @see AfterThread
  * @see AfterProcess
  * @see Repeat
+ * @see ArrivalRate
+ * @see Pacing
+ * @see ThinkTime
  * @since 1.0
  */
 public class GrinderRunner extends BlockJUnit4ClassRunner {
@@ -82,6 +92,22 @@ public class GrinderRunner extends BlockJUnit4ClassRunner {
 	private JUnitThreadContextUpdater threadContextUpdater;
 	private PerThreadStatement finalPerThreadStatement;
 	private boolean enableRateRunner = true;
+	private boolean enableScheduling = false;
+
+	/**
+	 * Property which overrides the class level {@link ArrivalRate}.
+	 */
+	public static final String PROP_ARRIVAL_RATE = "grinder.arrivalRate";
+
+	/**
+	 * Property which overrides the max delay of the class level {@link ArrivalRate}.
+	 */
+	public static final String PROP_ARRIVAL_RATE_MAX_DELAY = "grinder.arrivalRate.maxDelay";
+
+	/**
+	 * Property which overrides the class level {@link Pacing}.
+	 */
+	public static final String PROP_PACING = "grinder.pacing";
 
 	/**
 	 * Constructor.
@@ -158,6 +184,7 @@ public class GrinderRunner extends BlockJUnit4ClassRunner {
 		registerRunNotifierListener(notifier);
 		Description description = getDescription();
 		enableRateRunner = isRateRunnerEnabled();
+		enableScheduling = isSchedulingEnabled();
 		EachTestNotifier testNotifier = new EachTestNotifier(notifier, description);
 		try {
 			Statement statement = classBlock(notifier);
@@ -182,6 +209,16 @@ public class GrinderRunner extends BlockJUnit4ClassRunner {
 		return description.testCount() > 1 && isRepeatRunnerEnabled();
 	}
 
+	/**
+	 * Check if the {@link ArrivalRate}, {@link Pacing} and {@link ThinkTime} should be applied. It's disabled
+	 * by default, since a single thread run in the IDE is for debugging.
+	 *
+	 * @return true if enabled
+	 */
+	protected boolean isSchedulingEnabled() {
+		return false;
+	}
+
 	private boolean isRepeatRunnerEnabled() {
 		Annotation[] annotations = getTestClass().getAnnotations();
 		boolean repeatAnnotation = false;
@@ -228,9 +265,15 @@ public class GrinderRunner extends BlockJUnit4ClassRunner {
 		statement = withBefores(method, testObject, statement);
 		statement = withAfters(method, testObject, statement);
 		statement = withRules(method, testObject, statement);
+		if (enableScheduling) {
+			statement = withThinkTime(method, statement);
+		}
 		if (enableRateRunner) {
 			statement = withRunRate(method, testObject, statement);
 		}
+		if (enableScheduling) {
+			statement = withArrivalRate(method, statement);
+		}
 		frameworkMethodCache.put(method, statement);
 		return statement;
 	}
@@ -240,6 +283,140 @@ public class GrinderRunner extends BlockJUnit4ClassRunner {
 		return runRate == null ? statement : new RunRateStatement(statement, runRate.value());
 	}
 
+	/**
+	 * Returns a {@link Statement} which starts the whole iteration at the class level {@link ArrivalRate}
+	 * or the {@link #PROP_ARRIVAL_RATE} property.
+	 *
+	 * @param statement statement of all the tests
+	 * @return wrapped statement
+	 */
+	protected Statement withArrivalRate(Statement statement) {
+		double rate = getClassArrivalRate();
+		if (!enableScheduling || rate <= 0) {
+			return statement;
+		}
+		ArrivalRate arrivalRate = getTestClass().getJavaClass().getAnnotation(ArrivalRate.class);
+		long maxDelay = getProperties().getLong(PROP_ARRIVAL_RATE_MAX_DELAY,
+			arrivalRate == null ? 1000 : arrivalRate.maxDelay());
+		return new ArrivalRateStatement(statement,
+			ArrivalRateScheduler.get(getTestClass().getName(), getProcessArrivalRate(rate), maxDelay));
+	}
+
+	/**
+	 * Returns a {@link Statement} which starts the given method at its {@link ArrivalRate}. The threads are
+	 * divided among the marked methods, so the method is skipped in the threads which are given another one.
+	 * The method level rates are ignored when the class level one is set.
+	 *
+	 * @param method    test method
+	 * @param statement statement of the method
+	 * @return wrapped statement
+	 */
+	protected Statement withArrivalRate(FrameworkMethod method, Statement statement) {
+		ArrivalRate arrivalRate = method.getAnnotation(ArrivalRate.class);
+		if (arrivalRate == null || arrivalRate.value() <= 0 || getClassArrivalRate() > 0) {
+			return statement;
+		}
+		List<FrameworkMethod> methods = new ArrayList<>();
+		for (FrameworkMethod each : getChildren()) {
+			ArrivalRate eachRate = each.getAnnotation(ArrivalRate.class);
+			if (eachRate != null && eachRate.value() > 0) {
+				methods.add(each);
+			}
+		}
+		double[] rates = new double[methods.size()];
+		for (int i = 0; i < rates.length; i++) {
+			rates[i] = methods.get(i).getAnnotation(ArrivalRate.class).value();
+		}
+		int threadCount = Math.max(getProperties().getInt("grinder.threads", 1), 1);
+		int threadNumber = Grinder.grinder == null ? 0 : Math.max(Grinder.grinder.getThreadNumber(), 0);
+		if (assignThreads(rates, threadCount)[threadNumber % threadCount] != methods.indexOf(method)) {
+			return NullStatement.getInstance();
+		}
+		return new ArrivalRateStatement(statement, ArrivalRateScheduler.get(
+			getTestClass().getName() + "#" + method.getName(), getProcessArrivalRate(arrivalRate.value()),
+			arrivalRate.maxDelay()));
+	}
+
+	/**
+	 * Returns a {@link Statement} which starts the whole iteration of this thread at the class level
+	 * {@link Pacing} or the {@link #PROP_PACING} property. The pacing is ignored when the class level
+	 * {@link ArrivalRate} is set.
+	 *
+	 * @param statement statement of all the tests
+	 * @return wrapped statement
+	 */
+	protected Statement withPacing(Statement statement) {
+		if (!enableScheduling || getClassArrivalRate() > 0) {
+			return statement;
+		}
+		Pacing pacing = getTestClass().getJavaClass().getAnnotation(Pacing.class);
+		long period = getProperties().getLong(PROP_PACING, pacing == null ? 0 : pacing.value());
+		return period <= 0 ? statement : new PacingStatement(statement, period, ExtendedStatisticsCollector.INSTANCE);
+	}
+
+	/**
+	 * Returns a {@link Statement} which waits for the {@link ThinkTime} of the given method, or the one of
+	 * the class if the method doesn't have it.
+	 *
+	 * @param method    test method
+	 * @param statement statement of the method
+	 * @return wrapped statement
+	 */
+	protected Statement withThinkTime(FrameworkMethod method, Statement statement) {
+		ThinkTime thinkTime = method.getAnnotation(ThinkTime.class);
+		if (thinkTime == null) {
+			thinkTime = getTestClass().getJavaClass().getAnnotation(ThinkTime.class);
+		}
+		return thinkTime == null || thinkTime.value() <= 0 ? statement : new ThinkTimeStatement(statement, thinkTime);
+	}
+
+	/**
+	 * Divide the threads among the methods in proportion to their rates.
+	 *
+	 * @param rates       rates of the methods
+	 * @param threadCount number of threads
+	 * @return index of the method of each thread
+	 */
+	static int[] assignThreads(double[] rates, int threadCount) {
+		int[] assignment = new int[threadCount];
+		int[] counts = new int[rates.length];
+		for (int thread = 0; thread < threadCount; thread++) {
+			int best = 0;
+			for (int i = 1; i < rates.length; i++) {
+				if (counts[i] / rates[i] < counts[best] / rates[best]) {
+					best = i;
+				}
+			}
+			assignment[thread] = best;
+			counts[best]++;
+		}
+		return assignment;
+	}
+
+	private double getClassArrivalRate() {
+		ArrivalRate arrivalRate = getTestClass().getJavaClass().getAnnotation(ArrivalRate.class);
+		return getProperties().getDouble(PROP_ARRIVAL_RATE, arrivalRate == null ? 0 : arrivalRate.value());
+	}
+
+	/**
+	 * The rate of the whole test is spread over all the processes of all the agents.
+	 */
+	private double getProcessArrivalRate(double rate) {
+		GrinderProperties properties = getProperties();
+		int processes = Math.max(properties.getInt("grinder.agents", 1), 1)
+			* Math.max(properties.getInt("grinder.processes", 1), 1);
+		return rate / processes;
+	}
+
+	private static GrinderProperties getProperties() {
+		try {
+			GrinderProperties properties = Grinder.grinder.getProperties();
+			return properties == null ? new GrinderProperties() : properties;
+		} catch (Exception e) {
+			return new GrinderProperties();
+		}
+	}
+
 	private Statement withRules(FrameworkMethod method, Object target, Statement statement) {
 		Statement result = statement;
 		for (MethodRule each : getTestClass().getAnnotatedFieldValues(target, Rule.class, MethodRule.class)) {
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import org.junit.runners.model.Statement;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statement which starts the nesting statement at a fixed period in a thread. It keeps the schedule of the
+ * thread, so the same instance should be evaluated in all the iterations of the thread.
+ *
+ * @since 3.5.5
+ */
+public class PacingStatement extends Statement {
+
+	private final Statement statement;
+	private final long periodNanos;
+	private final ExtendedStatisticsCollector collector;
+
+	private boolean started = false;
+	private long nextStart;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statement    statement to be paced
+	 * @param periodMillis milliseconds between the starts of the iterations
+	 * @param collector    collector of the iterations
+	 */
+	PacingStatement(Statement statement, long periodMillis, ExtendedStatisticsCollector collector) {
+		this.statement = statement;
+		this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+		this.collector = collector;
+	}
+
+	@Override
+	public void evaluate() throws Throwable {
+		ScheduledIterations.start(next(System.nanoTime()), collector);
+		try {
+			statement.evaluate();
+		} finally {
+			ScheduledIterations.finish(collector);
+		}
+	}
+
+	/**
+	 * Take the next start time. The periods which passed entirely before the given time are skipped,
+	 * so the grid never drifts from the first start.
+	 */
+	long next(long now) {
+		if (!started) {
+			started = true;
+			nextStart = now;
+		}
+		long scheduledTime = nextStart;
+		final long overdue = now - scheduledTime;
+		if (overdue >= periodNanos) {
+			final long skipped = overdue / periodNanos;
+			collector.recordDroppedIterations(skipped, periodNanos);
+			scheduledTime += skipped * periodNanos;
+		}
+		nextStart = scheduledTime + periodNanos;
+		return scheduledTime;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.script.Grinder;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts the iterations which have a planned start time, such as the ones of the arrival rate and pacing modes.
+ *
+ * @since 3.5.5
+ */
+final class ScheduledIterations {
+	/**
+	 * Iterations which start later than this are counted as late. It absorbs the timer jitter.
+	 */
+	static final long LATE_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private ScheduledIterations() {
+	}
+
+	/**
+	 * Wait until the given start time and record the iteration. The tests of the iteration are recorded with
+	 * their response times measured from the start time, until {@link #finish(ExtendedStatisticsCollector)}
+	 * is called.
+	 *
+	 * @param scheduledTime planned start time in {@link System#nanoTime()}
+	 * @param collector     collector of the iterations
+	 * @throws Exception if the wait is stopped by the shutdown of the worker
+	 */
+	static void start(long scheduledTime, ExtendedStatisticsCollector collector) throws Exception {
+		waitUntil(scheduledTime);
+		final long delay = System.nanoTime() - scheduledTime;
+		collector.recordIteration(delay > LATE_THRESHOLD_NANOS);
+		collector.beginScheduledIteration(TimeUnit.NANOSECONDS.toMillis(delay));
+	}
+
+	/**
+	 * Finish the iteration of the current thread.
+	 *
+	 * @param collector collector of the iterations
+	 */
+	static void finish(ExtendedStatisticsCollector collector) {
+		collector.endScheduledIteration();
+	}
+
+	/*
+	 * The most of the wait is done by the grinder sleep, which is stopped when the worker shuts down.
+	 * The rest is parked, which is more precise than a millisecond. The grinder sleep is scaled by
+	 * grinder.sleepTimeFactor, so it's used only when the factor keeps the time as it is.
+	 */
+	private static void waitUntil(long scheduledTime) throws Exception {
+		long remaining = scheduledTime - System.nanoTime();
+		final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(remaining);
+		if (remainingMillis > 1 && Grinder.grinder != null && isUnscaledSleep()) {
+			Grinder.grinder.sleep(remainingMillis - 1, 0);
+		}
+		while ((remaining = scheduledTime - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(remaining);
+		}
+	}
+
+	private static boolean isUnscaledSleep() {
+		return Grinder.grinder.getProperties() == null
+			|| Grinder.grinder.getProperties().getDouble("grinder.sleepTimeFactor", 1) == 1;
+	}
+}
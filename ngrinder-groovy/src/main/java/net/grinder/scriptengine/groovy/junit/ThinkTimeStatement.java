@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.script.Grinder;
+import net.grinder.scriptengine.groovy.junit.annotation.ThinkTime;
+import org.junit.runners.model.Statement;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Statement which waits for a {@link ThinkTime} after the nesting statement.
+ *
+ * @since 3.5.5
+ */
+public class ThinkTimeStatement extends Statement {
+
+	private static final int MAX_EXPONENTIAL_FACTOR = 10;
+
+	private final Statement statement;
+	private final ThinkTime thinkTime;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statement statement to be followed by the think time
+	 * @param thinkTime think time
+	 */
+	ThinkTimeStatement(Statement statement, ThinkTime thinkTime) {
+		this.statement = statement;
+		this.thinkTime = thinkTime;
+	}
+
+	@Override
+	public void evaluate() throws Throwable {
+		statement.evaluate();
+		long time = sample(thinkTime, ThreadLocalRandom.current());
+		if (time <= 0) {
+			return;
+		}
+		if (Grinder.grinder == null) {
+			Thread.sleep(time);
+		} else {
+			Grinder.grinder.sleep(time, 0);
+		}
+	}
+
+	/**
+	 * Draw a think time from the distribution of the given annotation.
+	 *
+	 * @param thinkTime think time
+	 * @param random    random source
+	 * @return think time in milliseconds, never negative
+	 */
+	static long sample(ThinkTime thinkTime, Random random) {
+		final double mean = thinkTime.value();
+		if (mean <= 0) {
+			return 0;
+		}
+		final double time;
+		switch (thinkTime.distribution()) {
+			case UNIFORM:
+				double spread = thinkTime.deviation() < 0 ? mean : thinkTime.deviation();
+				time = mean - spread + random.nextDouble() * 2 * spread;
+				break;
+			case NORMAL:
+				double deviation = thinkTime.deviation() < 0 ? mean / 5 : thinkTime.deviation();
+				time = mean + random.nextGaussian() * deviation;
+				break;
+			case EXPONENTIAL:
+				time = Math.min(-mean * Math.log(1 - random.nextDouble()), mean * MAX_EXPONENTIAL_FACTOR);
+				break;
+			default:
+				time = mean;
+		}
+		return Math.max(Math.round(time), 0);
+	}
+}
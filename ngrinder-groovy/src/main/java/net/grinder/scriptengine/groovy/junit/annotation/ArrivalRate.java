@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * In nGrinder JUnit test, this annotation starts the iterations at a fixed rate however long they take,
+ * instead of running each vuser in a loop as fast as the target answers.
+ *
+ * The rate is the one of the whole test, and it's divided by the number of agents and processes.
+ * The threads of a process are the pool of vusers which run the iterations. When all of them are busy,
+ * an iteration starts late, and it's dropped if it can't start within {@link #maxDelay()}.
+ * The late and dropped iterations are reported as statistics of their own. The response times of the
+ * dropped iterations are still recorded as if the next iteration had served them, so dropping doesn't
+ * hide the latency of an overloaded target.
+ *
+ * At the class level, an iteration runs all the {@link org.junit.Test} marked methods. At the method level,
+ * the threads are divided among the marked methods in proportion to their rates, and each thread runs
+ * only the method it's given along with the methods which are not marked. The rate of the class level
+ * can be overridden by the "grinder.arrivalRate" property.
+ *
+ * <pre>
+ * // 10000 iterations are started per second in total regardless of the latency.
+ * &#064;ArrivalRate(10000)
+ * &#064;RunWith(GrinderRunner)
+ * public class Example {
+ * 	&#064;Test public void test() {
+ *       ...
+ *    }
+ * }
+ * </pre>
+ *
+ * @see net.grinder.scriptengine.groovy.junit.GrinderRunner
+ * @since 3.5.5
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Inherited
+public @interface ArrivalRate {
+	/**
+	 * Iterations per second of the whole test.
+	 *
+	 * @return arrival rate
+	 */
+	double value();
+
+	/**
+	 * Max milliseconds an iteration may start after its scheduled time before it's dropped.
+	 *
+	 * @return max delay in milliseconds
+	 */
+	long maxDelay() default 1000;
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * In nGrinder JUnit test, this annotation starts the iterations of each vuser at a fixed period however long
+ * they take. A vuser waits for the rest of the period when an iteration finishes early.
+ *
+ * The start times are kept on a fixed grid from the first iteration, so a slow iteration is made up by a
+ * shorter wait before the next one instead of pushing all the later ones back. When an iteration takes
+ * longer than a whole period, the periods it overran are skipped and reported as dropped iterations.
+ * The period can be overridden by the "grinder.pacing" property. It's ignored when the class level
+ * {@link ArrivalRate} is set.
+ *
+ * <pre>
+ * // Each vuser starts an iteration every 2 seconds.
+ * &#064;Pacing(2000)
+ * &#064;RunWith(GrinderRunner)
+ * public class Example {
+ * 	&#064;Test public void test() {
+ *       ...
+ *    }
+ * }
+ * </pre>
+ *
+ * @see net.grinder.scriptengine.groovy.junit.GrinderRunner
+ * @since 3.5.5
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+@Inherited
+public @interface Pacing {
+	/**
+	 * Milliseconds between the starts of the iterations of a vuser.
+	 *
+	 * @return period in milliseconds
+	 */
+	long value();
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * In nGrinder JUnit test, this annotation makes a vuser wait after each run of the test methods, for a time
+ * drawn from the given distribution. It models the pause of a real user between the requests.
+ *
+ * At the class level, it applies to all the {@link org.junit.Test} marked methods. The annotation of a method
+ * overrides the one of the class. The wait is done by the grinder sleep, so it's scaled by the
+ * "grinder.sleepTimeFactor" property.
+ *
+ * <pre>
+ * // Each test waits 3 seconds on average, exponentially distributed.
+ * &#064;ThinkTime(value = 3000, distribution = ThinkTime.Distribution.EXPONENTIAL)
+ * &#064;RunWith(GrinderRunner)
+ * public class Example {
+ * 	&#064;Test public void test() {
+ *       ...
+ *    }
+ * }
+ * </pre>
+ *
+ * @see net.grinder.scriptengine.groovy.junit.GrinderRunner
+ * @since 3.5.5
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Inherited
+public @interface ThinkTime {
+	/**
+	 * Mean milliseconds to wait.
+	 *
+	 * @return mean think time in milliseconds
+	 */
+	long value();
+
+	/**
+	 * Distribution of the think time.
+	 *
+	 * @return distribution
+	 */
+	Distribution distribution() default Distribution.NORMAL;
+
+	/**
+	 * Spread of the think time in milliseconds. It's the standard deviation of {@link Distribution#NORMAL},
+	 * which is a fifth of the mean by default, and the max distance from the mean of
+	 * {@link Distribution#UNIFORM}, which is the mean itself by default. The others don't use it.
+	 *
+	 * @return deviation in milliseconds, or a negative value for the default
+	 */
+	long deviation() default -1;
+
+	/**
+	 * Distributions of the think time.
+	 */
+	enum Distribution {
+		/**
+		 * Always the mean.
+		 */
+		CONSTANT,
+		/**
+		 * Evenly spread between the mean minus and plus the deviation.
+		 */
+		UNIFORM,
+		/**
+		 * Normally spread around the mean. It's cut off at 0.
+		 */
+		NORMAL,
+		/**
+		 * Exponentially spread like the gaps between the random arrivals. It's capped at 10 times the mean.
+		 */
+		EXPONENTIAL
+	}
+}
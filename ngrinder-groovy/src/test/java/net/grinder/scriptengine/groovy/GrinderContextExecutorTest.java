@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy;
+
+import net.grinder.scriptengine.groovy.junit.annotation.Pacing;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class GrinderContextExecutorTest {
+
+	private static final int ITERATIONS = 4;
+
+	@Test
+	public void testIterationsAreSpacedByPacing() throws Exception {
+		PacedSample.STARTS.clear();
+		GrinderContextExecutor executor = new GrinderContextExecutor(PacedSample.class);
+		RunNotifier notifier = new RunNotifier() {
+			@Override
+			public void fireTestFailure(Failure failure) {
+				throw new RuntimeException(failure.getException());
+			}
+		};
+
+		// The worker runnable runs the executor once per iteration.
+		for (int i = 0; i < ITERATIONS; i++) {
+			executor.run(notifier);
+		}
+
+		assertThat(PacedSample.STARTS.size(), is(ITERATIONS));
+		for (int i = 1; i < ITERATIONS; i++) {
+			long gap = TimeUnit.NANOSECONDS.toMillis(PacedSample.STARTS.get(i) - PacedSample.STARTS.get(i - 1));
+			// The test itself takes no time, so only the pacing keeps the iterations apart.
+			assertThat(gap, greaterThanOrEqualTo(PacedSample.PERIOD - 1));
+		}
+	}
+
+	@Ignore
+	@Pacing(PacedSample.PERIOD)
+	public static class PacedSample {
+		static final long PERIOD = 100;
+		static final List<Long> STARTS = new ArrayList<>();
+
+		@Test
+		public void test() {
+			STARTS.add(System.nanoTime());
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package net.grinder.scriptengine.groovy.junit;
+
+import org.junit.Test;
+import org.ngrinder.statistics.ExtendedStatistics;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ArrivalRateSchedulerTest {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	public void testIterationsAreStartedAtFixedRate() {
+		ArrivalRateScheduler scheduler = new ArrivalRateScheduler(10, 1000, ExtendedStatisticsCollector.INSTANCE);
+		assertThat(scheduler.next(0), is(0L));
+		// The schedule doesn't move even if the iterations are taken late.
+		assertThat(scheduler.next(250 * MILLIS), is(100 * MILLIS));
+		assertThat(scheduler.next(250 * MILLIS), is(200 * MILLIS));
+		assertThat(scheduler.next(250 * MILLIS), is(300 * MILLIS));
+	}
+
+	@Test
+	public void testOverdueIterationsAreDropped() {
+		ExtendedStatisticsCollector collector = ExtendedStatisticsCollector.INSTANCE;
+		collector.reset();
+		ArrivalRateScheduler scheduler = new ArrivalRateScheduler(10, 200, collector);
+		scheduler.next(0);
+		// The slots from 100 to 300 ms passed more than 200 ms before.
+		assertThat(scheduler.next(550 * MILLIS), is(400 * MILLIS));
+		// The iteration of 400 ms starts 150 ms late and serves the dropped slots as well.
+		collector.beginScheduledIteration(150);
+		collector.recordTestTime(1, 10);
+		collector.endScheduledIteration();
+		ExtendedStatistics statistics = collector.reset();
+		assertThat(statistics.getDroppedIterations(), is(3L));
+		// 160, 260, 360 and 460 ms
+		assertThat(statistics.getMeanResponseTime(1), is(310.0));
+	}
+
+	@Test
+	public void testThreadsAreAssignedInProportionToRate() {
+		assertThat(GrinderRunner.assignThreads(new double[]{3, 1}, 4), is(new int[]{0, 1, 0, 0}));
+		assertThat(GrinderRunner.assignThreads(new double[]{1, 1, 1}, 2), is(new int[]{0, 1}));
+	}
+}
@@ -0,0 +1,41 @@
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.engine.process.NullStatement;
+import org.junit.Test;
+import org.ngrinder.statistics.ExtendedStatistics;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PacingStatementTest {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	public void testLateIterationIsCompensated() {
+		ExtendedStatisticsCollector collector = ExtendedStatisticsCollector.INSTANCE;
+		collector.reset();
+		PacingStatement pacing = new PacingStatement(NullStatement.getInstance(), 100, collector);
+		assertThat(pacing.next(0), is(0L));
+		// A slow iteration doesn't push the next ones back.
+		assertThat(pacing.next(150 * MILLIS), is(100 * MILLIS));
+		assertThat(pacing.next(190 * MILLIS), is(200 * MILLIS));
+		assertThat(collector.reset().getDroppedIterations(), is(0L));
+	}
+
+	@Test
+	public void testOverrunPeriodsAreSkipped() {
+		ExtendedStatisticsCollector collector = ExtendedStatisticsCollector.INSTANCE;
+		collector.reset();
+		PacingStatement pacing = new PacingStatement(NullStatement.getInstance(), 100, collector);
+		pacing.next(0);
+		// The slots of 100 and 200 ms passed entirely.
+		assertThat(pacing.next(320 * MILLIS), is(300 * MILLIS));
+		assertThat(pacing.next(330 * MILLIS), is(400 * MILLIS));
+		ExtendedStatistics statistics = collector.reset();
+		assertThat(statistics.getDroppedIterations(), is(2L));
+	}
+}
@@ -0,0 +1,106 @@
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.scriptengine.groovy.junit.annotation.ThinkTime;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ThinkTimeStatementTest {
+
+	private static final int SAMPLES = 10000;
+
+	private final Random random = new Random(0);
+
+	@Test
+	public void testConstant() throws Exception {
+		ThinkTime constant = getThinkTime("constant");
+		for (int i = 0; i < SAMPLES; i++) {
+			assertThat(ThinkTimeStatement.sample(constant, random), is(1000L));
+		}
+	}
+
+	@Test
+	public void testUniform() throws Exception {
+		ThinkTime uniform = getThinkTime("uniform");
+		long sum = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			long time = ThinkTimeStatement.sample(uniform, random);
+			assertThat(time, allOf(greaterThanOrEqualTo(800L), lessThanOrEqualTo(1200L)));
+			sum += time;
+		}
+		assertThat(sum / (double) SAMPLES, closeTo(1000, 10));
+	}
+
+	@Test
+	public void testNormal() throws Exception {
+		ThinkTime normal = getThinkTime("normal");
+		long sum = 0;
+		long squareSum = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			long time = ThinkTimeStatement.sample(normal, random);
+			sum += time;
+			squareSum += time * time;
+		}
+		double mean = sum / (double) SAMPLES;
+		assertThat(mean, closeTo(1000, 10));
+		// The deviation is a fifth of the mean by default.
+		assertThat(Math.sqrt(squareSum / (double) SAMPLES - mean * mean), closeTo(200, 10));
+	}
+
+	@Test
+	public void testNormalIsCutOffAtZero() throws Exception {
+		ThinkTime wide = getThinkTime("wideNormal");
+		int zeros = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			long time = ThinkTimeStatement.sample(wide, random);
+			assertThat(time, greaterThanOrEqualTo(0L));
+			if (time == 0) {
+				zeros++;
+			}
+		}
+		// Almost a half of the draws fall below 0 with a deviation of 10 times the mean.
+		assertThat(zeros, allOf(greaterThan(SAMPLES * 2 / 5), lessThan(SAMPLES / 2)));
+	}
+
+	@Test
+	public void testExponential() throws Exception {
+		ThinkTime exponential = getThinkTime("exponential");
+		long sum = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			long time = ThinkTimeStatement.sample(exponential, random);
+			assertThat(time, allOf(greaterThanOrEqualTo(0L), lessThanOrEqualTo(10000L)));
+			sum += time;
+		}
+		assertThat(sum / (double) SAMPLES, closeTo(1000, 50));
+	}
+
+	private static ThinkTime getThinkTime(String methodName) throws NoSuchMethodException {
+		return Samples.class.getDeclaredMethod(methodName).getAnnotation(ThinkTime.class);
+	}
+
+	@SuppressWarnings("unused")
+	private static class Samples {
+		@ThinkTime(value = 1000, distribution = ThinkTime.Distribution.CONSTANT)
+		void constant() {
+		}
+
+		@ThinkTime(value = 1000, distribution = ThinkTime.Distribution.UNIFORM, deviation = 200)
+		void uniform() {
+		}
+
+		@ThinkTime(1000)
+		void normal() {
+		}
+
+		@ThinkTime(value = 100, deviation = 1000)
+		void wideNormal() {
+		}
+
+		@ThinkTime(value = 1000, distribution = ThinkTime.Distribution.EXPONENTIAL)
+		void exponential() {
+		}
+	}
+}
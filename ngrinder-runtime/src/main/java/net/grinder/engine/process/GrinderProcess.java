@@ -56,10 +56,14 @@ import net.grinder.synchronisation.ClientBarrierGroups;
 import net.grinder.synchronisation.LocalBarrierGroups;
 import net.grinder.util.*;
 import net.grinder.util.ListenerSupport.Informer;
-import net.grinder.util.thread.BooleanCondition;
 import net.grinder.util.thread.Condition;
 import org.ngrinder.dns.LocalManagedDnsProxy;
 import org.ngrinder.dns.NameServiceProxy;
+import org.ngrinder.http.HTTPRequester;
+import org.ngrinder.statistics.ExtendedStatistics;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+import org.ngrinder.statistics.ReportExtendedStatisticsMessage;
+import org.ngrinder.statistics.WorkerStatisticsMessage;
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +73,7 @@ import java.io.StringWriter;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 import static java.lang.System.getProperty;
 
@@ -92,6 +97,7 @@ final class GrinderProcess {
 	private final LoggerContext m_logbackLoggerContext;
 	private final boolean m_reportTimesToConsole;
 	private final QueuedSender m_consoleSender;
+	private final QueuedSender m_agentStatisticsSender;
 	private final Sleeper m_sleeper;
 	private final InitialiseGrinderMessage m_initialisationMessage;
 	private final ConsoleListener m_consoleListener;
@@ -175,6 +181,16 @@ final class GrinderProcess {
 				barrierGroups = new LocalBarrierGroups();
 			}
 
+			// The agent merges the statistics of its workers if it gives the port to send them to.
+			final int aggregationPort = properties.getInt(WorkerStatisticsMessage.PROP_AGGREGATION_PORT, 0);
+			if (m_initialisationMessage.getReportToConsole() && aggregationPort > 0) {
+				m_agentStatisticsSender = new QueuedSenderDecorator(ClientSender.connect(new Connector(
+						WorkerStatisticsMessage.AGGREGATION_HOST, aggregationPort, ConnectionType.WORKER),
+						new WorkerAddress(workerIdentity)));
+			} else {
+				m_agentStatisticsSender = null;
+			}
+
 			final BarrierIdentityGenerator barrierIdentityGenerator = new BarrierIdentityGenerator(
 					m_initialisationMessage.getWorkerIdentity());
 
@@ -319,7 +335,7 @@ final class GrinderProcess {
 
 			m_logger.info(numbers.toString());
 
-			final short numberOfThreads = properties.getShort("grinder.threads", (short) 1);
+			final int numberOfThreads = properties.getInt("grinder.threads", 1);
 			final int reportToConsoleInterval = properties.getInt("grinder.reportToConsole.interval", 500);
 			final int duration = properties.getInt("grinder.duration", 0);
 
@@ -364,7 +380,7 @@ final class GrinderProcess {
 
 			m_dataLogger.info(dataLogHeader.toString());
 
-			sendStatusMessage(ProcessReport.STATE_STARTED, (short) 0, numberOfThreads);
+			sendStatusMessage(ProcessReport.STATE_STARTED, 0, numberOfThreads);
 			boolean threadRampUp = properties.getBoolean("grinder.threadRampUp", false);
 			final ThreadSynchronisation threadSynchronisation = threadRampUp ?
 					new ThreadRampUpEnabledThreadSynchronisation(m_eventSynchronisation, m_sleeper) :
@@ -373,7 +389,9 @@ final class GrinderProcess {
 			m_terminalLogger.info("Starting threads");
 
 			synchronized (m_eventSynchronisation) {
-				m_threadStarter = new ThreadStarterImplementation(threadSynchronisation, scriptEngine);
+				m_threadStarter = new ThreadStarterImplementation(threadSynchronisation, scriptEngine,
+						new VuserThreadFactory(properties.getBoolean(VuserThreadFactory.PROP_VIRTUAL_THREADS, false),
+								m_logger));
 
 				for (int i = 0; i < numberOfThreads; i++) {
 					m_threadStarter.startThread(null);
@@ -386,7 +404,7 @@ final class GrinderProcess {
 
 			m_logger.info("Start time is {} ms since Epoch", m_times.getExecutionStartTime());
 
-			final TimerTask reportTimerTask = new ReportToConsoleTimerTask(threadSynchronisation);
+			final ReportToConsoleTimerTask reportTimerTask = new ReportToConsoleTimerTask(threadSynchronisation);
 			final TimerTask shutdownTimerTask = new ShutdownTimerTask();
 
 			// Schedule a regular statistics report to the console. We don't
@@ -456,14 +474,21 @@ final class GrinderProcess {
 
 			scriptEngine.shutdown();
 
+			// Shared IO reactors live as long as this worker process.
+			HTTPRequester.shutdownAll();
+
 			// Final report to the console.
+			reportTimerTask.setLast();
 			reportTimerTask.run();
 
 			if (!m_communicationShutdown) {
-				sendStatusMessage(ProcessReport.STATE_FINISHED, (short) 0, (short) 0);
+				sendStatusMessage(ProcessReport.STATE_FINISHED, 0, 0);
 			}
 
 			m_consoleSender.shutdown();
+			if (m_agentStatisticsSender != null) {
+				m_agentStatisticsSender.shutdown();
+			}
 
 			final long elapsedTime = m_times.getElapsedTime();
 			m_logger.info("elapsed time is {} ms", elapsedTime);
@@ -512,11 +537,19 @@ final class GrinderProcess {
 
 	private class ReportToConsoleTimerTask extends TimerTask {
 		private final ThreadSynchronisation m_threads;
+		private boolean m_last;
 
 		public ReportToConsoleTimerTask(final ThreadSynchronisation threads) {
 			m_threads = threads;
 		}
 
+		/**
+		 * Mark the next report as the final one of this process.
+		 */
+		public void setLast() {
+			m_last = true;
+		}
+
 		@Override
 		public void run() {
 			if (!m_communicationShutdown) {
@@ -532,12 +565,34 @@ final class GrinderProcess {
 						m_consoleSender.send(new RegisterTestsMessage(newTests));
 					}
 
+					// Taken before the test times may be removed from the sample.
+					final StatisticsSet totals = sample.nonCompositeStatisticsTotals();
+
+					if (sample.size() > 0 && !m_reportTimesToConsole) {
+						m_testStatisticsHelper.removeTestTimeFromSample(sample);
+					}
+
+					final ExtendedStatistics extendedStatistics = ExtendedStatisticsCollector.INSTANCE.reset();
 					if (sample.size() > 0) {
-						if (!m_reportTimesToConsole) {
-							m_testStatisticsHelper.removeTestTimeFromSample(sample);
+						addAgentStatistics(extendedStatistics, totals);
+					}
+					addRunningThreads(extendedStatistics, m_threads.getNumberOfRunningThreads());
+
+					if (m_agentStatisticsSender != null) {
+						// The agent forwards the merged statistics, so it's told about the final report
+						// even if it's empty.
+						if (sample.size() > 0 || !extendedStatistics.isEmpty() || m_last) {
+							m_agentStatisticsSender.send(new WorkerStatisticsMessage(sample, extendedStatistics,
+									m_last));
+							m_agentStatisticsSender.flush();
+						}
+					} else {
+						if (sample.size() > 0) {
+							m_consoleSender.send(new ReportStatisticsMessage(sample));
+						}
+						if (!extendedStatistics.isEmpty()) {
+							m_consoleSender.send(new ReportExtendedStatisticsMessage(extendedStatistics));
 						}
-
-						m_consoleSender.send(new ReportStatisticsMessage(sample));
 					}
 
 					sendStatusMessage(ProcessReport.STATE_RUNNING, m_threads.getNumberOfRunningThreads(),
@@ -551,14 +606,48 @@ final class GrinderProcess {
 		}
 	}
 
-	private void sendStatusMessage(final short state, final short numberOfThreads, final short totalNumberOfThreads)
+	/**
+	 * Attribute the totals of the sample to the agent of this process, so the console can tell the agents apart.
+	 */
+	private void addAgentStatistics(final ExtendedStatistics extendedStatistics, final StatisticsSet totals) {
+		final StatisticsIndexMap indexMap = m_statisticsServices.getStatisticsIndexMap();
+		final StatisticsIndexMap.LongSampleIndex timedTests = indexMap.getLongSampleIndex("timedTests");
+		extendedStatistics.addAgentStatistics(
+				m_initialisationMessage.getWorkerIdentity().getAgentIdentity().getName(),
+				totals.getCount(timedTests),
+				totals.getValue(indexMap.getLongIndex("errors")),
+				totals.getSum(timedTests));
+	}
+
+	/**
+	 * The report message carries the thread counts as shorts, so a process of virtual threads can't report more
+	 * than {@link Short#MAX_VALUE} of them. The console takes the true count from the extended statistics then.
+	 *
+	 * @see #addRunningThreads(ExtendedStatistics, int)
+	 */
+	private void sendStatusMessage(final short state, final int numberOfThreads, final int totalNumberOfThreads)
 			throws CommunicationException {
 
-		m_consoleSender.send(new WorkerProcessReportMessage(state, numberOfThreads, totalNumberOfThreads));
+		m_consoleSender.send(new WorkerProcessReportMessage(state, toShort(numberOfThreads),
+				toShort(totalNumberOfThreads)));
 
 		m_consoleSender.flush();
 	}
 
+	private static short toShort(final int count) {
+		return (short) Math.min(count, Short.MAX_VALUE);
+	}
+
+	/**
+	 * Report the running threads through the extended statistics if the report message can't carry them.
+	 */
+	private void addRunningThreads(final ExtendedStatistics extendedStatistics, final int runningThreads) {
+		if (runningThreads >= Short.MAX_VALUE) {
+			extendedStatistics.setRunningThreads(m_initialisationMessage.getWorkerIdentity().getName(),
+					runningThreads);
+		}
+	}
+
 	private class ShutdownTimerTask extends TimerTask {
 		@Override
 		public void run() {
@@ -575,17 +664,22 @@ final class GrinderProcess {
 	 * waiting thread to be interrupted by other events.
 	 * <p/>
 	 * <p>
+	 * The worker threads wait for the start on a <code>CountDownLatch</code> though. Unlike a monitor,
+	 * it doesn't pin the carrier of a virtual thread, and the worker threads aren't interrupted by
+	 * other events.
+	 * </p>
+	 * <p>
 	 * Package scope for unit tests.
 	 * </p>
 	 */
 	static class ThreadSynchronisation implements WorkerThreadSynchronisation {
-		final BooleanCondition m_started = new BooleanCondition();
+		final CountDownLatch m_started = new CountDownLatch(1);
 		final Condition m_threadEventCondition;
 
-		short m_numberCreated = 0;
-		short m_numberAwaitingStart = 0;
-		short m_numberFinished = 0;
-		short m_numberRunning = 0;
+		int m_numberCreated = 0;
+		int m_numberAwaitingStart = 0;
+		int m_numberFinished = 0;
+		int m_numberRunning = 0;
 
 		ThreadSynchronisation(final Condition condition) {
 			m_threadEventCondition = condition;
@@ -595,9 +689,9 @@ final class GrinderProcess {
 		/**
 		 * The number of worker threads that have been created but not run to completion.
 		 */
-		public short getNumberOfRunningThreads() {
+		public int getNumberOfRunningThreads() {
 			synchronized (m_threadEventCondition) {
-				return (short) (m_numberCreated - m_numberFinished);
+				return m_numberCreated - m_numberFinished;
 			}
 		}
 
@@ -614,7 +708,7 @@ final class GrinderProcess {
 		/**
 		 * The number of worker threads that have been created.
 		 */
-		public short getTotalNumberOfThreads() {
+		public int getTotalNumberOfThreads() {
 			synchronized (m_threadEventCondition) {
 				return m_numberCreated;
 			}
@@ -636,9 +730,13 @@ final class GrinderProcess {
 				m_numberAwaitingStart = 0;
 			}
 
-			m_started.set(true);
+			m_started.countDown();
 		}
 
+		/**
+		 * Wait for {@link #startThreads()}. A worker thread which is interrupted meanwhile, e.g. because the
+		 * process is shutting down, stops waiting and returns with its interrupt status set.
+		 */
 		@Override
 		public void awaitStart() {
 			synchronized (m_threadEventCondition) {
@@ -649,7 +747,11 @@ final class GrinderProcess {
 				}
 			}
 
-			m_started.await(true);
+			try {
+				m_started.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
 		}
 
 		@Override
@@ -681,7 +783,6 @@ final class GrinderProcess {
 				}
 				m_numberAwaitingStart = 0;
 			}
-//			m_started.set(true);
 		}
 
 		@Override
@@ -700,12 +801,10 @@ final class GrinderProcess {
 				Grinder.grinder.getLogger().info("thread-{} is invoked after {} ms sleep", threadNumber,
 						waitingTime);
 			}
-
-//			m_started.await(true);
 		}
 
 		@Override
-		public short getNumberOfRunningThreads() {
+		public int getNumberOfRunningThreads() {
 			synchronized (m_threadEventCondition) {
 				return m_numberRunning;
 			}
@@ -736,9 +835,9 @@ final class GrinderProcess {
 		/**
 		 * The number of worker threads that have been created but not run to completion.
 		 */
-		public short getNumberOfNotFinishedThreads() {
+		public int getNumberOfNotFinishedThreads() {
 			synchronized (m_threadEventCondition) {
-				return (short) (m_numberCreated - m_numberFinished);
+				return m_numberCreated - m_numberFinished;
 			}
 		}
 
@@ -801,6 +900,7 @@ final class GrinderProcess {
 		private final ThreadSynchronisation m_threadSynchronisation;
 		private final ScriptEngine m_scriptEngine;
 		private final WorkerRunnableFactory m_defaultWorkerRunnableFactory;
+		private final VuserThreadFactory m_vuserThreadFactory;
 
 		private final ProcessLifeCycleListener m_threadLifeCycleCallbacks = new ProcessLifeCycleListener() {
 			@Override
@@ -827,9 +927,11 @@ final class GrinderProcess {
 		private int m_i = -1;
 
 		private ThreadStarterImplementation(final ThreadSynchronisation threadSynchronisation,
-		                                    final ScriptEngine scriptEngine) {
+		                                    final ScriptEngine scriptEngine,
+		                                    final VuserThreadFactory vuserThreadFactory) {
 			m_threadSynchronisation = threadSynchronisation;
 			m_scriptEngine = scriptEngine;
+			m_vuserThreadFactory = vuserThreadFactory;
 
 			m_defaultWorkerRunnableFactory = new WorkerRunnableFactory() {
 				@Override
@@ -866,9 +968,7 @@ final class GrinderProcess {
 					m_threadLifeCycleCallbacks, m_initialisationMessage.getProperties(), m_sleeper,
 					workerRunnableFactory);
 
-			final Thread t = new Thread(runnable, "thread " + threadNumber);
-			t.setDaemon(true);
-			t.start();
+			m_vuserThreadFactory.newThread(runnable, "thread " + threadNumber).start();
 
 			return threadNumber;
 		}
@@ -38,6 +38,7 @@ import net.grinder.statistics.StatisticsSet;
 import net.grinder.util.ListenerSupport;
 import net.grinder.util.ListenerSupport.Informer;
 
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
@@ -271,7 +272,7 @@ final class ThreadContextImplementation implements ThreadContext {
 			m_pendingDispatchContext = dispatchContext;
 		} else {
 			try {
-				dispatchContext.report();
+				report(dispatchContext);
 			} catch (DispatchStateException e) {
 				throw new AssertionError(e);
 			}
@@ -306,7 +307,7 @@ final class ThreadContextImplementation implements ThreadContext {
 	public void reportPendingDispatchContext() {
 		if (m_pendingDispatchContext != null) {
 			try {
-				m_pendingDispatchContext.report();
+				report(m_pendingDispatchContext);
 			} catch (DispatchStateException e) {
 				throw new AssertionError(e);
 			}
@@ -315,6 +316,20 @@ final class ThreadContextImplementation implements ThreadContext {
 		}
 	}
 
+	/**
+	 * Report the dispatch context and record its test time in the latency histogram of the test.
+	 */
+	private void report(DispatchContext dispatchContext) throws DispatchStateException {
+		final StatisticsForTest statistics = dispatchContext.getStatisticsForTest();
+
+		dispatchContext.report();
+
+		if (statistics != null && statistics.getSuccess()) {
+			ExtendedStatisticsCollector.INSTANCE.recordTestTime(statistics.getTest().getNumber(),
+					statistics.getTime());
+		}
+	}
+
 	public void pauseClock() {
 		final DispatchContext dispatchContext = m_dispatchContextStack
 				.peekTop();
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.process;
+
+import org.slf4j.Logger;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the vuser threads of a worker process.
+ * <p>
+ * When {@link #PROP_VIRTUAL_THREADS} is set, the vusers run on virtual threads, so a process can hold
+ * far more of them than platform threads allow. The state of a vuser such as its cookies and kept alive
+ * connections is held in thread locals, and a virtual thread keeps its own thread locals whichever
+ * carrier thread runs it. Virtual threads need Java 21 or later. They're looked up reflectively since the
+ * runtime is built for Java 8, and platform threads are used if they're not available.
+ * <p>
+ * Package scope.
+ */
+final class VuserThreadFactory {
+	static final String PROP_VIRTUAL_THREADS = "grinder.virtualThreads";
+
+	/**
+	 * From this version, a virtual thread which waits on a monitor doesn't pin its carrier thread.
+	 */
+	private static final int UNPINNED_MONITOR_VERSION = 24;
+
+	private final Method ofVirtual;
+	private final Method name;
+	private final Method unstarted;
+
+	VuserThreadFactory(boolean virtualThreads, Logger logger) {
+		Method ofVirtual = null;
+		Method name = null;
+		Method unstarted = null;
+		if (virtualThreads) {
+			try {
+				final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+				ofVirtual = Thread.class.getMethod("ofVirtual");
+				name = builder.getMethod("name", String.class);
+				unstarted = builder.getMethod("unstarted", Runnable.class);
+				logger.info("Vusers run on virtual threads");
+				if (getJavaVersion() < UNPINNED_MONITOR_VERSION) {
+					logger.warn("Before Java {}, a vuser sleeping in the grinder sleeper pins its carrier thread. "
+						+ "Use Java {} or later for many sleeping vusers.", UNPINNED_MONITOR_VERSION,
+						UNPINNED_MONITOR_VERSION);
+				}
+			} catch (ReflectiveOperationException e) {
+				ofVirtual = null;
+				logger.warn("Virtual threads need Java 21 or later. Vusers run on platform threads.");
+			}
+		}
+		this.ofVirtual = ofVirtual;
+		this.name = name;
+		this.unstarted = unstarted;
+	}
+
+	boolean isVirtual() {
+		return ofVirtual != null;
+	}
+
+	/**
+	 * Create an unstarted vuser thread.
+	 *
+	 * @param runnable vuser
+	 * @param threadName thread name
+	 * @return thread
+	 */
+	Thread newThread(Runnable runnable, String threadName) {
+		if (isVirtual()) {
+			try {
+				// A builder isn't thread safe, so it's created for each thread.
+				final Object builder = name.invoke(ofVirtual.invoke(null), threadName);
+				return (Thread) unstarted.invoke(builder, runnable);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Failed to create a virtual thread", e);
+			}
+		}
+		final Thread thread = new Thread(runnable, threadName);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private static int getJavaVersion() {
+		final String version = System.getProperty("java.specification.version", "1.8");
+		try {
+			return version.startsWith("1.") ? 8 : Integer.parseInt(version);
+		} catch (NumberFormatException e) {
+			return 8;
+		}
+	}
+}
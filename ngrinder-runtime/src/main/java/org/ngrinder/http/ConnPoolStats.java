@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide statistics of {@link ThreadAwareConnPool}.
+ * Counters are updated by many vuser threads, so they are kept in {@link LongAdder}s.
+ * Each count is passed to {@link ExtendedStatisticsCollector} as well, so it reaches the console and the report.
+ */
+public class ConnPoolStats {
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final ConcurrentMap<Integer, LongAdder> openedPerTest = new ConcurrentHashMap<>();
+
+	void hit() {
+		hits.increment();
+		ExtendedStatisticsCollector.INSTANCE.recordConnectionLease(true);
+	}
+
+	void miss() {
+		misses.increment();
+		ExtendedStatisticsCollector.INSTANCE.recordConnectionLease(false);
+	}
+
+	void evicted() {
+		evictions.increment();
+		ExtendedStatisticsCollector.INSTANCE.recordConnectionEviction();
+	}
+
+	/**
+	 * Record a connection opened while the given test is in progress.
+	 *
+	 * @param testNumber test number
+	 */
+	public void opened(int testNumber) {
+		openedPerTest.computeIfAbsent(testNumber, key -> new LongAdder()).increment();
+		ExtendedStatisticsCollector.INSTANCE.recordConnectionOpened(testNumber);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Get the number of opened connections per test number.
+	 */
+	public Map<Integer, Long> getOpenedPerTest() {
+		Map<Integer, Long> result = new TreeMap<>();
+		openedPerTest.forEach((testNumber, count) -> result.put(testNumber, count.sum()));
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+			+ ", opened per test=" + getOpenedPerTest();
+	}
+}
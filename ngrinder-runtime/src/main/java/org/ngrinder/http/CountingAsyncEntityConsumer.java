@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.entity.AbstractBinAsyncEntityConsumer;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * This AsyncEntityConsumer implementation counts the bytes of the response body
+ * and keeps only the first {@code keepBytes} of them. A negative {@code keepBytes} keeps the whole body.
+ * If a {@link MessageDigest} is given, the digest of the whole body is computed as it streams.
+ */
+public class CountingAsyncEntityConsumer extends AbstractBinAsyncEntityConsumer<byte[]> {
+
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+
+	private final int keepBytes;
+	private final MessageDigest digest;
+	private final ByteArrayBuffer buffer;
+
+	private long length;
+	private byte[] digestBytes;
+
+	public CountingAsyncEntityConsumer(int keepBytes, MessageDigest digest) {
+		this.keepBytes = keepBytes;
+		this.digest = digest;
+		this.buffer = new ByteArrayBuffer(keepBytes < 0 ? INITIAL_BUFFER_SIZE : Math.min(keepBytes, INITIAL_BUFFER_SIZE));
+	}
+
+	@Override
+	protected void streamStart(ContentType contentType) {
+		length = 0;
+		digestBytes = null;
+		buffer.clear();
+		if (digest != null) {
+			digest.reset();
+		}
+	}
+
+	@Override
+	protected int capacityIncrement() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	protected void data(ByteBuffer src, boolean endOfStream) {
+		if (src == null) {
+			return;
+		}
+
+		int remaining = src.remaining();
+		length += remaining;
+
+		if (digest != null) {
+			digest.update(src.duplicate());
+		}
+
+		int keep = keepBytes < 0 ? remaining : Math.min(remaining, keepBytes - buffer.length());
+		if (keep > 0) {
+			if (src.hasArray()) {
+				buffer.append(src.array(), src.arrayOffset() + src.position(), keep);
+			} else {
+				byte[] bytes = new byte[keep];
+				src.duplicate().get(bytes);
+				buffer.append(bytes, 0, keep);
+			}
+		}
+		src.position(src.limit());
+	}
+
+	@Override
+	protected byte[] generateContent() {
+		if (digest != null) {
+			digestBytes = digest.digest();
+		}
+		return buffer.toByteArray();
+	}
+
+	@Override
+	public void releaseResources() {
+		buffer.clear();
+	}
+
+	/**
+	 * Get the number of bytes of the whole response body.
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Get the digest of the whole response body or null if no digest algorithm is given.
+	 */
+	public byte[] getDigest() {
+		return digestBytes;
+	}
+}
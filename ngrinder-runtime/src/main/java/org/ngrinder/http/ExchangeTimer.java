@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Timestamps of the phases of a single exchange in nanoseconds.
+ * <p>
+ * Connections are leased in the vuser thread, so {@link HTTPRequester} finds the timer of
+ * the exchange being connected in a thread local. The other phases are marked in IO threads
+ * through the exchange itself.
+ */
+class ExchangeTimer {
+	private static final ThreadLocal<ExchangeTimer> CONNECTING = new ThreadLocal<>();
+
+	private final long startTime = System.nanoTime();
+	private volatile long leaseTime;
+	private volatile long resolveTime;
+	private volatile long connectTime;
+	private volatile long completeTime;
+
+	/**
+	 * Get the timer of the exchange which is connecting in the current thread.
+	 *
+	 * @return timer or null if no exchange is connecting
+	 */
+	static ExchangeTimer connecting() {
+		return CONNECTING.get();
+	}
+
+	void beginConnect() {
+		CONNECTING.set(this);
+	}
+
+	void endConnect() {
+		CONNECTING.remove();
+	}
+
+	/**
+	 * Mark that a pool entry without connection was leased and a new connection is requested.
+	 */
+	void markLeased() {
+		leaseTime = System.nanoTime();
+	}
+
+	void markResolved() {
+		resolveTime = System.nanoTime();
+	}
+
+	void markConnected() {
+		connectTime = System.nanoTime();
+	}
+
+	void markCompleted() {
+		completeTime = System.nanoTime();
+	}
+
+	boolean isNewConnection() {
+		return leaseTime != 0;
+	}
+
+	/**
+	 * Get the time in milliseconds from the start of the exchange to the endpoint being ready.
+	 */
+	long getConnectTimeMillis() {
+		return NANOSECONDS.toMillis(connectTime - startTime);
+	}
+
+	long getDnsTimeMillis() {
+		return isNewConnection() ? NANOSECONDS.toMillis(resolveTime - leaseTime) : 0;
+	}
+
+	/**
+	 * Get the phases of the completed exchange.
+	 *
+	 * @param requestTime   time when the request began to be sent
+	 * @param firstByteTime time when the first byte of the response arrived
+	 * @param secure        true if the connection is secured by TLS
+	 * @return nanoseconds indexed by {@link HTTPPhase#ordinal()}
+	 */
+	long[] getPhases(long requestTime, long firstByteTime, boolean secure) {
+		final long[] phases = new long[HTTPPhase.values().length];
+		if (isNewConnection()) {
+			phases[HTTPPhase.POOL_WAIT.ordinal()] = leaseTime - startTime;
+			phases[HTTPPhase.DNS.ordinal()] = resolveTime - leaseTime;
+			phases[HTTPPhase.CONNECT.ordinal()] = connectTime - resolveTime;
+			if (secure) {
+				// The request is sent only after the handshake is done.
+				phases[HTTPPhase.TLS_HANDSHAKE.ordinal()] = requestTime - connectTime;
+			}
+		} else {
+			phases[HTTPPhase.POOL_WAIT.ordinal()] = connectTime - startTime;
+		}
+		phases[HTTPPhase.FIRST_BYTE.ordinal()] = firstByteTime - requestTime;
+		phases[HTTPPhase.DOWNLOAD.ordinal()] = completeTime - firstByteTime;
+		return phases;
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This AsyncEntityProducer implementation streams a file from memory mapped regions.
+ * <p>
+ * Regions of a file are mapped once per process and shared by every producer of the same file,
+ * so many vusers can upload a large file while each connection only keeps a view of the mapped region.
+ * Nothing of the file is copied into the heap.
+ * <p>
+ * Only the {@link #MAX_MAPPED_FILES} most recently used files are kept, and a file which has changed replaces
+ * its old mapping. The mappings which aren't kept are released once no producer uses them anymore.
+ */
+public class FileChannelEntityProducer implements AsyncEntityProducer {
+
+	private static final long REGION_SIZE = 64 * 1024 * 1024;
+
+	static final int MAX_MAPPED_FILES = 16;
+
+	/**
+	 * Mapped files keyed by absolute path in access order. Guarded by itself.
+	 */
+	private static final Map<String, MappedFile> mappedFiles = new LinkedHashMap<String, MappedFile>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, MappedFile> eldest) {
+			return size() > MAX_MAPPED_FILES;
+		}
+	};
+
+	private final MappedFile mappedFile;
+	private final ContentType contentType;
+
+	private long position;
+	private ByteBuffer region;
+
+	public FileChannelEntityProducer(File file, ContentType contentType) {
+		this.mappedFile = getMappedFile(file);
+		this.contentType = contentType;
+	}
+
+	public FileChannelEntityProducer(File file) {
+		this(file, ContentType.APPLICATION_OCTET_STREAM);
+	}
+
+	private static MappedFile getMappedFile(File file) {
+		final String key = file.getAbsolutePath();
+		synchronized (mappedFiles) {
+			MappedFile mappedFile = mappedFiles.get(key);
+			if (mappedFile == null || mappedFile.length != file.length()
+				|| mappedFile.lastModified != file.lastModified()) {
+				mappedFile = new MappedFile(file);
+				mappedFiles.put(key, mappedFile);
+			}
+			return mappedFile;
+		}
+	}
+
+	/**
+	 * Forget every mapped file. It's called when the worker process finishes.
+	 */
+	public static void clear() {
+		synchronized (mappedFiles) {
+			mappedFiles.clear();
+		}
+	}
+
+	/**
+	 * For unit test.
+	 */
+	static int getMappedFileCount() {
+		synchronized (mappedFiles) {
+			return mappedFiles.size();
+		}
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	@Override
+	public long getContentLength() {
+		return mappedFile.length;
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType != null ? contentType.toString() : null;
+	}
+
+	@Override
+	public String getContentEncoding() {
+		return null;
+	}
+
+	@Override
+	public boolean isChunked() {
+		return false;
+	}
+
+	@Override
+	public Set<String> getTrailerNames() {
+		return null;
+	}
+
+	@Override
+	public int available() {
+		return (int) Math.min(Integer.MAX_VALUE, mappedFile.length - position);
+	}
+
+	@Override
+	public void produce(DataStreamChannel channel) throws IOException {
+		while (position < mappedFile.length) {
+			if (region == null || !region.hasRemaining()) {
+				region = mappedFile.view(position);
+			}
+
+			final int written = channel.write(region);
+			position += written;
+			if (region.hasRemaining()) {
+				// The channel is full. It'll be called again when the channel is writable.
+				return;
+			}
+		}
+		channel.endStream();
+	}
+
+	@Override
+	public void failed(Exception cause) {
+		releaseResources();
+	}
+
+	@Override
+	public void releaseResources() {
+		position = 0;
+		region = null;
+	}
+
+	/**
+	 * Read only regions of a file which are mapped on demand.
+	 */
+	private static class MappedFile {
+		private final File file;
+		private final long length;
+		private final long lastModified;
+		private final MappedByteBuffer[] regions;
+
+		private MappedFile(File file) {
+			this.file = file;
+			this.length = file.length();
+			this.lastModified = file.lastModified();
+			this.regions = new MappedByteBuffer[(int) ((length + REGION_SIZE - 1) / REGION_SIZE)];
+		}
+
+		/**
+		 * Get a view of the region which contains the given position.
+		 * The view starts at the position and ends at the end of the region.
+		 */
+		private ByteBuffer view(long position) throws IOException {
+			final int index = (int) (position / REGION_SIZE);
+			final ByteBuffer view = getRegion(index).duplicate();
+			view.position((int) (position - index * REGION_SIZE));
+			return view;
+		}
+
+		private MappedByteBuffer getRegion(int index) throws IOException {
+			synchronized (regions) {
+				if (regions[index] == null) {
+					try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+						final long offset = index * REGION_SIZE;
+						regions[index] = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset,
+							Math.min(REGION_SIZE, length - offset));
+					}
+				}
+				return regions[index];
+			}
+		}
+	}
+}
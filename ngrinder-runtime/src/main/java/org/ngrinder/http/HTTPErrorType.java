@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.http.ConnectionClosedException;
+
+import javax.net.ssl.SSLException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Types of the failures of HTTP exchanges which end without a response.
+ */
+public enum HTTPErrorType {
+	CONNECT_TIMEOUT("Connect timeout errors"),
+	READ_TIMEOUT("Read timeout errors"),
+	CONNECTION_REFUSED("Connection refused errors"),
+	CONNECTION_RESET("Connection reset errors"),
+	TLS_FAILURE("TLS errors"),
+	UNKNOWN_HOST("Unknown host errors"),
+	OTHER("Other HTTP errors");
+
+	private final String displayName;
+
+	HTTPErrorType(String displayName) {
+		this.displayName = displayName;
+	}
+
+	/**
+	 * Get the display name which is also used as the key of the report data.
+	 */
+	public String getDisplayName() {
+		return displayName;
+	}
+
+	/**
+	 * Get the type of the given failure. A timeout is a connect timeout if the connection was not established yet.
+	 *
+	 * @param throwable failure of an exchange
+	 * @param connected true if the connection was established
+	 * @return error type
+	 */
+	public static HTTPErrorType of(Throwable throwable, boolean connected) {
+		Throwable cause = throwable;
+		while ((cause instanceof ExecutionException || cause instanceof CompletionException) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		if (cause instanceof SSLException) {
+			return TLS_FAILURE;
+		} else if (cause instanceof SocketTimeoutException || cause instanceof TimeoutException) {
+			return connected ? READ_TIMEOUT : CONNECT_TIMEOUT;
+		} else if (cause instanceof ConnectException) {
+			return CONNECTION_REFUSED;
+		} else if (cause instanceof UnknownHostException || cause instanceof UnresolvedAddressException) {
+			return UNKNOWN_HOST;
+		} else if (cause instanceof ConnectionClosedException || cause instanceof SocketException) {
+			return CONNECTION_RESET;
+		}
+		return OTHER;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+/**
+ * Phases of a single HTTP exchange. Each phase is measured in nanoseconds.
+ * DNS, connect and TLS handshake phases are zero when a kept alive connection is reused.
+ */
+public enum HTTPPhase {
+	POOL_WAIT("Mean pool wait time (ns)"),
+	DNS("Mean DNS time (ns)"),
+	CONNECT("Mean TCP connect time (ns)"),
+	TLS_HANDSHAKE("Mean TLS handshake time (ns)"),
+	FIRST_BYTE("Mean server time to first byte (ns)"),
+	DOWNLOAD("Mean download time (ns)");
+
+	private final String displayName;
+
+	HTTPPhase(String displayName) {
+		this.displayName = displayName;
+	}
+
+	/**
+	 * Get the display name which is also used as the key of the report data.
+	 */
+	public String getDisplayName() {
+		return displayName;
+	}
+}
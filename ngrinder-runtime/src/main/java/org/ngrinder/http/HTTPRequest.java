@@ -23,36 +23,36 @@ package org.ngrinder.http;
 import HTTPClient.NVPair;
 import net.grinder.plugin.http.HTTPPlugin;
 import net.grinder.script.InvalidContextException;
-import net.grinder.script.NoSuchStatisticException;
 import net.grinder.script.Statistics;
 import net.grinder.statistics.StatisticsIndexMap;
 import org.apache.hc.client5.http.cookie.*;
 import org.apache.hc.client5.http.impl.cookie.RFC6265StrictSpec;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.*;
 import org.apache.hc.core5.http.message.BasicHeader;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
 import org.apache.hc.core5.http.nio.AsyncEntityProducer;
 import org.apache.hc.core5.http.nio.AsyncRequestProducer;
-import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
-import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityConsumer;
-import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
 import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
 import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.apache.hc.core5.util.Timeout;
 import org.ngrinder.http.cookie.ThreadContextCookieStore;
 import org.ngrinder.http.method.*;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.HttpURLConnection;
-import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import static java.util.Collections.emptyList;
-import static org.ngrinder.http.util.ContentTypeUtils.getContentType;
 import static org.ngrinder.http.util.JsonUtils.toJson;
 import static org.ngrinder.http.util.PairListConvertUtils.convert;
 
@@ -60,161 +60,241 @@ public class HTTPRequest implements HTTPHead, HTTPGet, HTTPPost, HTTPPut, HTTPPa
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(HTTPRequest.class);
 
-	private static final CookieStore COOKIE_STORE = ThreadContextCookieStore.INSTANCE;
+	private static final ThreadContextCookieStore COOKIE_STORE = ThreadContextCookieStore.INSTANCE;
 	private static final CookieSpec COOKIE_SPEC = new RFC6265StrictSpec();
 
-	private HTTPRequester requester;
+	/**
+	 * Tests which had a response completed after they finished. Each of them is warned once.
+	 */
+	private static final Set<Integer> LATE_TESTS = ConcurrentHashMap.newKeySet();
 
-	private CookieOrigin cookieOrigin;
+	private HTTPRequester requester;
 
 	private int readBytes = -1;
 
 	private HttpVersionPolicy versionPolicy = HttpVersionPolicy.NEGOTIATE;
 
+	private boolean tlsSessionResumption = HTTPRequestControl.isTlsSessionResumption();
+
 	private List<Header> headers = emptyList();
 
+	private boolean bodyDiscarded = false;
+
+	private int keptBodyBytes = 0;
+
+	private String bodyDigestAlgorithm;
+
 	static {
 		// noinspection ResultOfMethodCallIgnored
 		HTTPPlugin.getPlugin();    // Ensure plugin is loaded
 	}
 
 	public HTTPRequest() {
-		requester = new HTTPRequester.Builder().build();
+		requester = HTTPRequester.getRequester(versionPolicy, readBytes, tlsSessionResumption);
 	}
 
 	@Override
 	public HTTPResponse HEAD(String uri, List<NameValuePair> params, List<Header> headers) {
-		return doRequest(uri, createRequestWithParam("HEAD", uri, params, headers));
+		return prepare("HEAD", uri, headers).execute(params);
 	}
 
 	@Override
 	public HTTPResponse GET(String uri, List<NameValuePair> params, List<Header> headers) {
-		return doRequest(uri, createRequestWithParam("GET", uri, params, headers));
+		return prepare("GET", uri, headers).execute(params);
 	}
 
 	@Override
 	public HTTPResponse POST(String uri, byte[] content, List<Header> headers) {
-		return doRequest(uri, createRequestWithBody("POST", uri, content, headers));
+		return prepare("POST", uri, headers).execute(content);
 	}
 
 	@Override
 	public HTTPResponse POST(String uri, List<NameValuePair> params, List<Header> headers) {
-		return doRequest(uri, createRequestWithParam("POST", uri, params, headers));
+		return prepare("POST", uri, headers).execute(params);
 	}
 
 	@Override
 	public HTTPResponse POST(String uri, Map<?, ?> params, List<Header> headers) {
-		final List<Header> actualHeaders = headers.isEmpty() ? this.headers : headers;
-		if (getContentType(actualHeaders).isSameMimeType(ContentType.APPLICATION_JSON)) {
-			return POST(uri, toJson(params).getBytes(), actualHeaders);
+		final HTTPRequestTemplate template = prepare("POST", uri, headers);
+		if (template.getContentType().isSameMimeType(ContentType.APPLICATION_JSON)) {
+			return template.execute(toJson(params).getBytes());
 		}
-
-		return POST(uri, convert((Map<String, String>) params, BasicNameValuePair::new), actualHeaders);
+		return template.execute((Map<String, String>) params);
 	}
 
 	@Override
 	public HTTPResponse POST(String uri, AsyncEntityProducer asyncEntityProducer, List<Header> headers) {
-		return doRequest(uri, createRequestWithEntity("POST", uri, asyncEntityProducer, headers));
+		return prepare("POST", uri, headers).execute(asyncEntityProducer);
 	}
 
 	@Override
 	public HTTPResponse PUT(String uri, byte[] content, List<Header> headers) {
-		return doRequest(uri, createRequestWithBody("PUT", uri, content, headers));
+		return prepare("PUT", uri, headers).execute(content);
 	}
 
 	@Override
 	public HTTPResponse PUT(String uri, List<NameValuePair> params, List<Header> headers) {
-		return doRequest(uri, createRequestWithParam("PUT", uri, params, headers));
+		return prepare("PUT", uri, headers).execute(params);
 	}
 
 	@Override
 	public HTTPResponse PUT(String uri, Map<?, ?> params, List<Header> headers) {
-		final List<Header> actualHeaders = headers.isEmpty() ? this.headers : headers;
-		if (getContentType(actualHeaders).isSameMimeType(ContentType.APPLICATION_JSON)) {
-			return PUT(uri, toJson(params).getBytes(), headers);
+		final HTTPRequestTemplate template = prepare("PUT", uri, headers);
+		if (template.getContentType().isSameMimeType(ContentType.APPLICATION_JSON)) {
+			return template.execute(toJson(params).getBytes());
 		}
-		return PUT(uri, convert((Map<String, String>) params, BasicNameValuePair::new), actualHeaders);
+		return template.execute((Map<String, String>) params);
 	}
 
 	@Override
 	public HTTPResponse PUT(String uri, AsyncEntityProducer asyncEntityProducer, List<Header> headers) {
-		return doRequest(uri, createRequestWithEntity("PUT", uri, asyncEntityProducer, headers));
+		return prepare("PUT", uri, headers).execute(asyncEntityProducer);
 	}
 
 	@Override
 	public HTTPResponse PATCH(String uri, byte[] content, List<Header> headers) {
-		return doRequest(uri, createRequestWithBody("PATCH", uri, content, headers));
+		return prepare("PATCH", uri, headers).execute(content);
 	}
 
 	@Override
 	public HTTPResponse PATCH(String uri, List<NameValuePair> params, List<Header> headers) {
-		return doRequest(uri, createRequestWithParam("PATCH", uri, params, headers));
+		return prepare("PATCH", uri, headers).execute(params);
 	}
 
 	@Override
 	public HTTPResponse PATCH(String uri, Map<?, ?> params, List<Header> headers) {
-		final List<Header> actualHeaders = headers.isEmpty() ? this.headers : headers;
-		if (getContentType(actualHeaders).isSameMimeType(ContentType.APPLICATION_JSON)) {
-			return PATCH(uri, toJson(params).getBytes(), headers);
+		final HTTPRequestTemplate template = prepare("PATCH", uri, headers);
+		if (template.getContentType().isSameMimeType(ContentType.APPLICATION_JSON)) {
+			return template.execute(toJson(params).getBytes());
 		}
-		return PATCH(uri, convert((Map<String, String>) params, BasicNameValuePair::new), actualHeaders);
+		return template.execute((Map<String, String>) params);
 	}
 
 	@Override
 	public HTTPResponse PATCH(String uri, AsyncEntityProducer asyncEntityProducer, List<Header> headers) {
-		return doRequest(uri, createRequestWithEntity("PATCH", uri, asyncEntityProducer, headers));
+		return prepare("PATCH", uri, headers).execute(asyncEntityProducer);
 	}
 
 	@Override
 	public HTTPResponse DELETE(String uri, List<NameValuePair> params, List<Header> headers) {
-		return doRequest(uri, createRequestWithParam("DELETE", uri, params, headers));
+		return prepare("DELETE", uri, headers).execute(params);
 	}
 
-	private HTTPResponse doRequest(String uri, AsyncRequestProducer producer) {
-		AsyncClientEndpoint endpoint = getEndpoint(uri);
-		try {
-			AsyncResponseConsumer<Message<HttpResponse, byte[]>> consumer = new BasicResponseConsumer<>(new BasicAsyncEntityConsumer());
+	/**
+	 * Send a GET request without blocking the vuser thread.
+	 * Statistics and cookies of the response are attributed to the test which sent the request,
+	 * so the returned future should be completed before the test returns. The statistics of a response
+	 * which completes after the test has been reported are ignored with a warning.
+	 */
+	public CompletableFuture<HTTPResponse> GETAsync(String uri) {
+		return GETAsync(uri, emptyList(), emptyList());
+	}
 
-			Future<Message<HttpResponse, byte[]>> messageFuture = endpoint.execute(producer, consumer, null);
-			Message<HttpResponse, byte[]> message = messageFuture.get();
+	public CompletableFuture<HTTPResponse> GETAsync(String uri, Map<String, String> params) {
+		return GETAsync(uri, convert(params, BasicNameValuePair::new), emptyList());
+	}
 
-			endpoint.releaseAndReuse();
+	public CompletableFuture<HTTPResponse> GETAsync(String uri, List<NameValuePair> params, List<Header> headers) {
+		return prepare("GET", uri, headers).executeAsync(params);
+	}
 
-			processResponseCookies(message.getHead().headerIterator("Set-Cookie"));
+	/**
+	 * Send a POST request without blocking the vuser thread.
+	 *
+	 * @see #GETAsync(String)
+	 */
+	public CompletableFuture<HTTPResponse> POSTAsync(String uri, byte[] content) {
+		return POSTAsync(uri, content, emptyList());
+	}
 
-			aggregate(message);
-			summarize(uri, message);
+	public CompletableFuture<HTTPResponse> POSTAsync(String uri, byte[] content, List<Header> headers) {
+		return prepare("POST", uri, headers).executeAsync(content);
+	}
 
-			return HTTPResponse.of(message);
-		} catch (Exception e) {
-			endpoint.releaseAndDiscard();
-			throw new RuntimeException(e);
+	public CompletableFuture<HTTPResponse> POSTAsync(String uri, Map<String, String> params) {
+		return POSTAsync(uri, convert(params, BasicNameValuePair::new), emptyList());
+	}
+
+	public CompletableFuture<HTTPResponse> POSTAsync(String uri, List<NameValuePair> params, List<Header> headers) {
+		return prepare("POST", uri, headers).executeAsync(params);
+	}
+
+	/**
+	 * Wait for all the given responses.
+	 *
+	 * @param futures futures returned by the asynchronous methods
+	 * @return responses in the same order
+	 */
+	public static List<HTTPResponse> awaitAll(List<CompletableFuture<HTTPResponse>> futures) {
+		List<HTTPResponse> responses = new ArrayList<>(futures.size());
+		for (CompletableFuture<HTTPResponse> future : futures) {
+			responses.add(getResponse(future));
 		}
+		return responses;
 	}
 
-	private AsyncClientEndpoint getEndpoint(String uri) {
-		try {
-			final HttpHost httpHost = HttpHost.create(URI.create(uri));
-			final Timeout connectionTimeout = Timeout.ofMilliseconds(HTTPRequestControl.getConnectionTimeout());
+	/**
+	 * Prepare a request template which can be executed many times without parsing the URI again.
+	 * The default headers, the version policy, read bytes and body settings are resolved when the template
+	 * is prepared.
+	 *
+	 * @param method  HTTP method
+	 * @param uri     request URI
+	 * @param headers request headers. The default headers are used if empty.
+	 * @return immutable request template
+	 */
+	public HTTPRequestTemplate prepare(String method, String uri, List<Header> headers) {
+		return new HTTPRequestTemplate(this, method, uri, headers.isEmpty() ? this.headers : headers);
+	}
 
-			long start = System.currentTimeMillis();
-			AsyncClientEndpoint endpoint = requester.connect(httpHost, connectionTimeout).get();
-			long end = System.currentTimeMillis();
+	public HTTPRequestTemplate prepare(String method, String uri, Map<String, String> headers) {
+		return prepare(method, uri, convert(headers, BasicHeader::new));
+	}
 
-			Statistics statistics = getStatistics();
-			if (statistics.isTestInProgress()) {
-				Statistics.StatisticsForTest statisticsForTest = statistics.getForCurrentTest();
+	public HTTPRequestTemplate prepare(String method, String uri) {
+		return prepare(method, uri, emptyList());
+	}
 
-				statisticsForTest.setLong(
-					StatisticsIndexMap.HTTP_PLUGIN_CONNECT_TIME_KEY, end - start);
-			}
+	/**
+	 * Send the request and wait for its response. The response is processed in the calling vuser thread,
+	 * so that the IO thread is released as soon as the response is received.
+	 */
+	HTTPResponse doRequest(HTTPRequestTemplate template, AsyncRequestProducer producer) {
+		Exchange exchange = new Exchange(template, producer);
+		exchange.connect();
+		return exchange.toResponse(getResponse(exchange.message));
+	}
 
-			return endpoint;
-		} catch (InterruptedException | ExecutionException | InvalidContextException | NoSuchStatisticException e) {
+	private static <T> T getResponse(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException | ExecutionException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	/**
+	 * Send the request without waiting for its response. The response is processed in the IO thread
+	 * which receives it, since the vuser thread may not wait for it.
+	 */
+	CompletableFuture<HTTPResponse> doRequestAsync(HTTPRequestTemplate template, AsyncRequestProducer producer) {
+		Exchange exchange = new Exchange(template, producer);
+		exchange.connect();
+		return exchange.message.thenApply(exchange::toResponse);
+	}
+
+	private static CountingAsyncEntityConsumer createEntityConsumer(HTTPRequestTemplate template) {
+		MessageDigest digest = null;
+		if (template.getBodyDigestAlgorithm() != null) {
+			try {
+				digest = MessageDigest.getInstance(template.getBodyDigestAlgorithm());
+			} catch (NoSuchAlgorithmException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return new CountingAsyncEntityConsumer(template.getKeptBodyBytes(), digest);
+	}
+
 	private Statistics getStatistics() {
 		return HTTPPlugin.getPlugin()
 			.getPluginProcessContext()
@@ -222,35 +302,74 @@ public class HTTPRequest implements HTTPHead, HTTPGet, HTTPPost, HTTPPut, HTTPPa
 			.getStatistics();
 	}
 
-	private void aggregate(Message<HttpResponse, byte[]> message) {
+	private Statistics.StatisticsForTest getStatisticsForCurrentTest() {
 		Statistics statistics = getStatistics();
-
 		if (!statistics.isTestInProgress()) {
-			return;
+			return null;
 		}
 
 		try {
-			Statistics.StatisticsForTest statisticsForTest = statistics.getForCurrentTest();
+			return statistics.getForCurrentTest();
+		} catch (InvalidContextException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Add the statistics of a response to the test which sent the request.
+	 *
+	 * @return false if there is no test to add them to
+	 */
+	private boolean aggregate(Statistics.StatisticsForTest statisticsForTest, Message<HttpResponse, byte[]> message,
+							  ExchangeTimer timer, long bodyLength, long timeToFirstByte) {
+		if (statisticsForTest == null) {
+			return false;
+		}
+
+		// Asynchronous requests of a vuser may complete in several IO threads at once.
+		synchronized (statisticsForTest) {
+			try {
+				final long connectTime = timer.getConnectTimeMillis();
+
+				statisticsForTest.setLong(
+					StatisticsIndexMap.HTTP_PLUGIN_DNS_TIME_KEY, timer.getDnsTimeMillis());
+
+				statisticsForTest.setLong(
+					StatisticsIndexMap.HTTP_PLUGIN_CONNECT_TIME_KEY, connectTime);
+
+				statisticsForTest.setLong(
+					StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_STATUS_KEY, message.getHead().getCode());
 
-			statisticsForTest.setLong(
-				StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_STATUS_KEY, message.getHead().getCode());
+				if (message.getHead().getCode() >= HttpURLConnection.HTTP_BAD_REQUEST) {
+					statisticsForTest.addLong(
+						StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_ERRORS_KEY, 1);
+				}
 
-			if (message.getHead().getCode() >= HttpURLConnection.HTTP_BAD_REQUEST) {
 				statisticsForTest.addLong(
-					StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_ERRORS_KEY, 1);
-			}
+					StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY, bodyLength);
 
-			statisticsForTest.addLong(
-				StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY, message.getBody() == null ? 0 : message.getBody().length);
+				statisticsForTest.addLong(
+					StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY, timeToFirstByte + connectTime);
+			} catch (InvalidContextException e) {
+				// The statistics of a test can't be updated once they are reported.
+				warnLateResponse(statisticsForTest.getTest().getNumber());
+				return false;
+			} catch (Exception e) {
+				LOGGER.error("Fail to aggregate HTTP statistics", e);
+			}
+		}
+		return true;
+	}
 
-			statisticsForTest.addLong(
-				StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY, TimeToFirstByteHolder.getTotal() + statisticsForTest.getLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECT_TIME_KEY));
-		} catch (Exception e) {
-			LOGGER.error("Fail to aggregate HTTP statistics", e);
+	private static void warnLateResponse(int testNumber) {
+		if (LATE_TESTS.add(testNumber)) {
+			LOGGER.warn("A response of test {} completed after the test finished, so its statistics are ignored. "
+				+ "Wait for the asynchronous requests before the test returns, e.g. with HTTPRequest.awaitAll().",
+				testNumber);
 		}
 	}
 
-	private void summarize(String uri, Message<HttpResponse, byte[]> message) {
+	private void summarize(String uri, Message<HttpResponse, byte[]> message, long bodyLength) {
 		Logger logger = HTTPPlugin.getPlugin()
 			.getPluginProcessContext()
 			.getScriptContext()
@@ -260,95 +379,17 @@ public class HTTPRequest implements HTTPHead, HTTPGet, HTTPPost, HTTPPut, HTTPPa
 			uri,
 			message.getHead().getCode(),
 			message.getHead().getReasonPhrase(),
-			message.getBody() == null ? 0 : message.getBody().length);
-	}
-
-	private AsyncRequestBuilder createRequest(String method, String uri, List<Header> headers) {
-		AsyncRequestBuilder builder = AsyncRequestBuilder
-			.create(method)
-			.setUri(uri);
-
-		final List<Header> actualHeaders = headers.isEmpty() ? this.headers : headers;
-		actualHeaders.forEach(builder::addHeader);
-		getMatchedCookies(uri).forEach(builder::addHeader);
-
-		return builder;
+			bodyLength);
 	}
 
-	private AsyncRequestProducer createRequestWithParam(String method, String uri, List<NameValuePair> params, List<Header> headers) {
-		AsyncRequestBuilder builder = createRequest(method, uri, headers);
-		params.forEach(builder::addParameter);
-
-		return builder.build();
-	}
-
-	private AsyncRequestProducer createRequestWithBody(String method, String uri, byte[] content, List<Header> headers) {
-		AsyncRequestBuilder builder = createRequest(method, uri, headers);
-		builder.setEntity(content, getContentType(headers));
-
-		return builder.build();
-	}
-
-	private AsyncRequestProducer createRequestWithEntity(String method, String uri, AsyncEntityProducer asyncEntityProducer, List<Header> headers) {
-		AsyncRequestBuilder builder = createRequest(method, uri, headers);
-		builder.setEntity(asyncEntityProducer);
-
-		return builder.build();
-	}
-
-	private List<Header> getMatchedCookies(String uriString) {
-		URI uri = URI.create(uriString);
-
-		int port = uri.getPort();
-		if (port == -1) {
-			port = 80;
-		}
-
-		boolean isSecure = uri.getScheme().equalsIgnoreCase("https");
-
-		cookieOrigin = new CookieOrigin(uri.getHost(), port, uri.getPath(), isSecure);
-
-		final List<Cookie> cookies = COOKIE_STORE.getCookies();
-		// Find cookies matching the given origin
-		final List<Cookie> matchedCookies = new ArrayList<>();
-		final Date now = new Date();
-		boolean expired = false;
-		for (final Cookie cookie : cookies) {
-			if (!cookie.isExpired(now)) {
-				if (COOKIE_SPEC.match(cookie, cookieOrigin)) {
-					if (LOGGER.isDebugEnabled()) {
-						LOGGER.debug("Cookie {} match {}", cookie, cookieOrigin);
-					}
-					matchedCookies.add(cookie);
-				}
-			} else {
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug("Cookie {} expired", cookie);
-				}
-				expired = true;
-			}
-		}
-		// Per RFC 6265, 5.3
-		// The user agent must evict all expired cookies if, at any time, an expired cookie
-		// exists in the cookie store
-		if (expired) {
-			COOKIE_STORE.clearExpired(now);
-		}
-		// Generate Cookie request headers
-		if (!matchedCookies.isEmpty()) {
-			return COOKIE_SPEC.formatCookies(matchedCookies);
-		}
-		return emptyList();
-	}
-
-	private void processResponseCookies(Iterator<Header> iterator) {
+	private void processResponseCookies(CookieStore cookieStore, CookieOrigin cookieOrigin, Iterator<Header> iterator) {
 		iterator.forEachRemaining(header -> {
 			try {
 				List<Cookie> cookies = COOKIE_SPEC.parse(header, cookieOrigin);
 				for (Cookie cookie : cookies) {
 					try {
 						COOKIE_SPEC.validate(cookie, cookieOrigin);
-						COOKIE_STORE.addCookie(cookie);
+						cookieStore.addCookie(cookie);
 					} catch (MalformedCookieException e) {
 						LOGGER.warn("Cookie rejected [{}] {}", cookie, e.getMessage());
 					}
@@ -364,7 +405,7 @@ public class HTTPRequest implements HTTPHead, HTTPGet, HTTPPost, HTTPPut, HTTPPa
 	 */
 	public void setVersionPolicy(HttpVersionPolicy versionPolicy) {
 		this.versionPolicy = versionPolicy;
-		requester.setVersionPolicy(versionPolicy);
+		this.requester = HTTPRequester.getRequester(this.versionPolicy, this.readBytes, this.tlsSessionResumption);
 	}
 
 	public int getReadBytes() {
@@ -373,10 +414,60 @@ public class HTTPRequest implements HTTPHead, HTTPGet, HTTPPost, HTTPPut, HTTPPa
 
 	public void setReadBytes(int readBytes) {
 		this.readBytes = readBytes;
-		this.requester = new HTTPRequester.Builder()
-			.setReadBytes(this.readBytes)
-			.setVersionPolicy(this.versionPolicy)
-			.build();
+		this.requester = HTTPRequester.getRequester(this.versionPolicy, this.readBytes, this.tlsSessionResumption);
+	}
+
+	public boolean isTlsSessionResumption() {
+		return tlsSessionResumption;
+	}
+
+	/**
+	 * Set whether new connections of this request resume cached TLS sessions.
+	 * Disable it to measure the cost of full handshakes, enable it to measure the application throughput.
+	 * It's taken from {@link HTTPRequestControl#setTlsSessionResumption(boolean)} by default.
+	 */
+	public void setTlsSessionResumption(boolean tlsSessionResumption) {
+		this.tlsSessionResumption = tlsSessionResumption;
+		this.requester = HTTPRequester.getRequester(this.versionPolicy, this.readBytes, this.tlsSessionResumption);
+	}
+
+	HTTPRequester getRequester() {
+		return requester;
+	}
+
+	public boolean isBodyDiscarded() {
+		return bodyDiscarded;
+	}
+
+	/**
+	 * Set whether response bodies are discarded while they stream instead of being kept in memory.
+	 * The body length is counted anyway, so response length statistics stay the same.
+	 */
+	public void setBodyDiscarded(boolean bodyDiscarded) {
+		this.bodyDiscarded = bodyDiscarded;
+	}
+
+	public int getKeptBodyBytes() {
+		return keptBodyBytes;
+	}
+
+	/**
+	 * Set the number of leading bytes kept from each discarded response body.
+	 */
+	public void setKeptBodyBytes(int keptBodyBytes) {
+		this.keptBodyBytes = keptBodyBytes;
+	}
+
+	public String getBodyDigestAlgorithm() {
+		return bodyDigestAlgorithm;
+	}
+
+	/**
+	 * Set the {@link MessageDigest} algorithm such as MD5 or SHA-256 used to digest each response body.
+	 * The digest is available through {@link HTTPResponse#getBodyDigest()}.
+	 */
+	public void setBodyDigestAlgorithm(String bodyDigestAlgorithm) {
+		this.bodyDigestAlgorithm = bodyDigestAlgorithm;
 	}
 
 	public void setHeaders(List<Header> headers) {
@@ -390,4 +481,115 @@ public class HTTPRequest implements HTTPHead, HTTPGet, HTTPPost, HTTPPut, HTTPPa
 	public void setHeaders(NVPair[] nvPairHeaders) {
 		setHeaders(convert(nvPairHeaders, BasicHeader::new));
 	}
+
+	/**
+	 * A single request and its response. The context of the vuser is captured when it's created,
+	 * so that the response can be processed in either the vuser thread or an IO thread.
+	 * The IO thread only releases the connection and hands the received message over.
+	 */
+	private class Exchange implements FutureCallback<Message<HttpResponse, byte[]>> {
+		private final HTTPRequestTemplate template;
+		private final TimedRequestProducer producer;
+		private final CookieStore cookieStore;
+		private final Statistics.StatisticsForTest statisticsForTest;
+		private final CountingAsyncEntityConsumer entityConsumer;
+		private final TimedResponseConsumer<Message<HttpResponse, byte[]>> consumer;
+		private final ExchangeTimer timer = new ExchangeTimer();
+		private final CompletableFuture<Message<HttpResponse, byte[]>> message = new CompletableFuture<>();
+
+		private AsyncClientEndpoint endpoint;
+
+		private Exchange(HTTPRequestTemplate template, AsyncRequestProducer producer) {
+			this.template = template;
+			this.producer = new TimedRequestProducer(producer);
+			this.cookieStore = COOKIE_STORE.getCookieStore();
+			this.statisticsForTest = getStatisticsForCurrentTest();
+			this.entityConsumer = createEntityConsumer(template);
+			this.consumer = new TimedResponseConsumer<>(new BasicResponseConsumer<>(entityConsumer));
+		}
+
+		private void connect() {
+			final Timeout connectionTimeout = Timeout.ofMilliseconds(HTTPRequestControl.getConnectionTimeout());
+
+			timer.beginConnect();
+			try {
+				template.getRequester().connect(template.getHttpHost(), connectionTimeout, null, new FutureCallback<AsyncClientEndpoint>() {
+					@Override
+					public void completed(AsyncClientEndpoint endpoint) {
+						timer.markConnected();
+						execute(endpoint);
+					}
+
+					@Override
+					public void failed(Exception ex) {
+						recordError(ex, false);
+						message.completeExceptionally(ex);
+					}
+
+					@Override
+					public void cancelled() {
+						message.cancel(false);
+					}
+				});
+			} finally {
+				timer.endConnect();
+			}
+
+			// Connections are leased in the calling thread.
+			if (statisticsForTest != null && !HTTPRequester.isLastConnectionReused()) {
+				HTTPRequester.getPoolStats().opened(statisticsForTest.getTest().getNumber());
+			}
+		}
+
+		private void execute(AsyncClientEndpoint endpoint) {
+			this.endpoint = endpoint;
+			consumer.start();
+			endpoint.execute(producer, consumer, this);
+		}
+
+		@Override
+		public void completed(Message<HttpResponse, byte[]> message) {
+			timer.markCompleted();
+			endpoint.releaseAndReuse();
+			this.message.complete(message);
+		}
+
+		@Override
+		public void failed(Exception ex) {
+			endpoint.releaseAndDiscard();
+			recordError(ex, true);
+			message.completeExceptionally(ex);
+		}
+
+		@Override
+		public void cancelled() {
+			endpoint.releaseAndDiscard();
+			message.cancel(false);
+		}
+
+		/**
+		 * Process the cookies and the statistics of the received message.
+		 */
+		private HTTPResponse toResponse(Message<HttpResponse, byte[]> message) {
+			processResponseCookies(cookieStore, template.getCookieOrigin(), message.getHead().headerIterator("Set-Cookie"));
+
+			if (aggregate(statisticsForTest, message, timer, entityConsumer.getLength(),
+				consumer.getTimeToFirstByte())) {
+				final int testNumber = statisticsForTest.getTest().getNumber();
+				ExtendedStatisticsCollector.INSTANCE.recordHTTPPhases(testNumber,
+					timer.getPhases(producer.getRequestTime(), consumer.getFirstByteTime(), template.isSecure()));
+				ExtendedStatisticsCollector.INSTANCE.recordStatusCode(testNumber, message.getHead().getCode());
+			}
+			summarize(template.getUri(), message, entityConsumer.getLength());
+
+			return HTTPResponse.of(message, entityConsumer.getLength(), entityConsumer.getDigest());
+		}
+
+		private void recordError(Exception ex, boolean connected) {
+			if (statisticsForTest != null) {
+				ExtendedStatisticsCollector.INSTANCE.recordError(statisticsForTest.getTest().getNumber(),
+					HTTPErrorType.of(ex, connected));
+			}
+		}
+	}
 }
@@ -23,6 +23,11 @@ package org.ngrinder.http;
 public class HTTPRequestControl {
 	private static long connectionTimeout;
 	private static long socketTimeout;
+	private static int ioThreadCount;
+	private static int maxIdlePerRoute = 16;
+	private static long idleTimeout;
+	private static long connectionTTL;
+	private static boolean tlsSessionResumption = true;
 
 	public static long getConnectionTimeout() {
 		return connectionTimeout;
@@ -45,4 +50,83 @@ public class HTTPRequestControl {
 	public static void setSocketTimeout(long socketTimeout) {
 		HTTPRequestControl.socketTimeout = socketTimeout;
 	}
+
+	public static int getIoThreadCount() {
+		return ioThreadCount;
+	}
+
+	/**
+	 * Set the number of IO reactor threads shared by every HTTPRequest in this process.
+	 * It takes effect only if it's called before the first request is made.
+	 */
+	public static void setIoThreadCount(int ioThreadCount) {
+		HTTPRequestControl.ioThreadCount = ioThreadCount;
+	}
+
+	public static int getMaxIdlePerRoute() {
+		return maxIdlePerRoute;
+	}
+
+	/**
+	 * Set the maximum number of kept alive connections per route and per vuser.
+	 */
+	public static void setMaxIdlePerRoute(int maxIdlePerRoute) {
+		HTTPRequestControl.maxIdlePerRoute = maxIdlePerRoute;
+	}
+
+	public static long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Set the time a kept alive connection can stay idle before it's evicted. 0 means no limit.
+	 */
+	public static void setIdleTimeout(long idleTimeout) {
+		HTTPRequestControl.idleTimeout = idleTimeout;
+	}
+
+	public static long getConnectionTTL() {
+		return connectionTTL;
+	}
+
+	/**
+	 * Set the total time to live of a connection from its creation. 0 means no limit.
+	 */
+	public static void setConnectionTTL(long connectionTTL) {
+		HTTPRequestControl.connectionTTL = connectionTTL;
+	}
+
+	public static boolean isTlsSessionResumption() {
+		return tlsSessionResumption;
+	}
+
+	/**
+	 * Set whether HTTPRequests created afterwards resume cached TLS sessions by default.
+	 * Each of them can change it with {@link HTTPRequest#setTlsSessionResumption(boolean)}.
+	 */
+	public static void setTlsSessionResumption(boolean tlsSessionResumption) {
+		HTTPRequestControl.tlsSessionResumption = tlsSessionResumption;
+	}
+
+	public static int getTlsSessionCacheSize() {
+		return HTTPRequester.getSSLContext().getClientSessionContext().getSessionCacheSize();
+	}
+
+	/**
+	 * Set the number of TLS sessions cached by this process. 0 means no limit.
+	 */
+	public static void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+		HTTPRequester.getSSLContext().getClientSessionContext().setSessionCacheSize(tlsSessionCacheSize);
+	}
+
+	public static int getTlsSessionTimeout() {
+		return HTTPRequester.getSSLContext().getClientSessionContext().getSessionTimeout();
+	}
+
+	/**
+	 * Set the time in seconds a cached TLS session can be resumed. 0 means no limit.
+	 */
+	public static void setTlsSessionTimeout(int tlsSessionTimeout) {
+		HTTPRequester.getSSLContext().getClientSessionContext().setSessionTimeout(tlsSessionTimeout);
+	}
 }
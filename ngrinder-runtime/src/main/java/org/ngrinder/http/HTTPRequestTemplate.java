@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.client5.http.cookie.CookieOrigin;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.ngrinder.http.cookie.ThreadContextCookieStore;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static org.ngrinder.http.util.ContentTypeUtils.getContentType;
+import static org.ngrinder.http.util.PairListConvertUtils.convert;
+
+/**
+ * Immutable request template created by {@link HTTPRequest#prepare(String, String, List)}.
+ * The URI, target host, cookie origin, headers and content type are resolved once,
+ * so only the parameters or the body are bound on each call.
+ * The requester and the body settings of the {@link HTTPRequest} are taken when the template is created,
+ * so changing the request afterwards doesn't affect it. Cookies and statistics belong to the calling vuser,
+ * so a template can be shared by all the vusers of a process.
+ *
+ * <pre>
+ * GET_ITEM = request.prepare("GET", "http://example.com/items")
+ * ...
+ * HTTPResponse response = GET_ITEM.execute(["id": "1"])
+ * </pre>
+ */
+public class HTTPRequestTemplate {
+
+	private final HTTPRequest request;
+	private final String method;
+	private final String uri;
+	private final URI parsedUri;
+	private final HttpHost httpHost;
+	private final String cookieHost;
+	private final int cookiePort;
+	private final String cookiePath;
+	private final boolean secure;
+	private final CookieOrigin cookieOrigin;
+	private final List<Header> headers;
+	private final ContentType contentType;
+	private final HTTPRequester requester;
+	private final int keptBodyBytes;
+	private final String bodyDigestAlgorithm;
+
+	HTTPRequestTemplate(HTTPRequest request, String method, String uri, List<Header> headers) {
+		this.request = request;
+		this.requester = request.getRequester();
+		this.keptBodyBytes = request.isBodyDiscarded() ? request.getKeptBodyBytes() : -1;
+		this.bodyDigestAlgorithm = request.getBodyDigestAlgorithm();
+		this.method = method;
+		this.uri = uri;
+		this.parsedUri = URI.create(uri);
+		this.httpHost = HttpHost.create(parsedUri);
+		this.secure = parsedUri.getScheme().equalsIgnoreCase("https");
+		this.cookieHost = parsedUri.getHost();
+		this.cookiePort = parsedUri.getPort() == -1 ? (secure ? 443 : 80) : parsedUri.getPort();
+		this.cookiePath = parsedUri.getPath() == null || parsedUri.getPath().isEmpty() ? "/" : parsedUri.getPath();
+		this.cookieOrigin = new CookieOrigin(cookieHost, cookiePort, cookiePath, secure);
+		this.headers = unmodifiableList(new ArrayList<>(headers));
+		this.contentType = getContentType(this.headers);
+	}
+
+	public HTTPResponse execute() {
+		return execute(emptyList());
+	}
+
+	public HTTPResponse execute(Map<String, String> params) {
+		return execute(convert(params, BasicNameValuePair::new));
+	}
+
+	public HTTPResponse execute(List<NameValuePair> params) {
+		return request.doRequest(this, createRequest(params));
+	}
+
+	public HTTPResponse execute(byte[] content) {
+		return request.doRequest(this, createRequest(content));
+	}
+
+	public HTTPResponse execute(AsyncEntityProducer asyncEntityProducer) {
+		return request.doRequest(this, createRequest(asyncEntityProducer));
+	}
+
+	/**
+	 * Send the request without blocking the vuser thread.
+	 *
+	 * @see HTTPRequest#GETAsync(String)
+	 */
+	public CompletableFuture<HTTPResponse> executeAsync() {
+		return executeAsync(emptyList());
+	}
+
+	public CompletableFuture<HTTPResponse> executeAsync(Map<String, String> params) {
+		return executeAsync(convert(params, BasicNameValuePair::new));
+	}
+
+	public CompletableFuture<HTTPResponse> executeAsync(List<NameValuePair> params) {
+		return request.doRequestAsync(this, createRequest(params));
+	}
+
+	public CompletableFuture<HTTPResponse> executeAsync(byte[] content) {
+		return request.doRequestAsync(this, createRequest(content));
+	}
+
+	AsyncRequestProducer createRequest(List<NameValuePair> params) {
+		AsyncRequestBuilder builder = createBuilder();
+		params.forEach(builder::addParameter);
+
+		return builder.build();
+	}
+
+	AsyncRequestProducer createRequest(byte[] content) {
+		AsyncRequestBuilder builder = createBuilder();
+		builder.setEntity(content, contentType);
+
+		return builder.build();
+	}
+
+	AsyncRequestProducer createRequest(AsyncEntityProducer asyncEntityProducer) {
+		AsyncRequestBuilder builder = createBuilder();
+		builder.setEntity(asyncEntityProducer);
+
+		return builder.build();
+	}
+
+	private AsyncRequestBuilder createBuilder() {
+		AsyncRequestBuilder builder = AsyncRequestBuilder
+			.create(method)
+			.setUri(parsedUri);
+
+		headers.forEach(builder::addHeader);
+		ThreadContextCookieStore.INSTANCE
+			.getCookieHeaders(cookieHost, cookiePort, cookiePath, secure)
+			.forEach(builder::addHeader);
+
+		return builder;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getUri() {
+		return uri;
+	}
+
+	public List<Header> getHeaders() {
+		return headers;
+	}
+
+	public ContentType getContentType() {
+		return contentType;
+	}
+
+	HttpHost getHttpHost() {
+		return httpHost;
+	}
+
+	HTTPRequester getRequester() {
+		return requester;
+	}
+
+	/**
+	 * Get the bytes of the response body which are kept, or -1 if the whole body is kept.
+	 */
+	int getKeptBodyBytes() {
+		return keptBodyBytes;
+	}
+
+	String getBodyDigestAlgorithm() {
+		return bodyDigestAlgorithm;
+	}
+
+	CookieOrigin getCookieOrigin() {
+		return cookieOrigin;
+	}
+
+	boolean isSecure() {
+		return secure;
+	}
+}
@@ -22,8 +22,7 @@ package org.ngrinder.http;
 
 import net.grinder.common.GrinderProperties;
 import net.grinder.script.Grinder;
-import net.grinder.util.Pair;
-import org.apache.commons.lang.time.StopWatch;
+import org.apache.hc.core5.concurrent.BasicFuture;
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.function.Decorator;
@@ -36,6 +35,7 @@ import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
 import org.apache.hc.core5.http.impl.nio.ClientHttp1StreamDuplexerFactory;
 import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
 import org.apache.hc.core5.http.nio.AsyncPushConsumer;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
 import org.apache.hc.core5.http.protocol.RequestHandlerRegistry;
 import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.apache.hc.core5.http2.config.H2Config;
@@ -44,24 +44,44 @@ import org.apache.hc.core5.http2.impl.nio.ClientH2StreamMultiplexerFactory;
 import org.apache.hc.core5.http2.impl.nio.ClientHttpProtocolNegotiatorFactory;
 import org.apache.hc.core5.http2.nio.support.DefaultAsyncPushConsumerFactory;
 import org.apache.hc.core5.http2.ssl.H2ClientTlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.reactor.IOEventHandlerFactory;
 import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.reactor.IOSession;
 import org.apache.hc.core5.reactor.IOSessionListener;
 import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 
 public class HTTPRequester extends HttpAsyncRequester {
+	private static final Logger LOGGER = LoggerFactory.getLogger(HTTPRequester.class);
+
 	private static final ThreadAwareConnPool<HttpHost, IOSession> connPool = new ThreadAwareConnPool<>();
 
-	private HttpVersionPolicy versionPolicy;
+	/**
+	 * SSLContext shared by every requester, so that TLS sessions can be resumed across HTTPRequest instances.
+	 */
+	private static final SSLContext sslContext = createSSLContext();
+
+	/**
+	 * Requesters shared by every HTTPRequest in this process, keyed by version policy, read bytes
+	 * and TLS session resumption.
+	 */
+	private static final ConcurrentMap<List<Object>, HTTPRequester> requesters = new ConcurrentHashMap<>();
+
+	private final HttpVersionPolicy versionPolicy;
 
 	public HTTPRequester(IOReactorConfig ioReactorConfig,
 						 IOEventHandlerFactory ioEventHandlerFactory,
@@ -77,23 +97,110 @@ public class HTTPRequester extends HttpAsyncRequester {
 		connPool.clear();
 	}
 
+	public static SSLContext getSSLContext() {
+		return sslContext;
+	}
+
+	private static SSLContext createSSLContext() {
+		try {
+			SSLContext context = SSLContext.getInstance("SSL");
+			context.init(null, new TrustManager[]{new TrustAllManager()}, new SecureRandom());
+			return context;
+		} catch (GeneralSecurityException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public static ConnPoolStats getPoolStats() {
+		return connPool.getPoolStats();
+	}
+
+	/**
+	 * Check whether the last connection of the current vuser was taken from the keep-alive pool.
+	 */
+	public static boolean isLastConnectionReused() {
+		return connPool.isLastLeaseReused();
+	}
+
+	/**
+	 * Get the process wide requester for the given version policy, read bytes and TLS session resumption.
+	 * The requester is built and started on the first call and reused afterwards.
+	 */
+	public static HTTPRequester getRequester(HttpVersionPolicy versionPolicy, long readBytes,
+											 boolean tlsSessionResumption) {
+		return requesters.computeIfAbsent(Arrays.asList(versionPolicy, readBytes, tlsSessionResumption),
+			key -> new Builder()
+				.setVersionPolicy(versionPolicy)
+				.setReadBytes(readBytes)
+				.setTlsSessionResumption(tlsSessionResumption)
+				.build());
+	}
+
+	/**
+	 * Close every shared requester and its IO reactor. It's called when the worker process finishes.
+	 */
+	public static void shutdownAll() {
+		LOGGER.info("HTTP connection pool statistics: {}", getPoolStats());
+		requesters.values().forEach(requester -> requester.close(CloseMode.GRACEFUL));
+		requesters.clear();
+		FileChannelEntityProducer.clear();
+	}
+
 	@Override
 	protected Future<AsyncClientEndpoint> doConnect(HttpHost host, Timeout timeout, Object attachment, FutureCallback<AsyncClientEndpoint> callback) {
 		return super.doConnect(host, timeout, attachment != null ? attachment : versionPolicy, callback);
 	}
 
-	public void setVersionPolicy(HttpVersionPolicy versionPolicy) {
-		this.versionPolicy = versionPolicy;
+	/**
+	 * Resolve the host in the calling thread before requesting a new session,
+	 * so that DNS and TCP connect time of the exchange can be told apart.
+	 * A host which can't be resolved fails the session with an {@link UnknownHostException}.
+	 */
+	@Override
+	public Future<IOSession> requestSession(HttpHost host, Timeout timeout, Object attachment, FutureCallback<IOSession> callback) {
+		final ExchangeTimer timer = ExchangeTimer.connecting();
+		if (timer != null) {
+			timer.markLeased();
+		}
+
+		final InetSocketAddress remoteAddress = resolve(host);
+
+		if (timer != null) {
+			timer.markResolved();
+		}
+		if (remoteAddress.isUnresolved()) {
+			final BasicFuture<IOSession> future = new BasicFuture<>(callback);
+			future.failed(new UnknownHostException(host.getHostName()));
+			return future;
+		}
+		return connect(host, remoteAddress, null, timeout, attachment, callback);
+	}
+
+	private static InetSocketAddress resolve(HttpHost host) {
+		int port = host.getPort();
+		if (port < 0) {
+			port = "https".equalsIgnoreCase(host.getSchemeName()) ? 443 : 80;
+		}
+		if (host.getAddress() != null) {
+			return new InetSocketAddress(host.getAddress(), port);
+		}
+		return new InetSocketAddress(host.getHostName(), port);
+	}
+
+	public HttpVersionPolicy getVersionPolicy() {
+		return versionPolicy;
 	}
 
 	public static class Builder {
 
 		private HttpVersionPolicy versionPolicy;
 		private long readBytes;
+		private boolean tlsSessionResumption;
 
 		Builder() {
 			this.versionPolicy = HttpVersionPolicy.NEGOTIATE;
 			this.readBytes = -1;
+			this.tlsSessionResumption = true;
 		}
 
 		public Builder setReadBytes(long readBytes) {
@@ -106,21 +213,44 @@ public class HTTPRequester extends HttpAsyncRequester {
 			return this;
 		}
 
-		private IOReactorConfig ioReactorConfig() {
-			GrinderProperties properties = Grinder.grinder.getProperties();
-			int totalThreadCount = 1;
-			if (properties != null) {
-				totalThreadCount = properties.getInt("grinder.threads", 1);
-			}
-
-			int ioThreadCount = totalThreadCount / 100 + 1;
+		public Builder setTlsSessionResumption(boolean tlsSessionResumption) {
+			this.tlsSessionResumption = tlsSessionResumption;
+			return this;
+		}
 
+		private IOReactorConfig ioReactorConfig() {
 			return IOReactorConfig.custom()
-				.setIoThreadCount(ioThreadCount)
+				.setIoThreadCount(ioThreadCount())
 				.setSoTimeout(Timeout.ofMilliseconds(HTTPRequestControl.getSocketTimeout()))
 				.build();
 		}
 
+		/**
+		 * IO thread count is taken from {@link HTTPRequestControl#setIoThreadCount(int)} first,
+		 * then from grinder.http.ioThreads property. Otherwise, one thread per 100 vusers is used,
+		 * but not more than the processors if the vusers run on virtual threads.
+		 */
+		private int ioThreadCount() {
+			if (HTTPRequestControl.getIoThreadCount() > 0) {
+				return HTTPRequestControl.getIoThreadCount();
+			}
+
+			GrinderProperties properties = Grinder.grinder.getProperties();
+			if (properties == null) {
+				return 1;
+			}
+
+			int ioThreadCount = properties.getInt("grinder.http.ioThreads", 0);
+			if (ioThreadCount > 0) {
+				return ioThreadCount;
+			}
+			ioThreadCount = properties.getInt("grinder.threads", 1) / 100 + 1;
+			if (properties.getBoolean("grinder.virtualThreads", false)) {
+				return Math.min(ioThreadCount, Runtime.getRuntime().availableProcessors());
+			}
+			return ioThreadCount;
+		}
+
 		private IOEventHandlerFactory ioEventHandlerFactory() {
 			final RequestHandlerRegistry<Supplier<AsyncPushConsumer>> registry = new RequestHandlerRegistry<>();
 			final ClientHttp1StreamDuplexerFactory http1StreamHandlerFactory = new ClientHttp1StreamDuplexerFactory(
@@ -139,88 +269,21 @@ public class HTTPRequester extends HttpAsyncRequester {
 				H2Config.DEFAULT,
 				CharCodingConfig.DEFAULT,
 				null);
-			final SSLContext sslContext;
-			try {
-				sslContext = SSLContext.getInstance("SSL");
-				sslContext.init(null, new TrustManager[]{new TrustAllManager()}, new SecureRandom());
-			} catch (GeneralSecurityException e) {
-				throw new RuntimeException(e);
-			}
 			return new ClientHttpProtocolNegotiatorFactory(
 				http1StreamHandlerFactory,
 				http2StreamHandlerFactory,
 				null,
-				new H2ClientTlsStrategy(sslContext),
+				tlsStrategy(),
 				null);
 		}
 
-		private IOSessionListener ioSessionListener() {
-			return new IOSessionListener() {
-				private final Map<IOSession, Pair<StopWatch, Boolean>> stopWatchAndTlsFlagMap = new HashMap<>();
-
-				@Override
-				public void connected(IOSession session) {
-					Pair<StopWatch, Boolean> stopWatchAndTlsFlag = stopWatchAndTlsFlagMap.get(session);
-					if (stopWatchAndTlsFlag == null) {
-						stopWatchAndTlsFlag = Pair.of(new StopWatch(), false);
-						stopWatchAndTlsFlag.getFirst().start();
-					} else {
-						stopWatchAndTlsFlag = Pair.of(stopWatchAndTlsFlag.getFirst(), false);
-					}
-
-					stopWatchAndTlsFlagMap.put(session, stopWatchAndTlsFlag);
-				}
-
-				@Override
-				public void startTls(IOSession session) {
-					Pair<StopWatch, Boolean> stopWatchAndTlsFlag = Pair.of(new StopWatch(), true);
-					stopWatchAndTlsFlag.getFirst().start();
-
-					stopWatchAndTlsFlagMap.put(session, stopWatchAndTlsFlag);
-				}
-
-				@Override
-				public void inputReady(IOSession session) {
-					Pair<StopWatch, Boolean> stopWatchAndTlsFlag = stopWatchAndTlsFlagMap.get(session);
-					if (stopWatchAndTlsFlag == null) {
-						return;
-					}
-
-					StopWatch stopWatch = stopWatchAndTlsFlag.getFirst();
-					boolean isTlsEvent = stopWatchAndTlsFlag.getSecond();
-
-					if (isTlsEvent) {
-						return;
-					}
-
-					stopWatch.stop();
-					long timeToFirstByte = stopWatch.getTime();
-					stopWatch.reset();
-
-					TimeToFirstByteHolder.accumulate(timeToFirstByte);
-					stopWatchAndTlsFlagMap.remove(session);
-				}
-
-				@Override
-				public void outputReady(IOSession session) {
-
-				}
-
-				@Override
-				public void timeout(IOSession session) {
-
-				}
-
-				@Override
-				public void exception(IOSession session, Exception ex) {
-
-				}
-
-				@Override
-				public void disconnected(IOSession session) {
-
-				}
-			};
+		/**
+		 * A requester without session resumption gets its own SSLContext, so that it can't resume
+		 * the sessions cached by the other requesters.
+		 */
+		private TlsStrategy tlsStrategy() {
+			final SSLContext context = tlsSessionResumption ? sslContext : createSSLContext();
+			return new ResumptionAwareTlsStrategy(new H2ClientTlsStrategy(context), tlsSessionResumption);
 		}
 
 		public HTTPRequester build() {
@@ -229,7 +292,7 @@ public class HTTPRequester extends HttpAsyncRequester {
 				ioEventHandlerFactory(),
 				null,
 				null,
-				ioSessionListener(),
+				null,
 				versionPolicy);
 			requester.start();
 			return requester;
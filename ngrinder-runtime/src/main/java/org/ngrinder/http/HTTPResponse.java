@@ -35,16 +35,34 @@ public class HTTPResponse {
 	private static final byte[] EMPTY_BODY = new byte[0];
 
 	private final Message<HttpResponse, byte[]> message;
+	private final long bodyLength;
+	private final byte[] bodyDigest;
 	private String bodyText = "";
 
-	HTTPResponse(Message<HttpResponse, byte[]> message) {
+	HTTPResponse(Message<HttpResponse, byte[]> message, long bodyLength, byte[] bodyDigest) {
 		this.message = message;
+		this.bodyLength = bodyLength;
+		this.bodyDigest = bodyDigest;
 	}
 
 	public byte[] getBodyBytes() {
 		return message.getBody() == null ? EMPTY_BODY : message.getBody();
 	}
 
+	/**
+	 * Get the length of the whole response body, even if the body was discarded.
+	 */
+	public long getBodyLength() {
+		return bodyLength;
+	}
+
+	/**
+	 * Get the digest of the whole response body or null if no digest algorithm is set.
+	 */
+	public byte[] getBodyDigest() {
+		return bodyDigest;
+	}
+
 	public String getBodyText() {
 		return getBodyText(Charset.defaultCharset());
 	}
@@ -81,7 +99,11 @@ public class HTTPResponse {
 	}
 
 	public static HTTPResponse of(Message<HttpResponse, byte[]> message) {
-		return new HTTPResponse(message);
+		return new HTTPResponse(message, message.getBody() == null ? 0 : message.getBody().length, null);
+	}
+
+	public static HTTPResponse of(Message<HttpResponse, byte[]> message, long bodyLength, byte[] bodyDigest) {
+		return new HTTPResponse(message, bodyLength, bodyDigest);
 	}
 
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ssl.SSLBufferMode;
+import org.apache.hc.core5.reactor.ssl.SSLSessionInitializer;
+import org.apache.hc.core5.reactor.ssl.SSLSessionVerifier;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.Timeout;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+
+import javax.net.ssl.SSLContext;
+import java.net.SocketAddress;
+
+/**
+ * This TlsStrategy implementation decorates the given one to control and count TLS session resumption.
+ * <p>
+ * If session resumption is disabled, the session of each connection is invalidated right after its handshake,
+ * so that no other connection can resume it and every new connection does a full handshake. The connection
+ * keeps using its session until it's closed. It should be given its own SSLContext then, since the sessions
+ * created by other strategies can still be resumed.
+ * A handshake is counted as resumed when its session was created before the handshake began.
+ */
+public class ResumptionAwareTlsStrategy implements TlsStrategy {
+
+	private final TlsStrategy delegate;
+
+	private final boolean sessionResumption;
+
+	public ResumptionAwareTlsStrategy(TlsStrategy delegate, boolean sessionResumption) {
+		this.delegate = delegate;
+		this.sessionResumption = sessionResumption;
+	}
+
+	@Override
+	public boolean upgrade(TransportSecurityLayer sessionLayer, HttpHost host, SocketAddress localAddress,
+						   SocketAddress remoteAddress, Object attachment, Timeout handshakeTimeout) {
+		return delegate.upgrade(new TransportSecurityLayer() {
+			@Override
+			public void startTls(SSLContext sslContext, NamedEndpoint endpoint, SSLBufferMode sslBufferMode,
+								 SSLSessionInitializer initializer, SSLSessionVerifier verifier, Timeout timeout) {
+				final long[] handshakeStartTime = new long[1];
+				sessionLayer.startTls(sslContext, endpoint, sslBufferMode, (namedEndpoint, sslEngine) -> {
+					handshakeStartTime[0] = System.currentTimeMillis();
+					if (initializer != null) {
+						initializer.initialize(namedEndpoint, sslEngine);
+					}
+				}, (namedEndpoint, sslEngine) -> {
+					final TlsDetails tlsDetails = verifier != null ? verifier.verify(namedEndpoint, sslEngine) : null;
+					final boolean resumed = sslEngine.getSession().getCreationTime() < handshakeStartTime[0];
+					ExtendedStatisticsCollector.INSTANCE.recordTlsHandshake(resumed);
+					if (!sessionResumption) {
+						sslEngine.getSession().invalidate();
+					}
+					return tlsDetails;
+				}, timeout);
+			}
+
+			@Override
+			public TlsDetails getTlsDetails() {
+				return sessionLayer.getTlsDetails();
+			}
+		}, host, localAddress, remoteAddress, attachment, handshakeTimeout);
+	}
+}
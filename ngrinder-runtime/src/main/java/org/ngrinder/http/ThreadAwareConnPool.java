@@ -26,30 +26,49 @@ import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.io.ModalCloseable;
 import org.apache.hc.core5.pool.ManagedConnPool;
 import org.apache.hc.core5.pool.PoolEntry;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
-import java.util.stream.Stream;
+import java.util.function.Predicate;
 
 import static net.grinder.util.NoOp.noOp;
 
+/**
+ * Connection pool which keeps connections per vuser thread.
+ * Available connections are indexed by route, bounded by {@link HTTPRequestControl#getMaxIdlePerRoute()}
+ * and evicted when they exceed the idle timeout or the time to live.
+ * A connection goes back to the vuser which leased it, even if it's released from an IO thread.
+ */
 public class ThreadAwareConnPool<T, C extends ModalCloseable> extends EmptyConnPoolControl<T, C> implements ManagedConnPool<T, C> {
 
-	private final ThreadLocal<Set<PoolEntry<T, C>>> leased = ThreadLocal.withInitial(HashSet::new);
-	private final ThreadLocal<LinkedList<PoolEntry<T, C>>> available = ThreadLocal.withInitial(LinkedList::new);
+	private final ThreadLocal<LocalPool> localPool = ThreadLocal.withInitial(LocalPool::new);
+
+	private final ConcurrentMap<PoolEntry<T, C>, LocalPool> owners = new ConcurrentHashMap<>();
+
+	private final ConnPoolStats stats = new ConnPoolStats();
 
 	@Override
 	public Future<PoolEntry<T, C>> lease(T route, Object state, Timeout requestTimeout, FutureCallback<PoolEntry<T, C>> callback) {
-		PoolEntry<T, C> poolEntry = this.getAvailable()
-			.stream()
-			.filter(entry -> entry.getRoute().equals(route))
-			.findAny()
-			.orElseGet(() -> new PoolEntry<>(route, Timeout.DISABLED));
-		this.getLeased().add(poolEntry);
+		LocalPool pool = localPool.get();
+		PoolEntry<T, C> poolEntry;
+		synchronized (pool) {
+			poolEntry = pool.pollAvailable(route);
+			pool.lastLeaseReused = poolEntry != null;
+			if (poolEntry != null) {
+				stats.hit();
+			} else {
+				stats.miss();
+				poolEntry = new PoolEntry<>(route, TimeValue.ofMilliseconds(HTTPRequestControl.getConnectionTTL()));
+			}
+			pool.leased.add(poolEntry);
+		}
+		owners.put(poolEntry, pool);
 
 		BasicFuture<PoolEntry<T, C>> future = new BasicFuture<>(callback);
 		future.completed(poolEntry);
@@ -62,24 +81,93 @@ public class ThreadAwareConnPool<T, C extends ModalCloseable> extends EmptyConnP
 			return;
 		}
 
-		if (this.getLeased().remove(entry)) {
-			final boolean keepAlive = entry.hasConnection() && reusable;
-			if (keepAlive) {
-				this.getAvailable().addFirst(entry);
-			} else {
-				entry.discardConnection(CloseMode.IMMEDIATE);
+		LocalPool pool = owners.remove(entry);
+		if (pool == null) {
+			return;
+		}
+
+		synchronized (pool) {
+			if (pool.leased.remove(entry)) {
+				final boolean keepAlive = entry.hasConnection() && reusable;
+				if (keepAlive) {
+					entry.updateExpiry(TimeValue.ofMilliseconds(HTTPRequestControl.getIdleTimeout()));
+					pool.addAvailable(entry);
+				} else {
+					entry.discardConnection(CloseMode.IMMEDIATE);
+				}
 			}
 		}
 	}
 
+	/**
+	 * Check whether the last lease of the current thread reused a kept alive connection.
+	 */
+	public boolean isLastLeaseReused() {
+		return localPool.get().lastLeaseReused;
+	}
+
+	public ConnPoolStats getPoolStats() {
+		return stats;
+	}
+
 	public void clear() {
-		Stream<PoolEntry<T, C>> entryStream = Stream.concat(
-			this.getLeased().stream(),
-			this.getAvailable().stream()
-		);
-		entryStream.forEach(entry -> entry.discardConnection(CloseMode.IMMEDIATE));
-		this.getLeased().clear();
-		this.getAvailable().clear();
+		LocalPool pool = localPool.get();
+		synchronized (pool) {
+			pool.leased.forEach(entry -> {
+				owners.remove(entry);
+				entry.discardConnection(CloseMode.IMMEDIATE);
+			});
+			pool.leased.clear();
+			pool.available.values().forEach(entries -> entries.forEach(entry -> entry.discardConnection(CloseMode.IMMEDIATE)));
+			pool.available.clear();
+		}
+	}
+
+	@Override
+	public void closeIdle(TimeValue idleTime) {
+		final long deadline = System.currentTimeMillis() - (TimeValue.isPositive(idleTime) ? idleTime.toMilliseconds() : 0);
+		LocalPool pool = localPool.get();
+		synchronized (pool) {
+			pool.evictIf(entry -> entry.getUpdated() <= deadline);
+		}
+	}
+
+	@Override
+	public void closeExpired() {
+		LocalPool pool = localPool.get();
+		synchronized (pool) {
+			pool.evictIf(entry -> entry.getExpiryDeadline().isExpired());
+		}
+	}
+
+	@Override
+	public Set<T> getRoutes() {
+		return new HashSet<>(localPool.get().available.keySet());
+	}
+
+	@Override
+	public PoolStats getTotalStats() {
+		LocalPool pool = localPool.get();
+		int available = pool.available.values().stream().mapToInt(LinkedList::size).sum();
+		return new PoolStats(pool.leased.size(), 0, available, 0);
+	}
+
+	@Override
+	public PoolStats getStats(T route) {
+		LocalPool pool = localPool.get();
+		int leased = (int) pool.leased.stream().filter(entry -> entry.getRoute().equals(route)).count();
+		LinkedList<PoolEntry<T, C>> entries = pool.available.get(route);
+		return new PoolStats(leased, 0, entries == null ? 0 : entries.size(), HTTPRequestControl.getMaxIdlePerRoute());
+	}
+
+	@Override
+	public int getDefaultMaxPerRoute() {
+		return HTTPRequestControl.getMaxIdlePerRoute();
+	}
+
+	@Override
+	public int getMaxPerRoute(T route) {
+		return HTTPRequestControl.getMaxIdlePerRoute();
 	}
 
 	@Override
@@ -93,10 +181,67 @@ public class ThreadAwareConnPool<T, C extends ModalCloseable> extends EmptyConnP
 	}
 
 	public Set<PoolEntry<T, C>> getLeased() {
-		return leased.get();
+		return localPool.get().leased;
+	}
+
+	public Map<T, LinkedList<PoolEntry<T, C>>> getAvailable() {
+		return localPool.get().available;
 	}
 
-	public LinkedList<PoolEntry<T, C>> getAvailable() {
-		return available.get();
+	/**
+	 * Connections owned by a single vuser thread. It's guarded by its own monitor,
+	 * which is contended only while asynchronous requests of the vuser are in flight.
+	 */
+	private class LocalPool {
+		private final Set<PoolEntry<T, C>> leased = new HashSet<>();
+		private final Map<T, LinkedList<PoolEntry<T, C>>> available = new HashMap<>();
+		private boolean lastLeaseReused;
+
+		private PoolEntry<T, C> pollAvailable(T route) {
+			LinkedList<PoolEntry<T, C>> entries = available.get(route);
+			if (entries == null) {
+				return null;
+			}
+
+			PoolEntry<T, C> entry;
+			while ((entry = entries.pollFirst()) != null) {
+				if (entry.hasConnection() && !entry.getExpiryDeadline().isExpired()) {
+					return entry;
+				}
+				evict(entry);
+			}
+			available.remove(route);
+			return null;
+		}
+
+		private void addAvailable(PoolEntry<T, C> entry) {
+			LinkedList<PoolEntry<T, C>> entries = available.computeIfAbsent(entry.getRoute(), key -> new LinkedList<>());
+			entries.addFirst(entry);
+			while (entries.size() > Math.max(HTTPRequestControl.getMaxIdlePerRoute(), 1)) {
+				evict(entries.pollLast());
+			}
+		}
+
+		private void evictIf(Predicate<PoolEntry<T, C>> predicate) {
+			Iterator<LinkedList<PoolEntry<T, C>>> routes = available.values().iterator();
+			while (routes.hasNext()) {
+				LinkedList<PoolEntry<T, C>> entries = routes.next();
+				entries.removeIf(entry -> {
+					if (predicate.test(entry)) {
+						evict(entry);
+						return true;
+					}
+					return false;
+				});
+				if (entries.isEmpty()) {
+					routes.remove();
+				}
+			}
+		}
+
+		private void evict(PoolEntry<T, C> entry) {
+			entry.discardConnection(CloseMode.GRACEFUL);
+			stats.evicted();
+		}
 	}
 }
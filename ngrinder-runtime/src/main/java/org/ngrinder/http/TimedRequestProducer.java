@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.RequestChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * This AsyncRequestProducer implementation delegates all the actions
+ * and records when the request begins to be sent.
+ * A request is sent only after the TLS handshake of its connection is done.
+ */
+public class TimedRequestProducer implements AsyncRequestProducer {
+
+	private final AsyncRequestProducer delegate;
+
+	private volatile long requestTime;
+
+	public TimedRequestProducer(AsyncRequestProducer delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void sendRequest(RequestChannel channel, HttpContext context) throws HttpException, IOException {
+		requestTime = System.nanoTime();
+		delegate.sendRequest(channel, context);
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return delegate.isRepeatable();
+	}
+
+	@Override
+	public void failed(Exception cause) {
+		delegate.failed(cause);
+	}
+
+	@Override
+	public int available() {
+		return delegate.available();
+	}
+
+	@Override
+	public void produce(DataStreamChannel channel) throws IOException {
+		delegate.produce(channel);
+	}
+
+	@Override
+	public void releaseResources() {
+		delegate.releaseResources();
+	}
+
+	/**
+	 * Get the {@link System#nanoTime()} when the request began to be sent.
+	 *
+	 * @return time or 0 if the request is not sent yet
+	 */
+	public long getRequestTime() {
+		return requestTime;
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * This AsyncResponseConsumer implementation delegates all the actions
+ * and records when the first byte of the response arrives.
+ * Timings belong to a single exchange, so they are never mixed up with other vusers.
+ */
+public class TimedResponseConsumer<T> implements AsyncResponseConsumer<T> {
+
+	private final AsyncResponseConsumer<T> delegate;
+
+	private volatile long startTime;
+	private volatile long firstByteTime;
+
+	public TimedResponseConsumer(AsyncResponseConsumer<T> delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Mark the time when the request is submitted.
+	 */
+	public void start() {
+		startTime = System.nanoTime();
+		firstByteTime = 0;
+	}
+
+	@Override
+	public void informationResponse(HttpResponse response, HttpContext context) throws HttpException, IOException {
+		markFirstByte();
+		delegate.informationResponse(response, context);
+	}
+
+	@Override
+	public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+								FutureCallback<T> resultCallback) throws HttpException, IOException {
+		markFirstByte();
+		delegate.consumeResponse(response, entityDetails, context, resultCallback);
+	}
+
+	@Override
+	public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+		delegate.updateCapacity(capacityChannel);
+	}
+
+	@Override
+	public void consume(ByteBuffer src) throws IOException {
+		delegate.consume(src);
+	}
+
+	@Override
+	public void streamEnd(List<? extends Header> trailers) throws HttpException, IOException {
+		delegate.streamEnd(trailers);
+	}
+
+	@Override
+	public void failed(Exception cause) {
+		delegate.failed(cause);
+	}
+
+	@Override
+	public void releaseResources() {
+		delegate.releaseResources();
+	}
+
+	private void markFirstByte() {
+		if (firstByteTime == 0) {
+			firstByteTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Get the time in milliseconds from {@link #start()} to the first byte of the response.
+	 *
+	 * @return time to first byte or 0 if no response has arrived yet
+	 */
+	public long getTimeToFirstByte() {
+		if (firstByteTime == 0) {
+			return 0;
+		}
+		return NANOSECONDS.toMillis(firstByteTime - startTime);
+	}
+
+	/**
+	 * Get the {@link System#nanoTime()} when the first byte of the response arrived.
+	 *
+	 * @return time or 0 if no response has arrived yet
+	 */
+	public long getFirstByteTime() {
+		return firstByteTime;
+	}
+}
@@ -0,0 +1,166 @@
+package org.ngrinder.http.cookie;
+
+import org.apache.hc.client5.http.cookie.Cookie;
+import org.apache.hc.client5.http.cookie.CookieIdentityComparator;
+import org.apache.hc.client5.http.cookie.CookieOrigin;
+import org.apache.hc.client5.http.cookie.CookieSpec;
+import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.client5.http.impl.cookie.RFC6265StrictSpec;
+import org.apache.hc.core5.http.Header;
+
+import java.util.*;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Cookie store which indexes cookies by their domain.
+ * To find the cookies of a request, only the buckets of the request host and its parent domains are visited.
+ * Expired cookies are purged lazily once the earliest expiry date has passed,
+ * and formatted Cookie headers are cached until the store changes.
+ */
+public class IndexedCookieStore implements CookieStore {
+	private static final CookieSpec COOKIE_SPEC = new RFC6265StrictSpec();
+	private static final Comparator<Cookie> IDENTITY_COMPARATOR = new CookieIdentityComparator();
+	private static final int MAX_CACHED_HEADERS = 256;
+
+	private final Map<String, List<Cookie>> cookiesByDomain = new HashMap<>();
+	private final Map<String, List<Header>> headerCache = new HashMap<>();
+	private int size = 0;
+	private long earliestExpiry = Long.MAX_VALUE;
+
+	@Override
+	public synchronized void addCookie(Cookie cookie) {
+		if (cookie == null) {
+			return;
+		}
+
+		final String domain = normalizeDomain(cookie.getDomain());
+		final List<Cookie> cookies = cookiesByDomain.computeIfAbsent(domain, key -> new ArrayList<>());
+		if (cookies.removeIf(existing -> IDENTITY_COMPARATOR.compare(existing, cookie) == 0)) {
+			size--;
+		}
+		if (!isExpired(cookie, System.currentTimeMillis())) {
+			cookies.add(cookie);
+			size++;
+			if (cookie.getExpiryDate() != null) {
+				earliestExpiry = Math.min(earliestExpiry, cookie.getExpiryDate().getTime());
+			}
+		}
+		if (cookies.isEmpty()) {
+			cookiesByDomain.remove(domain);
+		}
+		headerCache.clear();
+	}
+
+	@Override
+	public synchronized List<Cookie> getCookies() {
+		purgeExpired(System.currentTimeMillis());
+		final List<Cookie> result = new ArrayList<>(size);
+		cookiesByDomain.values().forEach(result::addAll);
+		return result;
+	}
+
+	@Override
+	public synchronized boolean clearExpired(Date date) {
+		if (date == null) {
+			return false;
+		}
+		return purgeExpired(date.getTime());
+	}
+
+	@Override
+	public synchronized void clear() {
+		cookiesByDomain.clear();
+		headerCache.clear();
+		size = 0;
+		earliestExpiry = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Get the Cookie headers which should be sent to the given origin.
+	 *
+	 * @param host   request host
+	 * @param port   request port
+	 * @param path   request path
+	 * @param secure true if the request is sent over a secure channel
+	 * @return Cookie headers or an empty list if no cookie matches
+	 */
+	public synchronized List<Header> getCookieHeaders(String host, int port, String path, boolean secure) {
+		purgeExpired(System.currentTimeMillis());
+		if (size == 0) {
+			return emptyList();
+		}
+
+		final String cacheKey = (secure ? "s:" : ":") + host + path;
+		List<Header> headers = headerCache.get(cacheKey);
+		if (headers != null) {
+			return headers;
+		}
+
+		final CookieOrigin origin = new CookieOrigin(host, port, path.isEmpty() ? "/" : path, secure);
+		final List<Cookie> matchedCookies = new ArrayList<>();
+		String domain = normalizeDomain(host);
+		while (true) {
+			final List<Cookie> candidates = cookiesByDomain.get(domain);
+			if (candidates != null) {
+				for (Cookie candidate : candidates) {
+					if (COOKIE_SPEC.match(candidate, origin)) {
+						matchedCookies.add(candidate);
+					}
+				}
+			}
+			final int dot = domain.indexOf('.');
+			if (dot < 0) {
+				break;
+			}
+			domain = domain.substring(dot + 1);
+		}
+
+		headers = matchedCookies.isEmpty() ? emptyList() : unmodifiableList(COOKIE_SPEC.formatCookies(matchedCookies));
+		if (headerCache.size() >= MAX_CACHED_HEADERS) {
+			headerCache.clear();
+		}
+		headerCache.put(cacheKey, headers);
+		return headers;
+	}
+
+	private boolean purgeExpired(long now) {
+		if (now < earliestExpiry) {
+			return false;
+		}
+
+		boolean purged = false;
+		earliestExpiry = Long.MAX_VALUE;
+		for (List<Cookie> bucket : cookiesByDomain.values()) {
+			final Iterator<Cookie> cookies = bucket.iterator();
+			while (cookies.hasNext()) {
+				final Cookie cookie = cookies.next();
+				if (isExpired(cookie, now)) {
+					cookies.remove();
+					size--;
+					purged = true;
+				} else if (cookie.getExpiryDate() != null) {
+					earliestExpiry = Math.min(earliestExpiry, cookie.getExpiryDate().getTime());
+				}
+			}
+		}
+		cookiesByDomain.values().removeIf(List::isEmpty);
+		if (purged) {
+			headerCache.clear();
+		}
+		return purged;
+	}
+
+	private static boolean isExpired(Cookie cookie, long now) {
+		return cookie.getExpiryDate() != null && cookie.getExpiryDate().getTime() <= now;
+	}
+
+	private static String normalizeDomain(String domain) {
+		if (domain == null) {
+			return "";
+		}
+		String normalized = domain.toLowerCase(Locale.ROOT);
+		return normalized.startsWith(".") ? normalized.substring(1) : normalized;
+	}
+}
@@ -1,14 +1,14 @@
 package org.ngrinder.http.cookie;
 
-import org.apache.hc.client5.http.cookie.BasicCookieStore;
 import org.apache.hc.client5.http.cookie.Cookie;
 import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.core5.http.Header;
 
 import java.util.Date;
 import java.util.List;
 
 public class ThreadContextCookieStore implements CookieStore {
-	private static final ThreadLocal<CookieStore> cookieStoreThreadLocal = ThreadLocal.withInitial(BasicCookieStore::new);
+	private static final ThreadLocal<IndexedCookieStore> cookieStoreThreadLocal = ThreadLocal.withInitial(IndexedCookieStore::new);
 
 	public static final ThreadContextCookieStore INSTANCE = new ThreadContextCookieStore();
 
@@ -36,7 +36,16 @@ public class ThreadContextCookieStore implements CookieStore {
 		getCookieStore().clear();
 	}
 
-	public CookieStore getCookieStore() {
+	/**
+	 * Get the Cookie headers of the current thread which should be sent to the given origin.
+	 *
+	 * @see IndexedCookieStore#getCookieHeaders(String, int, String, boolean)
+	 */
+	public List<Header> getCookieHeaders(String host, int port, String path, boolean secure) {
+		return getCookieStore().getCookieHeaders(host, port, path, secure);
+	}
+
+	public IndexedCookieStore getCookieStore() {
 		return cookieStoreThreadLocal.get();
 	}
 }
@@ -26,7 +26,6 @@ import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A part of simple text for multipart form data entity.
@@ -39,9 +38,11 @@ public class BasicMultipartEntity implements MultipartEntity {
 	private final ContentType contentType;
 	private final BasicAsyncEntityProducer basicEntityProducer;
 
-	private final AtomicBoolean isBegin;
 	private final String multipartHeader;
+	private final ByteBuffer header;
+	private final ByteBuffer trailer;
 
+	private boolean entityEnded = false;
 	private boolean remaining = true;
 
 	public BasicMultipartEntity(String name, BasicAsyncEntityProducer basicEntityProducer, ContentType contentType) {
@@ -49,8 +50,9 @@ public class BasicMultipartEntity implements MultipartEntity {
 		this.contentType = contentType;
 		this.basicEntityProducer = basicEntityProducer;
 
-		this.isBegin = new AtomicBoolean(false);
 		this.multipartHeader = generateMultipartHeader(name, contentType);
+		this.header = ByteBuffer.wrap(multipartHeader.getBytes());
+		this.trailer = ByteBuffer.wrap(NEWLINE.getBytes());
 	}
 
 	public BasicMultipartEntity(String name, CharSequence content, ContentType contentType) {
@@ -82,15 +84,25 @@ public class BasicMultipartEntity implements MultipartEntity {
 
 	@Override
 	public void produce(DataStreamChannel channel) throws IOException {
-		if (isBegin.compareAndSet(false, true)) {
-			channel.write(ByteBuffer.wrap(multipartHeader.getBytes()));
+		// The channel may accept only a part of the buffer, so the rest is written on the next call.
+		if (header.hasRemaining()) {
+			channel.write(header);
+			if (header.hasRemaining()) {
+				return;
+			}
 		}
 
-		DelegateDataStreamChannel delegateChannel = DelegateDataStreamChannel.from(channel);
-		basicEntityProducer.produce(delegateChannel);
+		if (!entityEnded) {
+			DelegateDataStreamChannel delegateChannel = DelegateDataStreamChannel.from(channel);
+			basicEntityProducer.produce(delegateChannel);
+			if (!delegateChannel.isEnd()) {
+				return;
+			}
+			entityEnded = true;
+		}
 
-		if (delegateChannel.isEnd()) {
-			channel.write(ByteBuffer.wrap(NEWLINE.getBytes()));
+		channel.write(trailer);
+		if (!trailer.hasRemaining()) {
 			remaining = false;
 		}
 	}
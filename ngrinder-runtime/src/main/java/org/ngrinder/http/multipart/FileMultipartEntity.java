@@ -22,37 +22,40 @@ package org.ngrinder.http.multipart;
 
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.nio.DataStreamChannel;
-import org.apache.hc.core5.http.nio.entity.FileEntityProducer;
+import org.ngrinder.http.FileChannelEntityProducer;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A part of file for multipart form data entity.
  * <p>
  * This entity writes multipart header to {@link DataStreamChannel} and
- * internally delegates {@link #produce(DataStreamChannel)} to {@link FileEntityProducer}.
+ * internally delegates {@link #produce(DataStreamChannel)} to {@link FileChannelEntityProducer},
+ * which streams the file from memory mapped regions shared by every vuser.
  */
 public class FileMultipartEntity implements MultipartEntity {
 	private final String name;
 	private final ContentType contentType;
-	private final FileEntityProducer fileEntityProducer;
+	private final FileChannelEntityProducer fileEntityProducer;
 
-	private final AtomicBoolean isBegin;
 	private final String multipartHeader;
+	private final ByteBuffer header;
+	private final ByteBuffer trailer;
 
+	private boolean entityEnded = false;
 	private boolean remaining = true;
 
 	public FileMultipartEntity(String name, File file, ContentType contentType) {
 		this.name = name;
 		this.contentType = contentType;
 
-		this.fileEntityProducer = new FileEntityProducer(file, contentType);
+		this.fileEntityProducer = new FileChannelEntityProducer(file, contentType);
 
-		this.isBegin = new AtomicBoolean(false);
 		this.multipartHeader = generateMultipartHeader(name, file.getName(), contentType);
+		this.header = ByteBuffer.wrap(multipartHeader.getBytes());
+		this.trailer = ByteBuffer.wrap(NEWLINE.getBytes());
 	}
 
 	public FileMultipartEntity(String name, File file) {
@@ -72,15 +75,25 @@ public class FileMultipartEntity implements MultipartEntity {
 
 	@Override
 	public void produce(DataStreamChannel channel) throws IOException {
-		if (isBegin.compareAndSet(false, true)) {
-			channel.write(ByteBuffer.wrap(multipartHeader.getBytes()));
+		// The channel may accept only a part of the buffer, so the rest is written on the next call.
+		if (header.hasRemaining()) {
+			channel.write(header);
+			if (header.hasRemaining()) {
+				return;
+			}
 		}
 
-		DelegateDataStreamChannel delegateChannel = DelegateDataStreamChannel.from(channel);
-		fileEntityProducer.produce(delegateChannel);
+		if (!entityEnded) {
+			DelegateDataStreamChannel delegateChannel = DelegateDataStreamChannel.from(channel);
+			fileEntityProducer.produce(delegateChannel);
+			if (!delegateChannel.isEnd()) {
+				return;
+			}
+			entityEnded = true;
+		}
 
-		if (delegateChannel.isEnd()) {
-			channel.write(ByteBuffer.wrap(NEWLINE.getBytes()));
+		channel.write(trailer);
+		if (!trailer.hasRemaining()) {
 			remaining = false;
 		}
 	}
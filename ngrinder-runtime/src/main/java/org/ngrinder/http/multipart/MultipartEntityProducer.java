@@ -44,6 +44,7 @@ public class MultipartEntityProducer implements AsyncEntityProducer {
 	private final ConcurrentLinkedQueue<MultipartEntity> entityQueue;
 	private MultipartEntity currentEntity;
 	private final AtomicReference<Exception> exception;
+	private final ByteBuffer boundaryEnd = ByteBuffer.wrap(BOUNDARY_END.getBytes());
 
 	public MultipartEntityProducer(List<MultipartEntity> multipartEntities) {
 		this(multipartEntities, ContentType.MULTIPART_FORM_DATA);
@@ -118,17 +119,19 @@ public class MultipartEntityProducer implements AsyncEntityProducer {
 
 	@Override
 	public void produce(DataStreamChannel channel) throws IOException {
-		if (currentEntity.hasRemaining()) {
+		if (currentEntity != null && currentEntity.hasRemaining()) {
 			currentEntity.produce(channel);
 		}
 
-		if (!currentEntity.hasRemaining()) {
+		if (currentEntity != null && !currentEntity.hasRemaining()) {
 			currentEntity = entityQueue.poll();
 		}
 
 		if (currentEntity == null) {
-			channel.write(ByteBuffer.wrap(BOUNDARY_END.getBytes()));
-			channel.endStream();
+			channel.write(boundaryEnd);
+			if (!boundaryEnd.hasRemaining()) {
+				channel.endStream();
+			}
 		}
 	}
 
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Statistics of all the tests run by a single agent. They let an overloaded or badly placed agent
+ * be told apart from the others, while the Grinder statistics only have the totals of all the agents.
+ * <p>
+ * This class is not thread safe.
+ */
+public class AgentStatistics implements Serializable {
+	private static final long serialVersionUID = -5240871936250917436L;
+
+	/**
+	 * Percentile of the test time which is compared between the agents.
+	 */
+	public static final double TEST_TIME_PERCENTILE = 99;
+
+	private long tests;
+	private long errors;
+	private long testTimeSum;
+	private final LatencyHistogram testTimes = new LatencyHistogram();
+
+	/**
+	 * Add the statistics of a sampling.
+	 *
+	 * @param tests       number of successful tests
+	 * @param errors      number of errors
+	 * @param testTimeSum sum of the successful test times in milliseconds
+	 * @param testTimes   histogram of the successful test times
+	 */
+	public void add(long tests, long errors, long testTimeSum, LatencyHistogram testTimes) {
+		this.tests += tests;
+		this.errors += errors;
+		this.testTimeSum += testTimeSum;
+		this.testTimes.add(testTimes);
+	}
+
+	public void add(AgentStatistics other) {
+		add(other.tests, other.errors, other.testTimeSum, other.testTimes);
+	}
+
+	public long getTests() {
+		return tests;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Get the number of successful tests per second.
+	 *
+	 * @param period length of the period in milliseconds in which the tests ran
+	 * @return TPS
+	 */
+	public double getTps(long period) {
+		return period <= 0 ? 0 : tests * 1000.0 / period;
+	}
+
+	/**
+	 * Get the mean of the successful test times.
+	 *
+	 * @return mean in milliseconds or null if no test is recorded
+	 */
+	public Double getMeanTestTime() {
+		return tests == 0 ? null : (double) testTimeSum / tests;
+	}
+
+	/**
+	 * Get the test time at the given percentile.
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return test time in milliseconds or null if no test is recorded
+	 */
+	public Long getTestTimePercentile(double percentile) {
+		return testTimes.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Find the agents whose TPS or {@link #TEST_TIME_PERCENTILE} test time deviates from the median of all
+	 * the agents by more than the given ratio of the median. Nothing is found with less than 3 agents,
+	 * since the median of 2 agents can't tell which one is off.
+	 *
+	 * @param agents    statistics keyed by agent name
+	 * @param tolerance ratio of the median which is allowed. e.g. 0.5 allows the half of the median
+	 * @return names of the deviating agents
+	 */
+	public static Set<String> findStragglers(Map<String, AgentStatistics> agents, double tolerance) {
+		final Set<String> stragglers = new LinkedHashSet<>();
+		if (agents.size() < 3) {
+			return stragglers;
+		}
+		// Only the ratios between the agents matter, so the number of tests is compared instead of TPS.
+		addDeviations(stragglers, agents, each -> (double) each.getTests(), tolerance);
+		addDeviations(stragglers, agents, each -> {
+			final Long value = each.getTestTimePercentile(TEST_TIME_PERCENTILE);
+			return value == null ? null : value.doubleValue();
+		}, tolerance);
+		return stragglers;
+	}
+
+	private static void addDeviations(Set<String> stragglers, Map<String, AgentStatistics> agents,
+									  Function<AgentStatistics, Double> valueFunction, double tolerance) {
+		final List<Double> values = new ArrayList<>(agents.size());
+		for (AgentStatistics each : agents.values()) {
+			final Double value = valueFunction.apply(each);
+			if (value != null) {
+				values.add(value);
+			}
+		}
+		if (values.size() < 3) {
+			return;
+		}
+		Collections.sort(values);
+		final int middle = values.size() / 2;
+		final double median = values.size() % 2 == 1 ? values.get(middle) : (values.get(middle - 1) + values.get(middle)) / 2;
+		if (median <= 0) {
+			return;
+		}
+		for (Map.Entry<String, AgentStatistics> each : agents.entrySet()) {
+			final Double value = valueFunction.apply(each.getValue());
+			if (value != null && Math.abs(value - median) > median * tolerance) {
+				stragglers.add(each.getKey());
+			}
+		}
+	}
+}
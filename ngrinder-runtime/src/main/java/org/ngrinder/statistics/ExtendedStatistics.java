@@ -0,0 +1,611 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.ngrinder.http.HTTPErrorType;
+import org.ngrinder.http.HTTPPhase;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statistics which don't fit into the fixed {@link net.grinder.statistics.StatisticsIndexMap} of Grinder.
+ * They are collected per test number in the worker processes and reported to the console
+ * along with the Grinder statistics.
+ * <p>
+ * This class is not thread safe.
+ */
+public class ExtendedStatistics implements Serializable {
+	private static final long serialVersionUID = -2713318547036587934L;
+
+	private static final int PHASE_COUNT = HTTPPhase.values().length;
+	private static final int ERROR_TYPE_COUNT = HTTPErrorType.values().length;
+
+	/**
+	 * Percentiles of the test time which are summarized.
+	 */
+	public static final double[] TEST_TIME_PERCENTILES = {50, 90, 95, 99, 99.9};
+
+	/**
+	 * Display name of the mean response time.
+	 */
+	public static final String MEAN_RESPONSE_TIME = "Mean response time (ms)";
+
+	/**
+	 * Sums of the HTTP phases in nanoseconds per test number. The last element is the number of exchanges.
+	 */
+	private final Map<Integer, long[]> httpPhases = new TreeMap<>();
+
+	/**
+	 * Histograms of the successful test times per test number.
+	 */
+	private final Map<Integer, LatencyHistogram> testTimes = new TreeMap<>();
+
+	/**
+	 * Histograms and sums of the response times per test number. A response time is measured from the
+	 * planned start of a scheduled iteration, so it includes the queueing delay which the test time misses
+	 * when the target stalls. Only the tests of the arrival rate or pacing mode have them.
+	 */
+	private final Map<Integer, LatencyHistogram> responseTimes = new TreeMap<>();
+	private final Map<Integer, Long> responseTimeSums = new TreeMap<>();
+
+	/**
+	 * Test times and response times of all the tests. They're kept up to date as histograms are added,
+	 * so the summary of the statistics of a long test doesn't merge every test again. They're not sent
+	 * with the statistics and rebuilt when they're needed.
+	 */
+	private transient LatencyHistogram mergedTestTimes;
+	private transient LatencyHistogram mergedResponseTimes;
+
+	/**
+	 * Counts of the response status codes per test number.
+	 */
+	private final Map<Integer, Map<Integer, Long>> statusCodes = new TreeMap<>();
+
+	/**
+	 * Counts of the failed exchanges indexed by {@link HTTPErrorType#ordinal()} per test number.
+	 */
+	private final Map<Integer, long[]> errorTypes = new TreeMap<>();
+
+	/**
+	 * Statistics per agent name.
+	 */
+	private final Map<String, AgentStatistics> agents = new TreeMap<>();
+
+	private long tlsHandshakes;
+	private long tlsResumptions;
+
+	/**
+	 * Connections of the keep-alive pool. Leases and evictions are counted for the whole process, and
+	 * the connections opened are counted per test number.
+	 */
+	private long connectionLeases;
+	private long reusedConnections;
+	private long evictedConnections;
+	private final Map<Integer, Long> openedConnections = new TreeMap<>();
+
+	/**
+	 * Iterations of the arrival rate or pacing mode. Late ones started after their scheduled time and
+	 * dropped ones never started since every vuser was busy.
+	 */
+	private long scheduledIterations;
+	private long lateIterations;
+	private long droppedIterations;
+
+	/**
+	 * Running threads per worker name, of the worker processes which run more threads than the process report
+	 * message can carry. They aren't summed but the latest count of each worker wins.
+	 */
+	private final Map<String, Integer> runningThreads = new TreeMap<>();
+
+	/**
+	 * Add the phases of HTTP exchanges.
+	 *
+	 * @param testNumber test number
+	 * @param sums       sums of nanoseconds indexed by {@link HTTPPhase#ordinal()}
+	 * @param count      number of exchanges
+	 */
+	public void addHTTPPhases(int testNumber, long[] sums, long count) {
+		final long[] accumulated = httpPhases.computeIfAbsent(testNumber, key -> new long[PHASE_COUNT + 1]);
+		for (int i = 0; i < PHASE_COUNT; i++) {
+			accumulated[i] += sums[i];
+		}
+		accumulated[PHASE_COUNT] += count;
+	}
+
+	/**
+	 * Add all the statistics of the given one.
+	 *
+	 * @param other statistics to add
+	 */
+	public void add(ExtendedStatistics other) {
+		other.httpPhases.forEach((testNumber, sums) -> addHTTPPhases(testNumber, sums, sums[PHASE_COUNT]));
+		other.testTimes.forEach(this::addTestTimes);
+		other.responseTimes.forEach((testNumber, histogram) -> addResponseTimes(testNumber, histogram,
+			other.responseTimeSums.getOrDefault(testNumber, 0L)));
+		other.statusCodes.forEach(this::addStatusCodes);
+		other.errorTypes.forEach(this::addErrorTypes);
+		other.agents.forEach(this::addAgentStatistics);
+		addTlsHandshakes(other.tlsHandshakes, other.tlsResumptions);
+		addConnectionLeases(other.connectionLeases, other.reusedConnections, other.evictedConnections);
+		other.openedConnections.forEach(this::addOpenedConnections);
+		addIterations(other.scheduledIterations, other.lateIterations, other.droppedIterations);
+		runningThreads.putAll(other.runningThreads);
+	}
+
+	/**
+	 * Add the test times of the given test.
+	 *
+	 * @param testNumber test number
+	 * @param histogram  histogram of test times
+	 */
+	public void addTestTimes(int testNumber, LatencyHistogram histogram) {
+		testTimes.computeIfAbsent(testNumber, key -> new LatencyHistogram()).add(histogram);
+		if (mergedTestTimes != null) {
+			mergedTestTimes.add(histogram);
+		}
+	}
+
+	/**
+	 * Get the test time at the given percentile over all the tests.
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return test time in milliseconds or null if no test is recorded
+	 */
+	public Long getTestTimePercentile(double percentile) {
+		return getMergedTestTimes().getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Get the test time of the given test at the given percentile.
+	 *
+	 * @param testNumber test number
+	 * @param percentile percentile between 0 and 100
+	 * @return test time in milliseconds or null if no test is recorded
+	 */
+	public Long getTestTimePercentile(int testNumber, double percentile) {
+		final LatencyHistogram histogram = testTimes.get(testNumber);
+		return histogram == null ? null : histogram.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Add the response times of the given test.
+	 *
+	 * @param testNumber test number
+	 * @param histogram  histogram of response times
+	 * @param sum        sum of the response times in milliseconds
+	 */
+	public void addResponseTimes(int testNumber, LatencyHistogram histogram, long sum) {
+		responseTimes.computeIfAbsent(testNumber, key -> new LatencyHistogram()).add(histogram);
+		responseTimeSums.merge(testNumber, sum, Long::sum);
+		if (mergedResponseTimes != null) {
+			mergedResponseTimes.add(histogram);
+		}
+	}
+
+	/**
+	 * Get the mean response time of the given test.
+	 *
+	 * @param testNumber test number
+	 * @return mean in milliseconds or null if no response time is recorded
+	 */
+	public Double getMeanResponseTime(int testNumber) {
+		final LatencyHistogram histogram = responseTimes.get(testNumber);
+		return histogram == null || histogram.isEmpty() ? null
+			: (double) responseTimeSums.getOrDefault(testNumber, 0L) / histogram.getTotalCount();
+	}
+
+	/**
+	 * Get the response time of the given test at the given percentile.
+	 *
+	 * @param testNumber test number
+	 * @param percentile percentile between 0 and 100
+	 * @return response time in milliseconds or null if no response time is recorded
+	 */
+	public Long getResponseTimePercentile(int testNumber, double percentile) {
+		final LatencyHistogram histogram = responseTimes.get(testNumber);
+		return histogram == null ? null : histogram.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Get the display name of the given response time percentile. e.g. "Response time p99.9 (ms)"
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return display name
+	 */
+	public static String getResponseTimePercentileName(double percentile) {
+		return getTestTimePercentileName(percentile).replace("Test time", "Response time");
+	}
+
+	/**
+	 * Get the display name of the given test time percentile. e.g. "Test time p99.9 (ms)"
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return display name
+	 */
+	public static String getTestTimePercentileName(double percentile) {
+		final String number = percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+			: String.valueOf(percentile);
+		return "Test time p" + number + " (ms)";
+	}
+
+	/**
+	 * Add the counts of the response status codes of the given test.
+	 *
+	 * @param testNumber test number
+	 * @param counts     counts keyed by status code
+	 */
+	public void addStatusCodes(int testNumber, Map<Integer, Long> counts) {
+		final Map<Integer, Long> accumulated = statusCodes.computeIfAbsent(testNumber, key -> new TreeMap<>());
+		counts.forEach((code, count) -> accumulated.merge(code, count, Long::sum));
+	}
+
+	/**
+	 * Add the counts of the failed exchanges of the given test.
+	 *
+	 * @param testNumber test number
+	 * @param counts     counts indexed by {@link HTTPErrorType#ordinal()}
+	 */
+	public void addErrorTypes(int testNumber, long[] counts) {
+		final long[] accumulated = errorTypes.computeIfAbsent(testNumber, key -> new long[ERROR_TYPE_COUNT]);
+		for (int i = 0; i < ERROR_TYPE_COUNT; i++) {
+			accumulated[i] += counts[i];
+		}
+	}
+
+	/**
+	 * Get the counts of the response status codes over all the tests.
+	 *
+	 * @return counts keyed by status code in ascending order
+	 */
+	public Map<Integer, Long> getStatusCodeCounts() {
+		final Map<Integer, Long> merged = new TreeMap<>();
+		statusCodes.values().forEach(counts -> counts.forEach((code, count) -> merged.merge(code, count, Long::sum)));
+		return merged;
+	}
+
+	/**
+	 * Get the counts of the response status codes of the given test.
+	 *
+	 * @param testNumber test number
+	 * @return counts keyed by status code in ascending order
+	 */
+	public Map<Integer, Long> getStatusCodeCounts(int testNumber) {
+		final Map<Integer, Long> counts = statusCodes.get(testNumber);
+		return counts == null ? new TreeMap<>() : new TreeMap<>(counts);
+	}
+
+	/**
+	 * Get the counts of the failed exchanges of the given test keyed by the display name of their type.
+	 * Types which never happened are left out.
+	 *
+	 * @param testNumber test number
+	 * @return counts keyed by {@link HTTPErrorType#getDisplayName()}
+	 */
+	public Map<String, Long> getErrorTypeCounts(int testNumber) {
+		final Map<String, Long> result = new LinkedHashMap<>();
+		final long[] counts = errorTypes.get(testNumber);
+		if (counts != null) {
+			for (HTTPErrorType each : HTTPErrorType.values()) {
+				if (counts[each.ordinal()] != 0) {
+					result.put(each.getDisplayName(), counts[each.ordinal()]);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the display name of the given status class. e.g. "HTTP 5xx responses"
+	 *
+	 * @param statusClass first digit of the status codes
+	 * @return display name
+	 */
+	public static String getStatusClassName(int statusClass) {
+		return "HTTP " + statusClass + "xx responses";
+	}
+
+	/**
+	 * Get the display name of the given status code. e.g. "HTTP 503 responses"
+	 *
+	 * @param statusCode status code
+	 * @return display name
+	 */
+	public static String getStatusCodeName(int statusCode) {
+		return "HTTP " + statusCode + " responses";
+	}
+
+	/**
+	 * Attribute the given totals and all the test times of this statistics to the given agent.
+	 * A worker process calls it before it reports, so the console can break the statistics down by agent.
+	 *
+	 * @param agentName   agent name
+	 * @param tests       number of successful tests
+	 * @param errors      number of errors
+	 * @param testTimeSum sum of the successful test times in milliseconds
+	 */
+	public void addAgentStatistics(String agentName, long tests, long errors, long testTimeSum) {
+		agents.computeIfAbsent(agentName, key -> new AgentStatistics())
+			.add(tests, errors, testTimeSum, getMergedTestTimes());
+	}
+
+	/**
+	 * Add the statistics of the given agent.
+	 *
+	 * @param agentName  agent name
+	 * @param statistics statistics of the agent
+	 */
+	public void addAgentStatistics(String agentName, AgentStatistics statistics) {
+		agents.computeIfAbsent(agentName, key -> new AgentStatistics()).add(statistics);
+	}
+
+	/**
+	 * Get the statistics per agent.
+	 *
+	 * @return statistics keyed by agent name in ascending order
+	 */
+	public Map<String, AgentStatistics> getAgentStatistics() {
+		return Collections.unmodifiableMap(agents);
+	}
+
+	/**
+	 * Add TLS handshakes.
+	 *
+	 * @param handshakes  number of handshakes
+	 * @param resumptions number of handshakes which resumed a cached session
+	 */
+	public void addTlsHandshakes(long handshakes, long resumptions) {
+		tlsHandshakes += handshakes;
+		tlsResumptions += resumptions;
+	}
+
+	/**
+	 * Get the ratio of resumed TLS handshakes.
+	 *
+	 * @return ratio between 0 and 1 or null if no handshake is recorded
+	 */
+	public Double getTlsResumptionRate() {
+		return tlsHandshakes == 0 ? null : (double) tlsResumptions / tlsHandshakes;
+	}
+
+	/**
+	 * Add leases of the keep-alive pool.
+	 *
+	 * @param leases  number of leased connections
+	 * @param reused  number of leases which reused an idle connection
+	 * @param evicted number of idle connections which were closed by the pool
+	 */
+	public void addConnectionLeases(long leases, long reused, long evicted) {
+		connectionLeases += leases;
+		reusedConnections += reused;
+		evictedConnections += evicted;
+	}
+
+	/**
+	 * Add the connections opened while the given test was in progress.
+	 *
+	 * @param testNumber test number
+	 * @param count      number of opened connections
+	 */
+	public void addOpenedConnections(int testNumber, long count) {
+		openedConnections.merge(testNumber, count, Long::sum);
+	}
+
+	/**
+	 * Get the number of the connections opened while the given test was in progress.
+	 *
+	 * @param testNumber test number
+	 * @return number of opened connections
+	 */
+	public long getOpenedConnections(int testNumber) {
+		return openedConnections.getOrDefault(testNumber, 0L);
+	}
+
+	/**
+	 * Get the ratio of the leases which reused an idle connection of the keep-alive pool.
+	 *
+	 * @return ratio between 0 and 1 or null if no connection is leased
+	 */
+	public Double getConnectionReuseRate() {
+		return connectionLeases == 0 ? null : (double) reusedConnections / connectionLeases;
+	}
+
+	/**
+	 * Add iterations of the arrival rate or pacing mode.
+	 *
+	 * @param scheduled number of iterations which were due, including the late and dropped ones
+	 * @param late      number of iterations which started after their scheduled time
+	 * @param dropped   number of iterations which were skipped because no vuser was free
+	 */
+	public void addIterations(long scheduled, long late, long dropped) {
+		scheduledIterations += scheduled;
+		lateIterations += late;
+		droppedIterations += dropped;
+	}
+
+	public long getLateIterations() {
+		return lateIterations;
+	}
+
+	public long getDroppedIterations() {
+		return droppedIterations;
+	}
+
+	/**
+	 * Set the running threads of the given worker process.
+	 *
+	 * @param workerName worker name
+	 * @param count      number of running threads
+	 */
+	public void setRunningThreads(String workerName, int count) {
+		runningThreads.put(workerName, count);
+	}
+
+	/**
+	 * Get the running threads per worker name.
+	 *
+	 * @return latest number of running threads keyed by worker name
+	 */
+	public Map<String, Integer> getRunningThreads() {
+		return Collections.unmodifiableMap(runningThreads);
+	}
+
+	/**
+	 * Get the summary values keyed by their display name.
+	 * Every key is always present and its value is null if nothing is recorded for it.
+	 *
+	 * @return summary values
+	 */
+	public Map<String, Double> getSummary() {
+		final Map<String, Double> summary = new LinkedHashMap<>();
+		final LatencyHistogram merged = getMergedTestTimes();
+		for (double each : TEST_TIME_PERCENTILES) {
+			final Long value = merged.getValueAtPercentile(each);
+			summary.put(getTestTimePercentileName(each), value == null ? null : value.doubleValue());
+		}
+		// Response times are null unless the arrival rate or pacing mode is used.
+		final LatencyHistogram mergedResponseTimes = getMergedResponseTimes();
+		final long responseTimeSum = responseTimeSums.values().stream().mapToLong(Long::longValue).sum();
+		summary.put(MEAN_RESPONSE_TIME, mergedResponseTimes.isEmpty() ? null
+			: (double) responseTimeSum / mergedResponseTimes.getTotalCount());
+		for (double each : TEST_TIME_PERCENTILES) {
+			final Long value = mergedResponseTimes.getValueAtPercentile(each);
+			summary.put(getResponseTimePercentileName(each), value == null ? null : value.doubleValue());
+		}
+		for (HTTPPhase each : HTTPPhase.values()) {
+			summary.put(each.getDisplayName(), getMeanHTTPPhase(each));
+		}
+		summary.put("TLS resumption rate", getTlsResumptionRate());
+		// Connection counts are null only when the pool is never used.
+		final boolean leased = connectionLeases != 0;
+		final long opened = openedConnections.values().stream().mapToLong(Long::longValue).sum();
+		summary.put("Connection reuse rate", getConnectionReuseRate());
+		summary.put("Opened connections", leased ? (double) opened : null);
+		summary.put("Evicted connections", leased ? (double) evictedConnections : null);
+		// Counts are null only when no exchange has finished.
+		final boolean exchanged = !statusCodes.isEmpty() || !errorTypes.isEmpty();
+		final long[] statusClasses = new long[6];
+		getStatusCodeCounts().forEach((code, count) -> {
+			if (code >= 100 && code < 600) {
+				statusClasses[code / 100] += count;
+			}
+		});
+		for (int statusClass = 1; statusClass <= 5; statusClass++) {
+			summary.put(getStatusClassName(statusClass), exchanged ? (double) statusClasses[statusClass] : null);
+		}
+		final long[] errorCounts = new long[ERROR_TYPE_COUNT];
+		for (long[] counts : errorTypes.values()) {
+			for (int i = 0; i < ERROR_TYPE_COUNT; i++) {
+				errorCounts[i] += counts[i];
+			}
+		}
+		for (HTTPErrorType each : HTTPErrorType.values()) {
+			summary.put(each.getDisplayName(), exchanged ? (double) errorCounts[each.ordinal()] : null);
+		}
+		// Iteration counts are null unless the arrival rate or pacing mode is used.
+		final boolean scheduled = scheduledIterations != 0;
+		summary.put("Late iterations", scheduled ? (double) lateIterations : null);
+		summary.put("Dropped iterations", scheduled ? (double) droppedIterations : null);
+		return summary;
+	}
+
+	/**
+	 * Get the mean of the given phase over all the tests.
+	 *
+	 * @param phase HTTP phase
+	 * @return mean in nanoseconds or null if no exchange is recorded
+	 */
+	public Double getMeanHTTPPhase(HTTPPhase phase) {
+		long sum = 0;
+		long count = 0;
+		for (long[] sums : httpPhases.values()) {
+			sum += sums[phase.ordinal()];
+			count += sums[PHASE_COUNT];
+		}
+		return count == 0 ? null : (double) sum / count;
+	}
+
+	/**
+	 * Get the mean of the given phase of the given test.
+	 *
+	 * @param testNumber test number
+	 * @param phase      HTTP phase
+	 * @return mean in nanoseconds or null if no exchange is recorded
+	 */
+	public Double getMeanHTTPPhase(int testNumber, HTTPPhase phase) {
+		final long[] sums = httpPhases.get(testNumber);
+		if (sums == null || sums[PHASE_COUNT] == 0) {
+			return null;
+		}
+		return (double) sums[phase.ordinal()] / sums[PHASE_COUNT];
+	}
+
+	private LatencyHistogram getMergedTestTimes() {
+		if (mergedTestTimes == null) {
+			mergedTestTimes = merge(testTimes);
+		}
+		return mergedTestTimes;
+	}
+
+	private LatencyHistogram getMergedResponseTimes() {
+		if (mergedResponseTimes == null) {
+			mergedResponseTimes = merge(responseTimes);
+		}
+		return mergedResponseTimes;
+	}
+
+	private static LatencyHistogram merge(Map<Integer, LatencyHistogram> histograms) {
+		final LatencyHistogram merged = new LatencyHistogram();
+		histograms.values().forEach(merged::add);
+		return merged;
+	}
+
+	public boolean isEmpty() {
+		return httpPhases.isEmpty() && testTimes.isEmpty() && responseTimes.isEmpty() && statusCodes.isEmpty() && errorTypes.isEmpty()
+			&& agents.isEmpty() && tlsHandshakes == 0 && connectionLeases == 0 && evictedConnections == 0
+			&& openedConnections.isEmpty() && scheduledIterations == 0 && runningThreads.isEmpty();
+	}
+
+	public void clear() {
+		httpPhases.clear();
+		testTimes.clear();
+		responseTimes.clear();
+		responseTimeSums.clear();
+		mergedTestTimes = null;
+		mergedResponseTimes = null;
+		statusCodes.clear();
+		errorTypes.clear();
+		agents.clear();
+		tlsHandshakes = 0;
+		tlsResumptions = 0;
+		connectionLeases = 0;
+		reusedConnections = 0;
+		evictedConnections = 0;
+		openedConnections.clear();
+		scheduledIterations = 0;
+		lateIterations = 0;
+		droppedIterations = 0;
+		runningThreads.clear();
+	}
+}
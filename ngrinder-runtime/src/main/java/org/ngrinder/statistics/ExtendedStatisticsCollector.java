@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.ngrinder.http.HTTPErrorType;
+import org.ngrinder.http.HTTPPhase;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide collector of {@link ExtendedStatistics}.
+ * Statistics are recorded by many vuser and IO threads, so they are kept in {@link LongAdder}s
+ * and {@link AtomicLongArray}s until the worker process reports them to the console.
+ */
+public class ExtendedStatisticsCollector {
+
+	public static final ExtendedStatisticsCollector INSTANCE = new ExtendedStatisticsCollector();
+
+	private static final int PHASE_COUNT = HTTPPhase.values().length;
+	private static final int ERROR_TYPE_COUNT = HTTPErrorType.values().length;
+
+	private final ConcurrentMap<Integer, LongAdder[]> httpPhases = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, AtomicLongArray> testTimes = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, AtomicLongArray> responseTimes = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, LongAdder> responseTimeSums = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, ConcurrentMap<Integer, LongAdder>> statusCodes = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, LongAdder[]> errorTypes = new ConcurrentHashMap<>();
+	private final LongAdder tlsHandshakes = new LongAdder();
+	private final LongAdder tlsResumptions = new LongAdder();
+	private final LongAdder connectionLeases = new LongAdder();
+	private final LongAdder reusedConnections = new LongAdder();
+	private final LongAdder evictedConnections = new LongAdder();
+	private final ConcurrentMap<Integer, LongAdder> openedConnections = new ConcurrentHashMap<>();
+	private final LongAdder scheduledIterations = new LongAdder();
+	private final LongAdder lateIterations = new LongAdder();
+	private final LongAdder droppedIterations = new LongAdder();
+
+	/**
+	 * Queueing delay of the scheduled iteration which the current thread runs.
+	 */
+	private final ThreadLocal<QueueingDelay> queueingDelay = new ThreadLocal<>();
+
+	/**
+	 * Iterations dropped by the current thread, which are not taken by a scheduled iteration yet.
+	 */
+	private final ThreadLocal<QueueingDelay> droppedBacklog = new ThreadLocal<>();
+
+	ExtendedStatisticsCollector() {
+	}
+
+	/**
+	 * Record the phases of a single HTTP exchange.
+	 *
+	 * @param testNumber test number
+	 * @param phases     nanoseconds indexed by {@link HTTPPhase#ordinal()}
+	 */
+	public void recordHTTPPhases(int testNumber, long[] phases) {
+		final LongAdder[] adders = httpPhases.computeIfAbsent(testNumber, key -> newAdders(PHASE_COUNT + 1));
+		for (int i = 0; i < PHASE_COUNT; i++) {
+			adders[i].add(phases[i]);
+		}
+		adders[PHASE_COUNT].increment();
+	}
+
+	/**
+	 * Record the time of a successful test. If the current thread runs a scheduled iteration, the response
+	 * time which includes the queueing delay of the iteration is recorded as well. The iterations dropped
+	 * right before it are recorded as the response times they would have seen if they had been served by
+	 * this iteration, in the way of HdrHistogram's {@code recordValueWithExpectedInterval}. Otherwise an
+	 * overloaded target would hide its worst latencies by dropping them.
+	 *
+	 * @param testNumber test number
+	 * @param time       test time in milliseconds
+	 * @see #beginScheduledIteration(long)
+	 */
+	public void recordTestTime(int testNumber, long time) {
+		testTimes.computeIfAbsent(testNumber, key -> new AtomicLongArray(LatencyHistogram.COUNTS_LENGTH))
+			.incrementAndGet(LatencyHistogram.indexOf(time));
+		final QueueingDelay delay = queueingDelay.get();
+		if (delay != null) {
+			final AtomicLongArray histogram = responseTimes.computeIfAbsent(testNumber,
+				key -> new AtomicLongArray(LatencyHistogram.COUNTS_LENGTH));
+			final LongAdder sum = responseTimeSums.computeIfAbsent(testNumber, key -> new LongAdder());
+			// The dropped slot i was scheduled i periods before the slot of this iteration. The slots which fall
+			// into the same bucket are added at once, so a long backlog costs one update per bucket.
+			final long base = time + delay.millis;
+			final long count = delay.dropped + 1;
+			long i = 0;
+			while (i < count) {
+				final int index = LatencyHistogram.indexOf(base + TimeUnit.NANOSECONDS.toMillis(i * delay.periodNanos));
+				final long next = index == LatencyHistogram.COUNTS_LENGTH - 1 || delay.periodNanos == 0 ? count
+					: Math.min(count, firstSlotAbove(LatencyHistogram.highestEquivalentValue(index) - base,
+					delay.periodNanos));
+				histogram.addAndGet(index, next - i);
+				i = next;
+			}
+			sum.add(count * base + Math.round((double) delay.periodNanos * count * (count - 1) / 2
+				/ TimeUnit.MILLISECONDS.toNanos(1)));
+		}
+	}
+
+	/**
+	 * Mark the current thread as running an iteration which was planned to start the given time ago.
+	 * The tests of the iteration are measured from their send time, so the delay is added to them to get
+	 * the response time which the iteration would have seen if it had started as planned.
+	 *
+	 * @param delay milliseconds between the planned start and the actual start of the iteration
+	 * @see #recordDroppedIterations(long, long)
+	 */
+	public void beginScheduledIteration(long delay) {
+		final QueueingDelay dropped = droppedBacklog.get();
+		droppedBacklog.remove();
+		queueingDelay.set(new QueueingDelay(Math.max(delay, 0), dropped == null ? 0 : dropped.dropped,
+			dropped == null ? 0 : dropped.periodNanos));
+	}
+
+	/**
+	 * Mark the end of the scheduled iteration of the current thread.
+	 */
+	public void endScheduledIteration() {
+		queueingDelay.remove();
+	}
+
+	/**
+	 * Record the status code of a response.
+	 *
+	 * @param testNumber test number
+	 * @param statusCode HTTP status code
+	 */
+	public void recordStatusCode(int testNumber, int statusCode) {
+		statusCodes.computeIfAbsent(testNumber, key -> new ConcurrentHashMap<>())
+			.computeIfAbsent(statusCode, key -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Record an exchange which failed without a response.
+	 *
+	 * @param testNumber test number
+	 * @param errorType  type of the failure
+	 */
+	public void recordError(int testNumber, HTTPErrorType errorType) {
+		errorTypes.computeIfAbsent(testNumber, key -> newAdders(ERROR_TYPE_COUNT))[errorType.ordinal()].increment();
+	}
+
+	/**
+	 * Record a TLS handshake. Handshakes happen in IO threads, so they're not attributed to tests.
+	 *
+	 * @param resumed true if the TLS session was resumed
+	 */
+	public void recordTlsHandshake(boolean resumed) {
+		tlsHandshakes.increment();
+		if (resumed) {
+			tlsResumptions.increment();
+		}
+	}
+
+	/**
+	 * Record a connection leased from the keep-alive pool. The pool doesn't know the test which asks
+	 * for the connection, so leases are not attributed to tests.
+	 *
+	 * @param reused true if an idle connection was reused
+	 */
+	public void recordConnectionLease(boolean reused) {
+		connectionLeases.increment();
+		if (reused) {
+			reusedConnections.increment();
+		}
+	}
+
+	/**
+	 * Record an idle connection which is closed by the keep-alive pool.
+	 */
+	public void recordConnectionEviction() {
+		evictedConnections.increment();
+	}
+
+	/**
+	 * Record a new connection opened while the given test is in progress.
+	 *
+	 * @param testNumber test number
+	 */
+	public void recordConnectionOpened(int testNumber) {
+		openedConnections.computeIfAbsent(testNumber, key -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Record an iteration of the arrival rate or pacing mode which is started.
+	 *
+	 * @param late true if it started after its scheduled time
+	 */
+	public void recordIteration(boolean late) {
+		scheduledIterations.increment();
+		if (late) {
+			lateIterations.increment();
+		}
+	}
+
+	/**
+	 * Record iterations of the arrival rate or pacing mode which are skipped since no vuser was free in time.
+	 * The dropped iterations must be the ones scheduled right before the next scheduled iteration of the
+	 * current thread, one period apart. Their response times are recorded with the tests of that iteration.
+	 *
+	 * @param count       number of dropped iterations
+	 * @param periodNanos nanoseconds between the scheduled starts of the iterations
+	 * @see #recordTestTime(int, long)
+	 */
+	public void recordDroppedIterations(long count, long periodNanos) {
+		scheduledIterations.add(count);
+		droppedIterations.add(count);
+		droppedBacklog.set(new QueueingDelay(0, count, periodNanos));
+	}
+
+	/**
+	 * Take the statistics recorded since the last call.
+	 *
+	 * @return statistics, which may be empty
+	 */
+	public ExtendedStatistics reset() {
+		final ExtendedStatistics statistics = new ExtendedStatistics();
+		for (Map.Entry<Integer, LongAdder[]> each : httpPhases.entrySet()) {
+			final LongAdder[] adders = each.getValue();
+			final long count = adders[PHASE_COUNT].sumThenReset();
+			if (count == 0) {
+				continue;
+			}
+			final long[] sums = new long[PHASE_COUNT];
+			for (int i = 0; i < PHASE_COUNT; i++) {
+				sums[i] = adders[i].sumThenReset();
+			}
+			statistics.addHTTPPhases(each.getKey(), sums, count);
+		}
+		for (Map.Entry<Integer, AtomicLongArray> each : testTimes.entrySet()) {
+			final LatencyHistogram histogram = takeHistogram(each.getValue());
+			if (!histogram.isEmpty()) {
+				statistics.addTestTimes(each.getKey(), histogram);
+			}
+		}
+		for (Map.Entry<Integer, AtomicLongArray> each : responseTimes.entrySet()) {
+			final LatencyHistogram histogram = takeHistogram(each.getValue());
+			final LongAdder sum = responseTimeSums.get(each.getKey());
+			if (!histogram.isEmpty()) {
+				statistics.addResponseTimes(each.getKey(), histogram, sum == null ? 0 : sum.sumThenReset());
+			}
+		}
+		for (Map.Entry<Integer, ConcurrentMap<Integer, LongAdder>> each : statusCodes.entrySet()) {
+			final Map<Integer, Long> counts = new TreeMap<>();
+			for (Map.Entry<Integer, LongAdder> code : each.getValue().entrySet()) {
+				final long count = code.getValue().sumThenReset();
+				if (count != 0) {
+					counts.put(code.getKey(), count);
+				}
+			}
+			if (!counts.isEmpty()) {
+				statistics.addStatusCodes(each.getKey(), counts);
+			}
+		}
+		for (Map.Entry<Integer, LongAdder[]> each : errorTypes.entrySet()) {
+			final LongAdder[] adders = each.getValue();
+			final long[] counts = new long[ERROR_TYPE_COUNT];
+			long total = 0;
+			for (int i = 0; i < ERROR_TYPE_COUNT; i++) {
+				counts[i] = adders[i].sumThenReset();
+				total += counts[i];
+			}
+			if (total != 0) {
+				statistics.addErrorTypes(each.getKey(), counts);
+			}
+		}
+		for (Map.Entry<Integer, LongAdder> each : openedConnections.entrySet()) {
+			final long count = each.getValue().sumThenReset();
+			if (count != 0) {
+				statistics.addOpenedConnections(each.getKey(), count);
+			}
+		}
+		statistics.addTlsHandshakes(tlsHandshakes.sumThenReset(), tlsResumptions.sumThenReset());
+		statistics.addConnectionLeases(connectionLeases.sumThenReset(), reusedConnections.sumThenReset(),
+			evictedConnections.sumThenReset());
+		statistics.addIterations(scheduledIterations.sumThenReset(), lateIterations.sumThenReset(),
+			droppedIterations.sumThenReset());
+		return statistics;
+	}
+
+	private static LatencyHistogram takeHistogram(AtomicLongArray counts) {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < counts.length(); i++) {
+			if (counts.get(i) != 0) {
+				histogram.addCount(i, counts.getAndSet(i, 0));
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Get the first slot whose delay from the first slot is above the given milliseconds.
+	 */
+	private static long firstSlotAbove(long millis, long periodNanos) {
+		final long nanos = TimeUnit.MILLISECONDS.toNanos(millis + 1);
+		return (nanos + periodNanos - 1) / periodNanos;
+	}
+
+	private static LongAdder[] newAdders(int size) {
+		final LongAdder[] adders = new LongAdder[size];
+		for (int i = 0; i < size; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	private static final class QueueingDelay {
+		private final long millis;
+		private final long dropped;
+		private final long periodNanos;
+
+		private QueueingDelay(long millis, long dropped, long periodNanos) {
+			this.millis = millis;
+			this.dropped = dropped;
+			this.periodNanos = periodNanos;
+		}
+	}
+}
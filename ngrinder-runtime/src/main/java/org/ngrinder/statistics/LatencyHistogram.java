@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Fixed memory histogram of latencies in milliseconds which can be merged with others.
+ * <p>
+ * Buckets are laid out like the HdrHistogram. Values below 256 are counted exactly
+ * and larger values fall into buckets whose width is at most 1% of the value,
+ * so percentiles keep 2 significant digits up to {@link #MAX_VALUE}. Larger values are counted as {@link #MAX_VALUE}.
+ * <p>
+ * This class is not thread safe.
+ */
+public class LatencyHistogram implements Serializable {
+	private static final long serialVersionUID = 6373621862170713412L;
+
+	/**
+	 * Largest value which can be recorded. One hour in milliseconds.
+	 */
+	public static final long MAX_VALUE = 60 * 60 * 1000;
+
+	private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 7;
+	private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+	private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT * 2;
+	private static final long SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+	static final int COUNTS_LENGTH = indexOf(MAX_VALUE) + 1;
+
+	private transient long[] counts = new long[COUNTS_LENGTH];
+	private transient long totalCount;
+
+	/**
+	 * Record a latency.
+	 *
+	 * @param value latency in milliseconds
+	 */
+	public void recordValue(long value) {
+		addCount(indexOf(value), 1);
+	}
+
+	/**
+	 * Add all the counts of the given histogram.
+	 *
+	 * @param other histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < COUNTS_LENGTH; i++) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+	}
+
+	/**
+	 * Get the value below or at which the given percentage of the recorded values fall.
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return latency in milliseconds or null if nothing is recorded
+	 */
+	public Long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return null;
+		}
+		final long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount));
+		long cumulativeCount = 0;
+		for (int i = 0; i < COUNTS_LENGTH; i++) {
+			cumulativeCount += counts[i];
+			if (cumulativeCount >= countAtPercentile) {
+				return Math.min(highestEquivalentValue(i), MAX_VALUE);
+			}
+		}
+		return MAX_VALUE;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public boolean isEmpty() {
+		return totalCount == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(counts, 0);
+		totalCount = 0;
+	}
+
+	void addCount(int index, long count) {
+		counts[index] += count;
+		totalCount += count;
+	}
+
+	/**
+	 * Get the index of the bucket which counts the given value.
+	 */
+	static int indexOf(long value) {
+		final long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+		final int bucketIndex = 64 - Long.numberOfLeadingZeros(clamped | SUB_BUCKET_MASK)
+			- (SUB_BUCKET_HALF_COUNT_MAGNITUDE + 1);
+		final int subBucketIndex = (int) (clamped >>> bucketIndex);
+		return ((bucketIndex + 1) << SUB_BUCKET_HALF_COUNT_MAGNITUDE) + (subBucketIndex - SUB_BUCKET_HALF_COUNT);
+	}
+
+	/**
+	 * Get the largest value which is counted by the bucket of the given index.
+	 */
+	static long highestEquivalentValue(int index) {
+		int bucketIndex = (index >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+		int subBucketIndex = (index & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+		if (bucketIndex < 0) {
+			subBucketIndex -= SUB_BUCKET_HALF_COUNT;
+			bucketIndex = 0;
+		}
+		return ((long) subBucketIndex << bucketIndex) + (1L << bucketIndex) - 1;
+	}
+
+	/**
+	 * Only the buckets which have counts are written, since most of them are empty in a sampling interval.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		int used = 0;
+		for (long count : counts) {
+			if (count != 0) {
+				used++;
+			}
+		}
+		out.writeInt(used);
+		for (int i = 0; i < COUNTS_LENGTH; i++) {
+			if (counts[i] != 0) {
+				out.writeShort(i);
+				out.writeLong(counts[i]);
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		counts = new long[COUNTS_LENGTH];
+		final int used = in.readInt();
+		for (int i = 0; i < used; i++) {
+			addCount(in.readUnsignedShort(), in.readLong());
+		}
+	}
+}
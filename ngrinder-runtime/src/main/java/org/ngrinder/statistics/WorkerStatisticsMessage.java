@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import net.grinder.communication.Address;
+import net.grinder.communication.AddressAwareMessage;
+import net.grinder.statistics.TestStatisticsMap;
+
+/**
+ * Message used by worker processes to report their statistics to the agent, which merges the ones of all its
+ * workers and reports them to the console at once. Workers use it instead of
+ * {@link net.grinder.messages.console.ReportStatisticsMessage} and {@link ReportExtendedStatisticsMessage}
+ * when the agent gives them the {@link #PROP_AGGREGATION_PORT} property.
+ *
+ * @since 3.5.5
+ */
+public class WorkerStatisticsMessage implements AddressAwareMessage {
+	private static final long serialVersionUID = -2563802616418251064L;
+
+	/**
+	 * Property which has the local port the agent receives the statistics of its workers on.
+	 */
+	public static final String PROP_AGGREGATION_PORT = "grinder.agentAggregation.port";
+
+	/**
+	 * Address the agent receives the statistics of its workers on.
+	 */
+	public static final String AGGREGATION_HOST = "127.0.0.1";
+
+	private final TestStatisticsMap sample;
+	private final ExtendedStatistics extendedStatistics;
+	private final boolean last;
+	private Address address;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param sample             statistics of the tests since the last report, may be empty
+	 * @param extendedStatistics extended statistics since the last report, may be empty
+	 * @param last               true if it's the final report of the worker
+	 */
+	public WorkerStatisticsMessage(TestStatisticsMap sample, ExtendedStatistics extendedStatistics, boolean last) {
+		this.sample = sample;
+		this.extendedStatistics = extendedStatistics;
+		this.last = last;
+	}
+
+	@Override
+	public void setAddress(Address address) {
+		this.address = address;
+	}
+
+	public Address getAddress() {
+		return address;
+	}
+
+	public TestStatisticsMap getSample() {
+		return sample;
+	}
+
+	public ExtendedStatistics getExtendedStatistics() {
+		return extendedStatistics;
+	}
+
+	public boolean isLast() {
+		return last;
+	}
+}
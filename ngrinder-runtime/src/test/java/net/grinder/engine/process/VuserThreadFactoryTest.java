@@ -0,0 +1,34 @@
+package net.grinder.engine.process;
+
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class VuserThreadFactoryTest {
+
+	@Test
+	public void testPlatformThread() throws InterruptedException {
+		VuserThreadFactory factory = new VuserThreadFactory(false, LoggerFactory.getLogger(getClass()));
+		assertThat(factory.isVirtual(), is(false));
+		Thread thread = factory.newThread(() -> { }, "thread 0");
+		assertThat(thread.isDaemon(), is(true));
+		assertThat(thread.getName(), is("thread 0"));
+	}
+
+	@Test
+	public void testManyVirtualThreads() throws InterruptedException {
+		VuserThreadFactory factory = new VuserThreadFactory(true, LoggerFactory.getLogger(getClass()));
+		// It falls back to platform threads before Java 21.
+		int count = factory.isVirtual() ? Short.MAX_VALUE + 1000 : 10;
+		CountDownLatch finished = new CountDownLatch(count);
+		for (int i = 0; i < count; i++) {
+			factory.newThread(finished::countDown, "thread " + i).start();
+		}
+		assertThat(finished.await(30, TimeUnit.SECONDS), is(true));
+	}
+}
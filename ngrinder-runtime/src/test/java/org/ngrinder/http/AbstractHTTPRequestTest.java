@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.grinder.common.GrinderException;
+import net.grinder.plugininterface.GrinderPlugin;
+import net.grinder.plugininterface.PluginProcessContext;
+import net.grinder.plugininterface.PluginRegistry;
+import net.grinder.script.Grinder;
+import net.grinder.script.Statistics;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * Base of the tests which send requests through {@link HTTPRequest} to a local server.
+ * <p>
+ * The HTTP plugin is initialized with a mocked process context, so the requests are attributed to the mocked
+ * statistics of test {@link #TEST_NUMBER}. The server answers with the raw query and the received Cookie header
+ * separated by "|". It takes these query parameters.
+ * <ul>
+ * <li>delay: milliseconds to wait before the response</li>
+ * <li>setCookie: name=value of a cookie to be set</li>
+ * </ul>
+ */
+public abstract class AbstractHTTPRequestTest {
+	protected static final int TEST_NUMBER = 1;
+
+	protected static final Statistics STATISTICS = mock(Statistics.class);
+	protected static final Statistics.StatisticsForTest STATISTICS_FOR_TEST = mock(Statistics.StatisticsForTest.class);
+
+	private static final PluginProcessContext PLUGIN_PROCESS_CONTEXT = mock(PluginProcessContext.class);
+
+	private static HttpServer server;
+	private static ExecutorService serverExecutor;
+
+	static {
+		Grinder.ScriptContext scriptContext = mock(Grinder.ScriptContext.class);
+		when(PLUGIN_PROCESS_CONTEXT.getScriptContext()).thenReturn(scriptContext);
+		when(scriptContext.getStatistics()).thenReturn(STATISTICS);
+		when(scriptContext.getLogger()).thenReturn(LoggerFactory.getLogger(AbstractHTTPRequestTest.class));
+		// HTTPPlugin registers itself when it's loaded.
+		new StubPluginRegistry();
+		HTTPRequestControl.setIoThreadCount(1);
+	}
+
+	@BeforeClass
+	public static void startServer() throws IOException {
+		serverExecutor = Executors.newCachedThreadPool();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", AbstractHTTPRequestTest::handle);
+		server.setExecutor(serverExecutor);
+		server.start();
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Before
+	public void resetStatistics() throws Exception {
+		reset(STATISTICS, STATISTICS_FOR_TEST);
+		net.grinder.common.Test test = mock(net.grinder.common.Test.class);
+		when(test.getNumber()).thenReturn(TEST_NUMBER);
+		when(STATISTICS.isTestInProgress()).thenReturn(true);
+		when(STATISTICS.getForCurrentTest()).thenReturn(STATISTICS_FOR_TEST);
+		when(STATISTICS_FOR_TEST.getTest()).thenReturn(test);
+		ExtendedStatisticsCollector.INSTANCE.reset();
+	}
+
+	/**
+	 * Get the URL of the given path of the local server.
+	 */
+	protected static String url(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	private static void handle(HttpExchange exchange) throws IOException {
+		final String query = exchange.getRequestURI().getRawQuery();
+		final Map<String, String> params = parseQuery(query);
+		if (params.containsKey("delay")) {
+			try {
+				Thread.sleep(Long.parseLong(params.get("delay")));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (params.containsKey("setCookie")) {
+			exchange.getResponseHeaders().add("Set-Cookie", params.get("setCookie") + "; Path=/");
+		}
+		final String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+		final byte[] body = (Objects.toString(query, "") + "|" + Objects.toString(cookie, ""))
+			.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+		final Map<String, String> params = new HashMap<>();
+		if (query != null) {
+			for (String each : query.split("&")) {
+				final int separator = each.indexOf('=');
+				if (separator > 0) {
+					params.put(each.substring(0, separator), URLDecoder.decode(each.substring(separator + 1), "UTF-8"));
+				}
+			}
+		}
+		return params;
+	}
+
+	private static final class StubPluginRegistry extends PluginRegistry {
+		private StubPluginRegistry() {
+			setInstance(this);
+		}
+
+		@Override
+		public void register(GrinderPlugin plugin) throws GrinderException {
+			plugin.initialize(PLUGIN_PROCESS_CONTEXT);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CountingAsyncEntityConsumerTest {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	private final byte[] body = randomBytes(10000);
+
+	@Test
+	public void testKeptBytesAreCutInsideChunk() throws Exception {
+		CountingAsyncEntityConsumer consumer = new CountingAsyncEntityConsumer(2500, null);
+
+		byte[] content = consume(consumer, body);
+
+		assertThat(content, is(Arrays.copyOf(body, 2500)));
+		assertThat(consumer.getLength(), is(10000L));
+		assertThat(consumer.getDigest(), nullValue());
+	}
+
+	@Test
+	public void testWholeBodyIsKept() throws Exception {
+		CountingAsyncEntityConsumer consumer = new CountingAsyncEntityConsumer(-1, null);
+
+		assertThat(consume(consumer, body), is(body));
+		assertThat(consumer.getLength(), is(10000L));
+	}
+
+	@Test
+	public void testDigestOfWholeBody() throws Exception {
+		CountingAsyncEntityConsumer consumer = new CountingAsyncEntityConsumer(0, MessageDigest.getInstance("SHA-256"));
+
+		byte[] content = consume(consumer, body);
+		HTTPResponse response = HTTPResponse.of(new Message<>(new BasicHttpResponse(200), content),
+			consumer.getLength(), consumer.getDigest());
+
+		assertThat(content.length, is(0));
+		assertThat(response.getBodyLength(), is(10000L));
+		assertThat(response.getBodyDigest(), is(MessageDigest.getInstance("SHA-256").digest(body)));
+	}
+
+	@Test
+	public void testConsumerIsReset() throws Exception {
+		CountingAsyncEntityConsumer consumer = new CountingAsyncEntityConsumer(100, MessageDigest.getInstance("MD5"));
+		consume(consumer, body);
+
+		byte[] shortBody = Arrays.copyOf(body, 50);
+		assertThat(consume(consumer, shortBody), is(shortBody));
+		assertThat(consumer.getLength(), is(50L));
+		assertThat(consumer.getDigest(), is(MessageDigest.getInstance("MD5").digest(shortBody)));
+	}
+
+	/**
+	 * Feed the body in chunks as the IO reactor does. The chunks alternate between slices of a heap buffer,
+	 * which have an array offset, and direct buffers.
+	 */
+	private static byte[] consume(CountingAsyncEntityConsumer consumer, byte[] body) throws Exception {
+		EntityDetails entityDetails = mock(EntityDetails.class);
+		when(entityDetails.getContentLength()).thenReturn((long) body.length);
+		when(entityDetails.getContentType()).thenReturn("application/octet-stream");
+		BasicFuture<byte[]> result = new BasicFuture<>(null);
+
+		consumer.streamStart(entityDetails, result);
+		for (int offset = 0, i = 0; offset < body.length; offset += CHUNK_SIZE, i++) {
+			int length = Math.min(CHUNK_SIZE, body.length - offset);
+			ByteBuffer chunk;
+			if (i % 2 == 0) {
+				chunk = ByteBuffer.wrap(body, offset, length).slice();
+			} else {
+				chunk = ByteBuffer.allocateDirect(length);
+				chunk.put(body, offset, length);
+				chunk.flip();
+			}
+			consumer.consume(chunk);
+			assertThat(chunk.hasRemaining(), is(false));
+		}
+		consumer.streamEnd(emptyList());
+		return result.get();
+	}
+
+	private static byte[] randomBytes(int size) {
+		byte[] bytes = new byte[size];
+		new Random(0).nextBytes(bytes);
+		return bytes;
+	}
+}
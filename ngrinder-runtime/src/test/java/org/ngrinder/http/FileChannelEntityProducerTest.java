@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FileChannelEntityProducerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testProduceThroughSlowChannel() throws Exception {
+		byte[] content = new byte[10000];
+		new Random(0).nextBytes(content);
+		File file = folder.newFile("upload.bin");
+		Files.write(file.toPath(), content);
+
+		FileChannelEntityProducer producer = new FileChannelEntityProducer(file);
+		assertThat(producer.getContentLength(), is(10000L));
+
+		for (int i = 0; i < 2; i++) {
+			ThrottledChannel channel = new ThrottledChannel(777);
+			while (!channel.ended) {
+				producer.produce(channel);
+			}
+			assertThat(channel.out.toByteArray(), is(content));
+			producer.releaseResources();
+		}
+	}
+
+	@Test
+	public void testChangedFileReplacesItsMapping() throws Exception {
+		File file = folder.newFile("changed.bin");
+		Files.write(file.toPath(), new byte[]{1, 2, 3});
+		produce(new FileChannelEntityProducer(file));
+		int count = FileChannelEntityProducer.getMappedFileCount();
+
+		Files.write(file.toPath(), new byte[]{4, 5, 6, 7});
+		FileChannelEntityProducer producer = new FileChannelEntityProducer(file);
+
+		assertThat(producer.getContentLength(), is(4L));
+		assertThat(produce(producer), is(new byte[]{4, 5, 6, 7}));
+		assertThat(FileChannelEntityProducer.getMappedFileCount(), is(count));
+	}
+
+	@Test
+	public void testMappedFilesAreBounded() throws Exception {
+		for (int i = 0; i < FileChannelEntityProducer.MAX_MAPPED_FILES * 2; i++) {
+			File file = folder.newFile("upload" + i + ".bin");
+			Files.write(file.toPath(), new byte[]{(byte) i});
+			assertThat(produce(new FileChannelEntityProducer(file)), is(new byte[]{(byte) i}));
+		}
+
+		assertThat(FileChannelEntityProducer.getMappedFileCount(), is(FileChannelEntityProducer.MAX_MAPPED_FILES));
+		FileChannelEntityProducer.clear();
+		assertThat(FileChannelEntityProducer.getMappedFileCount(), is(0));
+	}
+
+	private static byte[] produce(FileChannelEntityProducer producer) throws Exception {
+		ThrottledChannel channel = new ThrottledChannel(Integer.MAX_VALUE);
+		while (!channel.ended) {
+			producer.produce(channel);
+		}
+		producer.releaseResources();
+		return channel.out.toByteArray();
+	}
+
+	private static class ThrottledChannel implements DataStreamChannel {
+		private final int maxWrite;
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private boolean ended;
+
+		private ThrottledChannel(int maxWrite) {
+			this.maxWrite = maxWrite;
+		}
+
+		@Override
+		public void requestOutput() {
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			int length = Math.min(maxWrite, src.remaining());
+			byte[] bytes = new byte[length];
+			src.get(bytes);
+			out.write(bytes, 0, length);
+			// Accept a part of the buffer like a socket whose send buffer is almost full.
+			return length;
+		}
+
+		@Override
+		public void endStream() {
+			ended = true;
+		}
+
+		@Override
+		public void endStream(List<? extends Header> trailers) {
+			ended = true;
+		}
+	}
+}
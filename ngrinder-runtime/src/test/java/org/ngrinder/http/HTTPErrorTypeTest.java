@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.junit.Test;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class HTTPErrorTypeTest {
+
+	@Test
+	public void testTimeoutDependsOnConnection() {
+		assertThat(HTTPErrorType.of(new SocketTimeoutException("timeout"), false), is(HTTPErrorType.CONNECT_TIMEOUT));
+		assertThat(HTTPErrorType.of(new SocketTimeoutException("timeout"), true), is(HTTPErrorType.READ_TIMEOUT));
+	}
+
+	@Test
+	public void testCauseOfExecutionException() {
+		assertThat(HTTPErrorType.of(new ExecutionException(new SSLHandshakeException("bad certificate")), true),
+			is(HTTPErrorType.TLS_FAILURE));
+	}
+
+	@Test
+	public void testConnectionErrors() {
+		assertThat(HTTPErrorType.of(new ConnectException("Connection refused"), false),
+			is(HTTPErrorType.CONNECTION_REFUSED));
+		assertThat(HTTPErrorType.of(new SocketException("Connection reset"), true), is(HTTPErrorType.CONNECTION_RESET));
+		assertThat(HTTPErrorType.of(new ConnectionClosedException(), true), is(HTTPErrorType.CONNECTION_RESET));
+	}
+
+	@Test
+	public void testUnknownHost() {
+		assertThat(HTTPErrorType.of(new UnknownHostException("unknown.invalid"), false), is(HTTPErrorType.UNKNOWN_HOST));
+		assertThat(HTTPErrorType.of(new ExecutionException(new UnresolvedAddressException()), false),
+			is(HTTPErrorType.UNKNOWN_HOST));
+	}
+}
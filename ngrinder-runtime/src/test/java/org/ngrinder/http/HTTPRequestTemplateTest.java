@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.client5.http.cookie.CookieOrigin;
+import org.apache.hc.client5.http.impl.cookie.BasicClientCookie;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ngrinder.http.cookie.ThreadContextCookieStore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HTTPRequestTemplateTest extends AbstractHTTPRequestTest {
+
+	private final HTTPRequest request = new HTTPRequest();
+
+	@Before
+	@After
+	public void clearCookies() {
+		ThreadContextCookieStore.INSTANCE.clear();
+	}
+
+	@Test
+	public void testTemplateIsResolvedOnce() {
+		HTTPRequestTemplate template = request.prepare("GET", url("/items"));
+		HttpHost httpHost = template.getHttpHost();
+		CookieOrigin cookieOrigin = template.getCookieOrigin();
+
+		assertThat(template.execute(singletonMap("id", "1")).getStatusCode(), is(200));
+		assertThat(template.execute(singletonMap("id", "2")).getStatusCode(), is(200));
+
+		assertThat(template.getHttpHost(), sameInstance(httpHost));
+		assertThat(template.getCookieOrigin(), sameInstance(cookieOrigin));
+		assertThat(cookieOrigin.getHost(), is("127.0.0.1"));
+		assertThat(cookieOrigin.getPath(), is("/items"));
+		assertThat(cookieOrigin.isSecure(), is(false));
+	}
+
+	@Test
+	public void testCookieOriginOfDefaultPort() {
+		CookieOrigin secureOrigin = request.prepare("GET", "https://example.com/secure").getCookieOrigin();
+		assertThat(secureOrigin.getPort(), is(443));
+		assertThat(secureOrigin.isSecure(), is(true));
+
+		CookieOrigin origin = request.prepare("GET", "http://example.com").getCookieOrigin();
+		assertThat(origin.getPort(), is(80));
+		assertThat(origin.getPath(), is("/"));
+		assertThat(origin.isSecure(), is(false));
+	}
+
+	@Test
+	public void testSecureCookieIsSentOnlyOverHttps() throws Exception {
+		BasicClientCookie cookie = new BasicClientCookie("session", "1");
+		cookie.setDomain("example.com");
+		cookie.setPath("/");
+		cookie.setSecure(true);
+		ThreadContextCookieStore.INSTANCE.addCookie(cookie);
+
+		HttpRequest secureRequest = getRequest(request.prepare("GET", "https://example.com/items"));
+		assertThat(secureRequest.getFirstHeader("Cookie").getValue(), is("session=1"));
+
+		HttpRequest plainRequest = getRequest(request.prepare("GET", "http://example.com/items"));
+		assertThat(plainRequest.getFirstHeader("Cookie"), nullValue());
+	}
+
+	@Test
+	public void testRepeatedCallsSendParamsAndCookies() {
+		HTTPRequestTemplate template = request.prepare("GET", url("/"));
+
+		assertThat(template.execute(singletonMap("setCookie", "a=1")).getBodyText(), is("setCookie=a%3D1|"));
+		assertThat(template.execute(singletonMap("id", "2")).getBodyText(), is("id=2|a=1"));
+
+		Map<String, String> params = new LinkedHashMap<>();
+		params.put("id", "3");
+		params.put("setCookie", "b=2");
+		assertThat(template.execute(params).getBodyText(), is("id=3&setCookie=b%3D2|a=1"));
+		assertThat(template.execute().getBodyText(), is("|a=1; b=2"));
+	}
+
+	@Test
+	public void testTemplateIsNotAffectedByLaterChangesOfRequest() {
+		HTTPRequestTemplate template = request.prepare("GET", url("/"));
+		request.setBodyDiscarded(true);
+		request.setKeptBodyBytes(0);
+		request.setBodyDigestAlgorithm("SHA-256");
+		request.setHeaders(singletonMap("Accept", "text/plain"));
+
+		HTTPResponse response = template.execute(singletonMap("id", "1"));
+
+		assertThat(response.getBodyText(), is("id=1|"));
+		assertThat(response.getBodyDigest(), nullValue());
+		assertThat(template.getHeaders().isEmpty(), is(true));
+
+		HTTPResponse discarded = request.prepare("GET", url("/")).execute();
+		assertThat(discarded.getBodyBytes().length, is(0));
+		assertThat(discarded.getBodyDigest(), notNullValue());
+	}
+
+	private static HttpRequest getRequest(HTTPRequestTemplate template) throws Exception {
+		AtomicReference<HttpRequest> sent = new AtomicReference<>();
+		template.createRequest(emptyList())
+			.sendRequest((httpRequest, entityDetails, context) -> sent.set(httpRequest), new BasicHttpContext());
+		return sent.get();
+	}
+}
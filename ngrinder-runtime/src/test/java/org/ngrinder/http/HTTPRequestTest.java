@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import net.grinder.script.InvalidContextException;
+import net.grinder.statistics.StatisticsIndexMap;
+import org.junit.Test;
+import org.ngrinder.statistics.ExtendedStatistics;
+import org.ngrinder.statistics.ExtendedStatisticsCollector;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class HTTPRequestTest extends AbstractHTTPRequestTest {
+
+	private final HTTPRequest request = new HTTPRequest();
+
+	@Test
+	public void testAwaitAllKeepsOrderOfRequests() {
+		// The first response arrives last.
+		List<CompletableFuture<HTTPResponse>> futures = Arrays.asList(
+			request.GETAsync(url("/first"), singletonMap("delay", "300")),
+			request.GETAsync(url("/second"), singletonMap("delay", "0")));
+
+		List<HTTPResponse> responses = HTTPRequest.awaitAll(futures);
+
+		assertThat(responses.size(), is(2));
+		assertThat(responses.get(0).getBodyText(), startsWith("delay=300|"));
+		assertThat(responses.get(1).getBodyText(), startsWith("delay=0|"));
+	}
+
+	@Test
+	public void testAwaitAllPropagatesFailure() throws IOException {
+		int closedPort;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			closedPort = socket.getLocalPort();
+		}
+		List<CompletableFuture<HTTPResponse>> futures = Arrays.asList(
+			request.GETAsync(url("/")),
+			request.GETAsync("http://127.0.0.1:" + closedPort + "/"));
+
+		try {
+			HTTPRequest.awaitAll(futures);
+			fail("The failure of the second request should be thrown");
+		} catch (RuntimeException e) {
+			assertThat(e.getCause(), instanceOf(ExecutionException.class));
+		}
+		assertThat(futures.get(0).join().getStatusCode(), is(200));
+		ExtendedStatistics statistics = ExtendedStatisticsCollector.INSTANCE.reset();
+		assertThat(statistics.getErrorTypeCounts(TEST_NUMBER),
+			hasEntry(HTTPErrorType.CONNECTION_REFUSED.getDisplayName(), 1L));
+	}
+
+	@Test
+	public void testUnknownHostIsRecorded() {
+		try {
+			request.GET("http://unknown-host.invalid/");
+			fail("The request to an unknown host should fail");
+		} catch (RuntimeException e) {
+			assertThat(e.getCause().getCause(), instanceOf(UnknownHostException.class));
+		}
+		ExtendedStatistics statistics = ExtendedStatisticsCollector.INSTANCE.reset();
+		assertThat(statistics.getErrorTypeCounts(TEST_NUMBER),
+			hasEntry(HTTPErrorType.UNKNOWN_HOST.getDisplayName(), 1L));
+	}
+
+	@Test
+	public void testResponseIsProcessedInVuserThread() throws Exception {
+		List<Thread> threads = new CopyOnWriteArrayList<>();
+		doAnswer(invocation -> threads.add(Thread.currentThread()))
+			.when(STATISTICS_FOR_TEST).setLong(anyString(), anyLong());
+
+		HTTPResponse response = request.GET(url("/"));
+
+		assertThat(response.getStatusCode(), is(200));
+		assertThat(threads, everyItem(sameInstance(Thread.currentThread())));
+		assertThat(threads.isEmpty(), is(false));
+	}
+
+	@Test
+	public void testStatisticsOfAsyncResponse() throws Exception {
+		HTTPResponse response = request.GETAsync(url("/")).get();
+
+		assertThat(response.getStatusCode(), is(200));
+		verify(STATISTICS_FOR_TEST).setLong(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_STATUS_KEY, 200);
+		verify(STATISTICS_FOR_TEST).addLong(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY,
+			response.getBodyLength());
+		assertThat(ExtendedStatisticsCollector.INSTANCE.reset().getStatusCodeCounts(TEST_NUMBER), hasEntry(200, 1L));
+	}
+
+	@Test
+	public void testResponseAfterTestIsReportedIsIgnored() throws Exception {
+		// The statistics of a test are frozen once the test returns and they are reported.
+		doThrow(new InvalidContextException("Statistics for test invocation have been reported"))
+			.when(STATISTICS_FOR_TEST).setLong(anyString(), anyLong());
+
+		HTTPResponse response = request.GETAsync(url("/")).get();
+
+		assertThat(response.getStatusCode(), is(200));
+		verify(STATISTICS_FOR_TEST, never()).addLong(anyString(), anyLong());
+		assertThat(ExtendedStatisticsCollector.INSTANCE.reset().getStatusCodeCounts(TEST_NUMBER).isEmpty(), is(true));
+	}
+}
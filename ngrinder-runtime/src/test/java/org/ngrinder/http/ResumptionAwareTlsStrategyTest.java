@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.reactor.ssl.SSLSessionInitializer;
+import org.apache.hc.core5.reactor.ssl.SSLSessionVerifier;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ResumptionAwareTlsStrategyTest {
+
+	@Test
+	public void testSessionIsInvalidatedAfterHandshakeWithoutResumption() throws Exception {
+		SSLSession session = handshake(false);
+
+		verify(session).invalidate();
+	}
+
+	@Test
+	public void testSessionIsKeptWithResumption() throws Exception {
+		SSLSession session = handshake(true);
+
+		verify(session, never()).invalidate();
+	}
+
+	private SSLSession handshake(boolean sessionResumption) throws Exception {
+		TlsStrategy delegate = mock(TlsStrategy.class);
+		TransportSecurityLayer sessionLayer = mock(TransportSecurityLayer.class);
+		HttpHost host = new HttpHost("https", "localhost", 443);
+		new ResumptionAwareTlsStrategy(delegate, sessionResumption).upgrade(sessionLayer, host, null, null, null, null);
+
+		ArgumentCaptor<TransportSecurityLayer> layer = ArgumentCaptor.forClass(TransportSecurityLayer.class);
+		verify(delegate).upgrade(layer.capture(), any(), any(), any(), any(), any());
+		layer.getValue().startTls(null, host, null, null, null, null);
+
+		ArgumentCaptor<SSLSessionInitializer> initializer = ArgumentCaptor.forClass(SSLSessionInitializer.class);
+		ArgumentCaptor<SSLSessionVerifier> verifier = ArgumentCaptor.forClass(SSLSessionVerifier.class);
+		verify(sessionLayer).startTls(any(), any(), any(), initializer.capture(), verifier.capture(), any());
+
+		SSLEngine sslEngine = mock(SSLEngine.class);
+		SSLSession session = mock(SSLSession.class);
+		when(sslEngine.getSession()).thenReturn(session);
+		when(session.getCreationTime()).thenReturn(System.currentTimeMillis());
+		initializer.getValue().initialize(host, sslEngine);
+		verifier.getValue().verify(host, sslEngine);
+		return session;
+	}
+}
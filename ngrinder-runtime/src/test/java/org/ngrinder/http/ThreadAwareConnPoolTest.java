@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import org.apache.hc.core5.io.ModalCloseable;
+import org.apache.hc.core5.pool.PoolEntry;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ThreadAwareConnPoolTest {
+
+	private final ThreadAwareConnPool<String, ModalCloseable> pool = new ThreadAwareConnPool<>();
+
+	@After
+	public void after() {
+		pool.clear();
+		HTTPRequestControl.setMaxIdlePerRoute(16);
+		HTTPRequestControl.setIdleTimeout(0);
+	}
+
+	@Test
+	public void testLeaseReusesConnectionOfSameRoute() throws Exception {
+		PoolEntry<String, ModalCloseable> first = leaseAndConnect("a.com");
+		pool.release(first, true);
+		leaseAndConnect("b.com");
+
+		PoolEntry<String, ModalCloseable> second = pool.lease("a.com", null, Timeout.DISABLED, null).get();
+
+		assertThat(second, sameInstance(first));
+		assertThat(pool.isLastLeaseReused(), is(true));
+		assertThat(pool.getAvailable().containsKey("a.com"), is(false));
+	}
+
+	@Test
+	public void testMaxIdlePerRoute() throws Exception {
+		HTTPRequestControl.setMaxIdlePerRoute(2);
+		long evictions = pool.getPoolStats().getEvictions();
+
+		PoolEntry<String, ModalCloseable> first = leaseAndConnect("a.com");
+		PoolEntry<String, ModalCloseable> second = leaseAndConnect("a.com");
+		PoolEntry<String, ModalCloseable> third = leaseAndConnect("a.com");
+		pool.release(first, true);
+		pool.release(second, true);
+		pool.release(third, true);
+
+		assertThat(pool.getAvailable().get("a.com").size(), is(2));
+		assertThat(pool.getPoolStats().getEvictions(), is(evictions + 1));
+	}
+
+	@Test
+	public void testIdleConnectionIsEvicted() throws Exception {
+		HTTPRequestControl.setIdleTimeout(1);
+		PoolEntry<String, ModalCloseable> first = leaseAndConnect("a.com");
+		pool.release(first, true);
+		Thread.sleep(10);
+
+		PoolEntry<String, ModalCloseable> second = pool.lease("a.com", null, Timeout.DISABLED, null).get();
+
+		assertThat(second, not(sameInstance(first)));
+		assertThat(pool.isLastLeaseReused(), is(false));
+	}
+
+	private PoolEntry<String, ModalCloseable> leaseAndConnect(String route) throws Exception {
+		PoolEntry<String, ModalCloseable> entry = pool.lease(route, null, Timeout.DISABLED, null).get();
+		entry.assignConnection(mock(ModalCloseable.class));
+		return entry;
+	}
+}
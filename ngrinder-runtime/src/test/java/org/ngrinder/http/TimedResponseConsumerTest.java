@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The time to first byte of each exchange is checked against the times the test observes itself, instead of a
+ * wall clock tolerance. A response can't arrive before the server sends it or after the vuser got it, and the
+ * server waits for the delay of the exchange before it sends the response.
+ * <p>
+ * The regular run takes {@link #VUSER_COUNT} vusers. The run at the scale of a test of {@link #SCALE_VUSER_COUNT}
+ * vusers opens as many connections and server threads, so it's run only when the {@link #SCALE_PROPERTY} system
+ * property is set, e.g. {@code -Dngrinder.test.scale=true}.
+ */
+public class TimedResponseConsumerTest {
+
+	private static final String SCALE_PROPERTY = "ngrinder.test.scale";
+	private static final int VUSER_COUNT = 100;
+	private static final int SCALE_VUSER_COUNT = 1000;
+	private static final int IO_THREAD_COUNT = 4;
+	private static final int DELAY_KINDS = 10;
+	private static final long DELAY_STEP = 10;
+
+	private final Map<Integer, Long> responseSentTimes = new ConcurrentHashMap<>();
+
+	private HttpServer server;
+	private ExecutorService serverExecutor;
+	private HTTPRequester requester;
+
+	@Before
+	public void before() throws Exception {
+		serverExecutor = Executors.newCachedThreadPool();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), SCALE_VUSER_COUNT);
+		server.createContext("/", exchange -> {
+			final Map<String, String> params = new HashMap<>();
+			for (String each : exchange.getRequestURI().getQuery().split("&")) {
+				params.put(each.substring(0, each.indexOf('=')), each.substring(each.indexOf('=') + 1));
+			}
+			try {
+				Thread.sleep(Long.parseLong(params.get("delay")));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			final byte[] body = "ok".getBytes();
+			responseSentTimes.put(Integer.parseInt(params.get("vuser")), System.nanoTime());
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.setExecutor(serverExecutor);
+		server.start();
+
+		HTTPRequestControl.setIoThreadCount(IO_THREAD_COUNT);
+		requester = new HTTPRequester.Builder().build();
+	}
+
+	@After
+	public void after() {
+		requester.close(CloseMode.IMMEDIATE);
+		HTTPRequester.reset();
+		HTTPRequestControl.setIoThreadCount(0);
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testTimeToFirstByteBeforeResponse() {
+		TimedResponseConsumer<Object> consumer = new TimedResponseConsumer<>(mockConsumer());
+		consumer.start();
+		assertThat(consumer.getTimeToFirstByte(), is(0L));
+	}
+
+	@Test
+	public void testTimeToFirstByteIsAttributedToEachVuser() throws Exception {
+		assertThat(runVusers(VUSER_COUNT), is(0));
+	}
+
+	@Test
+	public void testTimeToFirstByteIsAttributedToEachVuserAtScale() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean(SCALE_PROPERTY));
+		assertThat(runVusers(SCALE_VUSER_COUNT), is(0));
+	}
+
+	/**
+	 * Run the given number of vusers at once and get the number of vusers whose time to first byte isn't
+	 * the one of their own exchange.
+	 */
+	private int runVusers(int vuserCount) throws InterruptedException {
+		final HttpHost host = new HttpHost("http", "127.0.0.1", server.getAddress().getPort());
+		final CountDownLatch startGate = new CountDownLatch(1);
+		final AtomicInteger misattributed = new AtomicInteger();
+		final List<Thread> vusers = new ArrayList<>();
+
+		for (int i = 0; i < vuserCount; i++) {
+			final int vuser = i;
+			final long delay = (i % DELAY_KINDS) * DELAY_STEP;
+			Thread thread = new Thread(() -> {
+				try {
+					AsyncClientEndpoint endpoint = requester.connect(host, Timeout.ofSeconds(30)).get();
+					TimedResponseConsumer<Message<HttpResponse, String>> consumer =
+						new TimedResponseConsumer<>(new BasicResponseConsumer<>(new StringAsyncEntityConsumer()));
+					startGate.await();
+
+					consumer.start();
+					Message<HttpResponse, String> message = endpoint.execute(
+						new BasicRequestProducer("GET", URI.create(host.toURI() + "/?vuser=" + vuser + "&delay=" + delay)),
+						consumer, null).get(30, TimeUnit.SECONDS);
+					final long receivedTime = System.nanoTime();
+					endpoint.releaseAndDiscard();
+
+					final long firstByteTime = consumer.getFirstByteTime();
+					if (message.getHead().getCode() != 200
+						|| firstByteTime < responseSentTimes.get(vuser)
+						|| firstByteTime > receivedTime
+						|| consumer.getTimeToFirstByte() < delay) {
+						misattributed.incrementAndGet();
+					}
+				} catch (Exception e) {
+					misattributed.incrementAndGet();
+				}
+			});
+			thread.start();
+			vusers.add(thread);
+		}
+
+		startGate.countDown();
+		for (Thread thread : vusers) {
+			thread.join();
+		}
+		return misattributed.get();
+	}
+
+	@SuppressWarnings("unchecked")
+	private AsyncResponseConsumer<Object> mockConsumer() {
+		return mock(AsyncResponseConsumer.class);
+	}
+}
@@ -0,0 +1,68 @@
+package org.ngrinder.http.cookie;
+
+import org.apache.hc.client5.http.cookie.Cookie;
+import org.apache.hc.client5.http.impl.cookie.BasicClientCookie;
+import org.apache.hc.core5.http.Header;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class IndexedCookieStoreTest {
+
+	private final IndexedCookieStore cookieStore = new IndexedCookieStore();
+
+	@Test
+	public void testMatchParentDomainAndPath() {
+		cookieStore.addCookie(createCookie("session", "1", "example.com", "/", null));
+		cookieStore.addCookie(createCookie("cart", "2", "shop.example.com", "/cart", null));
+		cookieStore.addCookie(createCookie("other", "3", "other.com", "/", null));
+
+		assertThat(getCookieHeader("www.example.com", "/"), is("Cookie: session=1"));
+		assertThat(getCookieHeader("shop.example.com", "/cart/items"), is("Cookie: cart=2; session=1"));
+		assertThat(cookieStore.getCookieHeaders("example.org", 80, "/", false).isEmpty(), is(true));
+	}
+
+	@Test
+	public void testHeadersAreCachedUntilStoreChanges() {
+		cookieStore.addCookie(createCookie("session", "1", "example.com", "/", null));
+
+		List<Header> headers = cookieStore.getCookieHeaders("example.com", 80, "/", false);
+		assertThat(cookieStore.getCookieHeaders("example.com", 80, "/", false), sameInstance(headers));
+
+		cookieStore.addCookie(createCookie("session", "2", "example.com", "/", null));
+		assertThat(getCookieHeader("example.com", "/"), is("Cookie: session=2"));
+		assertThat(cookieStore.getCookies().size(), is(1));
+	}
+
+	@Test
+	public void testExpiredCookieIsPurged() throws InterruptedException {
+		cookieStore.addCookie(createCookie("session", "1", "example.com", "/", new Date(System.currentTimeMillis() + 20)));
+		cookieStore.addCookie(createCookie("lang", "en", "example.com", "/", null));
+		assertThat(getCookieHeader("example.com", "/"), is("Cookie: session=1; lang=en"));
+
+		Thread.sleep(50);
+
+		assertThat(getCookieHeader("example.com", "/"), is("Cookie: lang=en"));
+		assertThat(cookieStore.getCookies().size(), is(1));
+	}
+
+	private String getCookieHeader(String host, String path) {
+		Header header = cookieStore.getCookieHeaders(host, 80, path, false).get(0);
+		return header.getName() + ": " + header.getValue();
+	}
+
+	private Cookie createCookie(String name, String value, String domain, String path, Date expiryDate) {
+		BasicClientCookie cookie = new BasicClientCookie(name, value);
+		cookie.setDomain(domain);
+		cookie.setAttribute(Cookie.DOMAIN_ATTR, domain);
+		cookie.setPath(path);
+		cookie.setExpiryDate(expiryDate);
+		cookie.setCreationDate(new Date());
+		return cookie;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AgentStatisticsTest {
+
+	@Test
+	public void testAgentStatisticsAreMergedByAgent() {
+		ExtendedStatistics worker1 = new ExtendedStatistics();
+		worker1.addTestTimes(1, histogram(10, 100));
+		worker1.addAgentStatistics("agent1", 100, 1, 1000);
+		ExtendedStatistics worker2 = new ExtendedStatistics();
+		worker2.addTestTimes(1, histogram(30, 100));
+		worker2.addAgentStatistics("agent1", 100, 2, 3000);
+
+		ExtendedStatistics merged = new ExtendedStatistics();
+		merged.add(worker1);
+		merged.add(worker2);
+
+		AgentStatistics agent = merged.getAgentStatistics().get("agent1");
+		assertThat(agent.getTests(), is(200L));
+		assertThat(agent.getErrors(), is(3L));
+		assertThat(agent.getTps(2000), is(100.0));
+		assertThat(agent.getMeanTestTime(), is(20.0));
+		assertThat(agent.getTestTimePercentile(99), is(30L));
+	}
+
+	@Test
+	public void testStragglersDeviateFromMedian() {
+		Map<String, AgentStatistics> agents = new LinkedHashMap<>();
+		agents.put("agent1", agent(100, 10));
+		agents.put("agent2", agent(110, 12));
+		agents.put("agent3", agent(95, 11));
+		agents.put("slow", agent(100, 40));
+		agents.put("idle", agent(20, 10));
+
+		assertThat(AgentStatistics.findStragglers(agents, 0.5), contains("idle", "slow"));
+		assertThat(AgentStatistics.findStragglers(agents, 5), empty());
+	}
+
+	@Test
+	public void testNoStragglerWithTwoAgents() {
+		Map<String, AgentStatistics> agents = new LinkedHashMap<>();
+		agents.put("agent1", agent(100, 10));
+		agents.put("agent2", agent(10, 100));
+
+		assertThat(AgentStatistics.findStragglers(agents, 0.1), empty());
+	}
+
+	private static AgentStatistics agent(int tests, long testTime) {
+		AgentStatistics statistics = new AgentStatistics();
+		statistics.add(tests, 0, tests * testTime, histogram(testTime, tests));
+		return statistics;
+	}
+
+	private static LatencyHistogram histogram(long testTime, int count) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < count; i++) {
+			histogram.recordValue(testTime);
+		}
+		return histogram;
+	}
+}
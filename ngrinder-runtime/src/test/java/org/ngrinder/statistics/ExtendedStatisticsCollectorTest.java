@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.junit.Test;
+import org.ngrinder.http.HTTPErrorType;
+import org.ngrinder.http.HTTPPhase;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ExtendedStatisticsCollectorTest {
+
+	private final ExtendedStatisticsCollector collector = new ExtendedStatisticsCollector();
+
+	@Test
+	public void testMeanOfHTTPPhases() {
+		collector.recordHTTPPhases(1, phases(100, 0, 0, 0, 2000, 300));
+		collector.recordHTTPPhases(1, phases(300, 50, 150, 400, 4000, 100));
+		collector.recordHTTPPhases(2, phases(200, 0, 0, 0, 3000, 200));
+
+		ExtendedStatistics statistics = collector.reset();
+
+		assertThat(statistics.getMeanHTTPPhase(1, HTTPPhase.POOL_WAIT), is(200.0));
+		assertThat(statistics.getMeanHTTPPhase(1, HTTPPhase.TLS_HANDSHAKE), is(200.0));
+		assertThat(statistics.getMeanHTTPPhase(HTTPPhase.FIRST_BYTE), is(3000.0));
+		assertThat(statistics.getMeanHTTPPhase(HTTPPhase.DOWNLOAD), is(200.0));
+	}
+
+	@Test
+	public void testResetTakesOnlyNewRecords() {
+		collector.recordHTTPPhases(1, phases(100, 0, 0, 0, 2000, 300));
+		collector.reset();
+
+		ExtendedStatistics statistics = collector.reset();
+
+		assertThat(statistics.isEmpty(), is(true));
+		assertThat(statistics.getMeanHTTPPhase(HTTPPhase.FIRST_BYTE), nullValue());
+	}
+
+	@Test
+	public void testMergeReports() {
+		collector.recordHTTPPhases(1, phases(100, 10, 20, 30, 1000, 100));
+		ExtendedStatistics merged = collector.reset();
+		collector.recordHTTPPhases(1, phases(300, 30, 40, 50, 3000, 300));
+		merged.add(collector.reset());
+
+		assertThat(merged.getMeanHTTPPhase(1, HTTPPhase.DNS), is(20.0));
+		assertThat(merged.getMeanHTTPPhase(1, HTTPPhase.CONNECT), is(30.0));
+	}
+
+	@Test
+	public void testTlsResumptionRate() {
+		collector.recordTlsHandshake(false);
+		collector.recordTlsHandshake(true);
+		collector.recordTlsHandshake(true);
+		collector.recordTlsHandshake(true);
+
+		ExtendedStatistics statistics = collector.reset();
+
+		assertThat(statistics.getTlsResumptionRate(), is(0.75));
+		assertThat(collector.reset().getTlsResumptionRate(), nullValue());
+	}
+
+	@Test
+	public void testTestTimePercentiles() {
+		for (int i = 1; i <= 100; i++) {
+			collector.recordTestTime(1, i);
+			collector.recordTestTime(2, i * 2);
+		}
+
+		ExtendedStatistics statistics = collector.reset();
+
+		assertThat(statistics.getTestTimePercentile(1, 90), is(90L));
+		assertThat(statistics.getTestTimePercentile(2, 50), is(100L));
+		assertThat(statistics.getTestTimePercentile(50), is(67L));
+		assertThat(statistics.getSummary().get("Test time p99.9 (ms)"), is(200.0));
+		assertThat(collector.reset().getTestTimePercentile(99), nullValue());
+	}
+
+	@Test
+	public void testStatusCodesAndErrorTypes() {
+		for (int i = 0; i < 97; i++) {
+			collector.recordStatusCode(1, 200);
+		}
+		collector.recordStatusCode(1, 503);
+		collector.recordStatusCode(1, 503);
+		collector.recordStatusCode(2, 302);
+		collector.recordError(2, HTTPErrorType.READ_TIMEOUT);
+		ExtendedStatistics statistics = collector.reset();
+		collector.recordStatusCode(1, 503);
+		statistics.add(collector.reset());
+
+		assertThat(statistics.getStatusCodeCounts(), is(buildMap(200, 97L, 302, 1L, 503, 3L)));
+		assertThat(statistics.getStatusCodeCounts(2), is(buildMap(302, 1L)));
+		assertThat(statistics.getErrorTypeCounts(2), hasEntry("Read timeout errors", 1L));
+		assertThat(statistics.getErrorTypeCounts(1).isEmpty(), is(true));
+
+		Map<String, Double> summary = statistics.getSummary();
+		assertThat(summary.get("HTTP 5xx responses"), is(3.0));
+		assertThat(summary.get("HTTP 4xx responses"), is(0.0));
+		assertThat(summary.get("Connect timeout errors"), is(0.0));
+		assertThat(summary.get("Read timeout errors"), is(1.0));
+		assertThat(collector.reset().getSummary().get("HTTP 2xx responses"), nullValue());
+	}
+
+	@Test
+	public void testRunningThreadsOfLatestReport() {
+		ExtendedStatistics statistics = collector.reset();
+		assertThat(statistics.isEmpty(), is(true));
+		statistics.setRunningThreads("agent-0", 40000);
+		ExtendedStatistics later = collector.reset();
+		later.setRunningThreads("agent-0", 35000);
+		later.setRunningThreads("agent-1", 33000);
+
+		ExtendedStatistics merged = new ExtendedStatistics();
+		merged.add(statistics);
+		merged.add(later);
+
+		Map<String, Integer> expected = new TreeMap<>();
+		expected.put("agent-0", 35000);
+		expected.put("agent-1", 33000);
+		assertThat(merged.isEmpty(), is(false));
+		assertThat(merged.getRunningThreads(), is(expected));
+	}
+
+	@Test
+	public void testConnectionPoolCounts() {
+		assertThat(collector.reset().getSummary().get("Connection reuse rate"), nullValue());
+
+		collector.recordConnectionLease(true);
+		collector.recordConnectionLease(true);
+		collector.recordConnectionLease(true);
+		collector.recordConnectionLease(false);
+		collector.recordConnectionOpened(1);
+		collector.recordConnectionOpened(2);
+		collector.recordConnectionOpened(2);
+		collector.recordConnectionEviction();
+		ExtendedStatistics statistics = collector.reset();
+		statistics.add(collector.reset());
+
+		assertThat(statistics.getConnectionReuseRate(), is(0.75));
+		assertThat(statistics.getOpenedConnections(2), is(2L));
+		assertThat(statistics.getOpenedConnections(3), is(0L));
+		Map<String, Double> summary = statistics.getSummary();
+		assertThat(summary.get("Opened connections"), is(3.0));
+		assertThat(summary.get("Evicted connections"), is(1.0));
+		assertThat(collector.reset().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testResponseTimeOfScheduledIteration() {
+		collector.recordTestTime(1, 10);
+		collector.beginScheduledIteration(500);
+		collector.recordTestTime(1, 10);
+		collector.recordTestTime(2, 30);
+		collector.endScheduledIteration();
+		collector.recordTestTime(2, 30);
+		ExtendedStatistics statistics = collector.reset();
+
+		assertThat(statistics.getMeanResponseTime(1), is(510.0));
+		// Values above 255 ms are kept in buckets of 2 ms.
+		assertThat(statistics.getResponseTimePercentile(2, 99), is(531L));
+		assertThat(statistics.getTestTimePercentile(2, 99), is(30L));
+		Map<String, Double> summary = statistics.getSummary();
+		assertThat(summary.get(ExtendedStatistics.MEAN_RESPONSE_TIME), is(520.0));
+		assertThat(summary.get("Response time p50 (ms)"), is(511.0));
+		assertThat(collector.reset().getSummary().get(ExtendedStatistics.MEAN_RESPONSE_TIME), nullValue());
+	}
+
+	@Test
+	public void testResponseTimeOfDroppedIterations() {
+		collector.recordDroppedIterations(2, TimeUnit.MILLISECONDS.toNanos(100));
+		collector.beginScheduledIteration(50);
+		collector.recordTestTime(1, 10);
+		collector.endScheduledIteration();
+		// The backlog is taken by one iteration only.
+		collector.beginScheduledIteration(50);
+		collector.recordTestTime(2, 10);
+		collector.endScheduledIteration();
+		ExtendedStatistics statistics = collector.reset();
+
+		assertThat(statistics.getDroppedIterations(), is(2L));
+		// 60, 160 and 260 ms
+		assertThat(statistics.getMeanResponseTime(1), is(160.0));
+		assertThat(statistics.getResponseTimePercentile(1, 99), is(261L));
+		assertThat(statistics.getMeanResponseTime(2), is(60.0));
+	}
+
+	@Test
+	public void testResponseTimeOfLongBacklog() {
+		// 1.5 ms apart, so the slots don't line up with the buckets.
+		final long periodNanos = TimeUnit.MICROSECONDS.toNanos(1500);
+		final int dropped = 100_000;
+		final LatencyHistogram expected = new LatencyHistogram();
+		for (long i = 0; i <= dropped; i++) {
+			expected.recordValue(5 + TimeUnit.NANOSECONDS.toMillis(i * periodNanos));
+		}
+		collector.recordDroppedIterations(dropped, periodNanos);
+		collector.beginScheduledIteration(0);
+		collector.recordTestTime(1, 5);
+		collector.endScheduledIteration();
+		ExtendedStatistics statistics = collector.reset();
+
+		for (int percentile = 1; percentile <= 100; percentile++) {
+			assertThat(statistics.getResponseTimePercentile(1, percentile), is(expected.getValueAtPercentile(percentile)));
+		}
+		assertThat(statistics.getMeanResponseTime(1), is(75005.0));
+	}
+
+	private static Map<Integer, Long> buildMap(Object... keyValues) {
+		Map<Integer, Long> map = new TreeMap<>();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			map.put((Integer) keyValues[i], (Long) keyValues[i + 1]);
+		}
+		return map;
+	}
+
+	private static long[] phases(long... nanos) {
+		return nanos;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2012-present NAVER Corp.
+ *
+ * This file is part of The nGrinder software distribution. Refer to
+ * the file LICENSE which is part of The nGrinder distribution for
+ * licensing details. The nGrinder distribution is available on the
+ * Internet at https://naver.github.io/ngrinder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testSmallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.recordValue(i);
+		}
+
+		assertThat(histogram.getValueAtPercentile(50), is(50L));
+		assertThat(histogram.getValueAtPercentile(99), is(99L));
+		assertThat(histogram.getValueAtPercentile(100), is(100L));
+		assertThat(histogram.getTotalCount(), is(100L));
+	}
+
+	@Test
+	public void testLargeValuesKeepTwoSignificantDigits() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 999; i++) {
+			histogram.recordValue(10);
+		}
+		histogram.recordValue(123_456);
+
+		assertThat(histogram.getValueAtPercentile(99.9), is(10L));
+		assertThat((double) histogram.getValueAtPercentile(100), closeTo(123_456, 123_456 * 0.01));
+
+		histogram.recordValue(LatencyHistogram.MAX_VALUE * 2);
+		assertThat(histogram.getValueAtPercentile(100), is(LatencyHistogram.MAX_VALUE));
+	}
+
+	@Test
+	public void testMergeAndSerialize() throws Exception {
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		for (int i = 0; i < 90; i++) {
+			first.recordValue(5);
+		}
+		for (int i = 0; i < 10; i++) {
+			second.recordValue(500);
+		}
+		first.add(second);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(first);
+		}
+		LatencyHistogram copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (LatencyHistogram) in.readObject();
+		}
+
+		assertThat(bytes.size(), lessThan(256));
+		assertThat(copy.getTotalCount(), is(100L));
+		assertThat(copy.getValueAtPercentile(90), is(5L));
+		assertThat((double) copy.getValueAtPercentile(95), closeTo(500, 5));
+		assertThat(new LatencyHistogram().getValueAtPercentile(50), nullValue());
+	}
+}